@@ -0,0 +1,64 @@
+package com.messmanagement.benchmark;
+
+import com.messmanagement.auth.filter.JwtAuthenticationFilter;
+import com.messmanagement.auth.util.JwtUtil;
+import com.messmanagement.user.service.UserServiceImpl;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JwtAuthenticationFilter per request, for a current access token (principal built from the uid/role
+ * claims) and for a token without those claims (falls back to a user lookup by email).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@Threads(4)
+public class JwtFilterBenchmark {
+
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> { };
+
+    private JwtAuthenticationFilter filter;
+    private String claimsToken;
+    private String legacyToken;
+
+    @Setup(Level.Trial)
+    public void setUp(SeededApplication app) {
+        filter = app.bean(JwtAuthenticationFilter.class);
+        JwtUtil jwtUtil = app.bean(JwtUtil.class);
+        String email = SeededApplication.studentEmail(app.students / 2);
+        claimsToken = jwtUtil.generateAccessToken(app.bean(UserServiceImpl.class).loadUserByUsername(email));
+        legacyToken = jwtUtil.generateAccessToken(new User(email, "", List.of()));
+    }
+
+    @Benchmark
+    public Object claimsToken() throws Exception {
+        return authenticate(claimsToken);
+    }
+
+    @Benchmark
+    public Object legacyTokenLookup() throws Exception {
+        return authenticate(legacyToken);
+    }
+
+    private Object authenticate(String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/users/me");
+        request.addHeader("Authorization", "Bearer " + token);
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(), NO_OP_CHAIN);
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.messmanagement.benchmark;
+
+import com.messmanagement.auth.security.AuthenticatedUser;
+import com.messmanagement.auth.util.JwtUtil;
+import com.messmanagement.user.entity.Role;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request token handling in JwtAuthenticationFilter, before and after JwtUtil precomputed its key and parser.
+ *
+ * legacyFilterPath mirrors the old filter: extractUsername, then validateToken (which parsed again and
+ * once more for the expiry), each parse re-deriving the HMAC key and building a new parser.
+ * parsedTokenPath is the current single parse with the shared parser.
+ *
+ * Runs with 4 threads to approximate concurrent requests. Allocation per operation is reported by the
+ * gc profiler (enabled by default in the benchmarks profile):
+ *   mvn -Pbenchmarks test-compile exec:exec -Djmh.args="JwtUtilBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class JwtUtilBenchmark {
+
+    private static final String SECRET = "benchmark-secret-that-is-at-least-32-bytes-long";
+
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secretKeyString", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "accessTokenExpirationMs", TimeUnit.HOURS.toMillis(1));
+        ReflectionTestUtils.setField(jwtUtil, "refreshTokenExpirationMs", TimeUnit.DAYS.toMillis(7));
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init"); // The @PostConstruct hook is package-private
+        token = jwtUtil.generateAccessToken(new AuthenticatedUser(42L, "student@example.com", Role.STUDENT, null));
+    }
+
+    @Benchmark
+    public void legacyFilterPath(Blackhole bh) {
+        String username = legacyParse(token).getSubject();
+        Claims validated = legacyParse(token);
+        boolean valid = username.equals(validated.getSubject()) && !legacyParse(token).getExpiration().before(new Date());
+        bh.consume(valid);
+    }
+
+    @Benchmark
+    public void parsedTokenPath(Blackhole bh) {
+        bh.consume(jwtUtil.parse(token));
+    }
+
+    private static Claims legacyParse(String token) {
+        Key key = Keys.hmacShaKeyFor(SECRET.getBytes());
+        return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+    }
+}
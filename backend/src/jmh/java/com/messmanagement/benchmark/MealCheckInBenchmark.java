@@ -0,0 +1,74 @@
+package com.messmanagement.benchmark;
+
+import com.messmanagement.mealentry.dto.MealEntryRequestDTO;
+import com.messmanagement.mealentry.service.MealEntitlementIndex;
+import com.messmanagement.mealentry.service.MealEntryService;
+import com.messmanagement.menu.entity.MealType;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * MealEntryServiceImpl.markMealEntry under concurrent check-ins (accepted path, including the
+ * write-behind commit wait), and the duplicate-rejection path.
+ *
+ * Every (student, meal) slot can be accepted once per day, so today's entries are deleted and the
+ * entitlement index is rebuilt before each iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class MealCheckInBenchmark {
+
+    private static final MealType[] MEAL_TYPES = MealType.values();
+
+    private MealEntryService mealEntryService;
+    private final AtomicInteger nextSlot = new AtomicInteger();
+    private int slots;
+
+    @Setup(Level.Trial)
+    public void setUp(SeededApplication app) {
+        mealEntryService = app.bean(MealEntryService.class);
+        slots = app.students * MEAL_TYPES.length;
+    }
+
+    @Setup(Level.Iteration)
+    public void clearToday(SeededApplication app) {
+        JdbcTemplate jdbc = app.bean(JdbcTemplate.class);
+        jdbc.update("DELETE FROM meal_entries WHERE entry_date = ?", Date.valueOf(app.today));
+        jdbc.update("DELETE FROM meal_count_rollups WHERE rollup_date = ?", Date.valueOf(app.today));
+        app.bean(MealEntitlementIndex.class).warmUp();
+        nextSlot.set(0);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Object acceptCheckIn() {
+        // Wraps around (and starts measuring rejections) only if an iteration exceeds students x 3 check-ins.
+        int slot = nextSlot.getAndIncrement() % slots;
+        return checkIn(slot / MEAL_TYPES.length, MEAL_TYPES[slot % MEAL_TYPES.length]);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Object rejectDuplicate() {
+        try {
+            return checkIn(0, MealType.BREAKFAST);
+        } catch (IllegalStateException alreadyMarked) {
+            return alreadyMarked;
+        }
+    }
+
+    private Object checkIn(int student, MealType mealType) {
+        MealEntryRequestDTO request = new MealEntryRequestDTO();
+        request.setMessProvidedUserId(SeededApplication.studentMessId(student));
+        request.setMealType(mealType);
+        return mealEntryService.markMealEntry(SeededApplication.studentEmail(student), request);
+    }
+}
@@ -0,0 +1,48 @@
+package com.messmanagement.benchmark;
+
+import com.messmanagement.menu.service.MenuService;
+import com.messmanagement.menu.service.WeeklyMenuCache;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MenuServiceImpl.getMenuForDateRange: a cached ISO week, a week rebuilt after invalidation,
+ * and an arbitrary (uncached) 30-day range.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class MenuBenchmark {
+
+    private MenuService menuService;
+    private WeeklyMenuCache weeklyMenuCache;
+    private LocalDate monday;
+
+    @Setup(Level.Trial)
+    public void setUp(SeededApplication app) {
+        menuService = app.bean(MenuService.class);
+        weeklyMenuCache = app.bean(WeeklyMenuCache.class);
+        monday = WeeklyMenuCache.weekStart(app.today);
+    }
+
+    @Benchmark
+    public Object cachedWeek() {
+        return menuService.getMenuForDateRange(monday, monday.plusDays(6));
+    }
+
+    @Benchmark
+    public Object rebuiltWeek() {
+        weeklyMenuCache.invalidateRange(monday, monday.plusDays(6)); // No transaction: applied immediately
+        return menuService.getMenuForDateRange(monday, monday.plusDays(6));
+    }
+
+    @Benchmark
+    public Object uncachedMonthRange() {
+        return menuService.getMenuForDateRange(monday.minusDays(15), monday.plusDays(14));
+    }
+}
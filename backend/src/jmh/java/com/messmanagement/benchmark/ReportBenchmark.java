@@ -0,0 +1,61 @@
+package com.messmanagement.benchmark;
+
+import com.messmanagement.report.service.ReportService;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ReportServiceImpl aggregates behind the admin dashboard.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class ReportBenchmark {
+
+    private ReportService reportService;
+    private LocalDate yesterday;
+    private LocalDate yearAgo;
+
+    @Setup(Level.Trial)
+    public void setUp(SeededApplication app) {
+        reportService = app.bean(ReportService.class);
+        yesterday = app.today.minusDays(1);
+        yearAgo = app.today.minusDays(app.days);
+    }
+
+    @Benchmark
+    public long totalStudentCount() {
+        return reportService.getTotalStudentCount();
+    }
+
+    @Benchmark
+    public long activeSubscriptionCount() {
+        return reportService.getActiveSubscriptionCount();
+    }
+
+    @Benchmark
+    public long dailyMealCount() {
+        return reportService.getMealEntriesCountForDate(yesterday);
+    }
+
+    @Benchmark
+    public Object weeklyMealBreakdown() {
+        return reportService.getWeeklyMealBreakdown(yesterday);
+    }
+
+    @Benchmark
+    public Object monthlyMealBreakdown() {
+        return reportService.getMonthlyMealBreakdown(YearMonth.from(yesterday));
+    }
+
+    @Benchmark
+    public Object yearSalesSummary() {
+        return reportService.getSalesSummary(yearAgo, yesterday);
+    }
+}
@@ -0,0 +1,174 @@
+package com.messmanagement.benchmark;
+
+import com.messmanagement.MessManagementSystemApplication;
+import com.messmanagement.mealentry.service.MealEntitlementIndex;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Boots the full application on a private in-memory H2 database and seeds it with realistic volumes.
+ *
+ * Defaults follow a typical mess: 5k students with a year of history (about 60% of meals attended),
+ * monthly subscriptions, 200 menu items and a weekly menu that changed mid-year. Seeding goes through
+ * JDBC batches; the meal-count rollups and the entitlement index are then rebuilt from the seeded rows.
+ *
+ * Every benchmark fork seeds its own copy. For a quick run use smaller volumes, e.g.
+ *   -Djmh.args="-p students=500 -p days=30"
+ */
+@State(Scope.Benchmark)
+public class SeededApplication {
+
+    private static final int JDBC_BATCH = 5_000;
+    private static final String STUDENT_PASSWORD = "benchmark-password";
+
+    @Param("5000")
+    public int students;
+
+    @Param("365")
+    public int days;
+
+    @Param("200")
+    public int menuItems;
+
+    @Param("60")
+    public int attendancePercent;
+
+    public ConfigurableApplicationContext context;
+    public LocalDate today;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(MessManagementSystemApplication.class)
+                .profiles("dev")
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.show-sql=false",
+                        "spring.main.banner-mode=off",
+                        "server.port=0",
+                        "logging.level.root=WARN")
+                .run();
+        today = LocalDate.now();
+        seed();
+        // Both are normally built before the data above existed (by the V11 migration and at startup).
+        bean(JdbcTemplate.class).update("INSERT INTO meal_count_rollups (rollup_date, meal_type, entry_count) "
+                + "SELECT entry_date, meal_type, COUNT(*) FROM meal_entries GROUP BY entry_date, meal_type");
+        context.getBean(MealEntitlementIndex.class).warmUp();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public static String studentEmail(int index) {
+        return "student" + index + "@bench.local";
+    }
+
+    public static String studentMessId(int index) {
+        return "MESS" + index;
+    }
+
+    private void seed() {
+        JdbcTemplate jdbc = bean(JdbcTemplate.class);
+        String passwordHash = bean(PasswordEncoder.class).encode(STUDENT_PASSWORD);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < students; i++) {
+            rows.add(new Object[]{"Student " + i, "9" + String.format("%09d", i), studentEmail(i), "Hostel block " + (i % 20),
+                    passwordHash, "STUDENT", studentMessId(i), now, now});
+        }
+        batch(jdbc, "INSERT INTO users (name, mobile_no, email, address, password_hash, role, mess_provided_user_id, created_at, updated_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", rows);
+        List<Long> userIds = jdbc.queryForList("SELECT user_id FROM users WHERE role = 'STUDENT' ORDER BY user_id", Long.class);
+
+        // One subscription per student per month of history; the latest one covers today.
+        LocalDate start = today.minusDays(days);
+        for (int i = 0; i < userIds.size(); i++) {
+            for (LocalDate periodStart = start; !periodStart.isAfter(today); periodStart = periodStart.plusMonths(1)) {
+                LocalDate periodEnd = periodStart.plusMonths(1).minusDays(1);
+                boolean current = !periodEnd.isBefore(today);
+                rows.add(new Object[]{userIds.get(i), Date.valueOf(periodStart), Date.valueOf(periodEnd),
+                        current ? "ACTIVE" : "EXPIRED", new BigDecimal("3500.00"), "sub_bench_" + i + "_" + periodStart,
+                        Timestamp.valueOf(periodStart.atStartOfDay()), now});
+            }
+        }
+        batch(jdbc, "INSERT INTO subscriptions (user_id, start_date, end_date, status, amount_paid, stripe_subscription_id, created_at, updated_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)", rows);
+
+        String[] categories = {"BREAKFAST", "LUNCH", "DINNER", "SPECIAL"};
+        for (int i = 0; i < menuItems; i++) {
+            rows.add(new Object[]{"Item " + i, "Benchmark dish " + i, new BigDecimal(20 + i % 80), categories[i % categories.length], true, now, now});
+        }
+        batch(jdbc, "INSERT INTO menu_items (name, description, price, category, is_available, created_at, updated_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?)", rows);
+        List<Long> itemIds = jdbc.queryForList("SELECT item_id FROM menu_items ORDER BY item_id", Long.class);
+
+        // Four items per meal slot; the whole menu was replaced halfway through the year.
+        LocalDate midYear = start.plusDays(days / 2);
+        String[] mealTypes = {"BREAKFAST", "LUNCH", "DINNER"};
+        int slot = 0;
+        for (DayOfWeek day : DayOfWeek.values()) {
+            for (String mealType : mealTypes) {
+                for (int k = 0; k < 4; k++, slot++) {
+                    rows.add(new Object[]{day.name(), mealType, itemIds.get(slot % itemIds.size()), Date.valueOf(start), Date.valueOf(midYear.minusDays(1))});
+                    rows.add(new Object[]{day.name(), mealType, itemIds.get((slot + 100) % itemIds.size()), Date.valueOf(midYear), null});
+                }
+            }
+        }
+        batch(jdbc, "INSERT INTO weekly_menu_config (day_of_week, meal_type, item_id, effective_date_start, effective_date_end) "
+                + "VALUES (?, ?, ?, ?, ?)", rows);
+
+        // Meal history up to yesterday; today starts empty so check-in benchmarks have free slots.
+        long entryId = 0;
+        for (LocalDate date = start; date.isBefore(today); date = date.plusDays(1)) {
+            for (int i = 0; i < userIds.size(); i++) {
+                for (int m = 0; m < mealTypes.length; m++) {
+                    if (Math.floorMod((i * 31 + m * 17 + date.getDayOfYear() * 7), 100) < attendancePercent) {
+                        rows.add(new Object[]{++entryId, userIds.get(i), mealTypes[m], Date.valueOf(date), Time.valueOf(LocalTime.of(8 + m * 5, i % 60))});
+                        if (rows.size() == JDBC_BATCH) {
+                            batch(jdbc, "INSERT INTO meal_entries (entry_id, user_id, meal_type, entry_date, entry_time) VALUES (?, ?, ?, ?, ?)", rows);
+                        }
+                    }
+                }
+            }
+        }
+        batch(jdbc, "INSERT INTO meal_entries (entry_id, user_id, meal_type, entry_date, entry_time) VALUES (?, ?, ?, ?, ?)", rows);
+        // The pooled optimizer treats each sequence value as the top of a block of 50, so leave that much headroom.
+        jdbc.execute("ALTER SEQUENCE meal_entries_seq RESTART WITH " + (entryId + 100));
+
+        // A few dish purchases per student.
+        for (int i = 0; i < userIds.size() * 4; i++) {
+            LocalDate date = start.plusDays(i % Math.max(days, 1));
+            rows.add(new Object[]{userIds.get(i % userIds.size()), itemIds.get(i % itemIds.size()), 1 + i % 3,
+                    new BigDecimal(40 + i % 100), Timestamp.valueOf(date.atTime(13, 0)), "pi_bench_" + i});
+        }
+        batch(jdbc, "INSERT INTO purchases (user_id, item_id, quantity, total_amount, purchase_date, payment_transaction_id) "
+                + "VALUES (?, ?, ?, ?, ?, ?)", rows);
+    }
+
+    private static void batch(JdbcTemplate jdbc, String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += JDBC_BATCH) {
+            jdbc.batchUpdate(sql, rows.subList(from, Math.min(rows.size(), from + JDBC_BATCH)));
+        }
+        rows.clear();
+    }
+}
@@ -0,0 +1,72 @@
+package com.messmanagement.benchmark;
+
+import com.messmanagement.mealentry.service.MealEntitlementIndex;
+import com.messmanagement.mealentry.service.MealEntryBatchWriter;
+import com.messmanagement.menu.entity.MealType;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the benchmark fixture seeds a consistent database, using small volumes.
+ * Runs with the benchmarks profile: mvn -Pbenchmarks test -Dtest=SeededApplicationTest
+ */
+class SeededApplicationTest {
+
+    private static SeededApplication app;
+    private static JdbcTemplate jdbc;
+
+    @BeforeAll
+    static void seed() {
+        app = new SeededApplication();
+        app.students = 20;
+        app.days = 40;
+        app.menuItems = 30;
+        app.attendancePercent = 60;
+        app.start();
+        jdbc = app.bean(JdbcTemplate.class);
+    }
+
+    @AfterAll
+    static void stop() {
+        app.stop();
+    }
+
+    @Test
+    void rollupsMatchTheSeededEntries() {
+        Long entries = jdbc.queryForObject("SELECT COUNT(*) FROM meal_entries", Long.class);
+        Long counted = jdbc.queryForObject("SELECT SUM(entry_count) FROM meal_count_rollups", Long.class);
+
+        assertThat(entries).isPositive();
+        assertThat(counted).isEqualTo(entries);
+    }
+
+    @Test
+    void everyStudentIsEntitledToday() {
+        MealEntitlementIndex index = app.bean(MealEntitlementIndex.class);
+        List<Long> userIds = jdbc.queryForList("SELECT user_id FROM users WHERE role = 'STUDENT'", Long.class);
+
+        assertThat(userIds).hasSize(app.students);
+        assertThat(userIds).allMatch(userId -> index.hasActiveSubscription(userId, app.today));
+    }
+
+    @Test
+    void checkInsAfterSeedingGetFreshEntryIds() throws Exception {
+        Long userId = jdbc.queryForObject("SELECT MIN(user_id) FROM users WHERE role = 'STUDENT'", Long.class);
+
+        Long entryId = app.bean(MealEntryBatchWriter.class)
+                .writeBatch(List.of(userId), MealType.BREAKFAST, app.today, LocalTime.of(8, 0))
+                .get(0).get(10, TimeUnit.SECONDS);
+
+        assertThat(entryId).isGreaterThan(jdbc.queryForObject("SELECT MAX(entry_id) FROM meal_entries WHERE entry_date < ?",
+                Long.class, Date.valueOf(app.today)));
+    }
+}
@@ -2,17 +2,16 @@ package com.messmanagement.auth.filter;
 
 import java.io.IOException;
 
-import org.springframework.context.annotation.Lazy;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.web.authentication.WebAuthenticationDetailsSource; // Import @Lazy
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.messmanagement.auth.security.AuthenticatedUser;
+import com.messmanagement.auth.security.JwtPrincipalResolver;
 import com.messmanagement.auth.util.JwtUtil;
-import com.messmanagement.user.service.UserServiceImpl;
 
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -23,12 +22,11 @@ import jakarta.servlet.http.HttpServletResponse;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
-    private final UserServiceImpl userDetailsService; // Will be lazily injected
+    private final JwtPrincipalResolver principalResolver;
 
-    // Manually create constructor to use @Lazy
-    public JwtAuthenticationFilter(JwtUtil jwtUtil, @Lazy UserServiceImpl userDetailsService) {
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, JwtPrincipalResolver principalResolver) {
         this.jwtUtil = jwtUtil;
-        this.userDetailsService = userDetailsService;
+        this.principalResolver = principalResolver;
     }
 
     @Override
@@ -40,7 +38,6 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         final String authHeader = request.getHeader("Authorization");
         final String jwt;
-        final String userEmail;
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response);
@@ -49,16 +46,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         jwt = authHeader.substring(7);
         try {
-            userEmail = jwtUtil.extractUsername(jwt);
+            if (SecurityContextHolder.getContext().getAuthentication() == null) {
+                // Single parse: signature and expiry are checked here
+                AuthenticatedUser principal = principalResolver.resolve(jwtUtil.parse(jwt));
 
-            if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail); // Lazy dependency resolved here
-
-                if (jwtUtil.validateToken(jwt, userDetails)) {
+                if (principal != null) {
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            userDetails,
+                            principal,
                             null,
-                            userDetails.getAuthorities()
+                            principal.getAuthorities()
                     );
                     authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(authToken);
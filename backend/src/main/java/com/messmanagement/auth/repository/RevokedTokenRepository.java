@@ -1,9 +1,13 @@
 package com.messmanagement.auth.repository;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.messmanagement.auth.entity.RevokedToken;
@@ -12,5 +16,9 @@ import com.messmanagement.auth.entity.RevokedToken;
 public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long> {
     Optional<RevokedToken> findByJti(String jti);
     boolean existsByJti(String jti);
-    void deleteByExpiryDateBefore(Instant now); // For cleanup
+    void deleteByExpiryDateBefore(Instant now); // For cleanup; loads every match, prefer the batched purge in RevokedTokenStore
+    List<RevokedToken> findByExpiryDateAfter(Instant now); // Still-relevant revocations, loaded at startup
+
+    @Query("SELECT t.id FROM RevokedToken t WHERE t.expiryDate < :cutoff ORDER BY t.id")
+    List<Long> findExpiredIds(@Param("cutoff") Instant cutoff, Pageable pageable);
 }
\ No newline at end of file
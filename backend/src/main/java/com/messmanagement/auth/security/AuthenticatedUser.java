@@ -0,0 +1,60 @@
+package com.messmanagement.auth.security;
+
+import com.messmanagement.user.entity.Role;
+import com.messmanagement.user.entity.User;
+import lombok.Getter;
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Security principal for an authenticated user.
+ *
+ * Built from the database at login (with the password hash, which Spring Security erases after
+ * authentication) and from the "uid"/"role" claims of an access token on every other request.
+ */
+@Getter
+public class AuthenticatedUser implements UserDetails, CredentialsContainer {
+
+    private final Long userId;
+    private final String email;
+    private final Role role;
+    private final List<GrantedAuthority> authorities;
+    private String passwordHash;
+
+    public AuthenticatedUser(Long userId, String email, Role role, String passwordHash) {
+        this.userId = userId;
+        this.email = email;
+        this.role = role;
+        this.authorities = List.of(new SimpleGrantedAuthority("ROLE_" + role.name()));
+        this.passwordHash = passwordHash;
+    }
+
+    public static AuthenticatedUser from(User user) {
+        return new AuthenticatedUser(user.getUserId(), user.getEmail(), user.getRole(), user.getPasswordHash());
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public String getPassword() {
+        return passwordHash;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public void eraseCredentials() {
+        passwordHash = null;
+    }
+}
@@ -0,0 +1,67 @@
+package com.messmanagement.auth.security;
+
+import com.messmanagement.auth.util.JwtUtil.ParsedToken;
+import com.messmanagement.common.cache.BoundedTtlCache;
+import com.messmanagement.common.transaction.Transactions;
+import com.messmanagement.user.entity.Role;
+import com.messmanagement.user.entity.User;
+import com.messmanagement.user.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Turns the claims of a verified access token into the request's principal.
+ *
+ * By default the principal is built from the token alone ("uid" and "role" claims), so a role
+ * change or account deletion takes effect when the user's access token expires. Deployments that
+ * need changes to apply sooner can enable mess.security.principal-cache, which loads the user by
+ * ID and keeps it for a short TTL; UserServiceImpl evicts entries when a user changes.
+ * Tokens issued without the claims fall back to a lookup by email.
+ */
+@Component
+public class JwtPrincipalResolver {
+
+    private final UserRepository userRepository;
+    private final BoundedTtlCache<Long, AuthenticatedUser> principalCache; // null when the cache is disabled
+
+    public JwtPrincipalResolver(UserRepository userRepository,
+                                @Value("${mess.security.principal-cache.enabled:false}") boolean cacheEnabled,
+                                @Value("${mess.security.principal-cache.ttl-ms:30000}") long cacheTtlMs,
+                                @Value("${mess.security.principal-cache.max-size:10000}") int cacheMaxSize) {
+        this.userRepository = userRepository;
+        this.principalCache = cacheEnabled ? new BoundedTtlCache<>(cacheTtlMs, cacheMaxSize) : null;
+    }
+
+    /**
+     * @return the principal, or null if the token's user no longer exists.
+     */
+    public AuthenticatedUser resolve(ParsedToken token) {
+        if (token.userId() == null || token.role() == null) {
+            // Token issued before the uid/role claims existed.
+            return userRepository.findByEmail(token.subject()).map(JwtPrincipalResolver::withoutCredentials).orElse(null);
+        }
+        if (principalCache != null) {
+            return principalCache.get(token.userId(),
+                    id -> userRepository.findById(id).map(JwtPrincipalResolver::withoutCredentials).orElse(null));
+        }
+        return new AuthenticatedUser(token.userId(), token.subject(), Role.valueOf(token.role()), null);
+    }
+
+    /**
+     * Drops the cached principal for a user once the current transaction commits.
+     */
+    public void evict(Long userId) {
+        if (principalCache == null) {
+            return;
+        }
+        principalCache.invalidate(userId);
+        // Again after commit, in case a request reloaded the old row in the meantime
+        Transactions.afterCommit(() -> principalCache.invalidate(userId));
+    }
+
+    private static AuthenticatedUser withoutCredentials(User user) {
+        AuthenticatedUser principal = AuthenticatedUser.from(user);
+        principal.eraseCredentials();
+        return principal;
+    }
+}
@@ -0,0 +1,96 @@
+package com.messmanagement.auth.service;
+
+import com.messmanagement.auth.entity.RevokedToken;
+import com.messmanagement.auth.repository.RevokedTokenRepository;
+import com.messmanagement.common.transaction.Transactions;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Denylist of refresh-token JTIs, kept in memory in front of revoked_tokens.
+ *
+ * Unexpired revocations are loaded at startup, so checking a token never reads the table.
+ * Each revocation is also inserted into revoked_tokens in its own transaction; the unique index on
+ * jti makes that insert fail if another request (or another instance) already used the same token,
+ * which is how refresh-token reuse is detected. Expired rows are purged on a schedule in bounded batches.
+ */
+@Component
+public class RevokedTokenStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(RevokedTokenStore.class);
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final TransactionTemplate newTransaction;
+
+    @Value("${mess.auth.revoked-token-purge.batch-size:500}")
+    private int purgeBatchSize;
+
+    private final ConcurrentHashMap<String, Instant> revokedJtis = new ConcurrentHashMap<>();
+
+    public RevokedTokenStore(RevokedTokenRepository revokedTokenRepository, PlatformTransactionManager transactionManager) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @PostConstruct
+    public void load() {
+        for (RevokedToken token : revokedTokenRepository.findByExpiryDateAfter(Instant.now())) {
+            revokedJtis.put(token.getJti(), token.getExpiryDate());
+        }
+        logger.info("Loaded {} revoked token IDs", revokedJtis.size());
+    }
+
+    public boolean isRevoked(String jti) {
+        return revokedJtis.containsKey(jti);
+    }
+
+    /**
+     * Revokes a token until its own expiry.
+     *
+     * @return false if the token had already been revoked (i.e. it is being reused).
+     */
+    public boolean revoke(String jti, Instant expiresAt) {
+        if (revokedJtis.putIfAbsent(jti, expiresAt) != null) {
+            return false;
+        }
+        try {
+            newTransaction.executeWithoutResult(status -> revokedTokenRepository.saveAndFlush(new RevokedToken(jti, expiresAt)));
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false; // Revoked by another instance first; keep it in memory.
+        } catch (RuntimeException e) {
+            revokedJtis.remove(jti, expiresAt);
+            throw e;
+        }
+    }
+
+    /**
+     * Deletes expired revocations. A token past its expiry is rejected by the JWT parser anyway,
+     * so its row is no longer needed.
+     */
+    @Scheduled(fixedDelayString = "${mess.auth.revoked-token-purge.interval-ms:3600000}",
+               initialDelayString = "${mess.auth.revoked-token-purge.initial-delay-ms:60000}")
+    public void purgeExpired() {
+        Instant now = Instant.now();
+        revokedJtis.values().removeIf(expiry -> expiry.isBefore(now));
+
+        int purged = Transactions.deleteInBatches(newTransaction, purgeBatchSize,
+                page -> revokedTokenRepository.findExpiredIds(now, page), revokedTokenRepository::deleteAllByIdInBatch);
+
+        if (purged > 0) {
+            logger.info("Purged {} expired revoked tokens", purged);
+        }
+    }
+}
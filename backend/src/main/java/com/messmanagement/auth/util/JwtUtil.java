@@ -1,24 +1,41 @@
 package com.messmanagement.auth.util;
 
-import java.security.Key; // Assuming UserDetails might be an interface User implements
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 import java.util.function.Function;
 
-import org.springframework.beans.factory.annotation.Value; // Spring Security's UserDetails
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 
+import com.messmanagement.auth.security.AuthenticatedUser;
+
+/**
+ * Issues and verifies JWTs.
+ *
+ * The HMAC key and the parser are built once at startup; both are immutable and safe to share
+ * between request threads. Callers should parse a token once with {@link #parse} and read
+ * everything they need from the returned {@link ParsedToken}.
+ */
 @Component
 public class JwtUtil {
 
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROLE = "role";
+
     @Value("${jwt.secret}") // Load secret from application.properties or environment variable
     private String secretKeyString;
 
@@ -28,13 +45,37 @@ public class JwtUtil {
     @Value("${jwt.refresh.token.expiration.ms}") // e.g., 86400000 for 1 day
     private long refreshTokenExpirationMs;
 
-    private Key getSigningKey() {
-        // Ensure the secret key is strong enough for HS256.
-        // For HS256, the key size should be at least 256 bits (32 bytes).
-        // If your secretKeyString is shorter, this might lead to weak keys.
-        // Consider generating a secure key and storing it.
-        byte[] keyBytes = secretKeyString.getBytes();
-        return Keys.hmacShaKeyFor(keyBytes);
+    private Key signingKey;
+    private JwtParser parser;
+
+    /**
+     * A verified token. userId and role are null for refresh tokens and for access tokens
+     * issued before those claims were added.
+     */
+    public record ParsedToken(String subject, String jti, Instant expiresAt, Long userId, String role) {
+    }
+
+    @PostConstruct
+    void init() {
+        // For HS256, the key must be at least 256 bits (32 bytes); Keys.hmacShaKeyFor rejects shorter secrets.
+        signingKey = Keys.hmacShaKeyFor(secretKeyString.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+    }
+
+    /**
+     * Verifies the signature and expiry and returns the token's contents in one parse.
+     *
+     * @throws JwtException if the token is malformed, tampered with or expired.
+     */
+    public ParsedToken parse(String token) {
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        Number userId = claims.get(CLAIM_USER_ID, Number.class);
+        return new ParsedToken(
+                claims.getSubject(),
+                claims.getId(),
+                claims.getExpiration().toInstant(),
+                userId != null ? userId.longValue() : null,
+                claims.get(CLAIM_ROLE, String.class));
     }
 
     public String extractUsername(String token) {
@@ -45,25 +86,21 @@ public class JwtUtil {
         return extractClaim(token, Claims::getExpiration);
     }
 
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
-    }
-
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder().setSigningKey(getSigningKey()).build().parseClaimsJws(token).getBody();
+    public String extractJti(String token) {
+        return extractClaim(token, Claims::getId);
     }
 
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
+        return claimsResolver.apply(parser.parseClaimsJws(token).getBody());
     }
 
     public String generateAccessToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
-        // You can add custom claims here, e.g., roles
-        // com.messmanagement.user.entity.User customUser = (com.messmanagement.user.entity.User) userDetails;
-        // claims.put("userId", customUser.getUserId());
-        // claims.put("role", customUser.getRole().name());
+        // The user ID and role let JwtAuthenticationFilter build the principal without a database lookup
+        if (userDetails instanceof AuthenticatedUser user) {
+            claims.put(CLAIM_USER_ID, user.getUserId());
+            claims.put(CLAIM_ROLE, user.getRole().name());
+        }
         return createToken(claims, userDetails.getUsername(), accessTokenExpirationMs);
     }
 
@@ -73,34 +110,33 @@ public class JwtUtil {
         return createToken(claims, userDetails.getUsername(), refreshTokenExpirationMs);
     }
 
-    public String extractJti(String token) {
-        return extractClaim(token, Claims::getId);
-    }
-
     private String createToken(Map<String, Object> claims, String subject, long expirationTimeMs) {
+        long now = System.currentTimeMillis();
         return Jwts.builder()
                 .setClaims(claims)
                 .setSubject(subject)
                 .setId(UUID.randomUUID().toString()) // Add JTI (JWT ID)
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + expirationTimeMs))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + expirationTimeMs))
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        try {
+            return parse(token).subject().equals(userDetails.getUsername());
+        } catch (JwtException | IllegalArgumentException e) {
+            return false;
+        }
     }
 
     // Overload for validation without UserDetails (e.g. for refresh token before loading user)
     public Boolean validateToken(String token) {
         try {
-            Jwts.parserBuilder().setSigningKey(getSigningKey()).build().parseClaimsJws(token);
-            return !isTokenExpired(token);
-        } catch (Exception e) { // Catches various JWT exceptions like ExpiredJwtException, SignatureException etc.
+            parser.parseClaimsJws(token); // Expired tokens throw ExpiredJwtException
+            return true;
+        } catch (JwtException | IllegalArgumentException e) {
             return false;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,63 @@
+package com.messmanagement.common.transaction;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Helpers shared by the in-memory indexes that follow committed writes and by the scheduled purges.
+ */
+public final class Transactions {
+
+    private Transactions() {
+    }
+
+    /**
+     * Runs the action once the surrounding transaction commits, or right away when there is none.
+     * Nothing runs if the transaction rolls back.
+     */
+    public static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Deletes rows batchSize at a time until a batch comes back short. Each batch is found and deleted in
+     * its own transaction (newTransaction should be REQUIRES_NEW), so a large purge never holds locks on
+     * a large range or for long.
+     *
+     * @param findIds     returns the IDs of the next rows to delete, at most one page of them.
+     * @param deleteByIds deletes the given rows.
+     * @return the number of rows deleted.
+     */
+    public static <ID> int deleteInBatches(TransactionTemplate newTransaction, int batchSize,
+                                           Function<Pageable, List<ID>> findIds, Consumer<List<ID>> deleteByIds) {
+        int deleted = 0;
+        List<ID> batch;
+        do {
+            batch = newTransaction.execute(status -> {
+                List<ID> ids = findIds.apply(PageRequest.of(0, batchSize));
+                if (!ids.isEmpty()) {
+                    deleteByIds.accept(ids);
+                }
+                return ids;
+            });
+            deleted += batch.size();
+        } while (batch.size() == batchSize);
+        return deleted;
+    }
+}
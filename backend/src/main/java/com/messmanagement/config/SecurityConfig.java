@@ -1,7 +1,9 @@
 package com.messmanagement.config;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.context.annotation.Lazy; // Make sure this import is present
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
@@ -21,6 +23,7 @@ import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import com.messmanagement.auth.filter.JwtAuthenticationFilter;
+import com.messmanagement.idempotency.service.IdempotencyService;
 import com.messmanagement.user.service.UserServiceImpl; // Assuming this is your UserDetailsService implementation
 
 import java.util.Arrays;
@@ -63,7 +66,8 @@ public class SecurityConfig {
         CorsConfiguration configuration = new CorsConfiguration();
         configuration.setAllowedOrigins(Arrays.asList("http://localhost:5173"));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
-        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Cache-Control", "Content-Type"));
+        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Cache-Control", "Content-Type", IdempotencyService.HEADER));
+        configuration.setExposedHeaders(Arrays.asList(IdempotencyService.REPLAYED_HEADER));
         configuration.setAllowCredentials(true);
         
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -80,8 +84,16 @@ public class SecurityConfig {
             .csrf(AbstractHttpConfigurer::disable)
             .authorizeHttpRequests(authorizeRequests -> // Consider updating to authorizeHttpRequests
                 authorizeRequests
+                    // Completing an async request (streamed export); the original dispatch was already authorized
+                    .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                     .requestMatchers("/api/v1/auth/**").permitAll()
                     .requestMatchers("/h2-console/**").permitAll()
+                    // Stripe calls this without a token; the controller verifies the Stripe-Signature header instead
+                    .requestMatchers(HttpMethod.POST, "/api/v1/stripe/webhooks").permitAll()
+                    // Liveness and the Prometheus scrape are unauthenticated; in production the
+                    // management endpoints are served on a separate internal port (see application-prod.properties).
+                    .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()
+                    .requestMatchers("/actuator/**").hasRole("ADMIN")
                     .anyRequest().authenticated()
             )
             .sessionManagement(sessionManagement ->
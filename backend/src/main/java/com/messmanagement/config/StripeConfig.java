@@ -11,10 +11,19 @@ public class StripeConfig {
     @Value("${stripe.api.secret-key}")
     private String secretKey;
 
+    // Socket-level limits for the Stripe client; StripeCallGuard additionally bounds each call as a whole
+    @Value("${mess.stripe.gateway.connect-timeout-ms:3000}")
+    private int connectTimeoutMs;
+
+    @Value("${mess.stripe.gateway.read-timeout-ms:8000}")
+    private int readTimeoutMs;
+
     @PostConstruct
     public void initStripe() {
         Stripe.apiKey = secretKey;
-        // You can also set API version, connect timeout, etc. if needed
+        Stripe.setConnectTimeout(connectTimeoutMs);
+        Stripe.setReadTimeout(readTimeoutMs);
+        // You can also set the API version if needed
         // Stripe.setApiVersion("2022-11-15"); // Example: set a specific API version
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,59 @@
+package com.messmanagement.idempotency.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * A request made with an Idempotency-Key header: reserved while the first attempt runs, then its stored response.
+ */
+@Entity
+@Table(name = "idempotency_records", indexes = {
+        @Index(name = "ix_idempotency_records_expires_at", columnList = "expires_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "record_key", nullable = false, unique = true, length = 64)
+    private String recordKey; // SHA-256 of (operation, caller, Idempotency-Key)
+
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash; // SHA-256 of the request body, to detect a key reused for a different request
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private IdempotencyRecordStatus status;
+
+    @Column(name = "response_status")
+    private Integer responseStatus; // Null while IN_PROGRESS
+
+    @Column(name = "response_body", length = 4000)
+    private String responseBody; // JSON
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    public IdempotencyRecord(String recordKey, String requestHash, IdempotencyRecordStatus status, Instant expiresAt) {
+        this.recordKey = recordKey;
+        this.requestHash = requestHash;
+        this.status = status;
+        this.expiresAt = expiresAt;
+    }
+}
@@ -0,0 +1,6 @@
+package com.messmanagement.idempotency.entity;
+
+public enum IdempotencyRecordStatus {
+    IN_PROGRESS, // Key reserved by the attempt that is running the action; expires_at is its lease
+    COMPLETED    // Response stored for replay until expires_at
+}
@@ -0,0 +1,47 @@
+package com.messmanagement.idempotency.repository;
+
+import com.messmanagement.idempotency.entity.IdempotencyRecord;
+import com.messmanagement.idempotency.entity.IdempotencyRecordStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+    Optional<IdempotencyRecord> findByRecordKey(String recordKey);
+
+    /**
+     * Reserves a key whose previous record has expired (a stale reservation or an old response).
+     * Returns 0 if the record is still live, e.g. because a concurrent retry took it over first.
+     */
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.status = :status, r.requestHash = :requestHash, " +
+           "r.responseStatus = NULL, r.responseBody = NULL, r.expiresAt = :until " +
+           "WHERE r.recordKey = :recordKey AND r.expiresAt <= :now")
+    int reserveExpired(@Param("recordKey") String recordKey, @Param("requestHash") String requestHash,
+                       @Param("status") IdempotencyRecordStatus status, @Param("until") Instant until, @Param("now") Instant now);
+
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.status = com.messmanagement.idempotency.entity.IdempotencyRecordStatus.COMPLETED, " +
+           "r.responseStatus = :responseStatus, r.responseBody = :responseBody, r.expiresAt = :expiresAt " +
+           "WHERE r.recordKey = :recordKey " +
+           "AND r.status = com.messmanagement.idempotency.entity.IdempotencyRecordStatus.IN_PROGRESS")
+    int complete(@Param("recordKey") String recordKey, @Param("responseStatus") int responseStatus,
+                 @Param("responseBody") String responseBody, @Param("expiresAt") Instant expiresAt);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.recordKey = :recordKey " +
+           "AND r.status = com.messmanagement.idempotency.entity.IdempotencyRecordStatus.IN_PROGRESS")
+    int deleteReservation(@Param("recordKey") String recordKey);
+
+    @Query("SELECT r.id FROM IdempotencyRecord r WHERE r.expiresAt < :cutoff ORDER BY r.id")
+    List<Long> findExpiredIds(@Param("cutoff") Instant cutoff, Pageable pageable);
+}
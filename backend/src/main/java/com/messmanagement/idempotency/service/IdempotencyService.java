@@ -0,0 +1,229 @@
+package com.messmanagement.idempotency.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.messmanagement.common.cache.BoundedTtlCache;
+import com.messmanagement.common.exception.IdempotencyConflictException;
+import com.messmanagement.common.transaction.Transactions;
+import com.messmanagement.idempotency.entity.IdempotencyRecord;
+import com.messmanagement.idempotency.entity.IdempotencyRecordStatus;
+import com.messmanagement.idempotency.repository.IdempotencyRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Replays the stored response of a request retried with the same Idempotency-Key header.
+ *
+ * A key is scoped to the operation and the caller. Before the action runs, the key is reserved by
+ * inserting an IN_PROGRESS row into idempotency_records; the unique record_key makes exactly one attempt
+ * win, on whichever instance. A retry that arrives while that attempt is still running gets a 409.
+ * The first successful (2xx) response is then stored in the row and in a bounded in-memory cache, so a
+ * retry returns it without running the action again, also after a restart or on another instance.
+ * Failed attempts give the key back and may be retried with it. A reservation left behind by a crashed
+ * instance lapses after in-progress-timeout-ms. Reusing a key for a different request body is rejected
+ * with a 400. Expired rows are purged on a schedule in bounded batches.
+ */
+@Component
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate newTransaction;
+    private final BoundedTtlCache<String, StoredResponse> responses;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private final long ttlMs;
+
+    @Value("${mess.idempotency.in-progress-timeout-ms:60000}")
+    private long inProgressTimeoutMs;
+
+    @Value("${mess.idempotency.purge.batch-size:500}")
+    private int purgeBatchSize;
+
+    private record StoredResponse(String requestHash, int status, String body) {
+    }
+
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository,
+                              ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${mess.idempotency.ttl-ms:86400000}") long ttlMs,
+                              @Value("${mess.idempotency.cache.max-size:10000}") int cacheMaxSize) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.objectMapper = objectMapper;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.responses = new BoundedTtlCache<>(ttlMs, cacheMaxSize);
+        this.ttlMs = ttlMs;
+    }
+
+    /**
+     * Runs the action once per (operation, caller, key) and replays its response afterwards.
+     * Without a key the action simply runs.
+     *
+     * @param request the request body, compared on replay so a key cannot be reused for another request.
+     */
+    public <T> ResponseEntity<T> execute(String operation, String caller, String idempotencyKey, Object request,
+                                         Class<T> responseType, Supplier<ResponseEntity<T>> action) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return action.get();
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(HEADER + " must be at most " + MAX_KEY_LENGTH + " characters.");
+        }
+        String recordKey = sha256(operation + '\n' + caller + '\n' + idempotencyKey);
+        String requestHash = sha256(toJson(request));
+
+        StoredResponse stored = responses.get(recordKey);
+        if (stored != null) {
+            return replay(stored, requestHash, responseType);
+        }
+        if (!inFlight.add(recordKey)) {
+            throw new IdempotencyConflictException("A request with this " + HEADER + " is still being processed.");
+        }
+        try {
+            stored = reserve(recordKey, requestHash);
+            if (stored != null) {
+                responses.put(recordKey, stored);
+                return replay(stored, requestHash, responseType);
+            }
+
+            ResponseEntity<T> response;
+            try {
+                response = action.get();
+            } catch (RuntimeException e) {
+                release(recordKey);
+                throw e;
+            }
+            if (response.getStatusCode().is2xxSuccessful()) {
+                complete(recordKey, new StoredResponse(requestHash, response.getStatusCode().value(), toJson(response.getBody())));
+            } else {
+                release(recordKey);
+            }
+            return response;
+        } finally {
+            inFlight.remove(recordKey);
+        }
+    }
+
+    /**
+     * Deletes expired records; a retry after the TTL runs the action again.
+     */
+    @Scheduled(fixedDelayString = "${mess.idempotency.purge.interval-ms:3600000}",
+               initialDelayString = "${mess.idempotency.purge.initial-delay-ms:60000}")
+    public void purgeExpired() {
+        Instant now = Instant.now();
+        int purged = Transactions.deleteInBatches(newTransaction, purgeBatchSize,
+                page -> idempotencyRecordRepository.findExpiredIds(now, page), idempotencyRecordRepository::deleteAllByIdInBatch);
+
+        if (purged > 0) {
+            logger.info("Purged {} expired idempotency records", purged);
+        }
+    }
+
+    /**
+     * Claims the key for this attempt.
+     *
+     * @return null if the key is now reserved by this attempt, or the stored response to replay.
+     * @throws IdempotencyConflictException if another attempt holds the key.
+     */
+    private StoredResponse reserve(String recordKey, String requestHash) {
+        Instant now = Instant.now();
+        Instant leaseEnd = now.plusMillis(inProgressTimeoutMs);
+        try {
+            newTransaction.executeWithoutResult(status -> idempotencyRecordRepository.saveAndFlush(
+                    new IdempotencyRecord(recordKey, requestHash, IdempotencyRecordStatus.IN_PROGRESS, leaseEnd)));
+            return null;
+        } catch (DataIntegrityViolationException e) {
+            // The key already has a record; see what state it is in.
+        }
+
+        IdempotencyRecord existing = newTransaction.execute(status -> idempotencyRecordRepository.findByRecordKey(recordKey).orElse(null));
+        if (existing != null && existing.getExpiresAt().isAfter(now)) {
+            if (existing.getStatus() == IdempotencyRecordStatus.COMPLETED) {
+                return new StoredResponse(existing.getRequestHash(), existing.getResponseStatus(), existing.getResponseBody());
+            }
+            if (!existing.getRequestHash().equals(requestHash)) {
+                throw new IllegalArgumentException(HEADER + " was already used for a different request.");
+            }
+            throw new IdempotencyConflictException("A request with this " + HEADER + " is still being processed.");
+        }
+        // An expired response or a lapsed reservation; only one retry may take it over.
+        Integer taken = newTransaction.execute(status -> idempotencyRecordRepository.reserveExpired(
+                recordKey, requestHash, IdempotencyRecordStatus.IN_PROGRESS, leaseEnd, now));
+        if (taken == null || taken == 0) {
+            throw new IdempotencyConflictException("A request with this " + HEADER + " is still being processed.");
+        }
+        return null;
+    }
+
+    private void complete(String recordKey, StoredResponse response) {
+        responses.put(recordKey, response);
+        try {
+            newTransaction.executeWithoutResult(status -> idempotencyRecordRepository.complete(
+                    recordKey, response.status(), response.body(), Instant.now().plusMillis(ttlMs)));
+        } catch (RuntimeException e) {
+            // The action already succeeded; once the reservation lapses, a retry on another instance may run it again.
+            logger.warn("Could not store idempotent response: {}", e.getMessage());
+        }
+    }
+
+    private void release(String recordKey) {
+        try {
+            newTransaction.executeWithoutResult(status -> idempotencyRecordRepository.deleteReservation(recordKey));
+        } catch (RuntimeException e) {
+            logger.warn("Could not release {} reservation; retries get a 409 until it lapses in {} ms: {}",
+                    HEADER, inProgressTimeoutMs, e.getMessage());
+        }
+    }
+
+    private <T> ResponseEntity<T> replay(StoredResponse stored, String requestHash, Class<T> responseType) {
+        if (!stored.requestHash().equals(requestHash)) {
+            throw new IllegalArgumentException(HEADER + " was already used for a different request.");
+        }
+        try {
+            T body = stored.body() != null ? objectMapper.readValue(stored.body(), responseType) : null;
+            return ResponseEntity.status(stored.status()).header(REPLAYED_HEADER, "true").body(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored idempotent response could not be read.", e);
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize value for idempotency check.", e);
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -1,5 +1,10 @@
 package com.messmanagement.mealentry.controller;
 
+import com.messmanagement.common.dto.CursorPageDTO;
+import com.messmanagement.idempotency.service.IdempotencyService;
+import com.messmanagement.mealentry.dto.KioskCheckInRequestDTO;
+import com.messmanagement.mealentry.dto.KioskCheckInResponseDTO;
+import com.messmanagement.mealentry.dto.MealEntryExportFormat;
 import com.messmanagement.mealentry.dto.MealEntryRequestDTO;
 import com.messmanagement.mealentry.dto.MealEntryResponseDTO;
 import com.messmanagement.mealentry.service.MealEntryService;
@@ -10,12 +15,16 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 
@@ -25,24 +34,42 @@ import java.time.LocalDate;
 public class MealEntryController {
 
     private final MealEntryService mealEntryService;
+    private final IdempotencyService idempotencyService;
 
     /**
      * Student marks their meal entry.
      * POST /api/v1/meal-entries/mark
      * Payload: MealEntryRequestDTO (mess_provided_user_id, meal_type)
      * Response: MealEntryResponseDTO
+     * Optional Idempotency-Key header: a retry with the same key returns the first response.
      * Secured for STUDENT.
      */
     @PostMapping("/mark")
     @PreAuthorize("hasRole('STUDENT')")
     public ResponseEntity<MealEntryResponseDTO> markMealEntry(
             Authentication authentication,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             @Valid @RequestBody MealEntryRequestDTO requestDTO) {
         UserDetails userDetails = (UserDetails) authentication.getPrincipal();
         String authenticatedUserEmail = userDetails.getUsername();
 
-        MealEntryResponseDTO createdEntry = mealEntryService.markMealEntry(authenticatedUserEmail, requestDTO);
-        return new ResponseEntity<>(createdEntry, HttpStatus.CREATED);
+        return idempotencyService.execute("meal-entry.mark", authenticatedUserEmail, idempotencyKey, requestDTO, MealEntryResponseDTO.class, () -> {
+            MealEntryResponseDTO createdEntry = mealEntryService.markMealEntry(authenticatedUserEmail, requestDTO);
+            return new ResponseEntity<>(createdEntry, HttpStatus.CREATED);
+        });
+    }
+
+    /**
+     * Kiosk device checks in a batch of scanned students for one meal.
+     * POST /api/v1/meal-entries/kiosk/check-ins
+     * Payload: KioskCheckInRequestDTO (meal_type, mess_provided_user_ids)
+     * Response: KioskCheckInResponseDTO with an accept/reject result per scan
+     * Secured for KIOSK.
+     */
+    @PostMapping("/kiosk/check-ins")
+    @PreAuthorize("hasRole('KIOSK')")
+    public ResponseEntity<KioskCheckInResponseDTO> markKioskCheckIns(@Valid @RequestBody KioskCheckInRequestDTO requestDTO) {
+        return ResponseEntity.ok(mealEntryService.markKioskCheckIns(requestDTO));
     }
 
     /**
@@ -81,4 +108,62 @@ public class MealEntryController {
         Page<MealEntryResponseDTO> entries = mealEntryService.getAllMealEntriesForAdmin(pageable, entryDate, userId, mealType);
         return ResponseEntity.ok(entries);
     }
+
+    /**
+     * Student views their meal entry history with cursor pagination (newest first, no total count).
+     * GET /api/v1/meal-entries/my-history/scroll?cursor=...&size=20
+     * Response: CursorPageDTO<MealEntryResponseDTO>; pass nextCursor back to get the next slice.
+     * Secured for STUDENT.
+     */
+    @GetMapping("/my-history/scroll")
+    @PreAuthorize("hasRole('STUDENT')")
+    public ResponseEntity<CursorPageDTO<MealEntryResponseDTO>> scrollMyMealEntryHistory(
+            Authentication authentication,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
+        return ResponseEntity.ok(mealEntryService.scrollMyMealEntryHistory(userDetails.getUsername(), cursor, size));
+    }
+
+    /**
+     * Admin views all meal entries with cursor pagination; same filters as GET /api/v1/meal-entries.
+     * GET /api/v1/meal-entries/scroll?cursor=...&size=50&entryDate=&userId=&mealType=
+     * Response: CursorPageDTO<MealEntryResponseDTO>
+     * Secured for ADMIN.
+     */
+    @GetMapping("/scroll")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CursorPageDTO<MealEntryResponseDTO>> scrollMealEntriesForAdmin(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate entryDate,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) MealType mealType) {
+        return ResponseEntity.ok(mealEntryService.scrollMealEntriesForAdmin(cursor, size, entryDate, userId, mealType));
+    }
+
+    /**
+     * Admin downloads every meal entry in a date range, e.g. a whole term.
+     * GET /api/v1/meal-entries/export?from=2025-01-01&to=2025-06-30&format=csv|ndjson
+     * Rows are streamed from the database to the client as they are read.
+     * Secured for ADMIN.
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportMealEntries(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "csv") String format) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Export range end must not be before its start.");
+        }
+        MealEntryExportFormat exportFormat = MealEntryExportFormat.fromParameter(format);
+        String fileName = "meal-entries-" + from + "-to-" + to + "." + exportFormat.getFileExtension();
+
+        StreamingResponseBody body = out -> mealEntryService.exportMealEntries(from, to, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString())
+                .body(body);
+    }
 }
\ No newline at end of file
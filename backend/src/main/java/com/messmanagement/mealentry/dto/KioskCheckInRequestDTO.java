@@ -0,0 +1,22 @@
+package com.messmanagement.mealentry.dto;
+
+import com.messmanagement.menu.entity.MealType;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class KioskCheckInRequestDTO {
+
+    @NotNull(message = "Meal type cannot be null.")
+    private MealType mealType;
+
+    // IDs in the order they were scanned; results are returned in the same order
+    @NotEmpty(message = "At least one Mess Provided User ID is required.")
+    @Size(max = 500, message = "A kiosk batch can contain at most 500 scans.")
+    private List<@NotBlank(message = "Mess Provided User ID cannot be blank.") String> messProvidedUserIds;
+}
@@ -0,0 +1,20 @@
+package com.messmanagement.mealentry.dto;
+
+import com.messmanagement.menu.entity.MealType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KioskCheckInResponseDTO {
+    private MealType mealType;
+    private LocalDate entryDate;
+    private int acceptedCount;
+    private int rejectedCount;
+    private List<KioskScanResultDTO> results; // One per scan, in request order
+}
@@ -0,0 +1,17 @@
+package com.messmanagement.mealentry.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KioskScanResultDTO {
+    private String messProvidedUserId;
+    private boolean accepted;
+    private Long entryId;      // Set when accepted
+    private String userName;   // Shown on the kiosk screen; null for unknown IDs
+    private String rejectReason; // e.g. NO_SUBSCRIPTION, DUPLICATE; null when accepted
+    private String message;
+}
@@ -0,0 +1,9 @@
+package com.messmanagement.mealentry.dto;
+
+import com.messmanagement.menu.entity.MealType;
+
+/**
+ * Read-only projection of a single check-in: which user ate which meal.
+ */
+public record MealCheckInView(Long userId, MealType mealType) {
+}
@@ -0,0 +1,39 @@
+package com.messmanagement.mealentry.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a meal-entry listing ordered by (entry_date, entry_time, entry_id) descending:
+ * the key of the last entry a client has seen. Handed out as an opaque URL-safe string.
+ */
+public record MealEntryCursor(LocalDate entryDate, LocalTime entryTime, long entryId) {
+
+    public static MealEntryCursor of(MealEntryResponseDTO entry) {
+        return new MealEntryCursor(entry.getEntryDate(), entry.getEntryTime(), entry.getEntryId());
+    }
+
+    public String encode() {
+        String key = entryDate + "|" + entryTime + "|" + entryId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the cursor was not produced by {@link #encode()}.
+     */
+    public static MealEntryCursor decode(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Invalid cursor.");
+            }
+            return new MealEntryCursor(LocalDate.parse(parts[0]), LocalTime.parse(parts[1]), Long.parseLong(parts[2]));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            // NumberFormatException is an IllegalArgumentException too
+            throw new IllegalArgumentException("Invalid cursor.", e);
+        }
+    }
+}
@@ -13,14 +13,23 @@ import java.time.LocalTime; // For entry_time
 import java.time.LocalDateTime; // Alternative for a single timestamp
 
 @Entity
-@Table(name = "meal_entries")
+// Indexes are created by the V2 migration; declared here so the mapping documents them
+@Table(name = "meal_entries",
+    uniqueConstraints = @UniqueConstraint(name = "ux_meal_entries_user_date_meal", columnNames = {"user_id", "entry_date", "meal_type"}),
+    indexes = {
+        @Index(name = "ix_meal_entries_date_meal", columnList = "entry_date, meal_type"),
+        @Index(name = "ix_meal_entries_meal_date", columnList = "meal_type, entry_date"),
+        @Index(name = "ix_meal_entries_date_time_id", columnList = "entry_date, entry_time, entry_id")
+    })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class MealEntry {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled sequence (not IDENTITY) so Hibernate knows the ids before flushing and can batch the inserts
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "meal_entries_seq")
+    @SequenceGenerator(name = "meal_entries_seq", sequenceName = "meal_entries_seq", allocationSize = 50)
     @Column(name = "entry_id")
     private Long entryId;
 
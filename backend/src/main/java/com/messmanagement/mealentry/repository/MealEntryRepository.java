@@ -1,16 +1,25 @@
 package com.messmanagement.mealentry.repository;
 
+import com.messmanagement.mealentry.dto.MealCheckInView;
+import com.messmanagement.mealentry.dto.MealEntryResponseDTO;
 import com.messmanagement.mealentry.entity.MealEntry;
 import com.messmanagement.menu.entity.MealType;
 import com.messmanagement.user.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface MealEntryRepository extends JpaRepository<MealEntry, Long>, JpaSpecificationExecutor<MealEntry> {
@@ -18,8 +27,9 @@ public interface MealEntryRepository extends JpaRepository<MealEntry, Long>, Jpa
     /**
      * Finds all meal entries for a specific user, ordered by entry date and time descending.
      * Useful for the student's meal entry history.
-     * Supports pagination.
+     * Supports pagination. The student and verifying admin are fetched in the same statement.
      */
+    @EntityGraph(attributePaths = {"user", "verifiedByAdmin"})
     Page<MealEntry> findByUserOrderByEntryDateDescEntryTimeDesc(User user, Pageable pageable);
 
     /**
@@ -37,4 +47,28 @@ public interface MealEntryRepository extends JpaRepository<MealEntry, Long>, Jpa
     Page<MealEntry> findByEntryDateAndMealType(LocalDate entryDate, MealType mealType, Pageable pageable);
     
     long countByEntryDate(LocalDate entryDate);
+
+    /**
+     * Returns the (user, meal type) pairs already checked in on the given date.
+     * Used to warm the in-memory entitlement index without loading MealEntry entities.
+     */
+    @Query("SELECT new com.messmanagement.mealentry.dto.MealCheckInView(e.user.userId, e.mealType) " +
+           "FROM MealEntry e WHERE e.entryDate = :entryDate")
+    List<MealCheckInView> findCheckInsByEntryDate(@Param("entryDate") LocalDate entryDate);
+
+    /**
+     * Streams every entry in the date range as response DTOs, in (entry_date, entry_time, entry_id) order.
+     * Rows are fetched from the cursor in chunks and are not managed entities, so memory stays flat
+     * however long the range is. Must be consumed inside a transaction and closed afterwards.
+     */
+    @Query("SELECT new com.messmanagement.mealentry.dto.MealEntryResponseDTO(" +
+           "e.entryId, u.userId, u.email, u.name, e.mealType, e.entryDate, e.entryTime, v.userId, v.name) " +
+           "FROM MealEntry e JOIN e.user u LEFT JOIN e.verifiedByAdmin v " +
+           "WHERE e.entryDate BETWEEN :from AND :to " +
+           "ORDER BY e.entryDate, e.entryTime, e.entryId")
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<MealEntryResponseDTO> streamForExport(@Param("from") LocalDate from, @Param("to") LocalDate to);
 }
\ No newline at end of file
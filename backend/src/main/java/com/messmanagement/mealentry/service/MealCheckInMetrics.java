@@ -0,0 +1,59 @@
+package com.messmanagement.mealentry.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Check-in outcome counters and the write-behind queue depth.
+ *
+ * Publishes meal.checkins{outcome=accepted|rejected, reason=...} and meal.checkins.pending.
+ * Counters are registered once up front so the check-in path only increments them.
+ */
+@Component
+public class MealCheckInMetrics {
+
+    public enum RejectReason {
+        UNKNOWN_USER,
+        INVALID_MESS_ID,
+        NO_SUBSCRIPTION,
+        DUPLICATE,
+        BUSY,
+        NOT_CONFIRMED,
+        WRITE_FAILED
+    }
+
+    private final Counter accepted;
+    private final Map<RejectReason, Counter> rejected = new EnumMap<>(RejectReason.class);
+
+    public MealCheckInMetrics(MeterRegistry meterRegistry, MealEntryBatchWriter mealEntryBatchWriter) {
+        this.accepted = Counter.builder("meal.checkins")
+                .description("Meal check-in attempts by outcome")
+                .tag("outcome", "accepted")
+                .tag("reason", "none")
+                .register(meterRegistry);
+        for (RejectReason reason : RejectReason.values()) {
+            rejected.put(reason, Counter.builder("meal.checkins")
+                    .description("Meal check-in attempts by outcome")
+                    .tag("outcome", "rejected")
+                    .tag("reason", reason.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+        Gauge.builder("meal.checkins.pending", mealEntryBatchWriter, MealEntryBatchWriter::pendingCount)
+                .description("Check-ins waiting in the write-behind queue")
+                .register(meterRegistry);
+    }
+
+    public void accepted() {
+        accepted.increment();
+    }
+
+    public void rejected(RejectReason reason) {
+        rejected.get(reason).increment();
+    }
+}
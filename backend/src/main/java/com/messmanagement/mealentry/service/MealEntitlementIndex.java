@@ -0,0 +1,267 @@
+package com.messmanagement.mealentry.service;
+
+import com.messmanagement.common.exception.ResourceNotFoundException;
+import com.messmanagement.common.transaction.Transactions;
+import com.messmanagement.mealentry.dto.MealCheckInView;
+import com.messmanagement.mealentry.repository.MealEntryRepository;
+import com.messmanagement.menu.entity.MealType;
+import com.messmanagement.subscription.dto.SubscriptionWindowView;
+import com.messmanagement.subscription.entity.SubscriptionStatus;
+import com.messmanagement.subscription.repository.SubscriptionRepository;
+import com.messmanagement.user.entity.Role;
+import com.messmanagement.user.entity.User;
+import com.messmanagement.user.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory view of who may eat today, so the meal check-in path can accept or reject
+ * a request without reading the database.
+ *
+ * Holds three structures:
+ *  - student identities by email and by messProvidedUserId (filled on first use, evicted when the user changes),
+ *  - the active subscription window per user id, with the subscription it belongs to,
+ *  - today's check-ins as a set of (userId, MealType) packed into one long.
+ *
+ * The database stays the source of truth; this index is warmed at startup and kept current by
+ * SubscriptionServiceImpl and UserServiceImpl. Changes made inside a transaction are applied only
+ * once that transaction commits. Subscriptions changed on other instances are picked up by the
+ * scheduled reload, and a user with no window covering the date is re-read from the database once
+ * their entry is older than miss-ttl-ms, so a paid student is never turned away for longer than that.
+ */
+@Component
+@RequiredArgsConstructor
+public class MealEntitlementIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(MealEntitlementIndex.class);
+
+    private static final int MEAL_TYPE_BITS = 2; // BREAKFAST, LUNCH, DINNER
+
+    private final UserRepository userRepository;
+    private final SubscriptionRepository subscriptionRepository;
+    private final MealEntryRepository mealEntryRepository;
+
+    private final ConcurrentHashMap<String, StudentIdentity> studentsByEmail = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, StudentIdentity> studentsByMessId = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, SubscriptionWindow> subscriptionWindows = new ConcurrentHashMap<>();
+    private volatile DailyCheckIns checkIns = new DailyCheckIns(LocalDate.MIN);
+
+    @Value("${mess.meal-entry.entitlement.miss-ttl-ms:30000}")
+    private long missTtlMs;
+
+    /**
+     * The subset of a User the check-in path needs.
+     */
+    public record StudentIdentity(long userId, String email, String name, String messProvidedUserId) {
+    }
+
+    /**
+     * The period a user's ACTIVE subscription covers, and when it was last read or written.
+     * NONE-style entries (subscriptionId 0, empty range) remember that the user had no active subscription.
+     */
+    private record SubscriptionWindow(long subscriptionId, long startDay, long endDay, long observedAtMillis) {
+
+        static SubscriptionWindow none(long observedAtMillis) {
+            return new SubscriptionWindow(0, 1, 0, observedAtMillis);
+        }
+
+        static SubscriptionWindow of(SubscriptionWindowView view, long observedAtMillis) {
+            return new SubscriptionWindow(view.subscriptionId(), view.startDate().toEpochDay(), view.endDate().toEpochDay(), observedAtMillis);
+        }
+
+        boolean covers(long day) {
+            return day >= startDay && day <= endDay;
+        }
+
+        SubscriptionWindow newerOf(SubscriptionWindow other) {
+            return other.observedAtMillis > observedAtMillis ? other : this;
+        }
+    }
+
+    @PostConstruct
+    public void warmUp() {
+        LocalDate today = LocalDate.now();
+        reloadSubscriptionWindows();
+        checkIns = loadCheckIns(today);
+        logger.info("Meal entitlement index warmed: {} active subscriptions, {} check-ins for {}",
+                subscriptionWindows.size(), checkIns.keys.size(), today);
+    }
+
+    /**
+     * Re-reads every active subscription window, picking up activations and cancellations committed by
+     * other instances (e.g. by the webhook inbox worker). Entries written after the read started are kept.
+     */
+    @Scheduled(fixedDelayString = "${mess.meal-entry.entitlement.refresh-interval-ms:60000}",
+               initialDelayString = "${mess.meal-entry.entitlement.refresh-interval-ms:60000}")
+    public void reloadSubscriptionWindows() {
+        long startedAt = System.currentTimeMillis();
+        ConcurrentHashMap<Long, SubscriptionWindow> loaded = new ConcurrentHashMap<>();
+        for (SubscriptionWindowView view : subscriptionRepository.findWindowsByStatusEndingOnOrAfter(SubscriptionStatus.ACTIVE, LocalDate.now())) {
+            loaded.merge(view.userId(), SubscriptionWindow.of(view, startedAt), MealEntitlementIndex::endingLast);
+        }
+        loaded.forEach((userId, window) -> subscriptionWindows.merge(userId, window, SubscriptionWindow::newerOf));
+        subscriptionWindows.entrySet().removeIf(entry ->
+                !loaded.containsKey(entry.getKey()) && entry.getValue().observedAtMillis() < startedAt);
+        logger.debug("Meal entitlement index reloaded {} active subscriptions", loaded.size());
+    }
+
+    // --- Queries used by the check-in path ---
+
+    public StudentIdentity resolveStudent(String email) {
+        StudentIdentity cached = studentsByEmail.get(email);
+        if (cached != null) {
+            return cached;
+        }
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found: " + email));
+        StudentIdentity identity = toIdentity(user);
+        studentsByEmail.put(email, identity);
+        return identity;
+    }
+
+    /**
+     * Looks up the student a kiosk scanned. Empty if no student has that mess ID; misses are not cached.
+     */
+    public Optional<StudentIdentity> findStudentByMessId(String messProvidedUserId) {
+        StudentIdentity cached = studentsByMessId.get(messProvidedUserId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        return userRepository.findByMessProvidedUserId(messProvidedUserId)
+                .filter(user -> user.getRole() == Role.STUDENT)
+                .map(user -> {
+                    StudentIdentity identity = toIdentity(user);
+                    studentsByMessId.put(messProvidedUserId, identity);
+                    return identity;
+                });
+    }
+
+    /**
+     * Answers from memory when a known window covers the date. Otherwise the user's subscriptions are
+     * read from the database, at most once per miss-ttl-ms, in case another instance activated one.
+     */
+    public boolean hasActiveSubscription(long userId, LocalDate date) {
+        long day = date.toEpochDay();
+        SubscriptionWindow window = subscriptionWindows.get(userId);
+        if (window != null && window.covers(day)) {
+            return true;
+        }
+        if (window != null && System.currentTimeMillis() - window.observedAtMillis() < missTtlMs) {
+            return false;
+        }
+        return loadSubscriptionWindow(userId, date).covers(day);
+    }
+
+    /**
+     * Atomically claims the (user, meal, date) slot. Returns false if it was already taken.
+     * The claim is not tied to any transaction: callers give it back with releaseCheckIn if the entry
+     * is not written.
+     */
+    public boolean tryReserveCheckIn(long userId, MealType mealType, LocalDate date) {
+        return checkInsFor(date).keys.add(checkInKey(userId, mealType));
+    }
+
+    public void releaseCheckIn(long userId, MealType mealType, LocalDate date) {
+        checkInsFor(date).keys.remove(checkInKey(userId, mealType));
+    }
+
+    // --- Updates from the subscription and user services ---
+
+    public void recordSubscriptionWindow(long userId, long subscriptionId, LocalDate startDate, LocalDate endDate) {
+        Transactions.afterCommit(() -> subscriptionWindows.put(userId, new SubscriptionWindow(
+                subscriptionId, startDate.toEpochDay(), endDate.toEpochDay(), System.currentTimeMillis())));
+    }
+
+    /**
+     * Drops the user's window if it belongs to the given subscription; a window from another of the
+     * user's subscriptions is left alone. The next check re-reads the user from the database.
+     */
+    public void revokeSubscriptionWindow(long userId, long subscriptionId) {
+        Transactions.afterCommit(() -> subscriptionWindows.computeIfPresent(userId,
+                (id, window) -> window.subscriptionId() == subscriptionId ? null : window));
+    }
+
+    public void evictStudent(long userId) {
+        Transactions.afterCommit(() -> forgetStudent(userId));
+    }
+
+    public void removeUser(long userId) {
+        Transactions.afterCommit(() -> {
+            forgetStudent(userId);
+            subscriptionWindows.remove(userId);
+        });
+    }
+
+    // --- Internals ---
+
+    private void forgetStudent(long userId) {
+        studentsByEmail.values().removeIf(identity -> identity.userId() == userId);
+        studentsByMessId.values().removeIf(identity -> identity.userId() == userId);
+    }
+
+    private SubscriptionWindow loadSubscriptionWindow(long userId, LocalDate date) {
+        long startedAt = System.currentTimeMillis();
+        List<SubscriptionWindowView> views =
+                subscriptionRepository.findWindowsByUserIdAndStatusEndingOnOrAfter(userId, SubscriptionStatus.ACTIVE, date);
+        SubscriptionWindow loaded = views.stream()
+                .map(view -> SubscriptionWindow.of(view, startedAt))
+                .reduce(MealEntitlementIndex::endingLast)
+                .orElseGet(() -> SubscriptionWindow.none(startedAt));
+        return subscriptionWindows.merge(userId, loaded, SubscriptionWindow::newerOf);
+    }
+
+    // A user should only have one ACTIVE row; if there are several, keep the one ending last.
+    private static SubscriptionWindow endingLast(SubscriptionWindow a, SubscriptionWindow b) {
+        return b.endDay() > a.endDay() ? b : a;
+    }
+
+    private static StudentIdentity toIdentity(User user) {
+        return new StudentIdentity(user.getUserId(), user.getEmail(), user.getName(), user.getMessProvidedUserId());
+    }
+
+    private DailyCheckIns checkInsFor(LocalDate date) {
+        DailyCheckIns current = checkIns;
+        if (current.date.equals(date)) {
+            return current;
+        }
+        synchronized (this) {
+            if (!checkIns.date.equals(date)) {
+                // First request of a new day: rebuild from the table (normally empty) so a restart mid-day stays correct.
+                checkIns = loadCheckIns(date);
+            }
+            return checkIns;
+        }
+    }
+
+    private DailyCheckIns loadCheckIns(LocalDate date) {
+        DailyCheckIns day = new DailyCheckIns(date);
+        for (MealCheckInView checkIn : mealEntryRepository.findCheckInsByEntryDate(date)) {
+            day.keys.add(checkInKey(checkIn.userId(), checkIn.mealType()));
+        }
+        return day;
+    }
+
+    private static long checkInKey(long userId, MealType mealType) {
+        return (userId << MEAL_TYPE_BITS) | mealType.ordinal();
+    }
+
+    private static final class DailyCheckIns {
+        private final LocalDate date;
+        private final Set<Long> keys = ConcurrentHashMap.newKeySet();
+
+        private DailyCheckIns(LocalDate date) {
+            this.date = date;
+        }
+    }
+}
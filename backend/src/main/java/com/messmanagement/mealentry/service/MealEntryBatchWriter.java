@@ -0,0 +1,263 @@
+package com.messmanagement.mealentry.service;
+
+import com.messmanagement.mealentry.entity.MealEntry;
+import com.messmanagement.mealentry.repository.MealEntryRepository;
+import com.messmanagement.menu.entity.MealType;
+import com.messmanagement.report.service.MealCountRollupService;
+import com.messmanagement.report.service.MealCountRollupService.RollupKey;
+import com.messmanagement.user.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Write-behind pipeline for meal check-ins.
+ *
+ * Accepted check-ins are put on a bounded queue and a single flusher thread writes them in
+ * batches: it waits for the first entry, then keeps collecting until either maxBatchSize entries
+ * are gathered or maxDelayMs has passed, and inserts the whole batch in one transaction
+ * (JDBC-batched thanks to the pooled sequence on MealEntry and hibernate.jdbc.batch_size).
+ *
+ * The future returned by {@link #submit} completes with the new entry ID only after that
+ * transaction has committed, so callers confirm a check-in once it is durably stored.
+ * If a batch fails, its entries are retried one per transaction so a single bad row
+ * (e.g. a duplicate) does not fail the rest. The daily meal-count rollups are bumped in the
+ * same transaction, so they always match the committed rows.
+ *
+ * On shutdown the flusher is woken and drains the queue before it exits; it is only interrupted
+ * if that takes longer than shutdown-timeout-ms, since an interrupt can fail a JDBC batch mid-write.
+ * Submitting and stopping share a lock, so every check-in is either queued before the writer stops
+ * (and then written or failed by it) or refused. Anything a batch throws, Errors included, fails
+ * that batch's check-ins and leaves the flusher running.
+ */
+@Component
+public class MealEntryBatchWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(MealEntryBatchWriter.class);
+
+    // Put on the queue by stop() so a flusher waiting in poll() sees running=false at once
+    private static final PendingEntry WAKE_UP = new PendingEntry(0, null, null, null, null);
+
+    private final MealEntryRepository mealEntryRepository;
+    private final UserRepository userRepository;
+    private final MealCountRollupService mealCountRollupService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${mess.meal-entry.write-behind.queue-capacity:2000}")
+    private int queueCapacity;
+
+    @Value("${mess.meal-entry.write-behind.max-batch-size:100}")
+    private int maxBatchSize;
+
+    @Value("${mess.meal-entry.write-behind.max-delay-ms:20}")
+    private long maxDelayMs;
+
+    @Value("${mess.meal-entry.write-behind.shutdown-timeout-ms:10000}")
+    private long shutdownTimeoutMs;
+
+    private BlockingQueue<PendingEntry> queue;
+    private Thread flusher;
+    private volatile boolean running;
+    // Read by submit() around its check-and-offer, written by stop() to turn running off
+    private final ReadWriteLock lifecycleLock = new ReentrantReadWriteLock();
+
+    public MealEntryBatchWriter(MealEntryRepository mealEntryRepository,
+                                UserRepository userRepository,
+                                MealCountRollupService mealCountRollupService,
+                                PlatformTransactionManager transactionManager) {
+        this.mealEntryRepository = mealEntryRepository;
+        this.userRepository = userRepository;
+        this.mealCountRollupService = mealCountRollupService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    private record PendingEntry(long userId, MealType mealType, LocalDate entryDate, LocalTime entryTime,
+                                CompletableFuture<Long> confirmation) {
+    }
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        flusher = new Thread(this::runFlusher, "meal-entry-writer");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        lifecycleLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            lifecycleLock.writeLock().unlock();
+        }
+        queue.offer(WAKE_UP); // If the queue is full the flusher is busy and will see running=false anyway
+        flusher.join(shutdownTimeoutMs);
+        if (flusher.isAlive()) {
+            logger.warn("Meal entry writer did not drain within {} ms; interrupting it with {} check-ins queued",
+                    shutdownTimeoutMs, queue.size());
+            flusher.interrupt();
+            flusher.join(TimeUnit.SECONDS.toMillis(1));
+        }
+        List<PendingEntry> abandoned = new ArrayList<>();
+        queue.drainTo(abandoned);
+        for (PendingEntry entry : abandoned) {
+            if (entry != WAKE_UP) {
+                entry.confirmation().completeExceptionally(new IllegalStateException("Meal check-in was not recorded: the server is shutting down."));
+            }
+        }
+    }
+
+    /**
+     * Stages a check-in for writing.
+     *
+     * @return a future completed with the generated entry ID once the row is committed.
+     * @throws IllegalStateException if the queue is full (the caller should ask the student to retry).
+     */
+    public CompletableFuture<Long> submit(long userId, MealType mealType, LocalDate entryDate, LocalTime entryTime) {
+        PendingEntry entry = new PendingEntry(userId, mealType, entryDate, entryTime, new CompletableFuture<>());
+        lifecycleLock.readLock().lock();
+        try {
+            if (!running) {
+                throw new IllegalStateException("Meal check-in was not recorded: the server is shutting down.");
+            }
+            if (!queue.offer(entry)) {
+                throw new IllegalStateException("Meal check-in is busy right now. Please try again in a moment.");
+            }
+        } finally {
+            lifecycleLock.readLock().unlock();
+        }
+        return entry.confirmation();
+    }
+
+    /**
+     * Writes a group of check-ins for one meal in a single transaction on the calling thread,
+     * bypassing the queue. Used for kiosk batches, which already arrive grouped. As in the flusher,
+     * a failed batch is retried one entry at a time.
+     *
+     * @return one future per user ID, in order, each already completed with the entry ID or the failure.
+     */
+    public List<CompletableFuture<Long>> writeBatch(List<Long> userIds, MealType mealType, LocalDate entryDate, LocalTime entryTime) {
+        List<PendingEntry> batch = new ArrayList<>(userIds.size());
+        List<CompletableFuture<Long>> confirmations = new ArrayList<>(userIds.size());
+        for (Long userId : userIds) {
+            PendingEntry entry = new PendingEntry(userId, mealType, entryDate, entryTime, new CompletableFuture<>());
+            batch.add(entry);
+            confirmations.add(entry.confirmation());
+        }
+        flush(batch);
+        return confirmations;
+    }
+
+    /** Number of check-ins staged but not yet picked up by the flusher. */
+    public int pendingCount() {
+        return queue.size();
+    }
+
+    private void runFlusher() {
+        List<PendingEntry> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingEntry first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null || first == WAKE_UP) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingEntry next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null || next == WAKE_UP) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flushOrFail(batch);
+            } catch (InterruptedException e) {
+                // Shutdown timed out: write what was already collected, then stop.
+                if (!batch.isEmpty()) {
+                    flushOrFail(batch);
+                }
+                return;
+            } catch (Throwable t) {
+                // The single flusher must outlive any one batch, or every later check-in would wait out its timeout
+                logger.error("Meal entry writer failed outside a batch write; carrying on", t);
+                failAll(batch, t);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flushOrFail(List<PendingEntry> batch) {
+        try {
+            flush(batch);
+        } catch (Throwable t) {
+            logger.error("Meal entry batch of {} failed; failing its check-ins", batch.size(), t);
+            failAll(batch, t);
+        }
+    }
+
+    private static void failAll(List<PendingEntry> batch, Throwable failure) {
+        for (PendingEntry entry : batch) {
+            entry.confirmation().completeExceptionally(failure); // No-op for entries already confirmed
+        }
+    }
+
+    private void flush(List<PendingEntry> batch) {
+        try {
+            List<Long> ids = transactionTemplate.execute(status -> persist(batch));
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).confirmation().complete(ids.get(i));
+            }
+        } catch (RuntimeException batchFailure) {
+            logger.warn("Meal entry batch of {} failed ({}); retrying entries individually", batch.size(), batchFailure.getMessage());
+            for (PendingEntry entry : batch) {
+                try {
+                    List<Long> ids = transactionTemplate.execute(status -> persist(List.of(entry)));
+                    entry.confirmation().complete(ids.get(0));
+                } catch (RuntimeException entryFailure) {
+                    entry.confirmation().completeExceptionally(entryFailure);
+                }
+            }
+        }
+    }
+
+    private List<Long> persist(List<PendingEntry> entries) {
+        List<MealEntry> mealEntries = new ArrayList<>(entries.size());
+        List<RollupKey> rollupKeys = new ArrayList<>(entries.size());
+        for (PendingEntry entry : entries) {
+            MealEntry mealEntry = new MealEntry();
+            mealEntry.setUser(userRepository.getReferenceById(entry.userId()));
+            mealEntry.setMealType(entry.mealType());
+            mealEntry.setEntryDate(entry.entryDate());
+            mealEntry.setEntryTime(entry.entryTime());
+            mealEntries.add(mealEntry);
+            rollupKeys.add(new RollupKey(entry.entryDate(), entry.mealType()));
+        }
+        List<MealEntry> saved = mealEntryRepository.saveAll(mealEntries);
+        mealCountRollupService.increment(MealCountRollupService.countByKey(rollupKeys));
+        List<Long> ids = new ArrayList<>(saved.size());
+        for (MealEntry mealEntry : saved) {
+            ids.add(mealEntry.getEntryId());
+        }
+        return ids;
+    }
+}
@@ -1,11 +1,17 @@
 package com.messmanagement.mealentry.service;
 
+import com.messmanagement.common.dto.CursorPageDTO;
+import com.messmanagement.mealentry.dto.KioskCheckInRequestDTO;
+import com.messmanagement.mealentry.dto.KioskCheckInResponseDTO;
+import com.messmanagement.mealentry.dto.MealEntryExportFormat;
 import com.messmanagement.mealentry.dto.MealEntryRequestDTO;
 import com.messmanagement.mealentry.dto.MealEntryResponseDTO;
 import com.messmanagement.menu.entity.MealType; // For admin filtering
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate; // For admin filtering
 
 public interface MealEntryService {
@@ -21,6 +27,16 @@ public interface MealEntryService {
      */
     MealEntryResponseDTO markMealEntry(String authenticatedUserEmail, MealEntryRequestDTO requestDTO);
 
+    /**
+     * Checks in a batch of students scanned at a kiosk for one meal.
+     * Each scan is accepted or rejected on its own (unknown ID, no subscription, already checked in);
+     * the accepted ones are written as one batch.
+     *
+     * @param requestDTO DTO containing the meal type and the scanned mess_provided_user_ids.
+     * @return One result per scan, in request order.
+     */
+    KioskCheckInResponseDTO markKioskCheckIns(KioskCheckInRequestDTO requestDTO);
+
     /**
      * Retrieves the meal entry history for the logged-in student.
      *
@@ -40,4 +56,23 @@ public interface MealEntryService {
      * @return A page of MealEntryResponseDTOs.
      */
     Page<MealEntryResponseDTO> getAllMealEntriesForAdmin(Pageable pageable, LocalDate entryDate, Long userId, MealType mealType);
+
+    /**
+     * Keyset-paginated variant of {@link #getMyMealEntryHistory}: newest first, no count query.
+     *
+     * @param cursor nextCursor from the previous slice, or null for the first one.
+     * @param size Number of entries per slice (capped at 100).
+     */
+    CursorPageDTO<MealEntryResponseDTO> scrollMyMealEntryHistory(String authenticatedUserEmail, String cursor, int size);
+
+    /**
+     * Keyset-paginated variant of {@link #getAllMealEntriesForAdmin}, with the same optional filters.
+     */
+    CursorPageDTO<MealEntryResponseDTO> scrollMealEntriesForAdmin(String cursor, int size, LocalDate entryDate, Long userId, MealType mealType);
+
+    /**
+     * Writes every meal entry between from and to (inclusive) to out, oldest first, without
+     * loading the range into memory.
+     */
+    void exportMealEntries(LocalDate from, LocalDate to, MealEntryExportFormat format, OutputStream out) throws IOException;
 }
\ No newline at end of file
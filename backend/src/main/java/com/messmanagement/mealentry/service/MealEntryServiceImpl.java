@@ -1,37 +1,71 @@
 package com.messmanagement.mealentry.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.messmanagement.common.dto.CursorPageDTO;
 import com.messmanagement.common.exception.ResourceNotFoundException;
+import com.messmanagement.mealentry.dto.KioskCheckInRequestDTO;
+import com.messmanagement.mealentry.dto.KioskCheckInResponseDTO;
+import com.messmanagement.mealentry.dto.KioskScanResultDTO;
+import com.messmanagement.mealentry.dto.MealEntryCursor;
+import com.messmanagement.mealentry.dto.MealEntryExportFormat;
 import com.messmanagement.mealentry.dto.MealEntryRequestDTO;
 import com.messmanagement.mealentry.dto.MealEntryResponseDTO;
 import com.messmanagement.mealentry.entity.MealEntry;
 import com.messmanagement.mealentry.repository.MealEntryRepository;
+import com.messmanagement.mealentry.service.MealCheckInMetrics.RejectReason;
 import com.messmanagement.menu.entity.MealType;
-import com.messmanagement.subscription.entity.Subscription;
-import com.messmanagement.subscription.entity.SubscriptionStatus;
-import com.messmanagement.subscription.repository.SubscriptionRepository;
+import com.messmanagement.report.service.LiveHeadcountService;
 import com.messmanagement.user.entity.User;
 import com.messmanagement.user.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification; // For admin filtering
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Predicate; // For Specification
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
-import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class MealEntryServiceImpl implements MealEntryService {
 
+    private static final int MAX_SCROLL_SIZE = 100;
+    // Keyset order for cursor pagination; entryId breaks ties between entries made in the same instant
+    private static final Sort KEYSET_ORDER = Sort.by(Sort.Direction.DESC, "entryDate", "entryTime", "entryId");
+    private static final String CSV_HEADER = "entry_id,user_id,user_email,user_name,meal_type,entry_date,entry_time,verified_by_admin_id,verified_by_admin_name";
+
     private final MealEntryRepository mealEntryRepository;
     private final UserRepository userRepository;
-    private final SubscriptionRepository subscriptionRepository;
+    private final MealEntitlementIndex entitlementIndex;
+    private final MealEntryBatchWriter mealEntryBatchWriter;
+    private final MealCheckInMetrics checkInMetrics;
+    private final LiveHeadcountService liveHeadcount;
+    private final ObjectMapper objectMapper;
+
+    @Value("${mess.meal-entry.write-behind.confirm-timeout-ms:5000}")
+    private long confirmTimeoutMs;
 
     // Helper to map MealEntry entity to MealEntryResponseDTO
     private MealEntryResponseDTO mapToDTO(MealEntry mealEntry) {
@@ -50,42 +84,153 @@ public class MealEntryServiceImpl implements MealEntryService {
     }
 
     @Override
-    @Transactional
     public MealEntryResponseDTO markMealEntry(String authenticatedUserEmail, MealEntryRequestDTO requestDTO) {
-        User user = userRepository.findByEmail(authenticatedUserEmail)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found: " + authenticatedUserEmail));
+        // Identity, subscription and duplicate checks are answered by the in-memory entitlement index;
+        // the insert itself goes through the batched write-behind writer, so no transaction is held here.
+        MealEntitlementIndex.StudentIdentity student;
+        try {
+            student = entitlementIndex.resolveStudent(authenticatedUserEmail);
+        } catch (ResourceNotFoundException e) {
+            checkInMetrics.rejected(RejectReason.UNKNOWN_USER);
+            throw e;
+        }
 
         // Validate mess_provided_user_id against the authenticated user's ID
-        if (user.getMessProvidedUserId() == null || !user.getMessProvidedUserId().equals(requestDTO.getMessProvidedUserId())) {
+        if (student.messProvidedUserId() == null || !student.messProvidedUserId().equals(requestDTO.getMessProvidedUserId())) {
+            checkInMetrics.rejected(RejectReason.INVALID_MESS_ID);
             throw new IllegalArgumentException("Invalid Mess Provided User ID for the authenticated user.");
         }
 
         // Check for active subscription for the current date
         // The plan requires checking subscription: "if subscription expired should be shown about expired subscription and should be able to mark entry only after subscription"
         LocalDate currentDate = LocalDate.now();
-        Optional<Subscription> activeSubscriptionOpt = subscriptionRepository
-                .findByUserAndStatusIn(user, Arrays.asList(SubscriptionStatus.ACTIVE))
-                .filter(sub -> !currentDate.isBefore(sub.getStartDate()) && !currentDate.isAfter(sub.getEndDate()));
-
-        if (activeSubscriptionOpt.isEmpty()) {
+        if (!entitlementIndex.hasActiveSubscription(student.userId(), currentDate)) {
+            checkInMetrics.rejected(RejectReason.NO_SUBSCRIPTION);
             throw new IllegalStateException("No active subscription found for today. Please subscribe or renew.");
         }
 
-        // Check if an entry for this mealType on this date already exists for this user
-        if (mealEntryRepository.existsByUserAndEntryDateAndMealType(user, currentDate, requestDTO.getMealType())) {
-            throw new IllegalStateException("Meal entry already marked for " + requestDTO.getMealType() + " on " + currentDate);
+        // Claim the (user, meal, date) slot before staging the insert
+        MealType mealType = requestDTO.getMealType();
+        if (!entitlementIndex.tryReserveCheckIn(student.userId(), mealType, currentDate)) {
+            checkInMetrics.rejected(RejectReason.DUPLICATE);
+            throw new IllegalStateException("Meal entry already marked for " + mealType + " on " + currentDate);
         }
 
-        MealEntry mealEntry = new MealEntry();
-        mealEntry.setUser(user);
-        mealEntry.setMealType(requestDTO.getMealType());
-        // entryDate and entryTime will be set by @PrePersist or can be set here explicitly
-        mealEntry.setEntryDate(currentDate);
-        mealEntry.setEntryTime(LocalTime.now());
-        // verifiedByAdmin is initially null
+        LocalTime entryTime = LocalTime.now();
+        CompletableFuture<Long> staged;
+        try {
+            staged = mealEntryBatchWriter.submit(student.userId(), mealType, currentDate, entryTime);
+        } catch (IllegalStateException e) {
+            entitlementIndex.releaseCheckIn(student.userId(), mealType, currentDate);
+            checkInMetrics.rejected(RejectReason.BUSY);
+            throw e;
+        }
+        // If the write ultimately fails, give the slot back so the student can try again.
+        // Once committed it counts towards the live headcount, even if this request has stopped waiting.
+        staged.whenComplete((entryId, failure) -> {
+            if (failure != null) {
+                entitlementIndex.releaseCheckIn(student.userId(), mealType, currentDate);
+            } else {
+                liveHeadcount.recordCheckIn(mealType, currentDate);
+            }
+        });
 
-        MealEntry savedEntry = mealEntryRepository.save(mealEntry);
-        return mapToDTO(savedEntry);
+        Long entryId = awaitConfirmation(staged, mealType, currentDate);
+        checkInMetrics.accepted();
+        return new MealEntryResponseDTO(
+                entryId,
+                student.userId(),
+                student.email(),
+                student.name(),
+                mealType,
+                currentDate,
+                entryTime,
+                null, // verifiedByAdmin is initially null
+                null
+        );
+    }
+
+    @Override
+    public KioskCheckInResponseDTO markKioskCheckIns(KioskCheckInRequestDTO requestDTO) {
+        // Same checks as markMealEntry, answered from the entitlement index for every scan; the accepted
+        // scans are then written together in one transaction instead of going through the queue one by one.
+        MealType mealType = requestDTO.getMealType();
+        LocalDate currentDate = LocalDate.now();
+        LocalTime entryTime = LocalTime.now();
+        List<String> scans = requestDTO.getMessProvidedUserIds();
+
+        KioskScanResultDTO[] results = new KioskScanResultDTO[scans.size()];
+        List<Integer> acceptedScans = new ArrayList<>();
+        List<MealEntitlementIndex.StudentIdentity> acceptedStudents = new ArrayList<>();
+        for (int i = 0; i < scans.size(); i++) {
+            String messProvidedUserId = scans.get(i);
+            MealEntitlementIndex.StudentIdentity student = entitlementIndex.findStudentByMessId(messProvidedUserId).orElse(null);
+            if (student == null) {
+                results[i] = rejectScan(messProvidedUserId, null, RejectReason.UNKNOWN_USER, "Unknown Mess Provided User ID.");
+            } else if (!entitlementIndex.hasActiveSubscription(student.userId(), currentDate)) {
+                results[i] = rejectScan(messProvidedUserId, student.name(), RejectReason.NO_SUBSCRIPTION, "No active subscription found for today.");
+            } else if (!entitlementIndex.tryReserveCheckIn(student.userId(), mealType, currentDate)) {
+                // Also catches the same card scanned twice in one batch
+                results[i] = rejectScan(messProvidedUserId, student.name(), RejectReason.DUPLICATE, "Meal entry already marked for " + mealType + " on " + currentDate);
+            } else {
+                acceptedScans.add(i);
+                acceptedStudents.add(student);
+            }
+        }
+
+        if (!acceptedStudents.isEmpty()) {
+            List<CompletableFuture<Long>> written = mealEntryBatchWriter.writeBatch(
+                    acceptedStudents.stream().map(MealEntitlementIndex.StudentIdentity::userId).toList(), mealType, currentDate, entryTime);
+            for (int j = 0; j < written.size(); j++) {
+                int scan = acceptedScans.get(j);
+                MealEntitlementIndex.StudentIdentity student = acceptedStudents.get(j);
+                CompletableFuture<Long> write = written.get(j);
+                if (write.state() == Future.State.SUCCESS) {
+                    checkInMetrics.accepted();
+                    liveHeadcount.recordCheckIn(mealType, currentDate);
+                    results[scan] = new KioskScanResultDTO(scans.get(scan), true, write.resultNow(), student.name(), null, "Checked in.");
+                } else {
+                    entitlementIndex.releaseCheckIn(student.userId(), mealType, currentDate);
+                    results[scan] = write.exceptionNow() instanceof DataIntegrityViolationException
+                            ? rejectScan(scans.get(scan), student.name(), RejectReason.DUPLICATE, "Meal entry already marked for " + mealType + " on " + currentDate)
+                            : rejectScan(scans.get(scan), student.name(), RejectReason.WRITE_FAILED, "Meal entry could not be recorded. Please scan again.");
+                }
+            }
+        }
+
+        List<KioskScanResultDTO> resultList = List.of(results);
+        int acceptedCount = (int) resultList.stream().filter(KioskScanResultDTO::isAccepted).count();
+        return new KioskCheckInResponseDTO(mealType, currentDate, acceptedCount, resultList.size() - acceptedCount, resultList);
+    }
+
+    private KioskScanResultDTO rejectScan(String messProvidedUserId, String userName, RejectReason reason, String message) {
+        checkInMetrics.rejected(reason);
+        return new KioskScanResultDTO(messProvidedUserId, false, null, userName, reason.name(), message);
+    }
+
+    private Long awaitConfirmation(CompletableFuture<Long> staged, MealType mealType, LocalDate date) {
+        try {
+            return staged.get(confirmTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            checkInMetrics.rejected(RejectReason.NOT_CONFIRMED);
+            // The entry is still queued and will most likely be written; keep the slot claimed.
+            throw new IllegalStateException("Meal entry is still being recorded. Please check your history in a moment.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof DataIntegrityViolationException) {
+                // The unique (user_id, entry_date, meal_type) index caught a duplicate, e.g. one made through another instance
+                checkInMetrics.rejected(RejectReason.DUPLICATE);
+                throw new IllegalStateException("Meal entry already marked for " + mealType + " on " + date);
+            }
+            checkInMetrics.rejected(RejectReason.WRITE_FAILED);
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Meal entry could not be recorded.", e.getCause());
+        } catch (InterruptedException e) {
+            checkInMetrics.rejected(RejectReason.NOT_CONFIRMED);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while recording meal entry.", e);
+        }
     }
 
     @Override
@@ -100,30 +245,136 @@ public class MealEntryServiceImpl implements MealEntryService {
     @Override
     @Transactional(readOnly = true)
     public Page<MealEntryResponseDTO> getAllMealEntriesForAdmin(Pageable pageable, LocalDate filterDate, Long filterUserId, MealType filterMealType) {
-        Specification<MealEntry> spec = (root, query, criteriaBuilder) -> {
+        Page<MealEntry> entries = mealEntryRepository.findAll(
+                withUsers().and(adminFilter(filterDate, filterUserId, filterMealType)), pageable);
+        return entries.map(this::mapToDTO);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDTO<MealEntryResponseDTO> scrollMyMealEntryHistory(String authenticatedUserEmail, String cursor, int size) {
+        long userId = entitlementIndex.resolveStudent(authenticatedUserEmail).userId();
+        Specification<MealEntry> ownEntries = (root, query, criteriaBuilder) ->
+                criteriaBuilder.equal(root.get("user").get("userId"), userId);
+        return scroll(ownEntries, cursor, size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDTO<MealEntryResponseDTO> scrollMealEntriesForAdmin(String cursor, int size, LocalDate filterDate, Long filterUserId, MealType filterMealType) {
+        return scroll(adminFilter(filterDate, filterUserId, filterMealType), cursor, size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportMealEntries(LocalDate from, LocalDate to, MealEntryExportFormat format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == MealEntryExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+        try (Stream<MealEntryResponseDTO> rows = mealEntryRepository.streamForExport(from, to)) {
+            rows.forEach(row -> {
+                try {
+                    writer.write(format == MealEntryExportFormat.CSV ? toCsvLine(row) : objectMapper.writeValueAsString(row));
+                    writer.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause(); // Usually the client went away mid-download
+        }
+        writer.flush();
+    }
+
+    /**
+     * Fetches one slice in KEYSET_ORDER, starting after the cursor. One extra row is read to tell
+     * whether another slice follows, so no count query is needed.
+     */
+    private CursorPageDTO<MealEntryResponseDTO> scroll(Specification<MealEntry> filter, String cursor, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_SCROLL_SIZE));
+        Specification<MealEntry> spec = withUsers().and(filter);
+        if (cursor != null && !cursor.isBlank()) {
+            spec = spec.and(olderThan(MealEntryCursor.decode(cursor)));
+        }
+        List<MealEntryResponseDTO> rows = mealEntryRepository.findBy(spec, query -> query.sortBy(KEYSET_ORDER).limit(limit + 1).all())
+                .stream()
+                .map(this::mapToDTO)
+                .toList();
+        boolean hasNext = rows.size() > limit;
+        List<MealEntryResponseDTO> content = hasNext ? rows.subList(0, limit) : rows;
+        String nextCursor = hasNext ? MealEntryCursor.of(content.get(content.size() - 1)).encode() : null;
+        return new CursorPageDTO<>(content, content.size(), nextCursor, hasNext);
+    }
+
+    // (entry_date, entry_time, entry_id) < cursor, spelled out because JPA criteria has no row-value comparison.
+    // The leading entry_date <= bound lets the database range-scan the keyset index.
+    private static Specification<MealEntry> olderThan(MealEntryCursor cursor) {
+        return (root, query, cb) -> {
+            Path<LocalDate> date = root.get("entryDate");
+            Path<LocalTime> time = root.get("entryTime");
+            Path<Long> id = root.get("entryId");
+            return cb.and(
+                    cb.lessThanOrEqualTo(date, cursor.entryDate()),
+                    cb.or(
+                            cb.lessThan(date, cursor.entryDate()),
+                            cb.and(cb.equal(date, cursor.entryDate()), cb.lessThan(time, cursor.entryTime())),
+                            cb.and(cb.equal(date, cursor.entryDate()), cb.equal(time, cursor.entryTime()), cb.lessThan(id, cursor.entryId()))));
+        };
+    }
+
+    private static String toCsvLine(MealEntryResponseDTO row) {
+        return String.join(",",
+                String.valueOf(row.getEntryId()),
+                String.valueOf(row.getUserId()),
+                csvField(row.getUserEmail()),
+                csvField(row.getUserName()),
+                row.getMealType().name(),
+                row.getEntryDate().toString(),
+                row.getEntryTime().toString(),
+                row.getVerifiedByAdminId() != null ? row.getVerifiedByAdminId().toString() : "",
+                csvField(row.getVerifiedByAdminName()));
+    }
+
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private Specification<MealEntry> adminFilter(LocalDate filterDate, Long filterUserId, MealType filterMealType) {
+        return (root, query, criteriaBuilder) -> {
             List<Predicate> predicates = new ArrayList<>();
             if (filterDate != null) {
                 predicates.add(criteriaBuilder.equal(root.get("entryDate"), filterDate));
             }
             if (filterUserId != null) {
-                // Ensure User entity exists for this ID before creating predicate, or handle potential error
-                User user = userRepository.findById(filterUserId).orElse(null);
-                if (user != null) {
-                     predicates.add(criteriaBuilder.equal(root.get("user"), user));
-                } else {
-                    // If filtering by a non-existent user ID, effectively return no results for this predicate.
-                    // Or throw an exception if filtering by invalid ID is an error.
-                    // For simplicity here, if user doesn't exist, this predicate might not be added or an empty result is implicitly handled.
-                    // A robust way would be to check if user exists and if not, and filterUserId was specified, return empty page.
-                }
+                // Compared on the user_id column itself; an unknown ID simply matches nothing
+                predicates.add(criteriaBuilder.equal(root.get("user").get("userId"), filterUserId));
             }
             if (filterMealType != null) {
                 predicates.add(criteriaBuilder.equal(root.get("mealType"), filterMealType));
             }
             return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
         };
+    }
 
-        Page<MealEntry> entries = mealEntryRepository.findAll(spec, pageable);
-        return entries.map(this::mapToDTO);
+    /**
+     * Fetch-joins the student and the verifying admin, so mapToDTO reads them from the same row
+     * instead of lazy-loading each one. Skipped for the count query behind a Page.
+     */
+    private static Specification<MealEntry> withUsers() {
+        return (root, query, criteriaBuilder) -> {
+            if (query.getResultType() != Long.class && query.getResultType() != long.class) {
+                root.fetch("user");
+                root.fetch("verifiedByAdmin", JoinType.LEFT);
+            }
+            return null;
+        };
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,8 @@
 package com.messmanagement.menu.controller;
 
+import com.messmanagement.menu.dto.MenuItemAvailabilityRequestDTO;
 import com.messmanagement.menu.dto.MenuItemDTO;
+import com.messmanagement.menu.dto.MenuItemIdsRequestDTO;
 import com.messmanagement.menu.entity.MenuCategory;
 import com.messmanagement.menu.service.MenuService;
 import jakarta.validation.Valid; // For request body validation
@@ -12,6 +14,11 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/v1/menu-items")
@@ -89,4 +96,49 @@ public class MenuItemsController {
         menuService.deleteMenuItem(itemId);
         return ResponseEntity.noContent().build();
     }
-}
+
+    /**
+     * Admin deletes several menu items, and the weekly menu configurations that use them.
+     * POST /api/v1/menu-items/bulk/delete
+     * Payload: MenuItemIdsRequestDTO, Response: {"deleted": n}
+     * Secured for ADMIN.
+     */
+    @PostMapping("/bulk/delete")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Integer>> deleteMenuItems(@RequestBody MenuItemIdsRequestDTO request) {
+        int deleted = menuService.deleteMenuItems(request.getItemIds());
+        return ResponseEntity.ok(Map.of("deleted", deleted));
+    }
+
+    /**
+     * Admin marks several menu items available or unavailable.
+     * PATCH /api/v1/menu-items/bulk/availability
+     * Payload: MenuItemAvailabilityRequestDTO, Response: {"updated": n} (items that already had it are not counted)
+     * Secured for ADMIN.
+     */
+    @PatchMapping("/bulk/availability")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Integer>> setMenuItemsAvailability(@RequestBody MenuItemAvailabilityRequestDTO request) {
+        if (request.getAvailable() == null) {
+            throw new IllegalArgumentException("available is required.");
+        }
+        int updated = menuService.setMenuItemsAvailability(request.getItemIds(), request.getAvailable());
+        return ResponseEntity.ok(Map.of("updated", updated));
+    }
+
+    /**
+     * Admin imports menu items from a CSV file (multipart field "file").
+     * POST /api/v1/menu-items/import
+     * Header line with name, price, category and optionally description, imageUrl, isAvailable.
+     * Response: HTTP 201 with {"imported": n}; an invalid line rejects the whole file with a 400.
+     * Secured for ADMIN.
+     */
+    @PostMapping("/import")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Integer>> importMenuItems(@RequestParam("file") MultipartFile file) throws IOException {
+        try (InputStream csv = file.getInputStream()) {
+            int imported = menuService.importMenuItems(csv);
+            return new ResponseEntity<>(Map.of("imported", imported), HttpStatus.CREATED);
+        }
+    }
+}
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.messmanagement.menu.controller;
 
 import com.messmanagement.menu.dto.WeeklyMenuResponseDTO;
 import com.messmanagement.menu.dto.WeeklyMenuSetupRequestDTO;
+import com.messmanagement.menu.dto.WeeklyMenuView;
 import com.messmanagement.menu.service.MenuService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -10,6 +11,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDate;
 import java.time.temporal.TemporalAdjusters;
@@ -41,29 +43,33 @@ public class WeeklyMenuController {
      * Supports fetching for the week of a specific date, or a specific date range.
      * e.g., ?date=YYYY-MM-DD (gets the week containing this date)
      * e.g., ?startDate=YYYY-MM-DD&endDate=YYYY-MM-DD
-     * Response: WeeklyMenuResponseDTO
+     * Response: WeeklyMenuResponseDTO, with a weak ETag; If-None-Match with the current ETag gets a 304
      */
     @GetMapping
     @PreAuthorize("isAuthenticated()") // Accessible to any logged-in user
     public ResponseEntity<WeeklyMenuResponseDTO> getWeeklyMenu(
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            WebRequest webRequest) {
 
-        WeeklyMenuResponseDTO weeklyMenu;
+        WeeklyMenuView weeklyMenu;
 
         if (startDate != null && endDate != null) {
             // If both startDate and endDate are provided, fetch for that specific range
-            weeklyMenu = menuService.getMenuForDateRange(startDate, endDate);
+            weeklyMenu = menuService.getMenuViewForDateRange(startDate, endDate);
         } else if (date != null) {
             // If only 'date' is provided, fetch for the week containing that date
             // (e.g., Monday to Sunday of that week)
-            weeklyMenu = menuService.getWeeklyMenuForDate(date);
+            weeklyMenu = menuService.getWeeklyMenuViewForDate(date);
         } else {
             // Default behavior: fetch for the current week
-            weeklyMenu = menuService.getWeeklyMenuForDate(LocalDate.now());
+            weeklyMenu = menuService.getWeeklyMenuViewForDate(LocalDate.now());
         }
 
-        return ResponseEntity.ok(weeklyMenu);
+        if (webRequest.checkNotModified(weeklyMenu.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(weeklyMenu.etag()).build();
+        }
+        return ResponseEntity.ok().eTag(weeklyMenu.etag()).body(weeklyMenu.menu());
     }
 }
\ No newline at end of file
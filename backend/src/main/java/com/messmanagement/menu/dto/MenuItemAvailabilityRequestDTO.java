@@ -0,0 +1,11 @@
+package com.messmanagement.menu.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class MenuItemAvailabilityRequestDTO {
+    private List<Long> itemIds;
+    private Boolean available;
+}
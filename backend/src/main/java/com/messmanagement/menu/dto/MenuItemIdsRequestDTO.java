@@ -0,0 +1,10 @@
+package com.messmanagement.menu.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class MenuItemIdsRequestDTO {
+    private List<Long> itemIds;
+}
@@ -0,0 +1,13 @@
+package com.messmanagement.menu.dto;
+
+import com.messmanagement.menu.entity.MealType;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
+/**
+ * Read-only projection of a weekly menu configuration, without its MenuItem.
+ */
+public record WeeklyMenuConfigView(Long menuConfigId, DayOfWeek dayOfWeek, MealType mealType, Long itemId,
+                                   LocalDate effectiveDateStart, LocalDate effectiveDateEnd) {
+}
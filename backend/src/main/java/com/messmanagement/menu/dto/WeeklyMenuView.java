@@ -0,0 +1,7 @@
+package com.messmanagement.menu.dto;
+
+/**
+ * A built weekly menu together with its weak ETag, so the controller can answer 304 without rebuilding it.
+ */
+public record WeeklyMenuView(WeeklyMenuResponseDTO menu, String etag) {
+}
@@ -6,8 +6,13 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor; // For complex dynamic queries
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -29,4 +34,17 @@ public interface MenuItemRepository extends JpaRepository<MenuItem, Long>, JpaSp
     Page<MenuItem> findByCategoryAndIsAvailable(MenuCategory category, boolean isAvailable, Pageable pageable);
 
     // We can also use JpaSpecificationExecutor for more complex, dynamic filtering if needed later.
+
+    /**
+     * Sets availability on the given items in one statement, skipping items that already have it.
+     * Returns the number of items changed.
+     */
+    @Modifying
+    @Query("UPDATE MenuItem m SET m.isAvailable = :available, m.updatedAt = :now " +
+           "WHERE m.itemId IN :itemIds AND m.isAvailable <> :available")
+    int updateAvailability(@Param("itemIds") Collection<Long> itemIds, @Param("available") boolean available, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM MenuItem m WHERE m.itemId IN :itemIds")
+    int deleteByItemIds(@Param("itemIds") Collection<Long> itemIds);
 }
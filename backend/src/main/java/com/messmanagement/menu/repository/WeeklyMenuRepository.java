@@ -1,15 +1,18 @@
 package com.messmanagement.menu.repository;
 
+import com.messmanagement.menu.dto.WeeklyMenuConfigView;
 import com.messmanagement.menu.entity.MealType;
 import com.messmanagement.menu.entity.WeeklyMenuConfig;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -48,16 +51,55 @@ public interface WeeklyMenuRepository extends JpaRepository<WeeklyMenuConfig, Lo
             @Param("endDate") LocalDate endDate
     );
 
-    // You might also want methods to find configurations by specific item,
-    // or to delete configurations for a certain day/meal/item before updating.
-    // Example: Find by day, meal type, and item to check for existing conflicting configurations before adding a new one.
-    List<WeeklyMenuConfig> findByDayOfWeekAndMealTypeAndMenuItem_ItemIdAndEffectiveDateStart(
-            DayOfWeek dayOfWeek, MealType mealType, Long itemId, LocalDate effectiveDateStart
+    /**
+     * Same as findActiveConfigsForDateRange, but fetches the MenuItem in the same query
+     * so building a menu does not trigger one lazy load per configuration.
+     */
+    @Query("SELECT wmc FROM WeeklyMenuConfig wmc JOIN FETCH wmc.menuItem " +
+           "WHERE wmc.effectiveDateStart <= :endDate " +
+           "AND (wmc.effectiveDateEnd IS NULL OR wmc.effectiveDateEnd >= :startDate)")
+    List<WeeklyMenuConfig> findActiveConfigsWithItemsForDateRange(
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate
     );
-    
+
+    /**
+     * Configurations still in effect on or after the given date, without loading entities.
+     * Used by WeeklyMenuPublisher to diff a setup request against the current and future menu.
+     */
+    @Query("SELECT new com.messmanagement.menu.dto.WeeklyMenuConfigView(wmc.menuConfigId, wmc.dayOfWeek, wmc.mealType, " +
+           "wmc.menuItem.itemId, wmc.effectiveDateStart, wmc.effectiveDateEnd) " +
+           "FROM WeeklyMenuConfig wmc WHERE wmc.effectiveDateEnd IS NULL OR wmc.effectiveDateEnd >= :date")
+    List<WeeklyMenuConfigView> findViewsInEffectOnOrAfter(@Param("date") LocalDate date);
+
+    /**
+     * Every configuration, without loading entities. Used to build WeeklyMenuIndex.
+     */
+    @Query("SELECT new com.messmanagement.menu.dto.WeeklyMenuConfigView(wmc.menuConfigId, wmc.dayOfWeek, wmc.mealType, " +
+           "wmc.menuItem.itemId, wmc.effectiveDateStart, wmc.effectiveDateEnd) FROM WeeklyMenuConfig wmc")
+    List<WeeklyMenuConfigView> findAllViews();
+
+    /**
+     * Configurations on any of the given days for any of the given meals, without loading entities.
+     * Used to re-read the slots a weekly menu setup changed.
+     */
+    @Query("SELECT new com.messmanagement.menu.dto.WeeklyMenuConfigView(wmc.menuConfigId, wmc.dayOfWeek, wmc.mealType, " +
+           "wmc.menuItem.itemId, wmc.effectiveDateStart, wmc.effectiveDateEnd) " +
+           "FROM WeeklyMenuConfig wmc WHERE wmc.dayOfWeek IN :days AND wmc.mealType IN :mealTypes")
+    List<WeeklyMenuConfigView> findViewsForSlots(@Param("days") Collection<DayOfWeek> days,
+                                                 @Param("mealTypes") Collection<MealType> mealTypes);
+
     // Find by day, meal type, and effective start date (to help with replacing a whole meal's items)
     List<WeeklyMenuConfig> findByDayOfWeekAndMealTypeAndEffectiveDateStart(
             DayOfWeek dayOfWeek, MealType mealType, LocalDate effectiveDateStart
     );
 
+    /**
+     * Deletes every configuration that uses one of the given items, in one statement.
+     * Returns the number of configurations deleted.
+     */
+    @Modifying
+    @Query("DELETE FROM WeeklyMenuConfig wmc WHERE wmc.menuItem.itemId IN :itemIds")
+    int deleteByMenuItemIds(@Param("itemIds") Collection<Long> itemIds);
+
 }
\ No newline at end of file
@@ -0,0 +1,272 @@
+package com.messmanagement.menu.service;
+
+import com.messmanagement.common.transaction.Transactions;
+import com.messmanagement.menu.dto.MenuItemDTO;
+import com.messmanagement.menu.entity.MenuCategory;
+import com.messmanagement.menu.entity.MenuItem;
+import com.messmanagement.menu.repository.MenuItemRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * In-memory copy of the menu_items catalogue, so browsing, filtering, sorting and paging never query the table.
+ *
+ * Readers use an immutable snapshot held in a volatile field, pre-grouped by category and availability.
+ * A write never changes a snapshot in place: after the surrounding transaction commits, the changed rows
+ * are read back and a new snapshot with the next version replaces the old one. Writers are serialized, so
+ * the last swap always reflects the last commit. The whole table is also reloaded on a schedule, which
+ * bounds how stale another instance's catalogue can get; weeks in WeeklyMenuCache showing an item the
+ * reload found changed are dropped.
+ */
+@Component
+public class MenuItemCatalog {
+
+    private static final Logger logger = LoggerFactory.getLogger(MenuItemCatalog.class);
+
+    // Sortable properties, named as on MenuItem so existing sort parameters keep working
+    private static final Map<String, Function<MenuItemDTO, Comparable<?>>> SORT_KEYS = Map.of(
+            "itemId", MenuItemDTO::getItemId,
+            "name", MenuItemDTO::getName,
+            "description", MenuItemDTO::getDescription,
+            "price", MenuItemDTO::getPrice,
+            "category", MenuItemDTO::getCategory,
+            "imageUrl", MenuItemDTO::getImageUrl,
+            "isAvailable", MenuItemDTO::isAvailable,
+            "createdAt", MenuItemDTO::getCreatedAt,
+            "updatedAt", MenuItemDTO::getUpdatedAt);
+
+    private final MenuItemRepository menuItemRepository;
+    private final WeeklyMenuCache weeklyMenuCache;
+    private final TransactionTemplate readTransaction;
+
+    private volatile Snapshot snapshot; // null until first used
+
+    public MenuItemCatalog(MenuItemRepository menuItemRepository, WeeklyMenuCache weeklyMenuCache,
+                           PlatformTransactionManager transactionManager) {
+        this.menuItemRepository = menuItemRepository;
+        this.weeklyMenuCache = weeklyMenuCache;
+        // A fresh persistence context, also when called back after a commit whose resources are still bound
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTransaction.setReadOnly(true);
+    }
+
+    /**
+     * An immutable view of the catalogue. Items are ordered by ID in every list.
+     */
+    private record Snapshot(long version,
+                            Map<Long, MenuItemDTO> byId,
+                            List<MenuItemDTO> all,
+                            Map<Boolean, List<MenuItemDTO>> byAvailability,
+                            Map<MenuCategory, List<MenuItemDTO>> byCategory,
+                            Map<MenuCategory, Map<Boolean, List<MenuItemDTO>>> byCategoryAndAvailability) {
+
+        static Snapshot of(long version, Map<Long, MenuItemDTO> items) {
+            List<MenuItemDTO> all = new ArrayList<>(items.values());
+            all.sort(Comparator.comparing(MenuItemDTO::getItemId));
+
+            Map<Boolean, List<MenuItemDTO>> byAvailability = new HashMap<>();
+            Map<MenuCategory, List<MenuItemDTO>> byCategory = new EnumMap<>(MenuCategory.class);
+            Map<MenuCategory, Map<Boolean, List<MenuItemDTO>>> byCategoryAndAvailability = new EnumMap<>(MenuCategory.class);
+            for (MenuCategory category : MenuCategory.values()) {
+                byCategory.put(category, new ArrayList<>());
+                byCategoryAndAvailability.put(category, new HashMap<>(Map.of(true, new ArrayList<>(), false, new ArrayList<>())));
+            }
+            byAvailability.put(true, new ArrayList<>());
+            byAvailability.put(false, new ArrayList<>());
+            for (MenuItemDTO item : all) {
+                byAvailability.get(item.isAvailable()).add(item);
+                byCategory.get(item.getCategory()).add(item);
+                byCategoryAndAvailability.get(item.getCategory()).get(item.isAvailable()).add(item);
+            }
+
+            byAvailability.replaceAll((available, list) -> List.copyOf(list));
+            byCategory.replaceAll((category, list) -> List.copyOf(list));
+            byCategoryAndAvailability.values().forEach(lists -> lists.replaceAll((available, list) -> List.copyOf(list)));
+            return new Snapshot(version, Map.copyOf(items), List.copyOf(all), byAvailability, byCategory, byCategoryAndAvailability);
+        }
+
+        List<MenuItemDTO> select(MenuCategory category, Boolean isAvailable) {
+            if (category != null && isAvailable != null) {
+                return byCategoryAndAvailability.get(category).get(isAvailable);
+            }
+            if (category != null) {
+                return byCategory.get(category);
+            }
+            return isAvailable != null ? byAvailability.get(isAvailable) : all;
+        }
+    }
+
+    public static MenuItemDTO toDTO(MenuItem menuItem) {
+        return new MenuItemDTO(
+                menuItem.getItemId(),
+                menuItem.getName(),
+                menuItem.getDescription(),
+                menuItem.getPrice(),
+                menuItem.getCategory(),
+                menuItem.getImageUrl(),
+                menuItem.isAvailable(),
+                menuItem.getCreatedAt(),
+                menuItem.getUpdatedAt()
+        );
+    }
+
+    /**
+     * Filters, sorts and pages the catalogue in memory. Either filter may be null to match everything.
+     * Ties in the requested sort are broken by item ID, so pages never overlap.
+     *
+     * @throws IllegalArgumentException if the Pageable sorts by a property MenuItem does not have.
+     */
+    public Page<MenuItemDTO> find(MenuCategory category, Boolean isAvailable, Pageable pageable) {
+        List<MenuItemDTO> matching = current().select(category, isAvailable);
+        if (pageable.getSort().isSorted()) {
+            List<MenuItemDTO> sorted = new ArrayList<>(matching);
+            sorted.sort(comparator(pageable.getSort()));
+            matching = sorted;
+        }
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(copies(matching), pageable, matching.size());
+        }
+        int from = (int) Math.min(pageable.getOffset(), matching.size());
+        int to = Math.min(from + pageable.getPageSize(), matching.size());
+        return new PageImpl<>(copies(matching.subList(from, to)), pageable, matching.size());
+    }
+
+    /**
+     * @return a copy of the item, or null if it is not in the catalogue.
+     */
+    public MenuItemDTO findById(Long itemId) {
+        MenuItemDTO item = current().byId().get(itemId);
+        return item != null ? copy(item) : null;
+    }
+
+    public long version() {
+        return current().version();
+    }
+
+    /**
+     * Re-reads the given items once the surrounding transaction commits (immediately without one).
+     * Items that no longer exist are dropped from the catalogue.
+     */
+    public void refreshItems(Collection<Long> itemIds) {
+        Set<Long> ids = Set.copyOf(itemIds);
+        Transactions.afterCommit(() -> reloadItems(ids));
+    }
+
+    /**
+     * Re-reads the whole table once the surrounding transaction commits, for writes that do not know
+     * which items they created.
+     */
+    public void refreshAll() {
+        Transactions.afterCommit(this::reloadAll);
+    }
+
+    /**
+     * Replaces the catalogue with a fresh read of menu_items. Items that differ from the previous
+     * snapshot (e.g. edited on another instance) also drop the cached weeks that list them.
+     */
+    @Scheduled(fixedDelayString = "${mess.menu.catalog.refresh-interval-ms:300000}",
+               initialDelayString = "${mess.menu.catalog.refresh-interval-ms:300000}")
+    public synchronized void reloadAll() {
+        Map<Long, MenuItemDTO> items = new HashMap<>(load(menuItemRepository::findAll));
+        Snapshot previous = snapshot;
+        snapshot = Snapshot.of(previous != null ? previous.version() + 1 : 1, items);
+        logger.debug("Menu item catalogue loaded {} items (version {})", items.size(), snapshot.version());
+        if (previous != null) {
+            Set<Long> changed = new HashSet<>(items.keySet());
+            changed.addAll(previous.byId().keySet());
+            changed.removeIf(itemId -> Objects.equals(previous.byId().get(itemId), items.get(itemId)));
+            if (!changed.isEmpty()) {
+                weeklyMenuCache.invalidateItems(changed);
+            }
+        }
+    }
+
+    private synchronized void reloadItems(Set<Long> itemIds) {
+        if (snapshot == null) {
+            return; // Not loaded yet; the first read loads the committed rows anyway
+        }
+        Map<Long, MenuItemDTO> items = new HashMap<>(snapshot.byId());
+        items.keySet().removeAll(itemIds);
+        items.putAll(load(() -> menuItemRepository.findAllById(itemIds)));
+        snapshot = Snapshot.of(snapshot.version() + 1, items);
+        logger.debug("Menu item catalogue refreshed {} item(s) (version {})", itemIds.size(), snapshot.version());
+    }
+
+    private Map<Long, MenuItemDTO> load(Supplier<List<MenuItem>> query) {
+        return readTransaction.execute(status -> {
+            Map<Long, MenuItemDTO> items = new HashMap<>();
+            for (MenuItem menuItem : query.get()) {
+                items.put(menuItem.getItemId(), toDTO(menuItem));
+            }
+            return items;
+        });
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    reloadAll(); // Cold start
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Comparator<MenuItemDTO> comparator(Sort sort) {
+        Comparator<MenuItemDTO> comparator = null;
+        for (Sort.Order order : sort) {
+            Function<MenuItemDTO, Comparable<?>> key = SORT_KEYS.get(order.getProperty());
+            if (key == null) {
+                throw new IllegalArgumentException("Cannot sort menu items by '" + order.getProperty() + "'.");
+            }
+            Comparator<Comparable> values = order.isIgnoreCase()
+                    ? (a, b) -> a instanceof String s && b instanceof String t ? s.compareToIgnoreCase(t) : a.compareTo(b)
+                    : Comparator.naturalOrder();
+            if (order.isDescending()) {
+                values = values.reversed();
+            }
+            values = order.getNullHandling() == Sort.NullHandling.NULLS_FIRST
+                    ? Comparator.nullsFirst(values) : Comparator.nullsLast(values);
+            Comparator<MenuItemDTO> byProperty = Comparator.comparing(item -> (Comparable) key.apply(item), values);
+            comparator = comparator == null ? byProperty : comparator.thenComparing(byProperty);
+        }
+        return comparator.thenComparing(MenuItemDTO::getItemId);
+    }
+
+    // Snapshot entries are shared; callers get copies so they cannot change the catalogue.
+    private static List<MenuItemDTO> copies(List<MenuItemDTO> items) {
+        return items.stream().map(MenuItemCatalog::copy).toList();
+    }
+
+    private static MenuItemDTO copy(MenuItemDTO item) {
+        return new MenuItemDTO(item.getItemId(), item.getName(), item.getDescription(), item.getPrice(), item.getCategory(),
+                item.getImageUrl(), item.isAvailable(), item.getCreatedAt(), item.getUpdatedAt());
+    }
+}
@@ -0,0 +1,194 @@
+package com.messmanagement.menu.service;
+
+import com.messmanagement.menu.entity.MenuCategory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads menu items from CSV one line at a time, so an import never holds the whole file.
+ *
+ * The first line is a header naming the columns, in any order: name, price and category are required;
+ * description, imageUrl and isAvailable are optional (snake_case names are accepted too). Fields may be
+ * quoted with double quotes, with "" for a literal quote; a quoted field cannot span lines.
+ * Any invalid line is reported as an IllegalArgumentException naming its line number.
+ */
+class MenuItemCsvReader {
+
+    private static final Set<String> REQUIRED_COLUMNS = Set.of("name", "price", "category");
+    private static final Set<String> KNOWN_COLUMNS = Set.of("name", "description", "price", "category", "imageurl", "isavailable");
+    private static final int MAX_TEXT_LENGTH = 255;
+
+    /**
+     * One parsed line; description and imageUrl are null when empty.
+     */
+    record Row(String name, String description, BigDecimal price, MenuCategory category,
+               String imageUrl, boolean available) {
+    }
+
+    private final BufferedReader reader;
+    private final Map<String, Integer> columns = new HashMap<>();
+    private int lineNumber;
+
+    MenuItemCsvReader(BufferedReader reader) {
+        this.reader = reader;
+        List<String> header = nextFields();
+        if (header == null) {
+            throw new IllegalArgumentException("CSV file is empty.");
+        }
+        for (int i = 0; i < header.size(); i++) {
+            String column = header.get(i).trim().replace("_", "").toLowerCase(Locale.ROOT);
+            if (column.equals("available")) {
+                column = "isavailable";
+            }
+            if (!KNOWN_COLUMNS.contains(column)) {
+                throw new IllegalArgumentException("Line 1: unknown column '" + header.get(i).trim() + "'.");
+            }
+            if (columns.put(column, i) != null) {
+                throw new IllegalArgumentException("Line 1: column '" + header.get(i).trim() + "' appears twice.");
+            }
+        }
+        for (String required : REQUIRED_COLUMNS) {
+            if (!columns.containsKey(required)) {
+                throw new IllegalArgumentException("Line 1: missing required column '" + required + "'.");
+            }
+        }
+    }
+
+    /**
+     * @return the next item, or null at the end of the file. Blank lines are skipped.
+     */
+    Row next() {
+        List<String> fields;
+        do {
+            fields = nextFields();
+            if (fields == null) {
+                return null;
+            }
+        } while (fields.size() == 1 && fields.get(0).isBlank());
+
+        if (fields.size() != columns.size()) {
+            throw invalid("expected " + columns.size() + " fields but found " + fields.size());
+        }
+        String name = text(fields, "name");
+        if (name == null) {
+            throw invalid("name is required");
+        }
+        return new Row(name, text(fields, "description"), price(fields), category(fields),
+                text(fields, "imageurl"), available(fields));
+    }
+
+    private String text(List<String> fields, String column) {
+        Integer index = columns.get(column);
+        if (index == null || fields.get(index).isBlank()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        // Descriptions are stored as large objects; the other text columns are VARCHAR(255)
+        if (!column.equals("description") && value.length() > MAX_TEXT_LENGTH) {
+            throw invalid(column + " must be at most " + MAX_TEXT_LENGTH + " characters");
+        }
+        return value;
+    }
+
+    private BigDecimal price(List<String> fields) {
+        String value = text(fields, "price");
+        if (value == null) {
+            throw invalid("price is required");
+        }
+        try {
+            BigDecimal price = new BigDecimal(value);
+            // Must fit the DECIMAL(10,2) column
+            if (price.signum() < 0 || price.scale() > 2 || price.precision() - price.scale() > 8) {
+                throw invalid("price must be between 0 and 99999999.99 with at most two decimals");
+            }
+            return price;
+        } catch (NumberFormatException e) {
+            throw invalid("price '" + value + "' is not a number");
+        }
+    }
+
+    private MenuCategory category(List<String> fields) {
+        String value = text(fields, "category");
+        if (value == null) {
+            throw invalid("category is required");
+        }
+        try {
+            return MenuCategory.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw invalid("unknown category '" + value + "'");
+        }
+    }
+
+    private boolean available(List<String> fields) {
+        String value = text(fields, "isavailable");
+        if (value == null) {
+            return true; // Same default as MenuItem
+        }
+        return switch (value.toLowerCase(Locale.ROOT)) {
+            case "true", "yes", "1" -> true;
+            case "false", "no", "0" -> false;
+            default -> throw invalid("isAvailable '" + value + "' is not true or false");
+        };
+    }
+
+    private IllegalArgumentException invalid(String message) {
+        return new IllegalArgumentException("Line " + lineNumber + ": " + message + ".");
+    }
+
+    private List<String> nextFields() {
+        String line;
+        try {
+            line = reader.readLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read CSV file", e);
+        }
+        if (line == null) {
+            return null;
+        }
+        lineNumber++;
+        if (lineNumber == 1 && line.startsWith("\uFEFF")) {
+            line = line.substring(1); // Byte order mark written by spreadsheet exports
+        }
+        return split(line);
+    }
+
+    private List<String> split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw invalid("unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
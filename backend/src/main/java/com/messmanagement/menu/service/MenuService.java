@@ -3,11 +3,14 @@ package com.messmanagement.menu.service;
 import com.messmanagement.menu.dto.MenuItemDTO;
 import com.messmanagement.menu.dto.WeeklyMenuResponseDTO; // Import
 import com.messmanagement.menu.dto.WeeklyMenuSetupRequestDTO; // Import
+import com.messmanagement.menu.dto.WeeklyMenuView;
 import com.messmanagement.menu.entity.MenuCategory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.io.InputStream;
 import java.time.LocalDate; // Import
+import java.util.List;
 
 public interface MenuService {
 
@@ -18,8 +21,15 @@ public interface MenuService {
     MenuItemDTO updateMenuItem(Long itemId, MenuItemDTO menuItemDTO);
     void deleteMenuItem(Long itemId);
 
+    // Bulk MenuItem administration; each returns the number of items affected
+    int deleteMenuItems(List<Long> itemIds);
+    int setMenuItemsAvailability(List<Long> itemIds, boolean available);
+    int importMenuItems(InputStream csv); // Header line, then one item per line; all or nothing
+
     // WeeklyMenu Management
     void setupWeeklyMenu(WeeklyMenuSetupRequestDTO setupRequest);
     WeeklyMenuResponseDTO getWeeklyMenuForDate(LocalDate date); // Get menu for the week containing this date
     WeeklyMenuResponseDTO getMenuForDateRange(LocalDate startDate, LocalDate endDate); // Get menu for a specific range
+    WeeklyMenuView getWeeklyMenuViewForDate(LocalDate date); // Same as above, with an ETag; served from WeeklyMenuCache
+    WeeklyMenuView getMenuViewForDateRange(LocalDate startDate, LocalDate endDate);
 }
\ No newline at end of file
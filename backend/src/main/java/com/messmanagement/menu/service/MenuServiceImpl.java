@@ -9,19 +9,26 @@ import com.messmanagement.menu.entity.WeeklyMenuConfig; // Import
 import com.messmanagement.menu.repository.MenuItemRepository;
 import com.messmanagement.menu.repository.WeeklyMenuRepository; // Import
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 
-import jakarta.persistence.criteria.Predicate;
+import javax.sql.rowset.serial.SerialClob;
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Types;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.temporal.TemporalAdjusters;
 import java.util.*;
-import java.util.stream.Collectors;
 
 
 @Service
@@ -30,21 +37,26 @@ public class MenuServiceImpl implements MenuService {
 
     private final MenuItemRepository menuItemRepository;
     private final WeeklyMenuRepository weeklyMenuRepository; // Inject WeeklyMenuRepository
+    private final WeeklyMenuCache weeklyMenuCache;
+    private final MenuItemCatalog menuItemCatalog;
+    private final WeeklyMenuIndex weeklyMenuIndex;
+    private final WeeklyMenuPublisher weeklyMenuPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${mess.menu.bulk.max-items:1000}")
+    private int bulkMaxItems;
+
+    @Value("${mess.menu.import.max-rows:10000}")
+    private int importMaxRows;
+
+    @Value("${mess.menu.import.batch-size:500}")
+    private int importBatchSize;
 
     // ... (mapToDTO, mapToEntity for MenuItem, and MenuItem CRUD methods remain the same) ...
     // Helper method to map Entity to DTO
     private MenuItemDTO mapToDTO(MenuItem menuItem) {
-        return new MenuItemDTO(
-                menuItem.getItemId(),
-                menuItem.getName(),
-                menuItem.getDescription(),
-                menuItem.getPrice(),
-                menuItem.getCategory(),
-                menuItem.getImageUrl(),
-                menuItem.isAvailable(),
-                menuItem.getCreatedAt(),
-                menuItem.getUpdatedAt()
-        );
+        return MenuItemCatalog.toDTO(menuItem);
     }
 
     // Helper method to map DTO to Entity (for create/update)
@@ -64,32 +76,25 @@ public class MenuServiceImpl implements MenuService {
     public MenuItemDTO addMenuItem(MenuItemDTO menuItemDTO) {
         MenuItem menuItem = mapToEntity(menuItemDTO);
         MenuItem savedMenuItem = menuItemRepository.save(menuItem);
+        menuItemCatalog.refreshItems(List.of(savedMenuItem.getItemId()));
         return mapToDTO(savedMenuItem);
     }
 
+    // Browsing is served from MenuItemCatalog, which filters, sorts and pages in memory.
     @Override
-    @Transactional(readOnly = true)
     public Page<MenuItemDTO> getAllMenuItems(Pageable pageable, MenuCategory category, Boolean isAvailable) {
-        Specification<MenuItem> spec = (root, query, criteriaBuilder) -> {
-            List<Predicate> predicates = new ArrayList<>();
-            if (category != null) {
-                predicates.add(criteriaBuilder.equal(root.get("category"), category));
-            }
-            if (isAvailable != null) {
-                predicates.add(criteriaBuilder.equal(root.get("isAvailable"), isAvailable));
-            }
-            return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
-        };
-        Page<MenuItem> menuItemsPage = menuItemRepository.findAll(spec, pageable);
-        return menuItemsPage.map(this::mapToDTO);
+        return menuItemCatalog.find(category, isAvailable, pageable);
     }
 
     @Override
-    @Transactional(readOnly = true)
     public MenuItemDTO getMenuItemById(Long itemId) {
-        MenuItem menuItem = menuItemRepository.findById(itemId)
-                .orElseThrow(() -> new ResourceNotFoundException("MenuItem not found with id: " + itemId));
-        return mapToDTO(menuItem);
+        MenuItemDTO menuItem = menuItemCatalog.findById(itemId);
+        if (menuItem == null) {
+            // May have been added on another instance since the last catalogue reload
+            menuItem = menuItemRepository.findById(itemId).map(this::mapToDTO)
+                    .orElseThrow(() -> new ResourceNotFoundException("MenuItem not found with id: " + itemId));
+        }
+        return menuItem;
     }
 
     @Override
@@ -104,6 +109,8 @@ public class MenuServiceImpl implements MenuService {
         if (menuItemDTO.getImageUrl() != null) existingMenuItem.setImageUrl(StringUtils.hasText(menuItemDTO.getImageUrl()) ? menuItemDTO.getImageUrl() : null);
         existingMenuItem.setAvailable(menuItemDTO.isAvailable());
         MenuItem updatedMenuItem = menuItemRepository.save(existingMenuItem);
+        menuItemCatalog.refreshItems(List.of(itemId));
+        weeklyMenuCache.invalidateItem(itemId);
         return mapToDTO(updatedMenuItem);
     }
 
@@ -113,11 +120,103 @@ public class MenuServiceImpl implements MenuService {
         if (!menuItemRepository.existsById(itemId)) {
             throw new ResourceNotFoundException("MenuItem not found with id: " + itemId + ". Cannot delete.");
         }
-        // TODO: Consider implications on WeeklyMenuConfig that use this item.
-        // Delete related WeeklyMenuConfig entries or set their item_id to null / handle error?
-        // For now, potential for DataIntegrityViolationException if item is in use.
-        weeklyMenuRepository.deleteAll(weeklyMenuRepository.findAll().stream().filter(wmc -> wmc.getMenuItem().getItemId().equals(itemId)).collect(Collectors.toList())); // Example cleanup
+        // Weekly menu configurations using the item go with it; purchases still reference it and block the delete.
+        weeklyMenuRepository.deleteByMenuItemIds(List.of(itemId));
         menuItemRepository.deleteById(itemId);
+        weeklyMenuIndex.removeItems(List.of(itemId));
+        menuItemCatalog.refreshItems(List.of(itemId));
+        weeklyMenuCache.invalidateItem(itemId);
+    }
+
+
+    // --- Bulk MenuItem administration ---
+    // Each operation is a fixed number of statements, whatever the number of items.
+    // The in-memory copies are refreshed before the weekly menu cache is invalidated (both after commit),
+    // so a week rebuilt in between never reads the old data.
+
+    @Override
+    @Transactional
+    public int deleteMenuItems(List<Long> itemIds) {
+        Set<Long> ids = bulkItemIds(itemIds);
+        weeklyMenuRepository.deleteByMenuItemIds(ids);
+        int deleted = menuItemRepository.deleteByItemIds(ids);
+        weeklyMenuIndex.removeItems(ids);
+        menuItemCatalog.refreshItems(ids);
+        weeklyMenuCache.invalidateItems(ids);
+        return deleted;
+    }
+
+    @Override
+    @Transactional
+    public int setMenuItemsAvailability(List<Long> itemIds, boolean available) {
+        Set<Long> ids = bulkItemIds(itemIds);
+        int updated = menuItemRepository.updateAvailability(ids, available, LocalDateTime.now());
+        menuItemCatalog.refreshItems(ids);
+        weeklyMenuCache.invalidateItems(ids);
+        return updated;
+    }
+
+    /**
+     * Streams the CSV and inserts its items with JDBC batches of importBatchSize rows. Runs in one
+     * transaction: an invalid line rejects the whole file.
+     */
+    @Override
+    @Transactional
+    public int importMenuItems(InputStream csv) {
+        MenuItemCsvReader reader = new MenuItemCsvReader(new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8)));
+        LocalDateTime now = LocalDateTime.now();
+        List<MenuItemCsvReader.Row> batch = new ArrayList<>(importBatchSize);
+        int imported = 0;
+        for (MenuItemCsvReader.Row row = reader.next(); row != null; row = reader.next()) {
+            if (imported + batch.size() == importMaxRows) {
+                throw new IllegalArgumentException("A CSV import can contain at most " + importMaxRows + " menu items.");
+            }
+            batch.add(row);
+            if (batch.size() == importBatchSize) {
+                insertMenuItems(batch, now);
+                imported += batch.size();
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            insertMenuItems(batch, now);
+            imported += batch.size();
+        }
+        menuItemCatalog.refreshAll(); // The generated IDs are not read back
+        return imported;
+    }
+
+    private void insertMenuItems(List<MenuItemCsvReader.Row> rows, LocalDateTime now) {
+        // IDENTITY keys stop Hibernate from batching inserts, so these go through JDBC directly
+        jdbcTemplate.batchUpdate("INSERT INTO menu_items (name, description, price, category, image_url, is_available, created_at, updated_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)", rows, rows.size(), (statement, row) -> {
+            statement.setString(1, row.name());
+            // description is a @Lob: CLOB on H2, a large object on PostgreSQL; setClob writes either
+            if (row.description() != null) {
+                statement.setClob(2, new SerialClob(row.description().toCharArray()));
+            } else {
+                statement.setNull(2, Types.CLOB);
+            }
+            statement.setBigDecimal(3, row.price());
+            statement.setString(4, row.category().name());
+            statement.setString(5, row.imageUrl());
+            statement.setBoolean(6, row.available());
+            statement.setObject(7, now);
+            statement.setObject(8, now);
+        });
+    }
+
+    private Set<Long> bulkItemIds(List<Long> itemIds) {
+        if (itemIds == null || itemIds.isEmpty()) {
+            throw new IllegalArgumentException("itemIds must not be empty.");
+        }
+        if (itemIds.size() > bulkMaxItems) {
+            throw new IllegalArgumentException("At most " + bulkMaxItems + " menu items can be changed at once.");
+        }
+        if (itemIds.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("itemIds must not contain null.");
+        }
+        return new LinkedHashSet<>(itemIds);
     }
 
 
@@ -126,87 +225,127 @@ public class MenuServiceImpl implements MenuService {
     @Override
     @Transactional
     public void setupWeeklyMenu(WeeklyMenuSetupRequestDTO setupRequest) {
-        List<WeeklyMenuConfig> configsToSave = new ArrayList<>();
-
-        for (WeeklyMenuItemEntryDTO entry : setupRequest.getMenuEntries()) {
-            MenuItem menuItem = menuItemRepository.findById(entry.getItemId())
-                    .orElseThrow(() -> new ResourceNotFoundException("MenuItem not found with id: " + entry.getItemId() + " for weekly setup."));
-
-            // Optional: Delete existing configurations for this specific slot and effectiveDateStart before adding new one
-            // to prevent issues with the composite unique key or to ensure a clean "update".
-            // This depends on how "update" is defined. If it's a full replacement for a slot/date:
-            List<WeeklyMenuConfig> existing = weeklyMenuRepository.findByDayOfWeekAndMealTypeAndMenuItem_ItemIdAndEffectiveDateStart(
-                entry.getDayOfWeek(), entry.getMealType(), entry.getItemId(), entry.getEffectiveDateStart()
-            );
-            // A simpler approach for "update" might be to delete all entries for a given day/meal/effectiveDateStart and then add new ones.
-            // For now, we assume new entries, and the unique constraint will prevent exact duplicates.
-            // For a robust update, you'd likely clear existing entries for a DayOfWeek, MealType, and effectiveDateStart range.
-
-            WeeklyMenuConfig config = new WeeklyMenuConfig();
-            config.setMenuItem(menuItem);
-            config.setDayOfWeek(entry.getDayOfWeek());
-            config.setMealType(entry.getMealType());
-            config.setEffectiveDateStart(entry.getEffectiveDateStart());
-            config.setEffectiveDateEnd(entry.getEffectiveDateEnd()); // Can be null
-
-            configsToSave.add(config);
+        // Diffed against the stored configurations and written in JDBC batches; see WeeklyMenuPublisher
+        WeeklyMenuPublisher.Result result = weeklyMenuPublisher.publish(setupRequest.getMenuEntries());
+        if (result.inserted() + result.updated() + result.deleted() > 0) {
+            weeklyMenuIndex.refreshSlots(result.slots());
+            weeklyMenuCache.invalidateRange(result.firstAffectedDate(), null);
         }
-        weeklyMenuRepository.saveAll(configsToSave);
     }
 
+    // Reads go through WeeklyMenuCache. A miss builds the menu from WeeklyMenuIndex and MenuItemCatalog,
+    // both in memory; only before the index is loaded does it fall back to a single fetch-join query.
+
     @Override
-    @Transactional(readOnly = true)
     public WeeklyMenuResponseDTO getWeeklyMenuForDate(LocalDate date) {
-        // Determine the start (e.g., Monday) and end (e.g., Sunday) of the week containing the given date.
-        LocalDate weekStart = date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
-        LocalDate weekEnd = date.with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY));
-        return getMenuForDateRange(weekStart, weekEnd);
+        return getWeeklyMenuViewForDate(date).menu();
     }
 
     @Override
-    @Transactional(readOnly = true)
     public WeeklyMenuResponseDTO getMenuForDateRange(LocalDate startDate, LocalDate endDate) {
-        List<WeeklyMenuConfig> activeConfigs = weeklyMenuRepository.findActiveConfigsForDateRange(startDate, endDate);
+        return getMenuViewForDateRange(startDate, endDate).menu();
+    }
 
-        // Group configurations by DayOfWeek -> MealType -> List of MenuItems
-        Map<DayOfWeek, Map<MealType, List<MenuItemDTO>>> dailyMenusMap = new EnumMap<>(DayOfWeek.class);
+    @Override
+    public WeeklyMenuView getWeeklyMenuViewForDate(LocalDate date) {
+        // The week is Monday to Sunday around the given date.
+        return weeklyMenuCache.getOrBuild(WeeklyMenuCache.weekStart(date), monday -> buildMenu(monday, monday.plusDays(6)));
+    }
+
+    @Override
+    public WeeklyMenuView getMenuViewForDateRange(LocalDate startDate, LocalDate endDate) {
+        if (startDate.getDayOfWeek() == DayOfWeek.MONDAY && endDate.equals(startDate.plusDays(6))) {
+            return getWeeklyMenuViewForDate(startDate);
+        }
+        WeeklyMenuResponseDTO menu = buildMenu(startDate, endDate); // Arbitrary ranges are not cached
+        return new WeeklyMenuView(menu, weeklyMenuCache.etagFor(menu));
+    }
 
-        for (DayOfWeek day : DayOfWeek.values()) { // Iterate through all days to ensure all days are present in the map
+    private WeeklyMenuResponseDTO buildMenu(LocalDate startDate, LocalDate endDate) {
+        // Group items by DayOfWeek -> MealType -> List of MenuItems, with every day and meal present
+        Map<DayOfWeek, Map<MealType, List<MenuItemDTO>>> dailyMenusMap = new EnumMap<>(DayOfWeek.class);
+        for (DayOfWeek day : DayOfWeek.values()) {
             Map<MealType, List<MenuItemDTO>> mealsForDay = new EnumMap<>(MealType.class);
-            for (MealType meal : MealType.values()) { // Ensure all meal types are present
+            for (MealType meal : MealType.values()) {
                 mealsForDay.put(meal, new ArrayList<>());
             }
             dailyMenusMap.put(day, mealsForDay);
         }
-        
-        for (WeeklyMenuConfig config : activeConfigs) {
-            // Filter for items that are within the specific requested range [startDate, endDate]
-            // and specifically for the days of that week that fall within the range.
-            // This loop iterates through each day from startDate to endDate.
-            for (LocalDate currentDate = startDate; !currentDate.isAfter(endDate); currentDate = currentDate.plusDays(1)) {
-                if (config.getDayOfWeek() == currentDate.getDayOfWeek() &&
-                    config.getEffectiveDateStart().compareTo(currentDate) <= 0 &&
-                    (config.getEffectiveDateEnd() == null || config.getEffectiveDateEnd().compareTo(currentDate) >= 0)) {
-                    
-                    Map<MealType, List<MenuItemDTO>> meals = dailyMenusMap
-                        .computeIfAbsent(config.getDayOfWeek(), k -> new EnumMap<>(MealType.class));
-                    
-                    List<MenuItemDTO> items = meals
-                        .computeIfAbsent(config.getMealType(), k -> new ArrayList<>());
-                    
-                    items.add(mapToDTO(config.getMenuItem())); // Add the DTO
-                }
-            }
+        if (weeklyMenuIndex.isLoaded()) {
+            addItemsFromIndex(dailyMenusMap, startDate, endDate);
+        } else {
+            addItemsFromRepository(dailyMenusMap, startDate, endDate);
         }
-        
-        // Post-process to ensure the inner DTO WeeklyMenuDayMealDTO is used
-         Map<DayOfWeek, Map<MealType, WeeklyMenuDayMealDTO>> finalDailyMenusMap = new EnumMap<>(DayOfWeek.class);
-         dailyMenusMap.forEach((day, meals) -> {
-             Map<MealType, WeeklyMenuDayMealDTO> finalMeals = new EnumMap<>(MealType.class);
-             meals.forEach((mealType, items) -> finalMeals.put(mealType, new WeeklyMenuDayMealDTO(items)));
-             finalDailyMenusMap.put(day, finalMeals);
-         });
+
+        Map<DayOfWeek, Map<MealType, WeeklyMenuDayMealDTO>> finalDailyMenusMap = new EnumMap<>(DayOfWeek.class);
+        dailyMenusMap.forEach((day, meals) -> {
+            Map<MealType, WeeklyMenuDayMealDTO> finalMeals = new EnumMap<>(MealType.class);
+            meals.forEach((mealType, items) -> finalMeals.put(mealType, new WeeklyMenuDayMealDTO(items)));
+            finalDailyMenusMap.put(day, finalMeals);
+        });
 
         return new WeeklyMenuResponseDTO(finalDailyMenusMap, startDate, endDate);
     }
+
+    private void addItemsFromIndex(Map<DayOfWeek, Map<MealType, List<MenuItemDTO>>> dailyMenusMap,
+                                   LocalDate startDate, LocalDate endDate) {
+        Map<LocalDate, Map<MealType, List<Long>>> itemIdsByDate = new TreeMap<>();
+        Set<Long> itemIds = new HashSet<>();
+        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+            Map<MealType, List<Long>> meals = new EnumMap<>(MealType.class);
+            for (MealType meal : MealType.values()) {
+                List<Long> ids = weeklyMenuIndex.itemIdsOn(date, meal);
+                meals.put(meal, ids);
+                itemIds.addAll(ids);
+            }
+            itemIdsByDate.put(date, meals);
+        }
+
+        Map<Long, MenuItemDTO> itemDTOs = new HashMap<>(); // Each item is mapped once, however often it appears
+        List<Long> missing = new ArrayList<>();
+        for (Long itemId : itemIds) {
+            MenuItemDTO item = menuItemCatalog.findById(itemId);
+            if (item != null) {
+                itemDTOs.put(itemId, item);
+            } else {
+                missing.add(itemId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            // May have been added on another instance since the last catalogue reload
+            transactionTemplate.executeWithoutResult(status ->
+                    menuItemRepository.findAllById(missing).forEach(item -> itemDTOs.put(item.getItemId(), mapToDTO(item))));
+        }
+
+        itemIdsByDate.forEach((date, meals) -> meals.forEach((meal, ids) -> {
+            List<MenuItemDTO> items = dailyMenusMap.get(date.getDayOfWeek()).get(meal);
+            for (Long itemId : ids) {
+                MenuItemDTO item = itemDTOs.get(itemId);
+                if (item != null) {
+                    items.add(item);
+                }
+            }
+        }));
+    }
+
+    private void addItemsFromRepository(Map<DayOfWeek, Map<MealType, List<MenuItemDTO>>> dailyMenusMap,
+                                        LocalDate startDate, LocalDate endDate) {
+        // Run in a short transaction of its own: PostgreSQL only reads the description large objects inside one
+        List<WeeklyMenuConfig> activeConfigs = transactionTemplate.execute(
+                status -> weeklyMenuRepository.findActiveConfigsWithItemsForDateRange(startDate, endDate));
+
+        Map<Long, MenuItemDTO> itemDTOs = new HashMap<>(); // Each item is mapped once, however often it appears
+        for (WeeklyMenuConfig config : activeConfigs) {
+            // Visit only the dates in [startDate, endDate] that fall on the config's day of week,
+            // and add the item once for each such date inside its effective period.
+            LocalDate from = config.getEffectiveDateStart().isAfter(startDate) ? config.getEffectiveDateStart() : startDate;
+            LocalDate to = config.getEffectiveDateEnd() != null && config.getEffectiveDateEnd().isBefore(endDate)
+                    ? config.getEffectiveDateEnd() : endDate;
+            List<MenuItemDTO> items = dailyMenusMap.get(config.getDayOfWeek()).get(config.getMealType());
+            for (LocalDate currentDate = from.with(TemporalAdjusters.nextOrSame(config.getDayOfWeek()));
+                 !currentDate.isAfter(to); currentDate = currentDate.plusWeeks(1)) {
+                items.add(itemDTOs.computeIfAbsent(config.getMenuItem().getItemId(), id -> mapToDTO(config.getMenuItem())));
+            }
+        }
+    }
 }
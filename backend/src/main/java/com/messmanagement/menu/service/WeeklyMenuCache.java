@@ -0,0 +1,158 @@
+package com.messmanagement.menu.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.messmanagement.common.transaction.Transactions;
+import com.messmanagement.menu.dto.MenuItemDTO;
+import com.messmanagement.menu.dto.WeeklyMenuDayMealDTO;
+import com.messmanagement.menu.dto.WeeklyMenuResponseDTO;
+import com.messmanagement.menu.dto.WeeklyMenuView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Cache of fully built weekly menus, keyed by the Monday of the ISO week.
+ *
+ * Each entry also remembers which menu items it contains, so a change to one item only drops
+ * the weeks that show it. Invalidations are applied after the surrounding transaction commits;
+ * a generation counter stops a rebuild that read the old data from being stored afterwards.
+ * Writes on other instances reach this cache through the scheduled reloads of WeeklyMenuIndex and
+ * MenuItemCatalog, which drop the weeks they find changed; entries also expire after ttl-ms.
+ *
+ * ETags are a SHA-256 of the menu's JSON, so every instance and restart gives the same menu the same tag.
+ */
+@Component
+public class WeeklyMenuCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(WeeklyMenuCache.class);
+
+    @Value("${mess.menu.weekly-cache.max-weeks:52}")
+    private int maxWeeks;
+
+    @Value("${mess.menu.weekly-cache.ttl-ms:300000}")
+    private long ttlMs;
+
+    private final ConcurrentHashMap<LocalDate, CachedWeek> weeks = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final ObjectWriter etagWriter;
+
+    private record CachedWeek(WeeklyMenuView view, Set<Long> itemIds, long expiresAtMillis) {
+    }
+
+    public WeeklyMenuCache(ObjectMapper objectMapper) {
+        // Map entries in key order, so equal menus serialize to the same bytes whatever map they were built in
+        this.etagWriter = objectMapper.writer().with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+    }
+
+    public static LocalDate weekStart(LocalDate date) {
+        return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    public String etagFor(WeeklyMenuResponseDTO menu) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(etagWriter.writeValueAsBytes(menu));
+            return "W/\"" + HexFormat.of().formatHex(digest) + "\"";
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not compute the weekly menu ETag", e);
+        }
+    }
+
+    /**
+     * Returns the cached week starting on the given Monday, building (and caching) it on a miss.
+     */
+    public WeeklyMenuView getOrBuild(LocalDate monday, Function<LocalDate, WeeklyMenuResponseDTO> builder) {
+        CachedWeek cached = weeks.get(monday);
+        if (cached != null && cached.expiresAtMillis() > System.currentTimeMillis()) {
+            return cached.view();
+        }
+        long buildGeneration = generation.get();
+        WeeklyMenuResponseDTO menu = builder.apply(monday);
+        CachedWeek built = new CachedWeek(new WeeklyMenuView(menu, etagFor(menu)), collectItemIds(menu),
+                System.currentTimeMillis() + ttlMs);
+        synchronized (this) {
+            // Skip caching if anything was invalidated while we were reading.
+            if (generation.get() == buildGeneration) {
+                weeks.put(monday, built);
+                trimToSize(monday);
+            }
+        }
+        return built.view();
+    }
+
+    /**
+     * Drops every cached week overlapping [startDate, endDate]; a null endDate means open-ended.
+     */
+    public void invalidateRange(LocalDate startDate, LocalDate endDate) {
+        LocalDate firstMonday = weekStart(startDate);
+        Transactions.afterCommit(() -> invalidate(week -> !week.getKey().isBefore(firstMonday)
+                && (endDate == null || !week.getKey().isAfter(endDate))));
+    }
+
+    /**
+     * Drops every cached week that lists the given menu item.
+     */
+    public void invalidateItem(Long itemId) {
+        Transactions.afterCommit(() -> invalidate(week -> week.getValue().itemIds().contains(itemId)));
+    }
+
+    /**
+     * Drops every cached week that lists any of the given menu items.
+     */
+    public void invalidateItems(Collection<Long> itemIds) {
+        Set<Long> ids = Set.copyOf(itemIds);
+        Transactions.afterCommit(() -> invalidate(week -> !Collections.disjoint(week.getValue().itemIds(), ids)));
+    }
+
+    private synchronized void invalidate(Predicate<Map.Entry<LocalDate, CachedWeek>> affectsWeek) {
+        generation.incrementAndGet();
+        int before = weeks.size();
+        weeks.entrySet().removeIf(affectsWeek);
+        logger.debug("Weekly menu cache invalidated {} week(s)", before - weeks.size());
+    }
+
+    private void trimToSize(LocalDate justAdded) {
+        if (weeks.size() <= maxWeeks) {
+            return;
+        }
+        // Keep the weeks closest to the current one; those are the ones students actually poll.
+        LocalDate thisWeek = weekStart(LocalDate.now());
+        weeks.keySet().stream()
+                .filter(monday -> !monday.equals(justAdded))
+                .max(Comparator.comparingLong(monday -> Math.abs(ChronoUnit.DAYS.between(thisWeek, monday))))
+                .ifPresent(weeks::remove);
+    }
+
+    private static Set<Long> collectItemIds(WeeklyMenuResponseDTO menu) {
+        Set<Long> itemIds = new HashSet<>();
+        for (Map<?, WeeklyMenuDayMealDTO> meals : menu.getDailyMenus().values()) {
+            for (WeeklyMenuDayMealDTO meal : meals.values()) {
+                for (MenuItemDTO item : meal.getItems()) {
+                    itemIds.add(item.getItemId());
+                }
+            }
+        }
+        return itemIds;
+    }
+}
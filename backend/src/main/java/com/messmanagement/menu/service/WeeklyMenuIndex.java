@@ -0,0 +1,255 @@
+package com.messmanagement.menu.service;
+
+import com.messmanagement.common.transaction.Transactions;
+import com.messmanagement.menu.dto.WeeklyMenuConfigView;
+import com.messmanagement.menu.entity.MealType;
+import com.messmanagement.menu.repository.WeeklyMenuRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * In-memory interval index over weekly_menu_config, answering "which items are served on date D at meal M"
+ * without querying the table.
+ *
+ * Configurations are bucketed by (day of week, meal type). Each bucket turns its effective periods into
+ * a timeline of segments: a TreeMap from the first date of each segment to the items served throughout it,
+ * so a lookup is one floorEntry. The whole table is loaded when the application is ready and on a schedule;
+ * writes update only the buckets they touched, after their transaction commits. Like MenuItemCatalog,
+ * readers use an immutable snapshot in a volatile field and writers are serialized. Until the first load
+ * finishes, isLoaded() is false and callers read the repository instead. Configurations a scheduled
+ * reload finds added, changed or removed drop the weeks they cover from WeeklyMenuCache.
+ */
+@Component
+public class WeeklyMenuIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(WeeklyMenuIndex.class);
+
+    /**
+     * One bucket of the index: a meal on a day of the week.
+     */
+    public record Slot(DayOfWeek dayOfWeek, MealType mealType) {
+    }
+
+    /**
+     * The configurations of one slot and the segments built from them. Item IDs within a segment are
+     * ordered by configuration ID.
+     */
+    private record Timeline(List<WeeklyMenuConfigView> configs, NavigableMap<LocalDate, List<Long>> segments) {
+
+        static Timeline of(List<WeeklyMenuConfigView> configs) {
+            // A configuration that ends before it starts is never served
+            List<WeeklyMenuConfigView> byStart = new ArrayList<>(configs.stream()
+                    .filter(config -> config.effectiveDateEnd() == null || !config.effectiveDateEnd().isBefore(config.effectiveDateStart()))
+                    .toList());
+            byStart.sort(Comparator.comparing(WeeklyMenuConfigView::effectiveDateStart));
+            // Sweep the start and end dates in order, keeping the configurations running at each one
+            PriorityQueue<WeeklyMenuConfigView> byEnd = new PriorityQueue<>(
+                    Comparator.comparing(WeeklyMenuConfigView::effectiveDateEnd, Comparator.nullsLast(Comparator.naturalOrder())));
+            TreeMap<Long, Long> running = new TreeMap<>(); // configuration ID -> item ID
+            NavigableMap<LocalDate, List<Long>> segments = new TreeMap<>();
+            int next = 0;
+            while (next < byStart.size() || !byEnd.isEmpty()) {
+                LocalDate nextStart = next < byStart.size() ? byStart.get(next).effectiveDateStart() : null;
+                LocalDate nextStop = !byEnd.isEmpty() && byEnd.peek().effectiveDateEnd() != null
+                        ? byEnd.peek().effectiveDateEnd().plusDays(1) : null;
+                LocalDate boundary = nextStart == null || (nextStop != null && nextStop.isBefore(nextStart)) ? nextStop : nextStart;
+                if (boundary == null) {
+                    break; // Only open-ended configurations are left running
+                }
+                while (!byEnd.isEmpty() && byEnd.peek().effectiveDateEnd() != null
+                        && byEnd.peek().effectiveDateEnd().plusDays(1).equals(boundary)) {
+                    running.remove(byEnd.poll().menuConfigId());
+                }
+                while (next < byStart.size() && byStart.get(next).effectiveDateStart().equals(boundary)) {
+                    WeeklyMenuConfigView config = byStart.get(next++);
+                    running.put(config.menuConfigId(), config.itemId());
+                    byEnd.add(config);
+                }
+                segments.put(boundary, List.copyOf(running.values()));
+            }
+            return new Timeline(List.copyOf(configs), segments);
+        }
+
+        List<Long> itemIdsOn(LocalDate date) {
+            Map.Entry<LocalDate, List<Long>> segment = segments.floorEntry(date);
+            return segment != null ? segment.getValue() : List.of();
+        }
+    }
+
+    private final WeeklyMenuRepository weeklyMenuRepository;
+    private final WeeklyMenuCache weeklyMenuCache;
+    private final TransactionTemplate readTransaction;
+
+    private volatile Map<Slot, Timeline> timelines; // null until loaded
+
+    public WeeklyMenuIndex(WeeklyMenuRepository weeklyMenuRepository, WeeklyMenuCache weeklyMenuCache,
+                           PlatformTransactionManager transactionManager) {
+        this.weeklyMenuRepository = weeklyMenuRepository;
+        this.weeklyMenuCache = weeklyMenuCache;
+        // A fresh persistence context, also when called back after a commit whose resources are still bound
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTransaction.setReadOnly(true);
+    }
+
+    public boolean isLoaded() {
+        return timelines != null;
+    }
+
+    /**
+     * @return the IDs of the items served on the given date at the given meal, in configuration order.
+     * @throws IllegalStateException if the index has not been loaded yet.
+     */
+    public List<Long> itemIdsOn(LocalDate date, MealType mealType) {
+        Map<Slot, Timeline> current = timelines;
+        if (current == null) {
+            throw new IllegalStateException("Weekly menu index is not loaded yet.");
+        }
+        Timeline timeline = current.get(new Slot(date.getDayOfWeek(), mealType));
+        return timeline != null ? timeline.itemIdsOn(date) : List.of();
+    }
+
+    /**
+     * Re-reads the given slots once the surrounding transaction commits (immediately without one).
+     */
+    public void refreshSlots(Collection<Slot> slots) {
+        Set<Slot> changed = Set.copyOf(slots);
+        Transactions.afterCommit(() -> reloadSlots(changed));
+    }
+
+    /**
+     * Drops every configuration of the given items once the surrounding transaction commits, without
+     * reading the table.
+     */
+    public void removeItems(Collection<Long> itemIds) {
+        Set<Long> ids = Set.copyOf(itemIds);
+        Transactions.afterCommit(() -> dropItems(ids));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        try {
+            reloadAll();
+        } catch (RuntimeException e) {
+            // Menus are read from the repository until the next scheduled reload succeeds
+            logger.warn("Could not load the weekly menu index at startup", e);
+        }
+    }
+
+    /**
+     * Rebuilds every slot's timeline from weekly_menu_config, so configurations written by other instances
+     * become visible here. Unless this is the first load, each configuration that was added, removed or
+     * changed since the previous load evicts the weeks it covers (before and after the change) from
+     * WeeklyMenuCache.
+     */
+    @Scheduled(fixedDelayString = "${mess.menu.weekly-index.refresh-interval-ms:300000}",
+               initialDelayString = "${mess.menu.weekly-index.refresh-interval-ms:300000}")
+    public synchronized void reloadAll() {
+        Map<Slot, List<WeeklyMenuConfigView>> bySlot = group(load(weeklyMenuRepository::findAllViews));
+        Map<Slot, Timeline> loaded = new HashMap<>();
+        bySlot.forEach((slot, configs) -> loaded.put(slot, Timeline.of(configs)));
+        Map<Slot, Timeline> previous = timelines;
+        timelines = Map.copyOf(loaded);
+        logger.debug("Weekly menu index loaded {} configurations in {} slots",
+                bySlot.values().stream().mapToInt(List::size).sum(), loaded.size());
+        if (previous != null) {
+            evictChangedWeeks(previous, timelines);
+        }
+    }
+
+    private void evictChangedWeeks(Map<Slot, Timeline> before, Map<Slot, Timeline> after) {
+        Set<WeeklyMenuConfigView> previous = configsOf(before);
+        Set<WeeklyMenuConfigView> current = configsOf(after);
+        // Configurations only one side has were added, removed, or changed (both versions count)
+        Set<WeeklyMenuConfigView> changed = new HashSet<>(previous);
+        changed.addAll(current);
+        previous.retainAll(current);
+        changed.removeAll(previous);
+        for (WeeklyMenuConfigView config : changed) {
+            weeklyMenuCache.invalidateRange(config.effectiveDateStart(), config.effectiveDateEnd());
+        }
+    }
+
+    private static Set<WeeklyMenuConfigView> configsOf(Map<Slot, Timeline> timelines) {
+        Set<WeeklyMenuConfigView> configs = new HashSet<>();
+        timelines.values().forEach(timeline -> configs.addAll(timeline.configs()));
+        return configs;
+    }
+
+    private synchronized void reloadSlots(Set<Slot> slots) {
+        if (timelines == null) {
+            return; // Not loaded yet; the first load reads the committed rows anyway
+        }
+        Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        Set<MealType> mealTypes = EnumSet.noneOf(MealType.class);
+        slots.forEach(slot -> {
+            days.add(slot.dayOfWeek());
+            mealTypes.add(slot.mealType());
+        });
+        Map<Slot, List<WeeklyMenuConfigView>> bySlot = group(load(() -> weeklyMenuRepository.findViewsForSlots(days, mealTypes)));
+        Map<Slot, Timeline> updated = new HashMap<>(timelines);
+        for (Slot slot : slots) {
+            List<WeeklyMenuConfigView> configs = bySlot.get(slot);
+            if (configs != null) {
+                updated.put(slot, Timeline.of(configs));
+            } else {
+                updated.remove(slot);
+            }
+        }
+        timelines = Map.copyOf(updated);
+        logger.debug("Weekly menu index refreshed {} slot(s)", slots.size());
+    }
+
+    private synchronized void dropItems(Set<Long> itemIds) {
+        if (timelines == null) {
+            return;
+        }
+        Map<Slot, Timeline> updated = new HashMap<>(timelines);
+        timelines.forEach((slot, timeline) -> {
+            List<WeeklyMenuConfigView> kept = timeline.configs().stream()
+                    .filter(config -> !itemIds.contains(config.itemId()))
+                    .toList();
+            if (kept.isEmpty()) {
+                updated.remove(slot);
+            } else if (kept.size() < timeline.configs().size()) {
+                updated.put(slot, Timeline.of(kept));
+            }
+        });
+        timelines = Map.copyOf(updated);
+    }
+
+    private List<WeeklyMenuConfigView> load(Supplier<List<WeeklyMenuConfigView>> query) {
+        return readTransaction.execute(status -> query.get());
+    }
+
+    private static Map<Slot, List<WeeklyMenuConfigView>> group(List<WeeklyMenuConfigView> configs) {
+        Map<Slot, List<WeeklyMenuConfigView>> bySlot = new HashMap<>();
+        for (WeeklyMenuConfigView config : configs) {
+            bySlot.computeIfAbsent(new Slot(config.dayOfWeek(), config.mealType()), slot -> new ArrayList<>()).add(config);
+        }
+        return bySlot;
+    }
+}
@@ -0,0 +1,217 @@
+package com.messmanagement.menu.service;
+
+import com.messmanagement.common.exception.ResourceNotFoundException;
+import com.messmanagement.menu.dto.WeeklyMenuConfigView;
+import com.messmanagement.menu.dto.WeeklyMenuItemEntryDTO;
+import com.messmanagement.menu.entity.MenuItem;
+import com.messmanagement.menu.repository.MenuItemRepository;
+import com.messmanagement.menu.repository.WeeklyMenuRepository;
+import com.messmanagement.menu.service.WeeklyMenuIndex.Slot;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Applies a weekly menu setup request as a diff against the stored configurations.
+ *
+ * Each (day of week, meal type) slot is a timeline of publications. The entries of a request that share a
+ * slot and an effectiveDateStart S are the complete list of items for that slot from S on:
+ * <ul>
+ *   <li>items already configured for the slot at S are kept, with their end date updated if it changed;</li>
+ *   <li>items configured at S but missing from the request are deleted;</li>
+ *   <li>earlier configurations still running at S are end-dated to the day before S;</li>
+ *   <li>new items are inserted, ending no later than the day before the slot's next publication, if any.</li>
+ * </ul>
+ * Re-submitting the same request therefore changes nothing. All item IDs are resolved with one query,
+ * the current and future configurations are read with another, and the changes are written as JDBC batches.
+ */
+@Component
+@RequiredArgsConstructor
+public class WeeklyMenuPublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(WeeklyMenuPublisher.class);
+
+    private final MenuItemRepository menuItemRepository;
+    private final WeeklyMenuRepository weeklyMenuRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * A configuration as it will be after the publish; menuConfigId is null for a new one.
+     */
+    private static final class Config {
+        private final Long menuConfigId;
+        private final Long itemId;
+        private final LocalDate start;
+        private LocalDate end;
+        private boolean changed;
+        private boolean deleted;
+
+        private Config(Long menuConfigId, Long itemId, LocalDate start, LocalDate end) {
+            this.menuConfigId = menuConfigId;
+            this.itemId = itemId;
+            this.start = start;
+            this.end = end;
+        }
+
+        private boolean runsOn(LocalDate date) {
+            return !start.isAfter(date) && (end == null || !end.isBefore(date));
+        }
+
+        private void endOn(LocalDate newEnd) {
+            if (!Objects.equals(end, newEnd)) {
+                end = newEnd;
+                changed = true;
+            }
+        }
+    }
+
+    /**
+     * What a publish changed; slots are the (day, meal) pairs the request covered.
+     */
+    public record Result(int inserted, int updated, int deleted, LocalDate firstAffectedDate, Set<Slot> slots) {
+    }
+
+    /**
+     * Must run inside the caller's transaction, so the whole request is applied or none of it.
+     *
+     * @throws IllegalArgumentException if an entry is incomplete, ends before it starts, or is listed twice.
+     * @throws ResourceNotFoundException if an entry refers to a menu item that does not exist.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Result publish(List<WeeklyMenuItemEntryDTO> entries) {
+        if (entries == null || entries.isEmpty()) {
+            throw new IllegalArgumentException("menuEntries must not be empty.");
+        }
+        // Slot -> start -> item -> requested end
+        Map<Slot, TreeMap<LocalDate, Map<Long, LocalDate>>> publications = new LinkedHashMap<>();
+        for (WeeklyMenuItemEntryDTO entry : entries) {
+            validate(entry);
+            Map<Long, LocalDate> items = publications
+                    .computeIfAbsent(new Slot(entry.getDayOfWeek(), entry.getMealType()), slot -> new TreeMap<>())
+                    .computeIfAbsent(entry.getEffectiveDateStart(), start -> new LinkedHashMap<>());
+            if (items.containsKey(entry.getItemId())) {
+                throw new IllegalArgumentException("Item " + entry.getItemId() + " is listed twice for " + entry.getDayOfWeek()
+                        + " " + entry.getMealType() + " from " + entry.getEffectiveDateStart() + ".");
+            }
+            items.put(entry.getItemId(), entry.getEffectiveDateEnd());
+        }
+        resolveItems(entries);
+
+        LocalDate firstStart = publications.values().stream().map(TreeMap::firstKey).min(LocalDate::compareTo).orElseThrow();
+        Map<Slot, List<Config>> stored = new HashMap<>();
+        for (WeeklyMenuConfigView view : weeklyMenuRepository.findViewsInEffectOnOrAfter(firstStart)) {
+            Slot slot = new Slot(view.dayOfWeek(), view.mealType());
+            if (publications.containsKey(slot)) {
+                stored.computeIfAbsent(slot, s -> new ArrayList<>())
+                        .add(new Config(view.menuConfigId(), view.itemId(), view.effectiveDateStart(), view.effectiveDateEnd()));
+            }
+        }
+
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        publications.forEach((slot, byStart) -> {
+            List<Config> configs = stored.computeIfAbsent(slot, s -> new ArrayList<>());
+            byStart.forEach((start, items) -> publish(configs, start, items));
+            for (Config config : configs) {
+                if (config.menuConfigId == null) {
+                    inserts.add(new Object[]{slot.dayOfWeek().name(), slot.mealType().name(), config.itemId, config.start, config.end});
+                } else if (config.deleted) {
+                    deletes.add(new Object[]{config.menuConfigId});
+                } else if (config.changed) {
+                    updates.add(new Object[]{config.end, config.menuConfigId});
+                }
+            }
+        });
+
+        if (!deletes.isEmpty()) {
+            jdbcTemplate.batchUpdate("DELETE FROM weekly_menu_config WHERE menu_config_id = ?", deletes);
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE weekly_menu_config SET effective_date_end = ? WHERE menu_config_id = ?", updates);
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO weekly_menu_config (day_of_week, meal_type, item_id, effective_date_start, effective_date_end) "
+                    + "VALUES (?, ?, ?, ?, ?)", inserts);
+        }
+        logger.info("Published weekly menu from {}: {} inserted, {} updated, {} deleted",
+                firstStart, inserts.size(), updates.size(), deletes.size());
+        return new Result(inserts.size(), updates.size(), deletes.size(), firstStart, Set.copyOf(publications.keySet()));
+    }
+
+    /**
+     * Applies one publication (slot, start, items) to the slot's configurations in memory.
+     */
+    private static void publish(List<Config> configs, LocalDate start, Map<Long, LocalDate> items) {
+        // The slot's next publication after this one bounds every item published here
+        LocalDate nextStart = configs.stream()
+                .filter(config -> !config.deleted && config.start.isAfter(start))
+                .map(config -> config.start)
+                .min(LocalDate::compareTo)
+                .orElse(null);
+        LocalDate cap = nextStart != null ? nextStart.minusDays(1) : null;
+
+        Set<Long> pending = new HashSet<>(items.keySet());
+        for (Config config : configs) {
+            if (config.deleted) {
+                continue;
+            }
+            if (config.start.equals(start)) {
+                if (pending.remove(config.itemId)) {
+                    config.endOn(earliest(items.get(config.itemId), cap));
+                } else {
+                    config.deleted = true;
+                }
+            } else if (config.start.isBefore(start) && config.runsOn(start)) {
+                config.endOn(start.minusDays(1));
+            }
+        }
+        for (Long itemId : items.keySet()) {
+            if (pending.contains(itemId)) {
+                configs.add(new Config(null, itemId, start, earliest(items.get(itemId), cap)));
+            }
+        }
+    }
+
+    private void resolveItems(List<WeeklyMenuItemEntryDTO> entries) {
+        Set<Long> itemIds = entries.stream().map(WeeklyMenuItemEntryDTO::getItemId).collect(Collectors.toSet());
+        Set<Long> found = menuItemRepository.findAllById(itemIds).stream().map(MenuItem::getItemId).collect(Collectors.toSet());
+        itemIds.removeAll(found);
+        if (!itemIds.isEmpty()) {
+            throw new ResourceNotFoundException("MenuItem not found with id(s): " + itemIds + " for weekly setup.");
+        }
+    }
+
+    private static void validate(WeeklyMenuItemEntryDTO entry) {
+        if (entry == null || entry.getItemId() == null || entry.getDayOfWeek() == null || entry.getMealType() == null
+                || entry.getEffectiveDateStart() == null) {
+            throw new IllegalArgumentException("Each menu entry needs itemId, dayOfWeek, mealType and effectiveDateStart.");
+        }
+        if (entry.getEffectiveDateEnd() != null && entry.getEffectiveDateEnd().isBefore(entry.getEffectiveDateStart())) {
+            throw new IllegalArgumentException("effectiveDateEnd of item " + entry.getItemId() + " is before its effectiveDateStart.");
+        }
+    }
+
+    private static LocalDate earliest(LocalDate a, LocalDate b) {
+        if (a == null) {
+            return b;
+        }
+        return b == null || a.isBefore(b) ? a : b;
+    }
+}
@@ -0,0 +1,35 @@
+package com.messmanagement.payment.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Progress of StripeCustomerBackfillJob. There is one row, with ID 1, created by the migration.
+ */
+@Entity
+@Table(name = "stripe_customer_backfill")
+@Data
+@NoArgsConstructor
+public class StripeCustomerBackfill {
+
+    public static final int ID = 1;
+
+    @Id
+    @Column(name = "backfill_id")
+    private Integer backfillId;
+
+    @Column(name = "starting_after")
+    private String startingAfter; // Last customer of the last stored page; null to start from the newest
+
+    @Column(name = "completed_at")
+    private Instant completedAt; // Set once a pass reached the oldest customer
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
@@ -0,0 +1,66 @@
+package com.messmanagement.payment.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * A verified Stripe webhook event, stored as received and applied later by StripeWebhookInbox.
+ * The Stripe event ID is the primary key, so a redelivered event is recognised on insert.
+ */
+@Entity
+@Table(name = "stripe_webhook_events", indexes = {
+        @Index(name = "ix_stripe_webhook_events_status_next", columnList = "status, next_attempt_at"),
+        @Index(name = "ix_stripe_webhook_events_key_created", columnList = "ordering_key, stripe_created_at")
+})
+@Data
+@NoArgsConstructor
+public class StripeWebhookEvent {
+
+    @Id
+    @Column(name = "event_id")
+    private String eventId;
+
+    @Column(name = "event_type", nullable = false, length = 100)
+    private String eventType;
+
+    // Events with the same key (usually the Stripe subscription ID) are applied in stripeCreatedAt order
+    @Column(name = "ordering_key", nullable = false)
+    private String orderingKey;
+
+    @Column(nullable = false, length = 1048576)
+    private String payload; // Raw JSON body as signed by Stripe
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private StripeWebhookEventStatus status;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "stripe_created_at", nullable = false)
+    private Instant stripeCreatedAt;
+
+    @Column(name = "received_at", nullable = false)
+    private Instant receivedAt;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt;
+
+    @Column(name = "locked_until")
+    private Instant lockedUntil; // Lease held by the instance applying the event
+
+    @Column(name = "processed_at")
+    private Instant processedAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+}
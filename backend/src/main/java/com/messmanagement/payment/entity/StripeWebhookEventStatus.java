@@ -0,0 +1,8 @@
+package com.messmanagement.payment.entity;
+
+public enum StripeWebhookEventStatus {
+    PENDING,   // Waiting to be applied, or waiting for a retry
+    PROCESSED,
+    IGNORED,   // Event type this application does not handle
+    FAILED     // Gave up after the maximum number of attempts
+}
@@ -0,0 +1,70 @@
+package com.messmanagement.payment.gateway;
+
+import com.stripe.exception.StripeException;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The payment provider calls the application makes. StripePaymentGateway talks to Stripe; with
+ * mess.payment.gateway=simulator, SimulatedPaymentGateway answers in-process and sends the matching
+ * signed webhooks back, so the purchase, subscription and webhook flows can be load-tested offline.
+ *
+ * Implementations only make the provider call; PaymentServiceImpl runs them through StripeCallGuard.
+ * Failures are reported as StripeExceptions so both implementations behave the same for the callers.
+ */
+public interface PaymentGateway {
+
+    enum CheckoutMode {
+        SUBSCRIPTION, // Recurring price; the provider creates the subscription when the checkout completes
+        PAYMENT       // One-time payment of unitAmountMinor x quantity
+    }
+
+    /**
+     * @param priceId         provider price, for SUBSCRIPTION checkouts.
+     * @param productName     line item name, for PAYMENT checkouts.
+     * @param unitAmountMinor amount in the currency's minor unit (paise), for PAYMENT checkouts.
+     * @param metadata        copied onto the session, e.g. app_subscription_id or app_purchase_id.
+     */
+    record CheckoutSessionRequest(CheckoutMode mode,
+                                  String customerId,
+                                  String priceId,
+                                  String productName,
+                                  long unitAmountMinor,
+                                  long quantity,
+                                  String currency,
+                                  Map<String, String> metadata,
+                                  String successUrl,
+                                  String cancelUrl) {
+    }
+
+    /**
+     * @param appUserId the app_user_id metadata of the customer, or null.
+     */
+    record GatewayCustomer(String id, String appUserId) {
+    }
+
+    record CustomerPage(List<GatewayCustomer> customers, boolean hasMore) {
+    }
+
+    /**
+     * Creates a customer. Requests with the same idempotency key return the same customer.
+     *
+     * @return the customer ID.
+     */
+    String createCustomer(String name, String email, Map<String, String> metadata, String idempotencyKey) throws StripeException;
+
+    /**
+     * @return the checkout session ID.
+     */
+    String createCheckoutSession(CheckoutSessionRequest request) throws StripeException;
+
+    void cancelSubscriptionAtPeriodEnd(String subscriptionId) throws StripeException;
+
+    /**
+     * One page of customers, newest first.
+     *
+     * @param startingAfter ID of the last customer of the previous page, or null for the first page.
+     */
+    CustomerPage listCustomers(String startingAfter, long limit) throws StripeException;
+}
@@ -0,0 +1,240 @@
+package com.messmanagement.payment.gateway;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.messmanagement.payment.controller.StripeWebhookController;
+import com.stripe.Stripe;
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.StripeException;
+import com.stripe.net.Webhook;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.security.GeneralSecurityException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process stand-in for Stripe, enabled with mess.payment.gateway=simulator. For load tests and offline
+ * development only; it never moves money.
+ *
+ * Every call waits latency-ms plus up to latency-jitter-ms and then fails with an ApiConnectionException
+ * with probability failure-rate, so the call guard's timeouts and circuit breaker can be exercised.
+ * When checkout-completion-rate allows, a created checkout session is "paid" webhook-delay-ms later: the
+ * simulator builds the events Stripe would send (checkout.session.completed, plus invoice.paid for
+ * subscriptions), signs them with stripe.webhook.secret and passes them to StripeWebhookController.
+ * With probability duplicate-rate an event is delivered twice, as Stripe may do.
+ */
+@Component
+@ConditionalOnProperty(name = "mess.payment.gateway", havingValue = "simulator")
+public class SimulatedPaymentGateway implements PaymentGateway {
+
+    private static final Logger logger = LoggerFactory.getLogger(SimulatedPaymentGateway.class);
+
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<StripeWebhookController> webhookController; // Lazy: the controller depends on us indirectly
+    private final ScheduledExecutorService webhookSender =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("payment-simulator").daemon().factory());
+    private final AtomicLong ids = new AtomicLong();
+    private final Map<String, String> customersByIdempotencyKey = new ConcurrentHashMap<>();
+    private final List<GatewayCustomer> customers = new ArrayList<>(); // Oldest first, guarded by itself
+
+    @Value("${stripe.webhook.secret}")
+    private String webhookSecret;
+
+    @Value("${mess.payment.simulator.latency-ms:50}")
+    private long latencyMs;
+
+    @Value("${mess.payment.simulator.latency-jitter-ms:50}")
+    private long latencyJitterMs;
+
+    @Value("${mess.payment.simulator.failure-rate:0.0}")
+    private double failureRate;
+
+    @Value("${mess.payment.simulator.checkout-completion-rate:1.0}")
+    private double checkoutCompletionRate;
+
+    @Value("${mess.payment.simulator.webhook-delay-ms:200}")
+    private long webhookDelayMs;
+
+    @Value("${mess.payment.simulator.duplicate-rate:0.0}")
+    private double duplicateRate;
+
+    @Value("${mess.payment.simulator.subscription-amount-minor:350000}")
+    private long subscriptionAmountMinor; // Amount charged by the simulated invoices, in paise
+
+    public SimulatedPaymentGateway(ObjectMapper objectMapper, ObjectProvider<StripeWebhookController> webhookController) {
+        this.objectMapper = objectMapper;
+        this.webhookController = webhookController;
+        logger.warn("Payment gateway SIMULATOR is active: no real payments are taken");
+    }
+
+    @Override
+    public String createCustomer(String name, String email, Map<String, String> metadata, String idempotencyKey) throws StripeException {
+        simulateCall("customer.create");
+        return customersByIdempotencyKey.computeIfAbsent(idempotencyKey, key -> {
+            String customerId = newId("cus");
+            synchronized (customers) {
+                customers.add(new GatewayCustomer(customerId, metadata.get("app_user_id")));
+            }
+            return customerId;
+        });
+    }
+
+    @Override
+    public String createCheckoutSession(CheckoutSessionRequest request) throws StripeException {
+        simulateCall("checkout.session.create");
+        String sessionId = newId("cs");
+        if (ThreadLocalRandom.current().nextDouble() < checkoutCompletionRate) {
+            webhookSender.schedule(() -> completeCheckout(sessionId, request), webhookDelayMs, TimeUnit.MILLISECONDS);
+        }
+        return sessionId;
+    }
+
+    @Override
+    public void cancelSubscriptionAtPeriodEnd(String subscriptionId) throws StripeException {
+        simulateCall("subscription.cancel");
+    }
+
+    @Override
+    public CustomerPage listCustomers(String startingAfter, long limit) throws StripeException {
+        simulateCall("customer.list");
+        synchronized (customers) {
+            int from = customers.size() - 1; // Newest first, like Stripe
+            if (startingAfter != null) {
+                from = -1;
+                for (int i = customers.size() - 1; i >= 0; i--) {
+                    if (customers.get(i).id().equals(startingAfter)) {
+                        from = i - 1;
+                        break;
+                    }
+                }
+            }
+            List<GatewayCustomer> page = new ArrayList<>();
+            for (int i = from; i >= 0 && page.size() < limit; i--) {
+                page.add(customers.get(i));
+            }
+            boolean hasMore = from - page.size() >= 0;
+            return new CustomerPage(page, hasMore);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        webhookSender.shutdownNow();
+    }
+
+    private void simulateCall(String operation) throws StripeException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long delay = latencyMs + (latencyJitterMs > 0 ? random.nextLong(latencyJitterMs + 1) : 0);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiConnectionException("Simulated " + operation + " interrupted", e);
+        }
+        if (random.nextDouble() < failureRate) {
+            throw new ApiConnectionException("Simulated network failure during " + operation);
+        }
+    }
+
+    private void completeCheckout(String sessionId, CheckoutSessionRequest request) {
+        try {
+            long now = Instant.now().getEpochSecond();
+            String paymentIntentId = newId("pi");
+            Map<String, Object> session = new LinkedHashMap<>();
+            session.put("id", sessionId);
+            session.put("object", "checkout.session");
+            session.put("customer", request.customerId());
+            session.put("payment_status", "paid");
+            session.put("metadata", request.metadata());
+
+            if (request.mode() == CheckoutMode.SUBSCRIPTION) {
+                String subscriptionId = newId("sub");
+                session.put("mode", "subscription");
+                session.put("subscription", subscriptionId);
+                deliver(event("checkout.session.completed", now, session));
+
+                Map<String, Object> invoice = new LinkedHashMap<>();
+                invoice.put("id", newId("in"));
+                invoice.put("object", "invoice");
+                invoice.put("subscription", subscriptionId);
+                invoice.put("customer", request.customerId());
+                invoice.put("payment_intent", paymentIntentId);
+                invoice.put("amount_paid", subscriptionAmountMinor);
+                invoice.put("currency", request.currency());
+                invoice.put("period_start", now);
+                invoice.put("period_end", Instant.ofEpochSecond(now).atZone(ZoneId.systemDefault()).plusMonths(1).toEpochSecond());
+                invoice.put("status_transitions", Map.of("paid_at", now));
+                deliver(event("invoice.paid", now, invoice));
+            } else {
+                session.put("mode", "payment");
+                session.put("payment_intent", paymentIntentId);
+                session.put("amount_total", request.unitAmountMinor() * request.quantity());
+                session.put("currency", request.currency());
+                deliver(event("checkout.session.completed", now, session));
+            }
+        } catch (RuntimeException e) {
+            logger.error("Simulated checkout {} could not be completed: {}", sessionId, e.getMessage());
+        }
+    }
+
+    private Map<String, Object> event(String type, long created, Map<String, Object> dataObject) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("id", newId("evt"));
+        event.put("object", "event");
+        event.put("api_version", Stripe.API_VERSION); // The SDK only deserializes data objects of its own API version
+        event.put("created", created);
+        event.put("type", type);
+        event.put("livemode", false);
+        event.put("pending_webhooks", 1);
+        event.put("data", Map.of("object", dataObject));
+        return event;
+    }
+
+    private void deliver(Map<String, Object> event) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize simulated event", e);
+        }
+        int deliveries = ThreadLocalRandom.current().nextDouble() < duplicateRate ? 2 : 1;
+        for (int i = 0; i < deliveries; i++) {
+            ResponseEntity<String> response = webhookController.getObject().handleStripeEvent(payload, sign(payload));
+            if (!response.getStatusCode().is2xxSuccessful()) {
+                logger.warn("Simulated webhook {} rejected with {}: {}", event.get("id"), response.getStatusCode(), response.getBody());
+            }
+        }
+    }
+
+    private String sign(String payload) {
+        long timestamp = Webhook.Util.getTimeNow();
+        try {
+            // Stripe's scheme: HMAC-SHA256 of "timestamp.payload" with the endpoint secret
+            return "t=" + timestamp + ",v1=" + Webhook.Util.computeHmacSha256(webhookSecret, timestamp + "." + payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not sign simulated webhook", e);
+        }
+    }
+
+    private String newId(String prefix) {
+        return prefix + "_sim_" + ids.incrementAndGet();
+    }
+}
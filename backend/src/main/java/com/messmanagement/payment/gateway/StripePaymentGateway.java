@@ -0,0 +1,88 @@
+package com.messmanagement.payment.gateway;
+
+import com.stripe.exception.StripeException;
+import com.stripe.model.Customer;
+import com.stripe.model.CustomerCollection;
+import com.stripe.model.Subscription;
+import com.stripe.model.checkout.Session;
+import com.stripe.net.RequestOptions;
+import com.stripe.param.CustomerCreateParams;
+import com.stripe.param.CustomerListParams;
+import com.stripe.param.SubscriptionUpdateParams;
+import com.stripe.param.checkout.SessionCreateParams;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * PaymentGateway backed by the Stripe API (the default). The API key and timeouts are set by StripeConfig.
+ */
+@Component
+@ConditionalOnProperty(name = "mess.payment.gateway", havingValue = "stripe", matchIfMissing = true)
+public class StripePaymentGateway implements PaymentGateway {
+
+    @Override
+    public String createCustomer(String name, String email, Map<String, String> metadata, String idempotencyKey) throws StripeException {
+        CustomerCreateParams params = CustomerCreateParams.builder()
+                .setName(name)
+                .setEmail(email)
+                .putAllMetadata(metadata)
+                .build();
+        RequestOptions requestOptions = RequestOptions.builder()
+                .setIdempotencyKey(idempotencyKey)
+                .build();
+        return Customer.create(params, requestOptions).getId();
+    }
+
+    @Override
+    public String createCheckoutSession(CheckoutSessionRequest request) throws StripeException {
+        SessionCreateParams.LineItem.Builder lineItem = SessionCreateParams.LineItem.builder()
+                .setQuantity(request.quantity());
+        SessionCreateParams.Builder params = SessionCreateParams.builder()
+                .addPaymentMethodType(SessionCreateParams.PaymentMethodType.CARD)
+                .setSuccessUrl(request.successUrl())
+                .setCancelUrl(request.cancelUrl())
+                .setCustomer(request.customerId())
+                .putAllMetadata(request.metadata());
+
+        if (request.mode() == CheckoutMode.SUBSCRIPTION) {
+            params.setMode(SessionCreateParams.Mode.SUBSCRIPTION);
+            lineItem.setPrice(request.priceId());
+        } else {
+            params.setMode(SessionCreateParams.Mode.PAYMENT);
+            lineItem.setPriceData(SessionCreateParams.LineItem.PriceData.builder()
+                    .setCurrency(request.currency())
+                    .setUnitAmount(request.unitAmountMinor())
+                    .setProductData(SessionCreateParams.LineItem.PriceData.ProductData.builder()
+                            .setName(request.productName())
+                            .build())
+                    .build());
+        }
+        params.addLineItem(lineItem.build());
+        return Session.create(params.build()).getId();
+    }
+
+    @Override
+    public void cancelSubscriptionAtPeriodEnd(String subscriptionId) throws StripeException {
+        Subscription subscription = Subscription.retrieve(subscriptionId);
+        subscription.update(SubscriptionUpdateParams.builder()
+                .setCancelAtPeriodEnd(true) // Common practice: cancel at the end of the current billing period
+                .build());
+    }
+
+    @Override
+    public CustomerPage listCustomers(String startingAfter, long limit) throws StripeException {
+        CustomerListParams.Builder params = CustomerListParams.builder().setLimit(limit);
+        if (startingAfter != null) {
+            params.setStartingAfter(startingAfter);
+        }
+        CustomerCollection page = Customer.list(params.build());
+        List<GatewayCustomer> customers = page.getData().stream()
+                .map(customer -> new GatewayCustomer(customer.getId(),
+                        customer.getMetadata() != null ? customer.getMetadata().get("app_user_id") : null))
+                .toList();
+        return new CustomerPage(customers, Boolean.TRUE.equals(page.getHasMore()));
+    }
+}
@@ -0,0 +1,9 @@
+package com.messmanagement.payment.repository;
+
+import com.messmanagement.payment.entity.StripeCustomerBackfill;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface StripeCustomerBackfillRepository extends JpaRepository<StripeCustomerBackfill, Integer> {
+}
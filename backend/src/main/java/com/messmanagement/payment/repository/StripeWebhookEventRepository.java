@@ -0,0 +1,51 @@
+package com.messmanagement.payment.repository;
+
+import com.messmanagement.payment.entity.StripeWebhookEvent;
+import com.messmanagement.payment.entity.StripeWebhookEventStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface StripeWebhookEventRepository extends JpaRepository<StripeWebhookEvent, String> {
+
+    /**
+     * PENDING events whose next attempt is due and that no instance currently holds, oldest first.
+     */
+    @Query("SELECT e.eventId FROM StripeWebhookEvent e " +
+           "WHERE e.status = com.messmanagement.payment.entity.StripeWebhookEventStatus.PENDING " +
+           "AND e.nextAttemptAt <= :now AND (e.lockedUntil IS NULL OR e.lockedUntil < :now) " +
+           "ORDER BY e.stripeCreatedAt, e.receivedAt")
+    List<String> findDueEventIds(@Param("now") Instant now, Pageable pageable);
+
+    /**
+     * Takes the lease on a PENDING event. Returns 0 if another worker or instance holds it, or it is no longer pending.
+     */
+    @Modifying
+    @Query("UPDATE StripeWebhookEvent e SET e.lockedUntil = :until " +
+           "WHERE e.eventId = :eventId " +
+           "AND e.status = com.messmanagement.payment.entity.StripeWebhookEventStatus.PENDING " +
+           "AND (e.lockedUntil IS NULL OR e.lockedUntil < :now)")
+    int claim(@Param("eventId") String eventId, @Param("now") Instant now, @Param("until") Instant until);
+
+    /**
+     * Whether an older event with the same ordering key still has to be applied first.
+     */
+    @Query("SELECT COUNT(e) > 0 FROM StripeWebhookEvent e " +
+           "WHERE e.orderingKey = :orderingKey " +
+           "AND e.status = com.messmanagement.payment.entity.StripeWebhookEventStatus.PENDING " +
+           "AND (e.stripeCreatedAt < :createdAt OR (e.stripeCreatedAt = :createdAt AND e.receivedAt < :receivedAt))")
+    boolean existsEarlierPending(@Param("orderingKey") String orderingKey,
+                                 @Param("createdAt") Instant createdAt,
+                                 @Param("receivedAt") Instant receivedAt);
+
+    @Query("SELECT e.eventId FROM StripeWebhookEvent e WHERE e.status IN :statuses AND e.receivedAt < :cutoff ORDER BY e.receivedAt")
+    List<String> findFinishedIdsReceivedBefore(@Param("statuses") List<StripeWebhookEventStatus> statuses,
+                                               @Param("cutoff") Instant cutoff, Pageable pageable);
+}
@@ -1,5 +1,6 @@
 package com.messmanagement.payment.service;
 
+import com.messmanagement.purchase.entity.Purchase;
 import com.messmanagement.subscription.entity.Subscription;
 import com.messmanagement.user.entity.User;
 import com.stripe.exception.StripeException; // Import StripeException
@@ -20,8 +21,16 @@ public interface PaymentService {
      */
     String createSubscriptionCheckoutSession(User user, Subscription pendingSubscription, String stripePriceId, String currency) throws StripeException;
     void cancelStripeSubscription(String stripeSubscriptionId) throws StripeException;
-    // We will add methods for handling individual dish purchases later, e.g.:
-    // String createOneTimePaymentCheckoutSession(User user, List<PurchaseItemDTO> items, String currency) throws StripeException;
+
+    /**
+     * Creates a one-time payment Checkout Session for a dish purchase.
+     *
+     * @param pendingPurchase The local purchase record; its ID is sent as app_purchase_id metadata.
+     * @param unitPrice Price of one item, in rupees.
+     * @return The ID of the created Checkout Session.
+     * @throws StripeException if there's an error communicating with Stripe.
+     */
+    String createDishCheckoutSession(User user, Purchase pendingPurchase, String itemName, BigDecimal unitPrice, int quantity, String currency) throws StripeException;
 
     // Methods for handling webhooks might also be conceptually part of this service's scope,
     // or handled by a dedicated WebhookHandler service that uses PaymentService.
@@ -0,0 +1,179 @@
+package com.messmanagement.payment.service;
+
+import com.messmanagement.common.exception.PaymentGatewayUnavailableException;
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.StripeException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs Stripe API calls on a small bounded pool, with a deadline per call and a circuit breaker.
+ *
+ * Callers must not hold a database transaction while calling in (see SubscriptionServiceImpl), so a slow
+ * Stripe ties up at most max-concurrent-calls pool threads and the waiting request threads, never JDBC
+ * connections. When the pool and its queue are full, a call takes longer than call-timeout-ms, or the
+ * circuit is open, the caller gets a PaymentGatewayUnavailableException (503) instead of waiting.
+ *
+ * The circuit opens after failure-threshold consecutive outage-type failures (timeouts, connection errors,
+ * 429 and 5xx responses); 4xx errors such as an invalid price count as a reachable Stripe. After open-ms
+ * a single trial call is let through, and its outcome closes or re-opens the circuit.
+ */
+@Component
+public class StripeCallGuard {
+
+    private static final Logger logger = LoggerFactory.getLogger(StripeCallGuard.class);
+
+    private final StripeApiMetrics stripeApiMetrics;
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolExecutor executor;
+
+    @Value("${mess.stripe.gateway.call-timeout-ms:10000}")
+    private long callTimeoutMs;
+
+    @Value("${mess.stripe.gateway.breaker.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${mess.stripe.gateway.breaker.open-ms:30000}")
+    private long openMs;
+
+    // Circuit state, guarded by this
+    private int consecutiveFailures;
+    private long openUntilMillis; // 0 while closed
+    private boolean trialInFlight;
+
+    public StripeCallGuard(StripeApiMetrics stripeApiMetrics,
+                           MeterRegistry meterRegistry,
+                           @Value("${mess.stripe.gateway.max-concurrent-calls:8}") int maxConcurrentCalls,
+                           @Value("${mess.stripe.gateway.queue-capacity:16}") int queueCapacity) {
+        this.stripeApiMetrics = stripeApiMetrics;
+        this.meterRegistry = meterRegistry;
+        this.executor = new ThreadPoolExecutor(maxConcurrentCalls, maxConcurrentCalls, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), Thread.ofPlatform().name("stripe-call-", 0).daemon().factory());
+        Gauge.builder("stripe.api.circuit.open", this, guard -> guard.isOpen() ? 1 : 0)
+                .description("1 while Stripe calls are short-circuited")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the call on the Stripe pool and waits up to call-timeout-ms for it. StripeExceptions and runtime
+     * exceptions thrown by the call are rethrown unchanged.
+     *
+     * @throws PaymentGatewayUnavailableException if the call was not attempted or did not finish in time.
+     */
+    public <T> T call(String operation, StripeApiMetrics.StripeCall<T> call) throws StripeException {
+        acquire(operation);
+        Future<T> future;
+        try {
+            future = executor.submit(() -> stripeApiMetrics.time(operation, call));
+        } catch (RejectedExecutionException e) {
+            releaseTrial();
+            throw rejected(operation, "busy", "Payment gateway is busy. Please try again shortly.");
+        }
+        try {
+            T result = future.get(callTimeoutMs, TimeUnit.MILLISECONDS);
+            recordSuccess();
+            return result;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            recordFailure(operation, "no response after " + callTimeoutMs + " ms");
+            throw rejected(operation, "timeout", "Payment gateway did not respond in time. Please try again shortly.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            releaseTrial();
+            throw rejected(operation, "interrupted", "Payment gateway call was interrupted.");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof StripeException stripeException) {
+                if (isOutage(stripeException)) {
+                    recordFailure(operation, stripeException.getClass().getSimpleName() + ": " + stripeException.getMessage());
+                } else {
+                    recordSuccess();
+                }
+                throw stripeException;
+            }
+            recordSuccess();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Stripe call " + operation + " failed", cause);
+        }
+    }
+
+    public synchronized boolean isOpen() {
+        return openUntilMillis != 0;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private synchronized void acquire(String operation) {
+        if (openUntilMillis == 0) {
+            return;
+        }
+        if (System.currentTimeMillis() < openUntilMillis || trialInFlight) {
+            throw rejected(operation, "circuit_open", "Payment gateway is temporarily unavailable. Please try again shortly.");
+        }
+        trialInFlight = true; // Half-open: this caller tries Stripe, everyone else is still turned away
+    }
+
+    private synchronized void recordSuccess() {
+        if (openUntilMillis != 0) {
+            logger.info("Stripe calls are succeeding again, closing the circuit");
+        }
+        consecutiveFailures = 0;
+        openUntilMillis = 0;
+        trialInFlight = false;
+    }
+
+    private synchronized void recordFailure(String operation, String reason) {
+        consecutiveFailures++;
+        boolean wasTrial = trialInFlight;
+        trialInFlight = false;
+        if (wasTrial || consecutiveFailures >= failureThreshold) {
+            openUntilMillis = System.currentTimeMillis() + openMs;
+            logger.warn("Stripe call {} failed ({}), {} consecutive failures; rejecting Stripe calls for {} ms",
+                    operation, reason, consecutiveFailures, openMs);
+        } else {
+            logger.warn("Stripe call {} failed ({}), {} consecutive failures", operation, reason, consecutiveFailures);
+        }
+    }
+
+    private synchronized void releaseTrial() {
+        trialInFlight = false;
+    }
+
+    private PaymentGatewayUnavailableException rejected(String operation, String reason, String message) {
+        Counter.builder("stripe.api.rejected")
+                .description("Stripe calls not attempted or abandoned by the call guard")
+                .tag("operation", operation)
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+        return new PaymentGatewayUnavailableException(message);
+    }
+
+    private static boolean isOutage(StripeException e) {
+        if (e instanceof ApiConnectionException) {
+            return true; // No response at all (DNS, connect or read failure)
+        }
+        Integer status = e.getStatusCode();
+        return status == null || status == 429 || status >= 500;
+    }
+}
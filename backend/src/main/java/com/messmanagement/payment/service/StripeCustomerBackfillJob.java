@@ -0,0 +1,127 @@
+package com.messmanagement.payment.service;
+
+import com.messmanagement.common.exception.PaymentGatewayUnavailableException;
+import com.messmanagement.payment.entity.StripeCustomerBackfill;
+import com.messmanagement.payment.repository.StripeCustomerBackfillRepository;
+import com.messmanagement.user.entity.Role;
+import com.messmanagement.user.repository.UserRepository;
+import com.messmanagement.payment.gateway.PaymentGateway;
+import com.messmanagement.payment.gateway.PaymentGateway.CustomerPage;
+import com.messmanagement.payment.gateway.PaymentGateway.GatewayCustomer;
+import com.stripe.exception.StripeException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Links users created before users.stripe_customer_id existed to the Stripe customers made for them earlier.
+ *
+ * Pages through the account's customers (page-size per call, newest first) and reads the app_user_id
+ * metadata that PaymentServiceImpl puts on every customer; each page is stored in one transaction.
+ * If a user has several customers from before, the first one seen (the newest) is kept.
+ *
+ * After each stored page the last customer ID is saved in stripe_customer_backfill, so a run that stops
+ * (Stripe unavailable, restart) resumes from there instead of listing from the newest customer again.
+ * Customers created since then are already linked by PaymentServiceImpl, so one full pass is enough:
+ * once a pass reaches the oldest customer it is marked complete and later runs do nothing, even if some
+ * students never had a customer. The job is off by default since it lists all customers.
+ */
+@Component
+public class StripeCustomerBackfillJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(StripeCustomerBackfillJob.class);
+
+    private final PaymentGateway paymentGateway;
+    private final StripeCallGuard stripeCallGuard;
+    private final StripeCustomerStore stripeCustomerStore;
+    private final UserRepository userRepository;
+    private final StripeCustomerBackfillRepository backfillRepository;
+
+    @Value("${mess.stripe.customer-backfill.enabled:false}")
+    private boolean enabled;
+
+    @Value("${mess.stripe.customer-backfill.page-size:100}")
+    private long pageSize; // Stripe allows at most 100
+
+    public StripeCustomerBackfillJob(PaymentGateway paymentGateway,
+                                     StripeCallGuard stripeCallGuard,
+                                     StripeCustomerStore stripeCustomerStore,
+                                     UserRepository userRepository,
+                                     StripeCustomerBackfillRepository backfillRepository) {
+        this.paymentGateway = paymentGateway;
+        this.stripeCallGuard = stripeCallGuard;
+        this.stripeCustomerStore = stripeCustomerStore;
+        this.userRepository = userRepository;
+        this.backfillRepository = backfillRepository;
+    }
+
+    /**
+     * @return the number of users linked by this run.
+     */
+    @Scheduled(fixedDelayString = "${mess.stripe.customer-backfill.interval-ms:86400000}",
+               initialDelayString = "${mess.stripe.customer-backfill.initial-delay-ms:120000}")
+    public int backfillCustomerIds() {
+        if (!enabled) {
+            return 0;
+        }
+        StripeCustomerBackfill progress = backfillRepository.findById(StripeCustomerBackfill.ID)
+                .orElseThrow(() -> new IllegalStateException("stripe_customer_backfill has no progress row"));
+        if (progress.getCompletedAt() != null || !userRepository.existsByRoleAndStripeCustomerIdIsNull(Role.STUDENT)) {
+            return 0;
+        }
+        int linked = 0;
+        int pages = 0;
+        String startingAfter = progress.getStartingAfter();
+        try {
+            CustomerPage page;
+            do {
+                String after = startingAfter;
+                page = stripeCallGuard.call("customer.list", () -> paymentGateway.listCustomers(after, pageSize));
+                List<GatewayCustomer> customers = page.customers();
+                linked += stripeCustomerStore.linkMissing(customersByUserId(customers));
+                pages++;
+                if (!customers.isEmpty()) {
+                    startingAfter = customers.get(customers.size() - 1).id();
+                }
+                saveProgress(progress, startingAfter, !page.hasMore() || customers.isEmpty());
+            } while (progress.getCompletedAt() == null);
+        } catch (StripeException | PaymentGatewayUnavailableException e) {
+            // Stored pages are kept; the next run resumes after the last of them
+            logger.warn("Stripe customer backfill stopped after {} pages ({} users linked): {}", pages, linked, e.getMessage());
+            return linked;
+        }
+        logger.info("Stripe customer backfill linked {} users from {} pages of customers; all customers seen", linked, pages);
+        return linked;
+    }
+
+    private void saveProgress(StripeCustomerBackfill progress, String startingAfter, boolean completed) {
+        Instant now = Instant.now();
+        progress.setStartingAfter(startingAfter);
+        progress.setCompletedAt(completed ? now : null);
+        progress.setUpdatedAt(now);
+        backfillRepository.save(progress);
+    }
+
+    private static Map<Long, String> customersByUserId(List<GatewayCustomer> customers) {
+        Map<Long, String> byUserId = new LinkedHashMap<>();
+        for (GatewayCustomer customer : customers) {
+            String appUserId = customer.appUserId();
+            if (appUserId == null) {
+                continue;
+            }
+            try {
+                byUserId.putIfAbsent(Long.valueOf(appUserId), customer.id());
+            } catch (NumberFormatException e) {
+                logger.debug("Ignoring Stripe customer {} with app_user_id {}", customer.id(), appUserId);
+            }
+        }
+        return byUserId;
+    }
+}
@@ -0,0 +1,80 @@
+package com.messmanagement.payment.service;
+
+import com.messmanagement.common.cache.BoundedTtlCache;
+import com.messmanagement.user.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maps users to their Stripe customer, persisted in users.stripe_customer_id with an in-memory cache in front.
+ *
+ * A user's customer ID never changes once stored (the update only fills an empty column), so cached
+ * entries cannot go stale; users without a customer are not cached.
+ */
+@Component
+public class StripeCustomerStore {
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate newTransaction;
+    private final BoundedTtlCache<Long, String> customerIds;
+
+    public StripeCustomerStore(UserRepository userRepository,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${mess.stripe.customer-cache.ttl-ms:86400000}") long ttlMs,
+                               @Value("${mess.stripe.customer-cache.max-size:10000}") int maxSize) {
+        this.userRepository = userRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.customerIds = new BoundedTtlCache<>(ttlMs, maxSize);
+    }
+
+    /**
+     * @return the user's Stripe customer ID, or null if none is stored yet.
+     */
+    public String find(Long userId) {
+        return customerIds.get(userId, id -> userRepository.findStripeCustomerIdByUserId(id).orElse(null));
+    }
+
+    /**
+     * Stores a newly created customer for the user.
+     *
+     * @return the customer to use: this one, or the one stored first by a concurrent checkout.
+     */
+    public String remember(Long userId, String customerId) {
+        Integer updated = newTransaction.execute(status -> userRepository.setStripeCustomerIdIfMissing(userId, customerId));
+        String stored = updated != null && updated > 0 ? customerId : userRepository.findStripeCustomerIdByUserId(userId).orElse(customerId);
+        customerIds.put(userId, stored);
+        return stored;
+    }
+
+    /**
+     * Stores customers found in Stripe for users that have none yet, in one transaction.
+     * Customers already linked to some user are skipped.
+     *
+     * @return the number of users linked.
+     */
+    public int linkMissing(Map<Long, String> customersByUserId) {
+        if (customersByUserId.isEmpty()) {
+            return 0;
+        }
+        Integer linked = newTransaction.execute(status -> {
+            Set<String> taken = new HashSet<>(userRepository.findExistingStripeCustomerIds(customersByUserId.values()));
+            int count = 0;
+            for (Map.Entry<Long, String> customer : customersByUserId.entrySet()) {
+                if (!taken.contains(customer.getValue())
+                        && userRepository.setStripeCustomerIdIfMissing(customer.getKey(), customer.getValue()) > 0) {
+                    count++;
+                }
+            }
+            return count;
+        });
+        return linked != null ? linked : 0;
+    }
+}
@@ -0,0 +1,146 @@
+package com.messmanagement.payment.service;
+
+import com.messmanagement.purchase.service.PurchaseService;
+import com.messmanagement.subscription.service.SubscriptionService;
+import com.stripe.model.Event;
+import com.stripe.model.Invoice;
+import com.stripe.model.StripeObject;
+import com.stripe.model.checkout.Session;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Applies verified Stripe events to subscriptions and dish purchases.
+ * Called by StripeWebhookInbox on its worker threads, inside the transaction that marks the event processed.
+ */
+@Component
+@RequiredArgsConstructor
+public class StripeWebhookEventHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(StripeWebhookEventHandler.class);
+
+    private final SubscriptionService subscriptionService;
+    private final PurchaseService purchaseService;
+
+    /**
+     * @return the event's data object, or empty if this stripe-java version cannot deserialize it.
+     */
+    public static Optional<StripeObject> dataObject(Event event) {
+        return event.getDataObjectDeserializer().getObject();
+    }
+
+    /**
+     * Key of the events that must be applied in order relative to each other: the Stripe subscription
+     * for subscription checkouts and invoices, the local purchase for one-time payments, otherwise the event itself.
+     */
+    public static String orderingKey(Event event, StripeObject stripeObject) {
+        if (stripeObject instanceof Invoice invoice && invoice.getSubscription() != null) {
+            return "subscription:" + invoice.getSubscription();
+        }
+        if (stripeObject instanceof Session session) {
+            if (session.getSubscription() != null) {
+                return "subscription:" + session.getSubscription();
+            }
+            Map<String, String> metadata = session.getMetadata();
+            if (metadata != null && metadata.get("app_purchase_id") != null) {
+                return "purchase:" + metadata.get("app_purchase_id");
+            }
+        }
+        return "event:" + event.getId();
+    }
+
+    /**
+     * Whether the event waits while an older event with the same ordering key is pending. A completed
+     * checkout does not: it only links the local subscription to its Stripe ID, which the subscription's
+     * invoices need before they can be applied, and Stripe may send the first invoice.paid ahead of it.
+     */
+    public static boolean waitsForEarlierEvents(String eventType) {
+        return !"checkout.session.completed".equals(eventType);
+    }
+
+    /**
+     * @return false if this application does not handle the event's type.
+     * @throws RuntimeException if the event could not be applied yet; the inbox retries it.
+     */
+    public boolean apply(Event event) {
+        StripeObject stripeObject = dataObject(event)
+                .orElseThrow(() -> new IllegalStateException("Could not deserialize data object of event " + event.getId()));
+
+        // When Stripe sent the event, not when it reached us (retries may deliver it hours later)
+        Instant sentAt = event.getCreated() != null ? Instant.ofEpochSecond(event.getCreated()) : Instant.now();
+        switch (event.getType()) {
+            case "checkout.session.completed" -> handleCheckoutSessionCompleted((Session) stripeObject, sentAt);
+            case "invoice.paid" -> handleInvoicePaid((Invoice) stripeObject, sentAt);
+            case "invoice.payment_failed" -> handleInvoicePaymentFailed((Invoice) stripeObject);
+            default -> {
+                logger.debug("Ignoring Stripe event type {} ({})", event.getType(), event.getId());
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void handleCheckoutSessionCompleted(Session session, Instant completedAt) {
+        logger.info("Handling checkout.session.completed for session ID: {}", session.getId());
+
+        String mode = session.getMode();
+        if ("subscription".equals(mode)) {
+            String stripeSubscriptionId = session.getSubscription();
+            String localSubscriptionId = session.getMetadata().get("app_subscription_id");
+
+            if (localSubscriptionId != null && stripeSubscriptionId != null) {
+                subscriptionService.linkStripeId(Long.parseLong(localSubscriptionId), stripeSubscriptionId);
+                logger.info("Linked Stripe subscription ID {} to local subscription ID {}", stripeSubscriptionId, localSubscriptionId);
+            } else {
+                logger.warn("Missing localSubscriptionId or stripeSubscriptionId when handling checkout.session.completed");
+            }
+        } else if ("payment".equals(mode)) {
+            String paymentIntentId = session.getPaymentIntent();
+            String localPurchaseId = session.getMetadata().get("app_purchase_id");
+
+            purchaseService.confirmDishPurchase(Long.parseLong(localPurchaseId), paymentIntentId, completedAt);
+            logger.info("One-time payment confirmed for purchase ID: {}. Stripe Payment Intent ID: {}", localPurchaseId, paymentIntentId);
+        }
+    }
+
+    private void handleInvoicePaid(Invoice invoice, Instant sentAt) {
+        logger.info("Handling invoice.paid for invoice ID: {}", invoice.getId());
+
+        String stripeSubscriptionId = invoice.getSubscription();
+        if (stripeSubscriptionId == null) {
+            logger.warn("Invoice.paid event received with no subscription ID. Invoice ID: {}", invoice.getId());
+            return;
+        }
+
+        String stripeCustomerId = invoice.getCustomer();
+        String paymentTransactionId = invoice.getPaymentIntent();
+        BigDecimal amountPaid = BigDecimal.valueOf(invoice.getAmountPaid()).movePointLeft(2);
+        LocalDate startDate = Instant.ofEpochSecond(invoice.getPeriodStart()).atZone(ZoneId.systemDefault()).toLocalDate();
+        LocalDate endDate = Instant.ofEpochSecond(invoice.getPeriodEnd()).atZone(ZoneId.systemDefault()).toLocalDate();
+        Instant paidAt = invoice.getStatusTransitions() != null && invoice.getStatusTransitions().getPaidAt() != null
+                ? Instant.ofEpochSecond(invoice.getStatusTransitions().getPaidAt()) : sentAt;
+
+        subscriptionService.activateSubscription(stripeSubscriptionId, stripeCustomerId, paymentTransactionId, amountPaid, startDate, endDate, paidAt);
+        logger.info("Subscription activated/renewed for Stripe Subscription ID: {}", stripeSubscriptionId);
+    }
+
+    private void handleInvoicePaymentFailed(Invoice failedInvoice) {
+        logger.warn("Handling invoice.payment_failed for invoice ID: {}", failedInvoice.getId());
+
+        if (failedInvoice.getSubscription() != null) {
+            subscriptionService.handleFailedPayment(failedInvoice.getSubscription());
+            logger.info("Handled failed payment for subscription ID: {}", failedInvoice.getSubscription());
+        } else {
+            logger.warn("Failed invoice does not have a subscription ID: {}", failedInvoice.getId());
+        }
+    }
+}
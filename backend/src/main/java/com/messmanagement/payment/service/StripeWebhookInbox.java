@@ -0,0 +1,251 @@
+package com.messmanagement.payment.service;
+
+import com.messmanagement.common.transaction.Transactions;
+import com.messmanagement.payment.entity.StripeWebhookEvent;
+import com.messmanagement.payment.entity.StripeWebhookEventStatus;
+import com.messmanagement.payment.repository.StripeWebhookEventRepository;
+import com.stripe.model.Event;
+import com.stripe.net.ApiResource;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inbox for verified Stripe webhook events.
+ *
+ * The controller hands each event to receive(), which stores the raw payload under the Stripe event ID
+ * and returns, so Stripe gets its 2xx without waiting for subscription or purchase updates. A redelivered
+ * event finds its row already there and is acknowledged without being applied again.
+ *
+ * Stored events are applied by a fixed set of single-threaded lanes; all events with the same ordering key
+ * (see StripeWebhookEventHandler.orderingKey) go to the same lane, and an event is held back while an older
+ * event for its key is still pending, except for a completed checkout: an invoice that arrived before it can
+ * only be applied once it has linked the subscription (see StripeWebhookEventHandler.waitsForEarlierEvents).
+ * A failed event is retried with exponential backoff and marked FAILED after max-attempts. Each event is
+ * leased before it is applied, so several instances can share the inbox; a scheduled poll picks up retries,
+ * and events left behind by a restart once their lease has run out.
+ */
+@Component
+public class StripeWebhookInbox {
+
+    private static final Logger logger = LoggerFactory.getLogger(StripeWebhookInbox.class);
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final StripeWebhookEventRepository eventRepository;
+    private final StripeWebhookEventHandler eventHandler;
+    private final TransactionTemplate newTransaction;
+    private final ExecutorService[] lanes;
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+
+    @Value("${mess.stripe.webhook.lease-ms:60000}")
+    private long leaseMs;
+
+    @Value("${mess.stripe.webhook.max-attempts:12}")
+    private int maxAttempts;
+
+    @Value("${mess.stripe.webhook.retry.initial-delay-ms:5000}")
+    private long retryInitialDelayMs;
+
+    @Value("${mess.stripe.webhook.retry.max-delay-ms:3600000}")
+    private long retryMaxDelayMs;
+
+    @Value("${mess.stripe.webhook.poll.batch-size:200}")
+    private int pollBatchSize;
+
+    @Value("${mess.stripe.webhook.purge.retention-days:30}")
+    private int retentionDays;
+
+    @Value("${mess.stripe.webhook.purge.batch-size:500}")
+    private int purgeBatchSize;
+
+    public StripeWebhookInbox(StripeWebhookEventRepository eventRepository,
+                              StripeWebhookEventHandler eventHandler,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${mess.stripe.webhook.workers:4}") int workers) {
+        this.eventRepository = eventRepository;
+        this.eventHandler = eventHandler;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.lanes = new ExecutorService[workers];
+        for (int i = 0; i < workers; i++) {
+            lanes[i] = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("stripe-webhook-" + i).daemon().factory());
+        }
+    }
+
+    /**
+     * Stores a verified event and queues it for processing.
+     *
+     * @return false if the event was already received (a Stripe retry); it is not applied again.
+     */
+    public boolean receive(Event event, String payload, String orderingKey) {
+        Instant now = Instant.now();
+        StripeWebhookEvent row = new StripeWebhookEvent();
+        row.setEventId(event.getId());
+        row.setEventType(event.getType());
+        row.setOrderingKey(orderingKey);
+        row.setPayload(payload);
+        row.setStatus(StripeWebhookEventStatus.PENDING);
+        row.setStripeCreatedAt(event.getCreated() != null ? Instant.ofEpochSecond(event.getCreated()) : now);
+        row.setReceivedAt(now);
+        row.setNextAttemptAt(now);
+        try {
+            Boolean inserted = newTransaction.execute(status -> {
+                // save() merges rows with an assigned ID, so check first; a concurrent duplicate fails on the primary key
+                if (eventRepository.existsById(row.getEventId())) {
+                    return false;
+                }
+                eventRepository.saveAndFlush(row);
+                return true;
+            });
+            if (!Boolean.TRUE.equals(inserted)) {
+                return false;
+            }
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+        enqueue(row.getEventId(), orderingKey);
+        return true;
+    }
+
+    /**
+     * Queues events that are due for a retry, or were stored but never applied (restart, full lane, other instance).
+     */
+    @Scheduled(fixedDelayString = "${mess.stripe.webhook.poll.interval-ms:5000}",
+               initialDelayString = "${mess.stripe.webhook.poll.initial-delay-ms:10000}")
+    public void pollDueEvents() {
+        List<String> due = eventRepository.findDueEventIds(Instant.now(), PageRequest.of(0, pollBatchSize));
+        for (String eventId : due) {
+            if (!queued.contains(eventId)) {
+                eventRepository.findById(eventId).ifPresent(event -> enqueue(eventId, event.getOrderingKey()));
+            }
+        }
+    }
+
+    /**
+     * Deletes processed and ignored events once Stripe can no longer redeliver them. FAILED events are kept.
+     */
+    @Scheduled(fixedDelayString = "${mess.stripe.webhook.purge.interval-ms:3600000}",
+               initialDelayString = "${mess.stripe.webhook.purge.initial-delay-ms:60000}")
+    public void purgeFinished() {
+        Instant cutoff = Instant.now().minus(Duration.ofDays(retentionDays));
+        List<StripeWebhookEventStatus> finished = List.of(StripeWebhookEventStatus.PROCESSED, StripeWebhookEventStatus.IGNORED);
+        int purged = Transactions.deleteInBatches(newTransaction, purgeBatchSize,
+                page -> eventRepository.findFinishedIdsReceivedBefore(finished, cutoff, page), eventRepository::deleteAllByIdInBatch);
+
+        if (purged > 0) {
+            logger.info("Purged {} processed Stripe webhook events", purged);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+        for (ExecutorService lane : lanes) {
+            // Unfinished events keep their lease and are picked up by the poll once it expires
+            lane.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private void enqueue(String eventId, String orderingKey) {
+        if (!queued.add(eventId)) {
+            return;
+        }
+        try {
+            lanes[Math.floorMod(orderingKey.hashCode(), lanes.length)].execute(() -> process(eventId));
+        } catch (RejectedExecutionException e) {
+            queued.remove(eventId); // Shutting down; the row stays PENDING
+        }
+    }
+
+    private void process(String eventId) {
+        try {
+            Instant now = Instant.now();
+            Integer claimed = newTransaction.execute(status -> eventRepository.claim(eventId, now, now.plusMillis(leaseMs)));
+            if (claimed == null || claimed == 0) {
+                return; // Done, or being applied by another instance
+            }
+            StripeWebhookEvent event = eventRepository.findById(eventId).orElse(null);
+            if (event == null) {
+                return;
+            }
+            if (StripeWebhookEventHandler.waitsForEarlierEvents(event.getEventType())
+                    && eventRepository.existsEarlierPending(event.getOrderingKey(), event.getStripeCreatedAt(), event.getReceivedAt())) {
+                // An older event for the same subscription is waiting for a retry; this one follows it
+                newTransaction.executeWithoutResult(status -> eventRepository.findById(eventId).ifPresent(row -> {
+                    row.setLockedUntil(null);
+                    eventRepository.save(row);
+                }));
+                return;
+            }
+            apply(eventId);
+        } catch (RuntimeException e) {
+            logger.error("Could not process Stripe webhook event {}: {}", eventId, e.getMessage());
+        } finally {
+            queued.remove(eventId);
+        }
+    }
+
+    private void apply(String eventId) {
+        try {
+            newTransaction.executeWithoutResult(status -> {
+                StripeWebhookEvent row = eventRepository.findById(eventId).orElseThrow();
+                // The payload was verified when it was received
+                Event event = ApiResource.GSON.fromJson(row.getPayload(), Event.class);
+                boolean handled = eventHandler.apply(event);
+                row.setStatus(handled ? StripeWebhookEventStatus.PROCESSED : StripeWebhookEventStatus.IGNORED);
+                row.setAttempts(row.getAttempts() + 1);
+                row.setProcessedAt(Instant.now());
+                row.setLockedUntil(null);
+                row.setLastError(null);
+                eventRepository.save(row);
+            });
+        } catch (RuntimeException e) {
+            scheduleRetry(eventId, e);
+        }
+    }
+
+    private void scheduleRetry(String eventId, RuntimeException failure) {
+        newTransaction.executeWithoutResult(status -> eventRepository.findById(eventId).ifPresent(row -> {
+            int attempts = row.getAttempts() + 1;
+            row.setAttempts(attempts);
+            row.setLockedUntil(null);
+            row.setLastError(truncate(failure.getClass().getSimpleName() + ": " + failure.getMessage()));
+            if (attempts >= maxAttempts) {
+                row.setStatus(StripeWebhookEventStatus.FAILED);
+                logger.error("Stripe webhook event {} ({}) failed {} times, giving up: {}",
+                        eventId, row.getEventType(), attempts, failure.getMessage());
+            } else {
+                long delay = Math.min(retryMaxDelayMs, retryInitialDelayMs << Math.min(attempts - 1, 20));
+                row.setNextAttemptAt(Instant.now().plusMillis(delay));
+                logger.warn("Stripe webhook event {} ({}) failed, attempt {} of {}, retrying in {} ms: {}",
+                        eventId, row.getEventType(), attempts, maxAttempts, delay, failure.getMessage());
+            }
+            eventRepository.save(row);
+        }));
+    }
+
+    private static String truncate(String message) {
+        return message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+    }
+}
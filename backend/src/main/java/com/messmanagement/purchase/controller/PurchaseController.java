@@ -1,5 +1,6 @@
 package com.messmanagement.purchase.controller;
 
+import com.messmanagement.idempotency.service.IdempotencyService;
 import com.messmanagement.purchase.dto.DishPurchaseRequestDTO;
 import com.messmanagement.purchase.dto.PurchaseResponseDTO;
 import com.messmanagement.purchase.service.PurchaseService;
@@ -21,25 +22,30 @@ import org.springframework.web.bind.annotation.*;
 public class PurchaseController {
 
     private final PurchaseService purchaseService;
+    private final IdempotencyService idempotencyService;
 
     /**
      * Student buys an individual dish.
      * POST /api/v1/purchases
      * Payload: DishPurchaseRequestDTO
      * Response: String (Stripe Checkout Session ID or similar for payment initiation)
+     * Optional Idempotency-Key header: a retry with the same key returns the first checkout session.
      * Secured for STUDENT.
      */
     @PostMapping
     @PreAuthorize("hasRole('STUDENT')")
     public ResponseEntity<String> purchaseDish(
             Authentication authentication,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             @Valid @RequestBody DishPurchaseRequestDTO purchaseRequest) {
         UserDetails userDetails = (UserDetails) authentication.getPrincipal();
         String userEmail = userDetails.getUsername();
 
-        String paymentInitiationResponse = purchaseService.initiateDishPurchase(userEmail, purchaseRequest);
-        // This response will be a Stripe session ID/URL to redirect the client for payment.
-        return ResponseEntity.status(HttpStatus.CREATED).body(paymentInitiationResponse);
+        return idempotencyService.execute("purchase.dish", userEmail, idempotencyKey, purchaseRequest, String.class, () -> {
+            String paymentInitiationResponse = purchaseService.initiateDishPurchase(userEmail, purchaseRequest);
+            // This response will be a Stripe session ID/URL to redirect the client for payment.
+            return ResponseEntity.status(HttpStatus.CREATED).body(paymentInitiationResponse);
+        });
     }
 
     /**
@@ -4,20 +4,23 @@ import com.messmanagement.purchase.entity.Purchase;
 import com.messmanagement.user.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query; // <-- ADD THIS IMPORT
-import org.springframework.data.repository.query.Param; // <-- ADD THIS IMPORT
 import org.springframework.stereotype.Repository;
 
-import java.math.BigDecimal; // <-- ADD THIS IMPORT
-import java.time.LocalDateTime; // <-- ADD THIS IMPORT
-
 @Repository
 public interface PurchaseRepository extends JpaRepository<Purchase, Long>, JpaSpecificationExecutor<Purchase> {
 
+    @EntityGraph(attributePaths = "menuItem")
     Page<Purchase> findByUserOrderByPurchaseDateDesc(User user, Pageable pageable);
 
-    @Query("SELECT COALESCE(SUM(p.totalAmount), 0) FROM Purchase p WHERE p.purchaseDate >= :startDate AND p.purchaseDate <= :endDate")
-    BigDecimal sumTotalAmountByPurchaseDateBetween(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
+    /**
+     * Admin listing with the buyer and the menu item fetch-joined, so a page is read in one statement
+     * (plus the count). Sort properties of the Pageable refer to Purchase attributes.
+     */
+    @EntityGraph(attributePaths = {"user", "menuItem"})
+    @Query("SELECT p FROM Purchase p")
+    Page<Purchase> findAllWithUserAndMenuItem(Pageable pageable);
 }
\ No newline at end of file
@@ -5,12 +5,14 @@ import com.messmanagement.purchase.dto.PurchaseResponseDTO;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.time.Instant;
+
 public interface PurchaseService {
 
     /**
      * Initiates the purchase of an individual dish for the given user.
      * This will calculate the price, create a pending Purchase record,
-     * and interact with PaymentService to get a Stripe Checkout Session ID or URL.
+     * and interact with PaymentService to create a Stripe Checkout Session (outside any transaction).
      * @param userEmail The email of the user making the purchase.
      * @param purchaseRequest DTO containing item ID and quantity.
      * @return A string representing the Stripe Checkout Session ID (or similar payment initiation info).
@@ -37,9 +39,10 @@ public interface PurchaseService {
      * This would typically be called from a webhook handler after Stripe confirms payment.
      * @param purchaseId The ID of the local purchase record created during initiation.
      * @param paymentTransactionId The transaction ID from Stripe.
+     * @param paidAt When Stripe took the payment; the revenue is dated by it.
      * @return The updated PurchaseResponseDTO.
      */
-    PurchaseResponseDTO confirmDishPurchase(Long purchaseId, String paymentTransactionId);
+    PurchaseResponseDTO confirmDishPurchase(Long purchaseId, String paymentTransactionId, Instant paidAt);
 
     // Potentially methods to handle failed dish purchase payments
 }
\ No newline at end of file
@@ -4,11 +4,13 @@ import com.messmanagement.common.exception.ResourceNotFoundException;
 import com.messmanagement.menu.entity.MenuItem;
 import com.messmanagement.menu.repository.MenuItemRepository;
 import com.messmanagement.menu.dto.MenuItemDTO; // For mapping
-import com.messmanagement.payment.service.PaymentService; // To be created/used
+import com.messmanagement.payment.service.PaymentService;
 import com.messmanagement.purchase.dto.DishPurchaseRequestDTO;
 import com.messmanagement.purchase.dto.PurchaseResponseDTO;
 import com.messmanagement.purchase.entity.Purchase;
 import com.messmanagement.purchase.repository.PurchaseRepository;
+import com.messmanagement.report.entity.RevenueSource;
+import com.messmanagement.report.service.RevenueLedgerService;
 import com.messmanagement.user.entity.User;
 import com.messmanagement.user.repository.UserRepository;
 import com.stripe.exception.StripeException;
@@ -17,8 +19,10 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDateTime;
 
 @Service
@@ -28,7 +32,9 @@ public class PurchaseServiceImpl implements PurchaseService {
     private final PurchaseRepository purchaseRepository;
     private final UserRepository userRepository;
     private final MenuItemRepository menuItemRepository;
-    private final PaymentService paymentService; // Will be injected
+    private final PaymentService paymentService;
+    private final RevenueLedgerService revenueLedgerService;
+    private final TransactionTemplate transactionTemplate;
 
     // Helper to map MenuItem entity to MenuItemDTO
     private MenuItemDTO mapMenuItemToDTO(MenuItem menuItem) {
@@ -61,9 +67,32 @@ public class PurchaseServiceImpl implements PurchaseService {
         );
     }
 
+    // Not @Transactional, like SubscriptionServiceImpl.purchaseSubscription: the purchase row is committed
+    // before the gateway call and removed again if the checkout session cannot be created.
     @Override
-    @Transactional
     public String initiateDishPurchase(String userEmail, DishPurchaseRequestDTO purchaseRequest) {
+        Purchase pendingPurchase = transactionTemplate.execute(status -> createPendingPurchase(userEmail, purchaseRequest));
+        MenuItem menuItem = pendingPurchase.getMenuItem();
+
+        try {
+            return paymentService.createDishCheckoutSession(
+                    pendingPurchase.getUser(),
+                    pendingPurchase, // Pass the pending purchase for metadata
+                    menuItem.getName(), // Description for Stripe line item
+                    menuItem.getPrice(),
+                    pendingPurchase.getQuantity(),
+                    "inr" // Currency
+            );
+        } catch (StripeException e) {
+            discardPendingPurchase(pendingPurchase.getPurchaseId());
+            throw new RuntimeException("Payment gateway error during dish purchase: " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            discardPendingPurchase(pendingPurchase.getPurchaseId());
+            throw e;
+        }
+    }
+
+    private Purchase createPendingPurchase(String userEmail, DishPurchaseRequestDTO purchaseRequest) {
         User user = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found: " + userEmail));
 
@@ -76,40 +105,21 @@ public class PurchaseServiceImpl implements PurchaseService {
 
         BigDecimal totalAmount = menuItem.getPrice().multiply(BigDecimal.valueOf(purchaseRequest.getQuantity()));
 
-        // Create a local Purchase record with a PENDING status (or similar initial status)
+        // Create a local Purchase record; paymentTransactionId stays empty until the payment is confirmed
         Purchase purchase = new Purchase();
         purchase.setUser(user);
         purchase.setMenuItem(menuItem);
         purchase.setQuantity(purchaseRequest.getQuantity());
         purchase.setTotalAmount(totalAmount);
         // purchaseDate is set by @CreationTimestamp
-        // paymentTransactionId will be set after successful payment
 
-        Purchase pendingPurchase = purchaseRepository.save(purchase);
+        return purchaseRepository.save(purchase);
+    }
 
-        // TODO: Interact with PaymentService to create a Stripe Checkout Session for ONE-TIME payment
-        // This will be different from the subscription session.
-        try {
-            // Example: paymentService might need different parameters for one-time payment
-            // String stripeSessionId = paymentService.createOneTimePaymentCheckoutSession(
-            //         user,
-            //         pendingPurchase, // Pass the pending purchase for metadata
-            //         menuItem.getName(), // Description for Stripe line item
-            //         totalAmount,
-            //         "inr" // Currency
-            // );
-            // return stripeSessionId;
-
-            // For now, placeholder:
-            String placeholderStripeSessionId = "stripe_checkout_session_id_for_purchase_" + pendingPurchase.getPurchaseId();
-            return placeholderStripeSessionId;
-
-        } catch (/* StripeException e */ Exception e) { // Catch specific StripeException later
-            // Log error
-            // Rollback or delete pendingPurchase if payment initiation fails severely
-            // For now, rethrow as runtime
-            throw new RuntimeException("Payment gateway error during dish purchase: " + e.getMessage(), e);
-        }
+    private void discardPendingPurchase(Long purchaseId) {
+        transactionTemplate.executeWithoutResult(status -> purchaseRepository.findById(purchaseId)
+                .filter(purchase -> purchase.getPaymentTransactionId() == null)
+                .ifPresent(purchaseRepository::delete));
     }
 
     @Override
@@ -125,12 +135,12 @@ public class PurchaseServiceImpl implements PurchaseService {
     @Transactional(readOnly = true)
     public Page<PurchaseResponseDTO> getAllPurchases(Pageable pageable) {
         // TODO: Add filtering for admin if needed (e.g., by user, date range)
-        return purchaseRepository.findAll(pageable).map(this::mapPurchaseToDTO);
+        return purchaseRepository.findAllWithUserAndMenuItem(pageable).map(this::mapPurchaseToDTO);
     }
 
     @Override
     @Transactional
-    public PurchaseResponseDTO confirmDishPurchase(Long purchaseId, String paymentTransactionId) {
+    public PurchaseResponseDTO confirmDishPurchase(Long purchaseId, String paymentTransactionId, Instant paidAt) {
         Purchase purchase = purchaseRepository.findById(purchaseId)
             .orElseThrow(() -> new ResourceNotFoundException("Purchase record not found with id: " + purchaseId));
 
@@ -142,6 +152,8 @@ public class PurchaseServiceImpl implements PurchaseService {
         // purchase.setStatus(PurchaseStatus.COMPLETED); 
         
         Purchase confirmedPurchase = purchaseRepository.save(purchase);
+        String paymentReference = paymentTransactionId != null ? paymentTransactionId : "purchase:" + purchaseId;
+        revenueLedgerService.recordPayment(RevenueSource.DISH_PURCHASE, purchaseId, paymentReference, confirmedPurchase.getTotalAmount(), paidAt);
         return mapPurchaseToDTO(confirmedPurchase);
     }
 }
\ No newline at end of file
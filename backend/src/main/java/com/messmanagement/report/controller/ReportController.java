@@ -1,17 +1,24 @@
 package com.messmanagement.report.controller;
 
+import com.messmanagement.report.dto.MealCountBreakdownDTO;
+import com.messmanagement.report.dto.RevenueGranularity;
+import com.messmanagement.report.dto.RevenueTimeseriesDTO;
+import com.messmanagement.report.service.LiveHeadcountService;
 import com.messmanagement.report.service.ReportService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.Map;
 
 @RestController
@@ -21,6 +28,7 @@ import java.util.Map;
 public class ReportController {
 
     private final ReportService reportService;
+    private final LiveHeadcountService liveHeadcountService;
 
     @GetMapping("/students/count")
     public ResponseEntity<Map<String, Long>> getTotalStudentCount() {
@@ -45,6 +53,29 @@ public class ReportController {
         ));
     }
 
+    /**
+     * Live headcount per meal type for today, as Server-Sent Events ("headcount" events with a
+     * LiveHeadcountDTO). Meant for the kitchen display instead of polling daily-count.
+     * Also open to KIOSK devices.
+     */
+    @GetMapping(value = "/meal-entries/live-headcount", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'KIOSK')")
+    public SseEmitter streamLiveHeadcount() {
+        return liveHeadcountService.subscribe();
+    }
+
+    @GetMapping("/meal-entries/weekly-breakdown")
+    public ResponseEntity<MealCountBreakdownDTO> getWeeklyMealBreakdown(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return ResponseEntity.ok(reportService.getWeeklyMealBreakdown(date));
+    }
+
+    @GetMapping("/meal-entries/monthly-breakdown")
+    public ResponseEntity<MealCountBreakdownDTO> getMonthlyMealBreakdown(
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth month) {
+        return ResponseEntity.ok(reportService.getMonthlyMealBreakdown(month));
+    }
+
     @GetMapping("/sales/summary")
     public ResponseEntity<Map<String, Object>> getSalesSummary(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
@@ -56,4 +87,16 @@ public class ReportController {
             "totalSales", totalSales
         ));
     }
+
+    /**
+     * Revenue per day, week (Monday to Sunday) or month between the two dates, split by source.
+     * The range may span at most 1 year by day, 5 years by week and 20 years by month; longer ranges get a 400.
+     */
+    @GetMapping("/sales/revenue-timeseries")
+    public ResponseEntity<RevenueTimeseriesDTO> getRevenueTimeseries(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "DAY") RevenueGranularity granularity) {
+        return ResponseEntity.ok(reportService.getRevenueTimeseries(startDate, endDate, granularity));
+    }
 }
\ No newline at end of file
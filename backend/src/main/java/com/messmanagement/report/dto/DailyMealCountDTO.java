@@ -0,0 +1,18 @@
+package com.messmanagement.report.dto;
+
+import com.messmanagement.menu.entity.MealType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyMealCountDTO {
+    private LocalDate date;
+    private Map<MealType, Long> counts;
+    private long total;
+}
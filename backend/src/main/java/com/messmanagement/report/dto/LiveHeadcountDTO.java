@@ -0,0 +1,20 @@
+package com.messmanagement.report.dto;
+
+import com.messmanagement.menu.entity.MealType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LiveHeadcountDTO {
+    private LocalDate date;
+    private Map<MealType, Long> counts; // Every MealType, zero if nobody has checked in yet
+    private long total;
+    private LocalDateTime asOf;
+}
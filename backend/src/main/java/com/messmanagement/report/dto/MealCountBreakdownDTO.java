@@ -0,0 +1,21 @@
+package com.messmanagement.report.dto;
+
+import com.messmanagement.menu.entity.MealType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MealCountBreakdownDTO {
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private Map<MealType, Long> totalsByMealType;
+    private long total;
+    private List<DailyMealCountDTO> days; // One element per day in the range, including days with no entries
+}
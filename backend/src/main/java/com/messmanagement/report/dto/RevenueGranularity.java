@@ -0,0 +1,23 @@
+package com.messmanagement.report.dto;
+
+import java.time.Period;
+
+/**
+ * Bucket size of a revenue timeseries. Weeks start on Monday.
+ * Each granularity limits the range one timeseries may cover, so a request cannot ask for an unbounded number of points.
+ */
+public enum RevenueGranularity {
+    DAY(Period.ofYears(1)),
+    WEEK(Period.ofYears(5)),
+    MONTH(Period.ofYears(20));
+
+    private final Period maxSpan;
+
+    RevenueGranularity(Period maxSpan) {
+        this.maxSpan = maxSpan;
+    }
+
+    public Period maxSpan() {
+        return maxSpan;
+    }
+}
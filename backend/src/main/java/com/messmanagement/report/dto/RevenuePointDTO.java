@@ -0,0 +1,21 @@
+package com.messmanagement.report.dto;
+
+import com.messmanagement.report.entity.RevenueSource;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevenuePointDTO {
+    private LocalDate periodStart;
+    private LocalDate periodEnd; // Inclusive, clipped to the requested range
+    private Map<RevenueSource, BigDecimal> revenueBySource;
+    private BigDecimal totalRevenue;
+    private long paymentCount;
+}
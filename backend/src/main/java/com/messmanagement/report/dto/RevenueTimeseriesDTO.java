@@ -0,0 +1,24 @@
+package com.messmanagement.report.dto;
+
+import com.messmanagement.report.entity.RevenueSource;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevenueTimeseriesDTO {
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private RevenueGranularity granularity;
+    private Map<RevenueSource, BigDecimal> revenueBySource;
+    private BigDecimal totalRevenue;
+    private long paymentCount;
+    private List<RevenuePointDTO> points; // One element per period in the range, including periods without payments
+}
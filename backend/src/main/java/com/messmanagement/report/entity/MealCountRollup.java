@@ -0,0 +1,38 @@
+package com.messmanagement.report.entity;
+
+import com.messmanagement.menu.entity.MealType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Materialized count of meal entries per day and meal type.
+ * Incremented in the same transaction that inserts the entries, so reports never scan meal_entries.
+ */
+@Entity
+@Table(name = "meal_count_rollups", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"rollup_date", "meal_type"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MealCountRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "rollup_id")
+    private Long rollupId;
+
+    @Column(name = "rollup_date", nullable = false)
+    private LocalDate rollupDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "meal_type", nullable = false, length = 20)
+    private MealType mealType;
+
+    @Column(name = "entry_count", nullable = false)
+    private long entryCount;
+}
@@ -0,0 +1,40 @@
+package com.messmanagement.report.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Revenue per day and source, in paise. Updated in the same transaction that appends the ledger entry,
+ * so sales reports read a few rows per day instead of scanning subscriptions and purchases.
+ */
+@Entity
+@Table(name = "revenue_daily_rollups", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"rollup_date", "source"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevenueDailyRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "rollup_id")
+    private Long rollupId;
+
+    @Column(name = "rollup_date", nullable = false)
+    private LocalDate rollupDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "source", nullable = false, length = 20)
+    private RevenueSource source;
+
+    @Column(name = "amount_paise", nullable = false)
+    private long amountPaise;
+
+    @Column(name = "payment_count", nullable = false)
+    private long paymentCount;
+}
@@ -0,0 +1,49 @@
+package com.messmanagement.report.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * One confirmed payment, in integer paise. Rows are only ever inserted; the payment reference is unique
+ * per source, so a replayed confirmation is not counted twice.
+ */
+@Entity
+@Immutable
+@Table(name = "revenue_ledger_entries", uniqueConstraints = {
+    @UniqueConstraint(name = "ux_revenue_ledger_entries_source_reference", columnNames = {"source", "payment_reference"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevenueLedgerEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "entry_id")
+    private Long entryId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "source", nullable = false, length = 20)
+    private RevenueSource source;
+
+    @Column(name = "source_id", nullable = false)
+    private Long sourceId; // subscription_id or purchase_id
+
+    @Column(name = "payment_reference", nullable = false)
+    private String paymentReference;
+
+    @Column(name = "amount_paise", nullable = false)
+    private long amountPaise;
+
+    @Column(name = "occurred_on", nullable = false)
+    private LocalDate occurredOn;
+
+    @Column(name = "recorded_at", nullable = false)
+    private Instant recordedAt;
+}
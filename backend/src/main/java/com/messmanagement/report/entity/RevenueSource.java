@@ -0,0 +1,6 @@
+package com.messmanagement.report.entity;
+
+public enum RevenueSource {
+    SUBSCRIPTION,
+    DISH_PURCHASE
+}
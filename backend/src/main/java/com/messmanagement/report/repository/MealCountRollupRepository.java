@@ -0,0 +1,19 @@
+package com.messmanagement.report.repository;
+
+import com.messmanagement.report.entity.MealCountRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface MealCountRollupRepository extends JpaRepository<MealCountRollup, Long> {
+
+    @Query("SELECT COALESCE(SUM(r.entryCount), 0) FROM MealCountRollup r WHERE r.rollupDate = :date")
+    long sumEntryCountByDate(@Param("date") LocalDate date);
+
+    List<MealCountRollup> findByRollupDateBetweenOrderByRollupDateAsc(LocalDate startDate, LocalDate endDate);
+}
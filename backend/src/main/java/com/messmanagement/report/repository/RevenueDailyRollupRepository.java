@@ -0,0 +1,19 @@
+package com.messmanagement.report.repository;
+
+import com.messmanagement.report.entity.RevenueDailyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface RevenueDailyRollupRepository extends JpaRepository<RevenueDailyRollup, Long> {
+
+    @Query("SELECT COALESCE(SUM(r.amountPaise), 0) FROM RevenueDailyRollup r WHERE r.rollupDate BETWEEN :startDate AND :endDate")
+    long sumAmountPaiseBetween(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    List<RevenueDailyRollup> findByRollupDateBetweenOrderByRollupDateAsc(LocalDate startDate, LocalDate endDate);
+}
@@ -0,0 +1,12 @@
+package com.messmanagement.report.repository;
+
+import com.messmanagement.report.entity.RevenueLedgerEntry;
+import com.messmanagement.report.entity.RevenueSource;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface RevenueLedgerEntryRepository extends JpaRepository<RevenueLedgerEntry, Long> {
+
+    boolean existsBySourceAndPaymentReference(RevenueSource source, String paymentReference);
+}
@@ -0,0 +1,217 @@
+package com.messmanagement.report.service;
+
+import com.messmanagement.menu.entity.MealType;
+import com.messmanagement.report.dto.DailyMealCountDTO;
+import com.messmanagement.report.dto.LiveHeadcountDTO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Today's headcount per MealType, pushed to kitchen displays over Server-Sent Events.
+ *
+ * MealEntryServiceImpl bumps an in-memory counter for every committed check-in. A task on this
+ * service's own thread sends the counts to all open streams at most once per push interval, and only
+ * when they changed, so the number of screens (or a slow one) affects neither check-in latency nor the
+ * shared @Scheduled jobs. Idle streams get a comment line now and then so proxies keep them open.
+ *
+ * The counters are seeded from meal_count_rollups the first time a day is used (startup or midnight).
+ * Check-ins recorded while the seed is read wait for it and are then counted on top, so none is lost at
+ * rollover; one that commits before the read but is recorded after it may be counted twice, until the
+ * next restart.
+ */
+@Component
+public class LiveHeadcountService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LiveHeadcountService.class);
+
+    private final MealCountRollupService mealCountRollupService;
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+
+    @Value("${mess.report.headcount-stream.timeout-ms:1800000}")
+    private long streamTimeoutMs;
+
+    @Value("${mess.report.headcount-stream.heartbeat-ms:15000}")
+    private long heartbeatMs;
+
+    @Value("${mess.report.headcount-stream.push-interval-ms:250}")
+    private long pushIntervalMs;
+
+    private final ScheduledExecutorService pusher =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("headcount-stream").daemon().factory());
+
+    private volatile DailyHeadcount today = new DailyHeadcount(LocalDate.MIN);
+    private volatile boolean changed;
+    private long lastSentMillis;
+
+    public LiveHeadcountService(MealCountRollupService mealCountRollupService) {
+        this.mealCountRollupService = mealCountRollupService;
+    }
+
+    @PostConstruct
+    void start() {
+        pusher.scheduleWithFixedDelay(this::pushIfChanged, pushIntervalMs, pushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pusher.shutdownNow();
+    }
+
+    /**
+     * Counts one committed check-in. Cheap enough to call on every accepted entry.
+     */
+    public void recordCheckIn(MealType mealType, LocalDate date) {
+        DailyHeadcount day = today;
+        if (!day.date.equals(date) || !day.seeded) {
+            if (seed(date)) {
+                // The seed was read after this check-in committed, so it is already included
+                changed = true;
+                return;
+            }
+            day = today;
+        }
+        if (day.date.equals(date)) { // A check-in from yesterday recorded after midnight no longer shows
+            day.counts.get(mealType).increment();
+            changed = true;
+        }
+    }
+
+    public LiveHeadcountDTO currentHeadcount() {
+        return headcountFor(LocalDate.now()).snapshot();
+    }
+
+    /**
+     * Opens a stream that starts with the current counts and then receives a "headcount" event per change.
+     */
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(failure -> emitters.remove(emitter));
+        try {
+            emitter.send(headcountEvent(currentHeadcount()));
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+            return emitter;
+        }
+        emitters.add(emitter);
+        return emitter;
+    }
+
+    void pushIfChanged() {
+        try {
+            push();
+        } catch (RuntimeException e) {
+            // Keep the task scheduled; e.g. the seed read at midnight is retried on the next run
+            logger.warn("Could not push live headcount: {}", e.getMessage());
+        }
+    }
+
+    private void push() {
+        if (emitters.isEmpty()) {
+            return;
+        }
+        LocalDate date = LocalDate.now();
+        if (!today.date.equals(date)) {
+            headcountFor(date); // Midnight: the new day starts from its stored count
+            changed = true;
+        }
+        long now = System.currentTimeMillis();
+        SseEmitter.SseEventBuilder event;
+        if (changed) {
+            changed = false;
+            event = headcountEvent(today.snapshot());
+        } else if (now - lastSentMillis >= heartbeatMs) {
+            event = SseEmitter.event().comment("keep-alive");
+        } else {
+            return;
+        }
+        lastSentMillis = now;
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(event);
+            } catch (IOException | IllegalStateException e) {
+                // The screen went away; the container completes the emitter, this just stops writing to it.
+                emitters.remove(emitter);
+            }
+        }
+    }
+
+    private DailyHeadcount headcountFor(LocalDate date) {
+        DailyHeadcount current = today;
+        if (!(current.date.equals(date) && current.seeded) && !date.isBefore(current.date)) {
+            seed(date);
+        }
+        return today;
+    }
+
+    /**
+     * Moves on to the given day if it is newer and loads its stored count, once. Check-ins recorded in
+     * the meantime wait here, so they are counted on top of the seed rather than lost.
+     *
+     * @return true if this call read the seed.
+     */
+    private synchronized boolean seed(LocalDate date) {
+        if (date.isBefore(today.date)) {
+            return false;
+        }
+        if (today.date.isBefore(date)) {
+            today = new DailyHeadcount(date);
+        }
+        DailyHeadcount day = today;
+        if (day.seeded) {
+            return false;
+        }
+        // If the read fails the day stays unseeded and the next caller retries it
+        DailyMealCountDTO stored = mealCountRollupService.getBreakdown(day.date, day.date).getDays().get(0);
+        stored.getCounts().forEach((mealType, count) -> day.counts.get(mealType).add(count));
+        day.seeded = true;
+        return true;
+    }
+
+    private static SseEmitter.SseEventBuilder headcountEvent(LiveHeadcountDTO headcount) {
+        return SseEmitter.event().name("headcount").data(headcount, MediaType.APPLICATION_JSON);
+    }
+
+    private static final class DailyHeadcount {
+        private final LocalDate date;
+        private final Map<MealType, LongAdder> counts = new EnumMap<>(MealType.class);
+        private volatile boolean seeded;
+
+        private DailyHeadcount(LocalDate date) {
+            this.date = date;
+            for (MealType mealType : MealType.values()) {
+                counts.put(mealType, new LongAdder());
+            }
+        }
+
+        private LiveHeadcountDTO snapshot() {
+            Map<MealType, Long> values = new EnumMap<>(MealType.class);
+            long total = 0;
+            for (Map.Entry<MealType, LongAdder> count : counts.entrySet()) {
+                long value = count.getValue().sum();
+                values.put(count.getKey(), value);
+                total += value;
+            }
+            return new LiveHeadcountDTO(date, values, total, LocalDateTime.now());
+        }
+    }
+}
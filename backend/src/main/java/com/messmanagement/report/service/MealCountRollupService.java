@@ -0,0 +1,161 @@
+package com.messmanagement.report.service;
+
+import com.messmanagement.menu.entity.MealType;
+import com.messmanagement.report.dto.DailyMealCountDTO;
+import com.messmanagement.report.dto.MealCountBreakdownDTO;
+import com.messmanagement.report.entity.MealCountRollup;
+import com.messmanagement.report.repository.MealCountRollupRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintains and reads the per-day x MealType counters in meal_count_rollups.
+ *
+ * The table is seeded from meal_entries by the V11 migration and afterwards only changed by {@link #increment}.
+ */
+@Service
+public class MealCountRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MealCountRollupService.class);
+
+    // Adds to the counter, or creates it, in one statement, so concurrent writers (the write-behind flusher,
+    // kiosk batches, other instances) never race to insert the same (date, meal type) row.
+    private static final String POSTGRES_UPSERT =
+            "INSERT INTO meal_count_rollups (rollup_date, meal_type, entry_count) VALUES (?, ?, ?) " +
+            "ON CONFLICT (rollup_date, meal_type) DO UPDATE SET entry_count = meal_count_rollups.entry_count + EXCLUDED.entry_count";
+    // Elsewhere (H2 in development) MERGE can still hit the unique key under concurrency, so missing counters are
+    // created at zero in their own transaction first and then added to under the row lock.
+    private static final String CREATE_IF_MISSING =
+            "INSERT INTO meal_count_rollups (rollup_date, meal_type, entry_count) SELECT ?, ?, 0 FROM (VALUES (1)) " +
+            "WHERE NOT EXISTS (SELECT 1 FROM meal_count_rollups WHERE rollup_date = ? AND meal_type = ?)";
+    private static final String ADD_TO_COUNTER =
+            "UPDATE meal_count_rollups SET entry_count = entry_count + ? WHERE rollup_date = ? AND meal_type = ?";
+
+    private final MealCountRollupRepository rollupRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate counterCreation;
+
+    private volatile Boolean postgres; // Read from the connection on first use
+
+    public MealCountRollupService(MealCountRollupRepository rollupRepository, JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager) {
+        this.rollupRepository = rollupRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.counterCreation = new TransactionTemplate(transactionManager);
+        this.counterCreation.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * A single counter cell: one day, one meal type.
+     */
+    public record RollupKey(LocalDate date, MealType mealType) {
+    }
+
+    /**
+     * Adds the given counts to their counters, creating missing ones, in one JDBC batch. Must run inside
+     * the transaction that inserts the entries, so counters and rows commit (or roll back) together.
+     * Counters are touched in (date, meal type) order so concurrent batches lock them in the same order.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void increment(Map<RollupKey, Long> deltas) {
+        List<Map.Entry<RollupKey, Long>> ordered = deltas.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey(Comparator.comparing(RollupKey::date).thenComparing(RollupKey::mealType)))
+                .toList();
+        if (ordered.isEmpty()) {
+            return;
+        }
+        if (isPostgres()) {
+            jdbcTemplate.batchUpdate(POSTGRES_UPSERT, ordered.stream()
+                    .map(delta -> new Object[]{Date.valueOf(delta.getKey().date()), delta.getKey().mealType().name(), delta.getValue()})
+                    .toList());
+            return;
+        }
+        for (Map.Entry<RollupKey, Long> delta : ordered) {
+            Date date = Date.valueOf(delta.getKey().date());
+            String mealType = delta.getKey().mealType().name();
+            try {
+                counterCreation.executeWithoutResult(status -> jdbcTemplate.update(CREATE_IF_MISSING, date, mealType, date, mealType));
+            } catch (DuplicateKeyException e) {
+                // Created by a concurrent writer in the meantime
+            }
+        }
+        jdbcTemplate.batchUpdate(ADD_TO_COUNTER, ordered.stream()
+                .map(delta -> new Object[]{delta.getValue(), Date.valueOf(delta.getKey().date()), delta.getKey().mealType().name()})
+                .toList());
+    }
+
+    public static Map<RollupKey, Long> countByKey(List<RollupKey> keys) {
+        Map<RollupKey, Long> deltas = new HashMap<>();
+        for (RollupKey key : keys) {
+            deltas.merge(key, 1L, Long::sum);
+        }
+        return deltas;
+    }
+
+    @Transactional(readOnly = true)
+    public long getCountForDate(LocalDate date) {
+        return rollupRepository.sumEntryCountByDate(date);
+    }
+
+    @Transactional(readOnly = true)
+    public MealCountBreakdownDTO getBreakdown(LocalDate startDate, LocalDate endDate) {
+        Map<LocalDate, Map<MealType, Long>> countsByDate = new HashMap<>();
+        for (MealCountRollup rollup : rollupRepository.findByRollupDateBetweenOrderByRollupDateAsc(startDate, endDate)) {
+            countsByDate.computeIfAbsent(rollup.getRollupDate(), d -> new EnumMap<>(MealType.class))
+                    .put(rollup.getMealType(), rollup.getEntryCount());
+        }
+
+        Map<MealType, Long> totalsByMealType = emptyCounts();
+        List<DailyMealCountDTO> days = new ArrayList<>();
+        long total = 0;
+        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+            Map<MealType, Long> counts = emptyCounts();
+            counts.putAll(countsByDate.getOrDefault(date, Map.of()));
+            long dayTotal = 0;
+            for (Map.Entry<MealType, Long> count : counts.entrySet()) {
+                totalsByMealType.merge(count.getKey(), count.getValue(), Long::sum);
+                dayTotal += count.getValue();
+            }
+            days.add(new DailyMealCountDTO(date, counts, dayTotal));
+            total += dayTotal;
+        }
+        return new MealCountBreakdownDTO(startDate, endDate, totalsByMealType, total, days);
+    }
+
+    private boolean isPostgres() {
+        Boolean result = postgres;
+        if (result == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            result = "PostgreSQL".equalsIgnoreCase(product);
+            logger.debug("Meal count rollups are upserted {} on {}", result ? "with ON CONFLICT" : "by create-then-update", product);
+            postgres = result;
+        }
+        return result;
+    }
+
+    private static Map<MealType, Long> emptyCounts() {
+        Map<MealType, Long> counts = new EnumMap<>(MealType.class);
+        for (MealType mealType : MealType.values()) {
+            counts.put(mealType, 0L);
+        }
+        return counts;
+    }
+}
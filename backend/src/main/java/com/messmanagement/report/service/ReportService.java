@@ -1,12 +1,20 @@
 package com.messmanagement.report.service;
 
+import com.messmanagement.report.dto.MealCountBreakdownDTO;
+import com.messmanagement.report.dto.RevenueGranularity;
+import com.messmanagement.report.dto.RevenueTimeseriesDTO;
+
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.YearMonth;
 
 public interface ReportService {
     long getTotalStudentCount();
     long getActiveSubscriptionCount();
     long getMealEntriesCountForDate(LocalDate date);
+    MealCountBreakdownDTO getWeeklyMealBreakdown(LocalDate dateInWeek); // Monday to Sunday
+    MealCountBreakdownDTO getMonthlyMealBreakdown(YearMonth month);
     // We can create a DTO for sales summary if it gets complex
     BigDecimal getSalesSummary(LocalDate startDate, LocalDate endDate);
+    RevenueTimeseriesDTO getRevenueTimeseries(LocalDate startDate, LocalDate endDate, RevenueGranularity granularity);
 }
\ No newline at end of file
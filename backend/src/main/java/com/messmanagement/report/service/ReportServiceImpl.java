@@ -1,19 +1,21 @@
 package com.messmanagement.report.service;
 
-import com.messmanagement.purchase.repository.PurchaseRepository;
+import com.messmanagement.report.dto.MealCountBreakdownDTO;
+import com.messmanagement.report.dto.RevenueGranularity;
+import com.messmanagement.report.dto.RevenueTimeseriesDTO;
 import com.messmanagement.subscription.entity.SubscriptionStatus;
 import com.messmanagement.subscription.repository.SubscriptionRepository;
 import com.messmanagement.user.entity.Role;
 import com.messmanagement.user.repository.UserRepository;
-import com.messmanagement.mealentry.repository.MealEntryRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
-import java.time.LocalTime;
-import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.TemporalAdjusters;
 
 @Service
 @RequiredArgsConstructor
@@ -22,8 +24,8 @@ public class ReportServiceImpl implements ReportService {
 
     private final UserRepository userRepository;
     private final SubscriptionRepository subscriptionRepository;
-    private final MealEntryRepository mealEntryRepository;
-    private final PurchaseRepository purchaseRepository;
+    private final MealCountRollupService mealCountRollupService;
+    private final RevenueLedgerService revenueLedgerService;
 
     @Override
     public long getTotalStudentCount() {
@@ -32,33 +34,33 @@ public class ReportServiceImpl implements ReportService {
 
     @Override
     public long getActiveSubscriptionCount() {
-        return subscriptionRepository.countByStatus(SubscriptionStatus.ACTIVE); // We'll need to add this
+        // Rows past their end date stay ACTIVE until the next expiry sweep; don't count them
+        return subscriptionRepository.countByStatusAndEndDateGreaterThanEqual(SubscriptionStatus.ACTIVE, LocalDate.now());
     }
 
     @Override
     public long getMealEntriesCountForDate(LocalDate date) {
-        return mealEntryRepository.countByEntryDate(date); // We'll need to add this
+        return mealCountRollupService.getCountForDate(date); // Served from meal_count_rollups, not meal_entries
     }
 
     @Override
-    public BigDecimal getSalesSummary(LocalDate startDate, LocalDate endDate) {
-        LocalDateTime startDateTime = startDate.atStartOfDay();
-        LocalDateTime endDateTime = endDate.atTime(LocalTime.MAX);
+    public MealCountBreakdownDTO getWeeklyMealBreakdown(LocalDate dateInWeek) {
+        LocalDate monday = dateInWeek.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        return mealCountRollupService.getBreakdown(monday, monday.plusDays(6));
+    }
 
-        BigDecimal subscriptionSales = subscriptionRepository.sumAmountPaidByStatusAndDateRange(
-            SubscriptionStatus.ACTIVE, startDateTime, endDateTime);
+    @Override
+    public MealCountBreakdownDTO getMonthlyMealBreakdown(YearMonth month) {
+        return mealCountRollupService.getBreakdown(month.atDay(1), month.atEndOfMonth());
+    }
 
-        BigDecimal purchaseSales = purchaseRepository.sumTotalAmountByPurchaseDateBetween(
-            startDateTime, endDateTime);
+    @Override
+    public BigDecimal getSalesSummary(LocalDate startDate, LocalDate endDate) {
+        return revenueLedgerService.getTotalRevenue(startDate, endDate); // Served from revenue_daily_rollups
+    }
 
-        // Handle nulls in case there are no sales of a certain type
-        BigDecimal totalSales = BigDecimal.ZERO;
-        if (subscriptionSales != null) {
-            totalSales = totalSales.add(subscriptionSales);
-        }
-        if (purchaseSales != null) {
-            totalSales = totalSales.add(purchaseSales);
-        }
-        return totalSales;
+    @Override
+    public RevenueTimeseriesDTO getRevenueTimeseries(LocalDate startDate, LocalDate endDate, RevenueGranularity granularity) {
+        return revenueLedgerService.getTimeseries(startDate, endDate, granularity);
     }
 }
@@ -0,0 +1,203 @@
+package com.messmanagement.report.service;
+
+import com.messmanagement.report.dto.RevenueGranularity;
+import com.messmanagement.report.dto.RevenuePointDTO;
+import com.messmanagement.report.dto.RevenueTimeseriesDTO;
+import com.messmanagement.report.entity.RevenueDailyRollup;
+import com.messmanagement.report.entity.RevenueLedgerEntry;
+import com.messmanagement.report.entity.RevenueSource;
+import com.messmanagement.report.repository.RevenueDailyRollupRepository;
+import com.messmanagement.report.repository.RevenueLedgerEntryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Appends confirmed payments to revenue_ledger_entries and keeps revenue_daily_rollups in step,
+ * and answers sales reports from the rollups. Amounts are stored as integer paise and only turned
+ * back into rupees for responses.
+ */
+@Service
+public class RevenueLedgerService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RevenueLedgerService.class);
+
+    // Adds the payment to the day's row, or creates it, in one statement, so the first two confirmations of a
+    // day arriving on different webhook lanes never race to insert the same (date, source) row.
+    private static final String POSTGRES_UPSERT =
+            "INSERT INTO revenue_daily_rollups (rollup_date, source, amount_paise, payment_count) VALUES (?, ?, ?, 1) " +
+            "ON CONFLICT (rollup_date, source) DO UPDATE SET amount_paise = revenue_daily_rollups.amount_paise + EXCLUDED.amount_paise, " +
+            "payment_count = revenue_daily_rollups.payment_count + 1";
+    // Elsewhere (H2 in development) the missing row is created empty in its own transaction first, as for
+    // meal_count_rollups, and then added to under the row lock.
+    private static final String CREATE_IF_MISSING =
+            "INSERT INTO revenue_daily_rollups (rollup_date, source, amount_paise, payment_count) SELECT ?, ?, 0, 0 FROM (VALUES (1)) " +
+            "WHERE NOT EXISTS (SELECT 1 FROM revenue_daily_rollups WHERE rollup_date = ? AND source = ?)";
+    private static final String ADD_PAYMENT =
+            "UPDATE revenue_daily_rollups SET amount_paise = amount_paise + ?, payment_count = payment_count + 1 " +
+            "WHERE rollup_date = ? AND source = ?";
+
+    private final RevenueLedgerEntryRepository ledgerEntryRepository;
+    private final RevenueDailyRollupRepository rollupRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate rollupCreation;
+
+    private volatile Boolean postgres; // Read from the connection on first use
+
+    public RevenueLedgerService(RevenueLedgerEntryRepository ledgerEntryRepository, RevenueDailyRollupRepository rollupRepository,
+                                JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.ledgerEntryRepository = ledgerEntryRepository;
+        this.rollupRepository = rollupRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.rollupCreation = new TransactionTemplate(transactionManager);
+        this.rollupCreation.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Records one confirmed payment, dated by when it was paid (not when the confirmation arrived, which
+     * may be hours later after webhook retries). Must run inside the transaction that confirms the
+     * payment, so the ledger, the rollup and the subscription or purchase commit (or roll back) together.
+     * A payment reference already recorded for the source is skipped, so replayed confirmations count once.
+     *
+     * @return false if the payment was already in the ledger.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean recordPayment(RevenueSource source, Long sourceId, String paymentReference, BigDecimal amount, Instant paidAt) {
+        if (ledgerEntryRepository.existsBySourceAndPaymentReference(source, paymentReference)) {
+            logger.debug("{} payment {} is already in the revenue ledger", source, paymentReference);
+            return false;
+        }
+        long amountPaise = toPaise(amount);
+        LocalDate paidOn = LocalDate.ofInstant(paidAt, ZoneId.systemDefault());
+        ledgerEntryRepository.save(new RevenueLedgerEntry(null, source, sourceId, paymentReference, amountPaise, paidOn, Instant.now()));
+        addToRollup(paidOn, source, amountPaise);
+        return true;
+    }
+
+    private void addToRollup(LocalDate paidOn, RevenueSource source, long amountPaise) {
+        Date date = Date.valueOf(paidOn);
+        if (isPostgres()) {
+            jdbcTemplate.update(POSTGRES_UPSERT, date, source.name(), amountPaise);
+            return;
+        }
+        try {
+            rollupCreation.executeWithoutResult(status -> jdbcTemplate.update(CREATE_IF_MISSING, date, source.name(), date, source.name()));
+        } catch (DuplicateKeyException e) {
+            // Created by a concurrent confirmation in the meantime
+        }
+        jdbcTemplate.update(ADD_PAYMENT, amountPaise, date, source.name());
+    }
+
+    @Transactional(readOnly = true)
+    public BigDecimal getTotalRevenue(LocalDate startDate, LocalDate endDate) {
+        return toRupees(rollupRepository.sumAmountPaiseBetween(startDate, endDate));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the range is reversed, or longer than the granularity's maxSpan().
+     */
+    @Transactional(readOnly = true)
+    public RevenueTimeseriesDTO getTimeseries(LocalDate startDate, LocalDate endDate, RevenueGranularity granularity) {
+        if (endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("endDate must not be before startDate.");
+        }
+        if (!endDate.isBefore(startDate.plus(granularity.maxSpan()))) {
+            throw new IllegalArgumentException("A " + granularity + " revenue timeseries may cover at most "
+                    + granularity.maxSpan().getYears() + " year(s); use a coarser granularity or a shorter range.");
+        }
+        List<RevenueDailyRollup> rollups = rollupRepository.findByRollupDateBetweenOrderByRollupDateAsc(startDate, endDate);
+
+        Totals overall = new Totals();
+        List<RevenuePointDTO> points = new ArrayList<>();
+        int next = 0;
+        for (LocalDate periodStart = startDate; !periodStart.isAfter(endDate); ) {
+            LocalDate periodEnd = periodEnd(periodStart, granularity);
+            if (periodEnd.isAfter(endDate)) {
+                periodEnd = endDate;
+            }
+            Totals period = new Totals();
+            // Rollups are sorted by date, so each period consumes the next run of rows
+            while (next < rollups.size() && !rollups.get(next).getRollupDate().isAfter(periodEnd)) {
+                period.add(rollups.get(next));
+                overall.add(rollups.get(next));
+                next++;
+            }
+            points.add(new RevenuePointDTO(periodStart, periodEnd, period.bySource(), toRupees(period.totalPaise), period.payments));
+            periodStart = periodEnd.plusDays(1);
+        }
+        return new RevenueTimeseriesDTO(startDate, endDate, granularity, overall.bySource(),
+                toRupees(overall.totalPaise), overall.payments, points);
+    }
+
+    private boolean isPostgres() {
+        Boolean result = postgres;
+        if (result == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            result = "PostgreSQL".equalsIgnoreCase(product);
+            logger.debug("Revenue rollups are upserted {} on {}", result ? "with ON CONFLICT" : "by create-then-update", product);
+            postgres = result;
+        }
+        return result;
+    }
+
+    private static LocalDate periodEnd(LocalDate periodStart, RevenueGranularity granularity) {
+        return switch (granularity) {
+            case DAY -> periodStart;
+            case WEEK -> periodStart.with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY));
+            case MONTH -> periodStart.with(TemporalAdjusters.lastDayOfMonth());
+        };
+    }
+
+    private static long toPaise(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    private static BigDecimal toRupees(long paise) {
+        return BigDecimal.valueOf(paise, 2);
+    }
+
+    private static final class Totals {
+        private final Map<RevenueSource, Long> paiseBySource = new EnumMap<>(RevenueSource.class);
+        private long totalPaise;
+        private long payments;
+
+        private Totals() {
+            for (RevenueSource source : RevenueSource.values()) {
+                paiseBySource.put(source, 0L);
+            }
+        }
+
+        private void add(RevenueDailyRollup rollup) {
+            paiseBySource.merge(rollup.getSource(), rollup.getAmountPaise(), Long::sum);
+            totalPaise += rollup.getAmountPaise();
+            payments += rollup.getPaymentCount();
+        }
+
+        private Map<RevenueSource, BigDecimal> bySource() {
+            Map<RevenueSource, BigDecimal> revenue = new EnumMap<>(RevenueSource.class);
+            paiseBySource.forEach((source, paise) -> revenue.put(source, toRupees(paise)));
+            return revenue;
+        }
+    }
+}
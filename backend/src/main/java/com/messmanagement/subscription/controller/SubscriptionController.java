@@ -1,5 +1,6 @@
 package com.messmanagement.subscription.controller;
 
+import com.messmanagement.idempotency.service.IdempotencyService;
 import com.messmanagement.subscription.dto.SubscriptionPurchaseRequestDTO;
 import com.messmanagement.subscription.dto.SubscriptionResponseDTO;
 import com.messmanagement.subscription.service.SubscriptionService;
@@ -22,16 +23,20 @@ import org.springframework.web.bind.annotation.*;
 public class SubscriptionController {
 
     private final SubscriptionService subscriptionService;
+    private final IdempotencyService idempotencyService;
 
     // public SubscriptionController(SubscriptionService subscriptionService) {
     //     this.subscriptionService = subscriptionService;
     // }
 
 
+    // Optional Idempotency-Key header: a retry with the same key returns the first checkout session
+    // instead of creating another PENDING subscription and Stripe session.
     @PostMapping("/purchase")
     @PreAuthorize("hasRole('STUDENT')")
     public ResponseEntity<String> purchaseSubscription(
             Authentication authentication,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             @Valid @RequestBody(required = false) SubscriptionPurchaseRequestDTO purchaseRequest) {
         // (required = false) for RequestBody if DTO can be empty or defaults are handled by service
 
@@ -41,9 +46,11 @@ public class SubscriptionController {
         // If purchaseRequest is null (e.g. empty body sent), create a default one or handle in service
         SubscriptionPurchaseRequestDTO request = (purchaseRequest == null) ? new SubscriptionPurchaseRequestDTO() : purchaseRequest;
         
-        String paymentInitiationResponse = subscriptionService.purchaseSubscription(userEmail, request);
-        // This response will be a Stripe session ID/URL to redirect the client for payment.
-        return ResponseEntity.status(HttpStatus.CREATED).body(paymentInitiationResponse);
+        return idempotencyService.execute("subscription.purchase", userEmail, idempotencyKey, request, String.class, () -> {
+            String paymentInitiationResponse = subscriptionService.purchaseSubscription(userEmail, request);
+            // This response will be a Stripe session ID/URL to redirect the client for payment.
+            return ResponseEntity.status(HttpStatus.CREATED).body(paymentInitiationResponse);
+        });
     }
 
     /**
@@ -0,0 +1,9 @@
+package com.messmanagement.subscription.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Read-only projection of the period a user is entitled to meals for.
+ */
+public record SubscriptionWindowView(Long subscriptionId, Long userId, LocalDate startDate, LocalDate endDate) {
+}
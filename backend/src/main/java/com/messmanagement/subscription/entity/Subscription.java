@@ -13,7 +13,9 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "subscriptions")
+@Table(name = "subscriptions", indexes = {
+        @Index(name = "ix_subscriptions_status_end_date", columnList = "status, end_date") // Expiry sweep, active counts
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -1,5 +1,7 @@
 package com.messmanagement.subscription.repository;
 
+import com.messmanagement.subscription.dto.SubscriptionResponseDTO;
+import com.messmanagement.subscription.dto.SubscriptionWindowView;
 import com.messmanagement.subscription.entity.Subscription;
 import com.messmanagement.subscription.entity.SubscriptionStatus;
 import com.messmanagement.user.entity.User;
@@ -7,11 +9,11 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query; // <-- ADD THIS IMPORT
 import org.springframework.data.repository.query.Param; // <-- ADD THIS IMPORT
 import org.springframework.stereotype.Repository;
 
-import java.math.BigDecimal; // <-- ADD THIS IMPORT
 import java.time.LocalDate;
 import java.time.LocalDateTime; // <-- ADD THIS IMPORT
 import java.util.List;
@@ -29,7 +31,48 @@ public interface SubscriptionRepository extends JpaRepository<Subscription, Long
     List<Subscription> findByEndDateBeforeAndStatus(LocalDate date, SubscriptionStatus status);
     Optional<Subscription> findByStripeSubscriptionId(String stripeSubscriptionId);
     long countByStatus(SubscriptionStatus status);
+    long countByStatusAndEndDateGreaterThanEqual(SubscriptionStatus status, LocalDate date);
 
-    @Query("SELECT COALESCE(SUM(s.amountPaid), 0) FROM Subscription s WHERE s.status = :status AND s.createdAt >= :startDate AND s.createdAt <= :endDate")
-    BigDecimal sumAmountPaidByStatusAndDateRange(@Param("status") SubscriptionStatus status, @Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
+    /**
+     * IDs of subscriptions in the given status whose end date is before the given date, oldest ID first.
+     * Read in chunks by SubscriptionExpiryJob.
+     */
+    @Query("SELECT s.subscriptionId FROM Subscription s WHERE s.status = :status AND s.endDate < :date ORDER BY s.subscriptionId")
+    List<Long> findIdsByStatusAndEndDateBefore(@Param("status") SubscriptionStatus status, @Param("date") LocalDate date, Pageable pageable);
+
+    /**
+     * Moves the given subscriptions from one status to another in a single UPDATE. Rows no longer in
+     * the from status (e.g. already changed by another instance) are left alone and not counted.
+     */
+    @Modifying
+    @Query("UPDATE Subscription s SET s.status = :to, s.updatedAt = :now WHERE s.subscriptionId IN :ids AND s.status = :from")
+    int updateStatus(@Param("ids") List<Long> ids, @Param("from") SubscriptionStatus from, @Param("to") SubscriptionStatus to, @Param("now") LocalDateTime now);
+
+    /**
+     * Loads the entitlement windows (user, start, end) of subscriptions in the given status that are
+     * still running on or after the given date. Used to warm the in-memory entitlement index
+     * without materialising Subscription entities.
+     */
+    @Query("SELECT new com.messmanagement.subscription.dto.SubscriptionWindowView(s.subscriptionId, s.user.userId, s.startDate, s.endDate) " +
+           "FROM Subscription s WHERE s.status = :status AND s.endDate >= :date")
+    List<SubscriptionWindowView> findWindowsByStatusEndingOnOrAfter(@Param("status") SubscriptionStatus status, @Param("date") LocalDate date);
+
+    /**
+     * The same windows for one user; read by the entitlement index when it has nothing covering the date.
+     */
+    @Query("SELECT new com.messmanagement.subscription.dto.SubscriptionWindowView(s.subscriptionId, s.user.userId, s.startDate, s.endDate) " +
+           "FROM Subscription s WHERE s.user.userId = :userId AND s.status = :status AND s.endDate >= :date")
+    List<SubscriptionWindowView> findWindowsByUserIdAndStatusEndingOnOrAfter(@Param("userId") Long userId, @Param("status") SubscriptionStatus status,
+                                                                           @Param("date") LocalDate date);
+
+    /**
+     * Admin listing: builds the response DTOs straight from a join with users, in one statement per page.
+     * Sort properties of the Pageable refer to Subscription attributes (e.g. startDate).
+     */
+    @Query(value = "SELECT new com.messmanagement.subscription.dto.SubscriptionResponseDTO(" +
+                   "s.subscriptionId, u.userId, u.email, s.startDate, s.endDate, s.status, s.amountPaid, " +
+                   "s.paymentTransactionId, s.stripeSubscriptionId, s.createdAt, s.updatedAt) " +
+                   "FROM Subscription s JOIN s.user u",
+           countQuery = "SELECT COUNT(s) FROM Subscription s")
+    Page<SubscriptionResponseDTO> findAllResponses(Pageable pageable);
 }
\ No newline at end of file
@@ -0,0 +1,82 @@
+package com.messmanagement.subscription.service;
+
+import com.messmanagement.subscription.entity.SubscriptionStatus;
+import com.messmanagement.subscription.repository.SubscriptionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Moves ACTIVE subscriptions whose end date has passed to EXPIRED.
+ *
+ * Overdue IDs are read in chunks and each chunk is expired with one UPDATE in its own short
+ * transaction. The UPDATE only matches rows that are still ACTIVE, so several instances can sweep
+ * at the same time: a row is expired (and counted) by exactly one of them. Each run logs and
+ * returns the number of rows it changed, and adds it to the subscriptions.expired counter.
+ *
+ * Meal check-in does not wait for this job; the entitlement index compares dates itself.
+ */
+@Component
+public class SubscriptionExpiryJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubscriptionExpiryJob.class);
+
+    private final SubscriptionRepository subscriptionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter expiredCounter;
+
+    @Value("${mess.subscription.expiry.chunk-size:500}")
+    private int chunkSize;
+
+    public SubscriptionExpiryJob(SubscriptionRepository subscriptionRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry) {
+        this.subscriptionRepository = subscriptionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.expiredCounter = Counter.builder("subscriptions.expired")
+                .description("Subscriptions moved from ACTIVE to EXPIRED by the expiry sweep")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return the number of subscriptions this run expired.
+     */
+    @Scheduled(fixedDelayString = "${mess.subscription.expiry.interval-ms:3600000}",
+               initialDelayString = "${mess.subscription.expiry.initial-delay-ms:30000}")
+    public int expireOverdueSubscriptions() {
+        LocalDate today = LocalDate.now();
+        int expired = 0;
+        int chunks = 0;
+        List<Long> ids;
+        do {
+            ids = subscriptionRepository.findIdsByStatusAndEndDateBefore(SubscriptionStatus.ACTIVE, today, PageRequest.of(0, chunkSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            List<Long> chunk = ids;
+            Integer updated = transactionTemplate.execute(status -> subscriptionRepository.updateStatus(
+                    chunk, SubscriptionStatus.ACTIVE, SubscriptionStatus.EXPIRED, LocalDateTime.now()));
+            expired += updated;
+            chunks++;
+        } while (ids.size() == chunkSize);
+
+        expiredCounter.increment(expired);
+        if (expired > 0) {
+            logger.info("Expired {} subscriptions ending before {} in {} chunks", expired, today, chunks);
+        } else {
+            logger.debug("No subscriptions to expire before {}", today);
+        }
+        return expired;
+    }
+}
@@ -10,6 +10,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDate;
 
 
@@ -62,7 +63,7 @@ public interface SubscriptionService {
      */
     void handleFailedPayment(String stripeSubscriptionId);
     
-    void activateSubscription(String stripeSubscriptionId, String stripeCustomerId, String paymentTransactionId, BigDecimal amountPaid, LocalDate startDate, LocalDate endDate);
+    void activateSubscription(String stripeSubscriptionId, String stripeCustomerId, String paymentTransactionId, BigDecimal amountPaid, LocalDate startDate, LocalDate endDate, Instant paidAt);
 
     /**
      * Handles subscription cancellation.
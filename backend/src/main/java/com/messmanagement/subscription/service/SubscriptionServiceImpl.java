@@ -1,7 +1,10 @@
 package com.messmanagement.subscription.service;
 
 import com.messmanagement.common.exception.ResourceNotFoundException;
+import com.messmanagement.mealentry.service.MealEntitlementIndex;
 import com.messmanagement.payment.service.PaymentService; // Make sure this is the correct import
+import com.messmanagement.report.entity.RevenueSource;
+import com.messmanagement.report.service.RevenueLedgerService;
 import com.messmanagement.subscription.dto.MySubscriptionStatusDTO; // IMPORT THE NEW DTO
 import com.messmanagement.subscription.dto.SubscriptionPurchaseRequestDTO;
 import com.messmanagement.subscription.dto.SubscriptionResponseDTO;
@@ -18,8 +21,10 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
@@ -33,6 +38,9 @@ public class SubscriptionServiceImpl implements SubscriptionService {
     private final SubscriptionRepository subscriptionRepository;
     private final UserRepository userRepository;
     private final PaymentService paymentService;
+    private final MealEntitlementIndex entitlementIndex;
+    private final RevenueLedgerService revenueLedgerService;
+    private final TransactionTemplate transactionTemplate;
 
     @Value("${mess.subscription.monthly.price:3500.00}")
     private BigDecimal monthlySubscriptionPrice;
@@ -40,6 +48,10 @@ public class SubscriptionServiceImpl implements SubscriptionService {
     @Value("${mess.subscription.duration.months:1}")
     private int subscriptionDurationMonths;
 
+    // Stripe Checkout sessions expire after 24 hours by default; an older PENDING subscription can no longer be paid
+    @Value("${mess.subscription.pending-checkout-expiry-hours:24}")
+    private long pendingCheckoutExpiryHours;
+
     // Your existing mapToDTO for SubscriptionResponseDTO
     private SubscriptionResponseDTO mapToDTO(Subscription subscription) {
         if (subscription == null) return null;
@@ -94,8 +106,7 @@ public class SubscriptionServiceImpl implements SubscriptionService {
 
         String displayStatus = subscription.getStatus().name(); // e.g., "ACTIVE", "EXPIRED", "CANCELLED"
 
-        // Optional: You can add logic here to derive a more user-friendly status if needed.
-        // For example, if the DB status is ACTIVE but the endDate has passed, you might want to override:
+        // SubscriptionExpiryJob moves lapsed rows to EXPIRED periodically; until it has run, show them as expired anyway.
         if (subscription.getStatus() == SubscriptionStatus.ACTIVE &&
             subscription.getEndDate() != null &&
             subscription.getEndDate().isBefore(LocalDate.now())) {
@@ -133,9 +144,38 @@ public class SubscriptionServiceImpl implements SubscriptionService {
     // --- END OF NEW METHOD AND HELPER ---
 
 
+    // Not @Transactional: the Stripe calls must not run while a connection and row locks are held.
+    // The PENDING row is committed first, Stripe is called with no transaction open, and a failed call
+    // removes the row again in a short follow-up transaction.
     @Override
-    @Transactional
     public String purchaseSubscription(String userEmail, SubscriptionPurchaseRequestDTO purchaseRequest) {
+        Subscription pendingSubscription = transactionTemplate.execute(status -> createPendingSubscription(userEmail));
+
+        try {
+            String stripeCheckoutSessionId = paymentService.createSubscriptionCheckoutSession(
+                    pendingSubscription.getUser(),
+                    pendingSubscription, // Pass the entity with its ID
+                    purchaseRequest.getStripePriceId(), // THIS IS THE CRUCIAL STRIPE PRICE ID from the frontend/request
+                    "inr" // Or get currency from request/config
+            );
+
+            // Optionally, save the stripeCheckoutSessionId to the pendingSubscription if needed later,
+            // in a follow-up transaction like discardPendingSubscription.
+
+            return stripeCheckoutSessionId; // Return the Stripe Checkout Session ID to the frontend
+        } catch (StripeException e) {
+            // Important: Log the detailed Stripe error
+            // logger.error("Stripe error for user {}: Code: {}, Message: {}, RequestID: {}", userEmail, e.getCode(), e.getMessage(), e.getRequestId(), e);
+            discardPendingSubscription(pendingSubscription.getSubscriptionId());
+            throw new RuntimeException("Payment gateway error: " + e.getMessage() + "; code: " + e.getCode() + "; request-id: " + e.getRequestId(), e);
+        } catch (RuntimeException e) {
+            // Includes PaymentGatewayUnavailableException (Stripe slow, busy or circuit open)
+            discardPendingSubscription(pendingSubscription.getSubscriptionId());
+            throw e;
+        }
+    }
+
+    private Subscription createPendingSubscription(String userEmail) {
         User user = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with email: " + userEmail));
 
@@ -150,11 +190,17 @@ public class SubscriptionServiceImpl implements SubscriptionService {
             if (sub.getStatus() == SubscriptionStatus.ACTIVE && (sub.getEndDate() == null || !sub.getEndDate().isBefore(LocalDate.now()))) {
                  throw new IllegalStateException("User already has an active subscription ending on " + sub.getEndDate() + ". Cannot purchase a new one yet.");
             } else if (sub.getStatus() == SubscriptionStatus.PENDING) {
-                // TODO: Consider if you should try to retrieve and return the existing Stripe Checkout Session ID
-                // if it's still valid and for the same plan details. This is more complex.
-                // For now, prevent new checkout if one is already pending.
-                // paymentService.retrieveCheckoutSession(sub.getStripeCheckoutSessionId()); // Example if you store and retrieve
-                throw new IllegalStateException("A subscription payment is already pending. Please complete or cancel the existing payment process.");
+                if (sub.getCreatedAt() != null && sub.getCreatedAt().isBefore(LocalDateTime.now().minusHours(pendingCheckoutExpiryHours))) {
+                    // Its checkout session has expired on Stripe's side (or was never created because the
+                    // process stopped during the Stripe call), so it can no longer be paid.
+                    sub.setStatus(SubscriptionStatus.CANCELLED);
+                    subscriptionRepository.save(sub);
+                } else {
+                    // TODO: Consider if you should try to retrieve and return the existing Stripe Checkout Session ID
+                    // if it's still valid and for the same plan details. This is more complex.
+                    // For now, prevent new checkout if one is already pending.
+                    throw new IllegalStateException("A subscription payment is already pending. Please complete or cancel the existing payment process.");
+                }
             }
             // If ACTIVE but past end_date, it's effectively EXPIRED, allow new purchase.
         }
@@ -169,7 +215,6 @@ public class SubscriptionServiceImpl implements SubscriptionService {
         // For now, we assume a fixed monthly subscription price and duration from properties
         // If purchaseRequestDTO contains a planId/priceId, use that instead.
         BigDecimal actualAmountForThisPlan = monthlySubscriptionPrice; 
-        // String stripePriceId = purchaseRequest.getStripePriceId(); // This is what you should use with Stripe
 
         Subscription newSubscription = new Subscription();
         newSubscription.setUser(user);
@@ -180,31 +225,15 @@ public class SubscriptionServiceImpl implements SubscriptionService {
         // newSubscription.setStripePriceId(stripePriceId); // Store the Stripe Price ID used!
         // newSubscription.setPlanName("Monthly Plan"); // Store the plan name from DTO or Stripe Product!
 
-
-        // Save the PENDING_PAYMENT subscription first to get an ID if your payment service needs it
-        Subscription pendingSubscription = subscriptionRepository.save(newSubscription);
-
-        try {
-            String stripeCheckoutSessionId = paymentService.createSubscriptionCheckoutSession(
-                    user,
-                    pendingSubscription, // Pass the entity with its ID
-                    purchaseRequest.getStripePriceId(), // THIS IS THE CRUCIAL STRIPE PRICE ID from the frontend/request
-                    "inr" // Or get currency from request/config
-            );
-            
-            // Optionally, save the stripeCheckoutSessionId to the pendingSubscription if needed later
-            // pendingSubscription.setStripeCheckoutSessionId(stripeCheckoutSessionId);
-            // subscriptionRepository.save(pendingSubscription);
-
-            return stripeCheckoutSessionId; // Return the Stripe Checkout Session ID to the frontend
-        } catch (StripeException e) {
-            // Important: Log the detailed Stripe error
-            // logger.error("Stripe error for user {}: Code: {}, Message: {}, RequestID: {}", userEmail, e.getCode(), e.getMessage(), e.getRequestId(), e);
-            // The @Transactional annotation should handle rollback of the pendingSubscription if an error occurs here.
-            throw new RuntimeException("Payment gateway error: " + e.getMessage() + "; code: " + e.getCode() + "; request-id: " + e.getRequestId(), e);
-        }
+        // Saved and committed before the Stripe call; the checkout session carries its ID as metadata
+        return subscriptionRepository.save(newSubscription);
     }
 
+    private void discardPendingSubscription(Long subscriptionId) {
+        transactionTemplate.executeWithoutResult(status -> subscriptionRepository.findById(subscriptionId)
+                .filter(subscription -> subscription.getStatus() == SubscriptionStatus.PENDING)
+                .ifPresent(subscriptionRepository::delete));
+    }
 
     @Override
     @Transactional(readOnly = true)
@@ -219,12 +248,12 @@ public class SubscriptionServiceImpl implements SubscriptionService {
     @Override
     @Transactional(readOnly = true)
     public Page<SubscriptionResponseDTO> getAllSubscriptions(Pageable pageable) {
-        return subscriptionRepository.findAll(pageable).map(this::mapToDTO);
+        return subscriptionRepository.findAllResponses(pageable);
     }
 
     @Override
     @Transactional
-    public void activateSubscription(String stripeSubscriptionId, String stripeCustomerId, String paymentTransactionId, BigDecimal amountPaid, LocalDate startDate, LocalDate endDate) {
+    public void activateSubscription(String stripeSubscriptionId, String stripeCustomerId, String paymentTransactionId, BigDecimal amountPaid, LocalDate startDate, LocalDate endDate, Instant paidAt) {
         // Find by Stripe Subscription ID, as this is what the webhook will provide reliably.
         Subscription subscription = subscriptionRepository.findByStripeSubscriptionId(stripeSubscriptionId)
                 .orElseGet(() -> {
@@ -261,47 +290,60 @@ public class SubscriptionServiceImpl implements SubscriptionService {
         subscription.setEndDate(endDate);
         
         subscriptionRepository.save(subscription);
+        // Each paid invoice is one payment; a zero-amount invoice may have no payment intent, so fall back to the period
+        String paymentReference = paymentTransactionId != null ? paymentTransactionId : stripeSubscriptionId + ":" + startDate;
+        revenueLedgerService.recordPayment(RevenueSource.SUBSCRIPTION, subscription.getSubscriptionId(), paymentReference, amountPaid, paidAt);
+        entitlementIndex.recordSubscriptionWindow(user.getUserId(), subscription.getSubscriptionId(), startDate, endDate); // Applied after commit
     }
 
+    // Not @Transactional for the same reason as purchaseSubscription: the subscription is checked in one
+    // short transaction, Stripe is called with none open, and the cancellation is saved in another.
     @Override
-    @Transactional
     public SubscriptionResponseDTO cancelSubscription(Long internalSubscriptionId, String cancellerUserEmail) {
-        User canceller = userRepository.findByEmail(cancellerUserEmail)
-            .orElseThrow(() -> new ResourceNotFoundException("User (canceller) not found: " + cancellerUserEmail));
+        String stripeSubscriptionId = transactionTemplate.execute(status -> {
+            User canceller = userRepository.findByEmail(cancellerUserEmail)
+                .orElseThrow(() -> new ResourceNotFoundException("User (canceller) not found: " + cancellerUserEmail));
 
-        Subscription subscription = subscriptionRepository.findById(internalSubscriptionId)
-            .orElseThrow(() -> new ResourceNotFoundException("Subscription not found with id: " + internalSubscriptionId));
+            Subscription subscription = subscriptionRepository.findById(internalSubscriptionId)
+                .orElseThrow(() -> new ResourceNotFoundException("Subscription not found with id: " + internalSubscriptionId));
 
-        // Security check: User can cancel their own, or an Admin can cancel any.
-        // if (!subscription.getUser().equals(canceller) && !canceller.getRole().equals(Role.ADMIN)) { // Assuming Role enum
-        //     throw new SecurityException("User not authorized to cancel this subscription.");
-        // }
+            // Security check: User can cancel their own, or an Admin can cancel any.
+            // if (!subscription.getUser().equals(canceller) && !canceller.getRole().equals(Role.ADMIN)) { // Assuming Role enum
+            //     throw new SecurityException("User not authorized to cancel this subscription.");
+            // }
 
-        if (subscription.getStatus() == SubscriptionStatus.ACTIVE) {
-            try {
-                // Attempt to cancel with Stripe.
-                // The second parameter to cancelStripeSubscription might be options like 'invoice_now' or 'prorate'.
-                // Stripe's cancel typically sets it to cancel at the end of the current billing period by default.
-                paymentService.cancelStripeSubscription(subscription.getStripeSubscriptionId() /*, cancellationOptions */);
-                
-                // Update your local status
-                subscription.setStatus(SubscriptionStatus.CANCELLED); 
-                // Note: Stripe might send a webhook for 'customer.subscription.updated' or 'deleted'
-                // which would also update the status. Your webhook handler should be idempotent.
-                // The endDate might remain the end of the current paid period.
-                // Or you might set it to LocalDate.now() if cancellation is immediate.
-                // This depends on your business logic and Stripe's cancellation behavior.
-                // For "cancel at period end", endDate usually doesn't change here.
-
-            } catch (StripeException e) {
-                // logger.error("Stripe error while cancelling subscription {}: {}", subscription.getStripeSubscriptionId(), e.getMessage(), e);
-                throw new RuntimeException("Payment gateway error during cancellation: " + e.getMessage(), e);
+            if (subscription.getStatus() != SubscriptionStatus.ACTIVE) {
+                throw new IllegalStateException("Subscription cannot be cancelled as it's not active. Current status: " + subscription.getStatus());
             }
-            Subscription cancelledSubscription = subscriptionRepository.save(subscription);
-            return mapToDTO(cancelledSubscription);
-        } else {
-            throw new IllegalStateException("Subscription cannot be cancelled as it's not active. Current status: " + subscription.getStatus());
+            return subscription.getStripeSubscriptionId();
+        });
+
+        try {
+            // Attempt to cancel with Stripe.
+            // Stripe's cancel typically sets it to cancel at the end of the current billing period by default.
+            paymentService.cancelStripeSubscription(stripeSubscriptionId /*, cancellationOptions */);
+        } catch (StripeException e) {
+            // logger.error("Stripe error while cancelling subscription {}: {}", stripeSubscriptionId, e.getMessage(), e);
+            throw new RuntimeException("Payment gateway error during cancellation: " + e.getMessage(), e);
         }
+
+        SubscriptionResponseDTO cancelledSubscription = transactionTemplate.execute(status -> {
+            // Note: Stripe might send a webhook for 'customer.subscription.updated' or 'deleted'
+            // which would also update the status. Your webhook handler should be idempotent.
+            // For "cancel at period end", endDate usually doesn't change here.
+            // Only an ACTIVE row is cancelled: the expiry sweep or a webhook may have moved it while Stripe was called.
+            int cancelled = subscriptionRepository.updateStatus(List.of(internalSubscriptionId),
+                    SubscriptionStatus.ACTIVE, SubscriptionStatus.CANCELLED, LocalDateTime.now());
+            Subscription subscription = subscriptionRepository.findById(internalSubscriptionId)
+                .orElseThrow(() -> new ResourceNotFoundException("Subscription not found with id: " + internalSubscriptionId));
+            if (cancelled == 0) {
+                throw new IllegalStateException("Subscription is no longer active and was not cancelled. Current status: " + subscription.getStatus());
+            }
+            return mapToDTO(subscription);
+        });
+        // Committed by now; the index drops the window right away (or after an enclosing transaction commits)
+        entitlementIndex.revokeSubscriptionWindow(cancelledSubscription.getUserId(), cancelledSubscription.getSubscriptionId());
+        return cancelledSubscription;
     }
 
     // In SubscriptionServiceImpl.java
@@ -322,6 +364,7 @@ public void handleFailedPayment(String stripeSubscriptionId) {
     // Set status to something like PAYMENT_FAILED or EXPIRED
     subscription.setStatus(SubscriptionStatus.PAYMENT_FAILED); 
     subscriptionRepository.save(subscription);
+    entitlementIndex.revokeSubscriptionWindow(subscription.getUser().getUserId(), subscription.getSubscriptionId());
     // Optionally, send a notification to the user
 }
 }
\ No newline at end of file
@@ -2,5 +2,6 @@ package com.messmanagement.user.entity;
 
 public enum Role {
     STUDENT,
-    ADMIN
+    ADMIN,
+    KIOSK // Check-in counter device; may only post scanned mess IDs
 }
\ No newline at end of file
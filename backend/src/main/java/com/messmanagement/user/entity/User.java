@@ -56,6 +56,9 @@ public class User {
     @Column(name = "mess_provided_user_id", unique = true)
     private String messProvidedUserId; // [cite: 34]
 
+    @Column(name = "stripe_customer_id", unique = true)
+    private String stripeCustomerId; // Set on first checkout or by StripeCustomerBackfillJob; see StripeCustomerStore
+
     @CreationTimestamp // Automatically set on creation
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt; // [cite: 35]
@@ -1,10 +1,15 @@
 package com.messmanagement.user.repository;
 
 import java.util.Optional; // Import Role
+import java.util.Collection;
+import java.util.List;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable; // Import Page
 import org.springframework.data.jpa.repository.JpaRepository; // Import Pageable
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.messmanagement.user.entity.Role;
@@ -24,4 +29,20 @@ public interface UserRepository extends JpaRepository<User, Long> {
     long countByRole(Role role);
     // Method to find all users by a specific role with pagination
     Page<User> findByRole(Role role, Pageable pageable); // New method
+
+    // Stripe customer mapping (StripeCustomerStore)
+    @Query("SELECT u.stripeCustomerId FROM User u WHERE u.userId = :userId")
+    Optional<String> findStripeCustomerIdByUserId(@Param("userId") Long userId);
+
+    boolean existsByRoleAndStripeCustomerIdIsNull(Role role);
+
+    @Query("SELECT u.stripeCustomerId FROM User u WHERE u.stripeCustomerId IN :customerIds")
+    List<String> findExistingStripeCustomerIds(@Param("customerIds") Collection<String> customerIds);
+
+    /**
+     * Stores the customer ID only if the user has none yet; returns 0 if one was stored first.
+     */
+    @Modifying
+    @Query("UPDATE User u SET u.stripeCustomerId = :customerId WHERE u.userId = :userId AND u.stripeCustomerId IS NULL")
+    int setStripeCustomerIdIfMissing(@Param("userId") Long userId, @Param("customerId") String customerId);
 }
\ No newline at end of file
@@ -1,8 +1,5 @@
 package com.messmanagement.user.service;
 
-import java.util.Collections;
-import java.util.Date;
-import java.util.List;
 
 import org.springframework.context.annotation.Lazy;
 import org.springframework.data.domain.Page;
@@ -10,8 +7,6 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority; // Import @Lazy
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -21,13 +16,18 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
+import io.jsonwebtoken.JwtException;
+
 import com.messmanagement.auth.dto.LoginRequestDTO;
 import com.messmanagement.auth.dto.LoginResponseDTO;
 import com.messmanagement.auth.dto.TokenRefreshResponseDTO;
-import com.messmanagement.auth.entity.RevokedToken;
-import com.messmanagement.auth.repository.RevokedTokenRepository;
+import com.messmanagement.auth.service.RevokedTokenStore;
+import com.messmanagement.auth.security.AuthenticatedUser;
+import com.messmanagement.auth.security.JwtPrincipalResolver;
 import com.messmanagement.auth.util.JwtUtil;
+import com.messmanagement.auth.util.JwtUtil.ParsedToken;
 import com.messmanagement.common.exception.ResourceNotFoundException;
+import com.messmanagement.mealentry.service.MealEntitlementIndex;
 import com.messmanagement.user.dto.AdminCreateUserRequestDTO;
 import com.messmanagement.user.dto.AdminUpdateUserRequestDTO;
 import com.messmanagement.user.dto.UserRegistrationRequestDTO;
@@ -45,19 +45,25 @@ public class UserServiceImpl implements UserService, UserDetailsService {
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager; // Will be lazily injected
     private final JwtUtil jwtUtil;
-private final RevokedTokenRepository revokedTokenRepository; // Inject
+    private final RevokedTokenStore revokedTokenStore;
+    private final MealEntitlementIndex entitlementIndex;
+    private final JwtPrincipalResolver principalResolver;
 
     // Update constructor
     public UserServiceImpl(UserRepository userRepository,
                            PasswordEncoder passwordEncoder,
                            @Lazy AuthenticationManager authenticationManager,
                            JwtUtil jwtUtil,
-                           RevokedTokenRepository revokedTokenRepository) { // Add to constructor
+                           RevokedTokenStore revokedTokenStore,
+                           MealEntitlementIndex entitlementIndex,
+                           JwtPrincipalResolver principalResolver) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.authenticationManager = authenticationManager;
         this.jwtUtil = jwtUtil;
-        this.revokedTokenRepository = revokedTokenRepository; // Assign
+        this.revokedTokenStore = revokedTokenStore;
+        this.entitlementIndex = entitlementIndex;
+        this.principalResolver = principalResolver;
     }
 
     @Override
@@ -96,12 +102,9 @@ private final RevokedTokenRepository revokedTokenRepository; // Inject
                 new UsernamePasswordAuthenticationToken(loginRequest.getEmail(), loginRequest.getPassword())
         );
         SecurityContextHolder.getContext().setAuthentication(authentication);
-        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        String username = userDetails.getUsername();
-        User user = userRepository.findByEmail(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found after authentication: " + username));
-        String accessToken = jwtUtil.generateAccessToken(userDetails);
-        String refreshToken = jwtUtil.generateRefreshToken(userDetails);
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal(); // Loaded by loadUserByUsername
+        String accessToken = jwtUtil.generateAccessToken(user);
+        String refreshToken = jwtUtil.generateRefreshToken(user);
         return new LoginResponseDTO(
                 accessToken,
                 refreshToken,
@@ -134,32 +137,26 @@ private final RevokedTokenRepository revokedTokenRepository; // Inject
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() ->
                         new UsernameNotFoundException("User not found with email: " + email));
-        List<GrantedAuthority> authorities = Collections.singletonList(
-            new SimpleGrantedAuthority("ROLE_" + user.getRole().name())
-        );
-        return new org.springframework.security.core.userdetails.User(
-                user.getEmail(),
-                user.getPasswordHash(),
-                authorities
-        );
+        return AuthenticatedUser.from(user); // Carries the user ID and role into the access token claims
     }
 
     @Override
     public TokenRefreshResponseDTO refreshToken(String refreshTokenValue) {
-        String jti = jwtUtil.extractJti(refreshTokenValue);
+        ParsedToken oldToken;
+        try {
+            oldToken = jwtUtil.parse(refreshTokenValue); // Verifies signature and expiry
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid or expired refresh token.");
+        }
+        String jti = oldToken.jti();
 
-        if (jti == null || revokedTokenRepository.existsByJti(jti)) { // Check if token JTI is in denylist
+        if (jti == null || revokedTokenStore.isRevoked(jti)) { // In-memory denylist check
             throw new IllegalArgumentException("Refresh token is revoked or invalid.");
         }
 
-        if (!jwtUtil.validateToken(refreshTokenValue)) {
-            throw new IllegalArgumentException("Invalid or expired refresh token.");
-        }
-        // ... (rest of the method: extract userEmail, loadUserDetails, generate new tokens) ...
-        String userEmail = jwtUtil.extractUsername(refreshTokenValue);
         UserDetails userDetails;
         try {
-            userDetails = this.loadUserByUsername(userEmail);
+            userDetails = this.loadUserByUsername(oldToken.subject());
         } catch (UsernameNotFoundException e) {
             throw new IllegalArgumentException("User for the refresh token not found.", e);
         }
@@ -170,8 +167,10 @@ private final RevokedTokenRepository revokedTokenRepository; // Inject
         // Important: Add the OLD refresh token's JTI to the denylist AFTER successful validation and new token generation
         // to prevent its reuse but allow the current operation to complete.
         // The expiry for the denylist record should be the expiry of the OLD refresh token.
-        Date oldTokenExpiry = jwtUtil.extractExpiration(refreshTokenValue);
-        revokedTokenRepository.save(new RevokedToken(jti, oldTokenExpiry.toInstant()));
+        // If another request revoked it in the meantime, the token was reused: issue nothing.
+        if (!revokedTokenStore.revoke(jti, oldToken.expiresAt())) {
+            throw new IllegalArgumentException("Refresh token is revoked or invalid.");
+        }
 
 
         return new TokenRefreshResponseDTO(newAccessToken, newRefreshToken, "Bearer");
@@ -288,6 +287,8 @@ private final RevokedTokenRepository revokedTokenRepository; // Inject
 
         // updatedAt will be handled by @UpdateTimestamp
         User updatedUser = userRepository.save(user);
+        entitlementIndex.evictStudent(userId); // Email / mess ID / name may have changed
+        principalResolver.evict(userId); // Role may have changed
         return mapToUserResponseDTO(updatedUser);
     }
     
@@ -304,24 +305,25 @@ private final RevokedTokenRepository revokedTokenRepository; // Inject
         // For now, a direct delete. If foreign key constraints prevent deletion due to related data,
         // this will fail at the DB level.
         userRepository.deleteById(userId);
+        entitlementIndex.removeUser(userId);
+        principalResolver.evict(userId);
     }
     
     @Override
-    @Transactional
     public void logoutUser(String refreshTokenValue) {
         if (refreshTokenValue == null || refreshTokenValue.isEmpty()) {
             return; // No token to invalidate
         }
 
         try {
-            String jti = jwtUtil.extractJti(refreshTokenValue);
-            Date expiryDate = jwtUtil.extractExpiration(refreshTokenValue); // Get expiry of the token being revoked
+            ParsedToken token = jwtUtil.parse(refreshTokenValue);
+            String jti = token.jti();
 
-            if (jti != null && expiryDate != null && !revokedTokenRepository.existsByJti(jti)) {
-                // Add to denylist only if not already there and valid structure
+            if (jti != null) {
+                // No-op if already revoked.
                 // The expiryDate for the RevokedToken record is the original expiry of the refresh token itself.
                 // This helps in cleaning up the RevokedToken table later.
-                revokedTokenRepository.save(new RevokedToken(jti, expiryDate.toInstant()));
+                revokedTokenStore.revoke(jti, token.expiresAt());
             }
         } catch (Exception e) {
             // Log error, but don't prevent logout flow if token is already malformed/expired
@@ -362,6 +364,8 @@ private final RevokedTokenRepository revokedTokenRepository; // Inject
         // MessProvidedUserId is also typically not updatable by the user themselves.
 
         User updatedUser = userRepository.save(user);
+        entitlementIndex.evictStudent(updatedUser.getUserId());
+        principalResolver.evict(updatedUser.getUserId());
         return mapToUserResponseDTO(updatedUser);
     }
     
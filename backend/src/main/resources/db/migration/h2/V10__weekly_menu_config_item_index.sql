@@ -0,0 +1,2 @@
+-- Serves the delete-by-item queries run when menu items are deleted
+CREATE INDEX ix_weekly_menu_config_item ON weekly_menu_config (item_id);
@@ -0,0 +1,10 @@
+-- Progress of the Stripe customer backfill (a single row): the last customer whose page was stored, so a
+-- run resumes where the previous one stopped, and when a pass over all customers finished
+CREATE TABLE stripe_customer_backfill (
+    backfill_id    INTEGER PRIMARY KEY,
+    starting_after VARCHAR(255),
+    completed_at   TIMESTAMP(6) WITH TIME ZONE,
+    updated_at     TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+INSERT INTO stripe_customer_backfill (backfill_id, starting_after, completed_at, updated_at) VALUES (1, NULL, NULL, CURRENT_TIMESTAMP);
@@ -0,0 +1,35 @@
+-- Indexes for the meal_entries access patterns; see the PostgreSQL migration for the rationale.
+
+-- As on PostgreSQL, duplicates are moved to meal_entries_duplicates and the rollups recounted first.
+CREATE TABLE meal_entries_duplicates (
+    entry_id             BIGINT NOT NULL PRIMARY KEY,
+    user_id              BIGINT NOT NULL,
+    meal_type            VARCHAR(20) NOT NULL,
+    entry_date           DATE NOT NULL,
+    entry_time           TIME(6) NOT NULL,
+    verified_by_admin_id BIGINT,
+    moved_at             TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+INSERT INTO meal_entries_duplicates (entry_id, user_id, meal_type, entry_date, entry_time, verified_by_admin_id)
+SELECT a.entry_id, a.user_id, a.meal_type, a.entry_date, a.entry_time, a.verified_by_admin_id
+  FROM meal_entries a
+ WHERE EXISTS (SELECT 1 FROM meal_entries b
+                WHERE b.user_id = a.user_id
+                  AND b.entry_date = a.entry_date
+                  AND b.meal_type = a.meal_type
+                  AND b.entry_id < a.entry_id);
+
+DELETE FROM meal_entries
+ WHERE entry_id IN (SELECT entry_id FROM meal_entries_duplicates);
+
+DELETE FROM meal_count_rollups;
+
+INSERT INTO meal_count_rollups (rollup_date, meal_type, entry_count)
+SELECT entry_date, meal_type, COUNT(*)
+FROM meal_entries
+GROUP BY entry_date, meal_type;
+
+CREATE UNIQUE INDEX ux_meal_entries_user_date_meal ON meal_entries (user_id, entry_date, meal_type);
+CREATE INDEX ix_meal_entries_date_meal ON meal_entries (entry_date, meal_type);
+CREATE INDEX ix_meal_entries_meal_date ON meal_entries (meal_type, entry_date);
@@ -0,0 +1,2 @@
+-- Kiosk devices sign in as users with the KIOSK role
+ALTER TABLE users ALTER COLUMN role ENUM ('ADMIN','KIOSK','STUDENT') NOT NULL;
@@ -0,0 +1,2 @@
+-- Serves the expiry sweep (status = 'ACTIVE' AND end_date < today) and the active-subscription count
+CREATE INDEX ix_subscriptions_status_end_date ON subscriptions (status, end_date);
@@ -0,0 +1,18 @@
+-- Inbox of verified Stripe webhook events, keyed by the Stripe event ID so redeliveries are detected
+CREATE TABLE stripe_webhook_events (
+    event_id          VARCHAR(255) PRIMARY KEY,
+    event_type        VARCHAR(100) NOT NULL,
+    ordering_key      VARCHAR(255) NOT NULL,
+    payload           VARCHAR(1048576) NOT NULL,
+    status            ENUM ('FAILED','IGNORED','PENDING','PROCESSED') NOT NULL,
+    attempts          INTEGER NOT NULL,
+    stripe_created_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    received_at       TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    next_attempt_at   TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    locked_until      TIMESTAMP(6) WITH TIME ZONE,
+    processed_at      TIMESTAMP(6) WITH TIME ZONE,
+    last_error        VARCHAR(1000)
+);
+
+CREATE INDEX ix_stripe_webhook_events_status_next ON stripe_webhook_events (status, next_attempt_at);
+CREATE INDEX ix_stripe_webhook_events_key_created ON stripe_webhook_events (ordering_key, stripe_created_at);
@@ -0,0 +1,39 @@
+-- Append-only ledger of confirmed payments in paise, and its per-day totals read by the sales reports
+CREATE TABLE revenue_ledger_entries (
+    entry_id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    source            ENUM ('DISH_PURCHASE','SUBSCRIPTION') NOT NULL,
+    source_id         BIGINT NOT NULL,
+    payment_reference VARCHAR(255) NOT NULL,
+    amount_paise      BIGINT NOT NULL,
+    occurred_on       DATE NOT NULL,
+    recorded_at       TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    CONSTRAINT ux_revenue_ledger_entries_source_reference UNIQUE (source, payment_reference)
+);
+
+CREATE TABLE revenue_daily_rollups (
+    rollup_id     BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    rollup_date   DATE NOT NULL,
+    source        ENUM ('DISH_PURCHASE','SUBSCRIPTION') NOT NULL,
+    amount_paise  BIGINT NOT NULL,
+    payment_count BIGINT NOT NULL,
+    UNIQUE (rollup_date, source)
+);
+
+-- Seed from payments confirmed before the ledger existed. A renewed subscription only keeps its latest
+-- payment, so earlier renewals are not recovered; they are dated by when the row was created.
+INSERT INTO revenue_ledger_entries (source, source_id, payment_reference, amount_paise, occurred_on, recorded_at)
+SELECT 'SUBSCRIPTION', subscription_id, payment_transaction_id, CAST(ROUND(amount_paid * 100) AS BIGINT),
+       CAST(created_at AS DATE), CURRENT_TIMESTAMP
+FROM subscriptions
+WHERE payment_transaction_id IS NOT NULL;
+
+INSERT INTO revenue_ledger_entries (source, source_id, payment_reference, amount_paise, occurred_on, recorded_at)
+SELECT 'DISH_PURCHASE', purchase_id, payment_transaction_id, CAST(ROUND(total_amount * 100) AS BIGINT),
+       CAST(purchase_date AS DATE), CURRENT_TIMESTAMP
+FROM purchases
+WHERE payment_transaction_id IS NOT NULL;
+
+INSERT INTO revenue_daily_rollups (rollup_date, source, amount_paise, payment_count)
+SELECT occurred_on, source, SUM(amount_paise), COUNT(*)
+FROM revenue_ledger_entries
+GROUP BY occurred_on, source;
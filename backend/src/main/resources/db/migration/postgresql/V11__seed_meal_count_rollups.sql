@@ -0,0 +1,9 @@
+-- Rebuild the per-day meal counters from meal_entries before the application serves check-ins, so history is
+-- counted however many instances start and whatever they write first. From here on the counters are only
+-- changed by MealCountRollupService.increment, in the same transaction as the entries it counts.
+DELETE FROM meal_count_rollups;
+
+INSERT INTO meal_count_rollups (rollup_date, meal_type, entry_count)
+SELECT entry_date, meal_type, COUNT(*)
+FROM meal_entries
+GROUP BY entry_date, meal_type;
@@ -0,0 +1,6 @@
+-- A key is now reserved (IN_PROGRESS, expires_at = lease) before the action runs, and the response is
+-- filled in once it succeeds, so concurrent retries on different instances cannot both run the action.
+-- Existing rows are stored responses.
+ALTER TABLE idempotency_records ADD COLUMN status VARCHAR(20) DEFAULT 'COMPLETED' NOT NULL;
+ALTER TABLE idempotency_records ADD CONSTRAINT ck_idempotency_records_status CHECK (status IN ('IN_PROGRESS','COMPLETED'));
+ALTER TABLE idempotency_records ALTER COLUMN response_status DROP NOT NULL;
@@ -0,0 +1,85 @@
+-- Baseline schema, matching what Hibernate generated (ddl-auto=update) before migrations were introduced.
+-- Written with IF NOT EXISTS so it also applies cleanly on top of such a schema.
+
+CREATE SEQUENCE IF NOT EXISTS meal_entries_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS users (
+    user_id               BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name                  VARCHAR(255) NOT NULL,
+    mobile_no             VARCHAR(255) NOT NULL UNIQUE,
+    email                 VARCHAR(255) NOT NULL UNIQUE,
+    address               VARCHAR(255) NOT NULL,
+    password_hash         VARCHAR(255) NOT NULL,
+    role                  VARCHAR(10) CHECK (role IN ('STUDENT','ADMIN')) NOT NULL,
+    mess_provided_user_id VARCHAR(255) UNIQUE,
+    created_at            TIMESTAMP(6) NOT NULL,
+    updated_at            TIMESTAMP(6) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS subscriptions (
+    subscription_id        BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id                BIGINT NOT NULL REFERENCES users (user_id),
+    start_date             DATE NOT NULL,
+    end_date               DATE NOT NULL,
+    status                 VARCHAR(20) CHECK (status IN ('PENDING','ACTIVE','CANCELLED','EXPIRED','PAYMENT_FAILED')) NOT NULL,
+    amount_paid            NUMERIC(10,2) NOT NULL,
+    payment_transaction_id VARCHAR(255),
+    stripe_subscription_id VARCHAR(255) UNIQUE,
+    created_at             TIMESTAMP(6) NOT NULL,
+    updated_at             TIMESTAMP(6) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS menu_items (
+    item_id      BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name         VARCHAR(255) NOT NULL,
+    description  OID, -- @Lob String; Hibernate maps it to a large object on PostgreSQL
+    price        NUMERIC(10,2) NOT NULL,
+    category     VARCHAR(20) CHECK (category IN ('BREAKFAST','LUNCH','DINNER','SPECIAL')) NOT NULL,
+    is_available BOOLEAN DEFAULT TRUE NOT NULL,
+    image_url    VARCHAR(255),
+    created_at   TIMESTAMP(6) NOT NULL,
+    updated_at   TIMESTAMP(6) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS weekly_menu_config (
+    menu_config_id       BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    day_of_week          VARCHAR(10) CHECK (day_of_week IN ('MONDAY','TUESDAY','WEDNESDAY','THURSDAY','FRIDAY','SATURDAY','SUNDAY')) NOT NULL,
+    meal_type            VARCHAR(20) CHECK (meal_type IN ('BREAKFAST','LUNCH','DINNER')) NOT NULL,
+    item_id              BIGINT NOT NULL REFERENCES menu_items (item_id),
+    effective_date_start DATE NOT NULL,
+    effective_date_end   DATE,
+    UNIQUE (day_of_week, meal_type, item_id, effective_date_start)
+);
+
+CREATE TABLE IF NOT EXISTS meal_entries (
+    entry_id             BIGINT NOT NULL PRIMARY KEY,
+    user_id              BIGINT NOT NULL REFERENCES users (user_id),
+    meal_type            VARCHAR(20) CHECK (meal_type IN ('BREAKFAST','LUNCH','DINNER')) NOT NULL,
+    entry_date           DATE NOT NULL,
+    entry_time           TIME(6) NOT NULL,
+    verified_by_admin_id BIGINT REFERENCES users (user_id)
+);
+
+CREATE TABLE IF NOT EXISTS purchases (
+    purchase_id            BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id                BIGINT NOT NULL REFERENCES users (user_id),
+    item_id                BIGINT NOT NULL REFERENCES menu_items (item_id),
+    quantity               INTEGER NOT NULL,
+    total_amount           NUMERIC(10,2) NOT NULL,
+    purchase_date          TIMESTAMP(6) NOT NULL,
+    payment_transaction_id VARCHAR(255)
+);
+
+CREATE TABLE IF NOT EXISTS revoked_tokens (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    jti         VARCHAR(255) NOT NULL UNIQUE,
+    expiry_date TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS meal_count_rollups (
+    rollup_id   BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    rollup_date DATE NOT NULL,
+    meal_type   VARCHAR(20) CHECK (meal_type IN ('BREAKFAST','LUNCH','DINNER')) NOT NULL,
+    entry_count BIGINT NOT NULL,
+    UNIQUE (rollup_date, meal_type)
+);
@@ -0,0 +1,46 @@
+-- Indexes for the meal_entries access patterns:
+--   (user_id, entry_date, meal_type)  duplicate check, per-student history (user_id, then entry_date order)
+--   (entry_date, meal_type)           daily counts, check-in index warm-up, admin filter by date [and meal]
+--   (meal_type, entry_date)           admin filter by meal type
+-- The unique index is also the final guard against a student checking in twice for the same meal.
+
+-- Schemas created by ddl-auto=update could hold duplicates. Keep the earliest entry of each and move the
+-- others to meal_entries_duplicates, so they can be reviewed (and restored by hand) after the upgrade.
+CREATE TABLE meal_entries_duplicates (
+    entry_id             BIGINT NOT NULL PRIMARY KEY,
+    user_id              BIGINT NOT NULL,
+    meal_type            VARCHAR(20) NOT NULL,
+    entry_date           DATE NOT NULL,
+    entry_time           TIME(6) NOT NULL,
+    verified_by_admin_id BIGINT,
+    moved_at             TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+INSERT INTO meal_entries_duplicates (entry_id, user_id, meal_type, entry_date, entry_time, verified_by_admin_id)
+SELECT a.entry_id, a.user_id, a.meal_type, a.entry_date, a.entry_time, a.verified_by_admin_id
+  FROM meal_entries a
+ WHERE EXISTS (SELECT 1 FROM meal_entries b
+                WHERE b.user_id = a.user_id
+                  AND b.entry_date = a.entry_date
+                  AND b.meal_type = a.meal_type
+                  AND b.entry_id < a.entry_id);
+
+DELETE FROM meal_entries a
+ USING meal_entries_duplicates d
+ WHERE a.entry_id = d.entry_id;
+
+-- The daily rollups may have counted those duplicates; recount them from what is left.
+DELETE FROM meal_count_rollups;
+
+INSERT INTO meal_count_rollups (rollup_date, meal_type, entry_count)
+SELECT entry_date, meal_type, COUNT(*)
+FROM meal_entries
+GROUP BY entry_date, meal_type;
+
+CREATE UNIQUE INDEX ux_meal_entries_user_date_meal ON meal_entries (user_id, entry_date, meal_type);
+CREATE INDEX ix_meal_entries_date_meal ON meal_entries (entry_date, meal_type);
+CREATE INDEX ix_meal_entries_meal_date ON meal_entries (meal_type, entry_date);
+
+-- entry_id used to be an IDENTITY column, so existing rows may sit above the sequence. Hibernate's pooled
+-- optimizer hands out the 50 ids below each value it fetches, so leave a full block of headroom.
+SELECT setval('meal_entries_seq', (SELECT COALESCE(MAX(entry_id), 0) + 50 FROM meal_entries));
@@ -0,0 +1,3 @@
+-- Matches the keyset order of the cursor-paginated meal-entry listings and the export
+-- (entry_date, entry_time, entry_id), so each page is a single index range scan.
+CREATE INDEX ix_meal_entries_date_time_id ON meal_entries (entry_date, entry_time, entry_id);
@@ -0,0 +1,3 @@
+-- Kiosk devices sign in as users with the KIOSK role
+ALTER TABLE users DROP CONSTRAINT IF EXISTS users_role_check;
+ALTER TABLE users ADD CONSTRAINT users_role_check CHECK (role IN ('STUDENT','ADMIN','KIOSK'));
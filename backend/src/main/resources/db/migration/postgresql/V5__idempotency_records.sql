@@ -0,0 +1,11 @@
+-- Stored responses for requests sent with an Idempotency-Key header; expired rows are purged on a schedule
+CREATE TABLE idempotency_records (
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    record_key      VARCHAR(64) NOT NULL UNIQUE,
+    request_hash    VARCHAR(64) NOT NULL,
+    response_status INTEGER NOT NULL,
+    response_body   VARCHAR(4000),
+    expires_at      TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX ix_idempotency_records_expires_at ON idempotency_records (expires_at);
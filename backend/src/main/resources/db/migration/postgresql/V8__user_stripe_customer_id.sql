@@ -0,0 +1,3 @@
+-- Stripe customer created for the user, so checkouts reuse it instead of creating a new one each time
+ALTER TABLE users ADD COLUMN stripe_customer_id VARCHAR(255);
+CREATE UNIQUE INDEX ux_users_stripe_customer_id ON users (stripe_customer_id);
@@ -0,0 +1,111 @@
+package com.messmanagement;
+
+import com.messmanagement.mealentry.dto.MealEntryResponseDTO;
+import com.messmanagement.mealentry.service.MealEntryService;
+import com.messmanagement.purchase.dto.PurchaseResponseDTO;
+import com.messmanagement.purchase.service.PurchaseService;
+import com.messmanagement.subscription.dto.SubscriptionResponseDTO;
+import com.messmanagement.subscription.service.SubscriptionService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Admin listings read a page of rows with their users (and menu items) in one statement, plus the count.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:admin-listings;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.generate_statistics=true"})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class AdminListingStatementCountTest {
+
+    private static final int STUDENTS = 5;
+    private static final LocalDate DAY = LocalDate.of(2024, 5, 6);
+
+    @Autowired
+    private MealEntryService mealEntryService;
+
+    @Autowired
+    private PurchaseService purchaseService;
+
+    @Autowired
+    private SubscriptionService subscriptionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeAll
+    void seed() {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("INSERT INTO menu_items (name, description, price, category, is_available, created_at, updated_at) "
+                + "VALUES ('Thali', 'Lunch thali', 80.00, 'LUNCH', TRUE, ?, ?)", now, now);
+        Long itemId = jdbcTemplate.queryForObject("SELECT MAX(item_id) FROM menu_items", Long.class);
+        for (int i = 0; i < STUDENTS; i++) {
+            String email = "listing-" + i + "@test.local";
+            jdbcTemplate.update("INSERT INTO users (name, mobile_no, email, address, password_hash, role, created_at, updated_at) "
+                    + "VALUES (?, ?, ?, 'Block A', 'x', 'STUDENT', ?, ?)", "Listing " + i, "7100000" + String.format("%03d", i), email, now, now);
+            Long userId = jdbcTemplate.queryForObject("SELECT user_id FROM users WHERE email = ?", Long.class, email);
+            jdbcTemplate.update("INSERT INTO meal_entries (entry_id, user_id, meal_type, entry_date, entry_time) VALUES (?, ?, 'LUNCH', ?, ?)",
+                    800_000L + i, userId, Date.valueOf(DAY), Time.valueOf(LocalTime.NOON));
+            jdbcTemplate.update("INSERT INTO purchases (user_id, item_id, quantity, total_amount, purchase_date, payment_transaction_id) "
+                    + "VALUES (?, ?, 1, 80.00, ?, ?)", userId, itemId, now, "pi_listing_" + i);
+            jdbcTemplate.update("INSERT INTO subscriptions (user_id, start_date, end_date, status, amount_paid, created_at, updated_at) "
+                    + "VALUES (?, ?, ?, 'EXPIRED', ?, ?, ?)", userId, Date.valueOf(DAY), Date.valueOf(DAY.plusMonths(1)), new BigDecimal("3500.00"), now, now);
+        }
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @BeforeEach
+    void resetStatistics() {
+        statistics.clear();
+    }
+
+    @Test
+    void mealEntryPageIsOneSelectPlusCount() {
+        Page<MealEntryResponseDTO> page = mealEntryService.getAllMealEntriesForAdmin(PageRequest.of(0, 3), DAY, null, null);
+
+        assertThat(page.getContent()).hasSize(3).allMatch(entry -> entry.getUserEmail() != null);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void purchasePageIsOneSelectPlusCount() {
+        Page<PurchaseResponseDTO> page = purchaseService.getAllPurchases(PageRequest.of(0, 3, Sort.by("purchaseId")));
+
+        assertThat(page.getContent()).hasSize(3).allMatch(purchase -> purchase.getUserEmail() != null && purchase.getMenuItem().getName() != null);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void subscriptionPageIsOneSelectPlusCount() {
+        Page<SubscriptionResponseDTO> page = subscriptionService.getAllSubscriptions(PageRequest.of(0, 3, Sort.by("startDate")));
+
+        assertThat(page.getContent()).hasSize(3).allMatch(subscription -> subscription.getUserEmail() != null);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+}
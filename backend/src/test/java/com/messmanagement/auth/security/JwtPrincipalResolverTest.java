@@ -0,0 +1,84 @@
+package com.messmanagement.auth.security;
+
+import com.messmanagement.auth.util.JwtUtil.ParsedToken;
+import com.messmanagement.user.entity.Role;
+import com.messmanagement.user.entity.User;
+import com.messmanagement.user.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Building the request principal from access-token claims.
+ */
+class JwtPrincipalResolverTest {
+
+    private static final Instant EXPIRES_AT = Instant.parse("2030-01-01T00:00:00Z");
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+
+    @Test
+    void principalComesFromClaimsWithoutALookup() {
+        JwtPrincipalResolver resolver = new JwtPrincipalResolver(userRepository, false, 30_000, 100);
+
+        AuthenticatedUser principal = resolver.resolve(new ParsedToken("asha@test.local", "jti", EXPIRES_AT, 7L, "ADMIN"));
+
+        assertThat(principal.getUserId()).isEqualTo(7L);
+        assertThat(principal.getUsername()).isEqualTo("asha@test.local");
+        assertThat(principal.getAuthorities()).extracting(Object::toString).containsExactly("ROLE_ADMIN");
+        assertThat(principal.getPassword()).isNull();
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void tokenWithoutClaimsFallsBackToEmailLookup() {
+        JwtPrincipalResolver resolver = new JwtPrincipalResolver(userRepository, false, 30_000, 100);
+        when(userRepository.findByEmail("asha@test.local")).thenReturn(Optional.of(user(7L, Role.STUDENT)));
+
+        AuthenticatedUser principal = resolver.resolve(new ParsedToken("asha@test.local", "jti", EXPIRES_AT, null, null));
+
+        assertThat(principal.getRole()).isEqualTo(Role.STUDENT);
+        assertThat(principal.getPassword()).as("credentials are erased").isNull();
+    }
+
+    @Test
+    void tokenOfDeletedUserResolvesToNull() {
+        JwtPrincipalResolver resolver = new JwtPrincipalResolver(userRepository, false, 30_000, 100);
+        when(userRepository.findByEmail("gone@test.local")).thenReturn(Optional.empty());
+
+        assertThat(resolver.resolve(new ParsedToken("gone@test.local", "jti", EXPIRES_AT, null, null))).isNull();
+    }
+
+    @Test
+    void cacheLoadsTheUserByIdOnceUntilEvicted() {
+        JwtPrincipalResolver resolver = new JwtPrincipalResolver(userRepository, true, 30_000, 100);
+        when(userRepository.findById(7L)).thenReturn(Optional.of(user(7L, Role.STUDENT)));
+        ParsedToken token = new ParsedToken("asha@test.local", "jti", EXPIRES_AT, 7L, "ADMIN");
+
+        // The stored role wins over the (stale) role claim
+        assertThat(resolver.resolve(token).getRole()).isEqualTo(Role.STUDENT);
+        resolver.resolve(token);
+        verify(userRepository, times(1)).findById(7L);
+
+        resolver.evict(7L);
+        resolver.resolve(token);
+        verify(userRepository, times(2)).findById(7L);
+    }
+
+    private static User user(Long userId, Role role) {
+        User user = new User();
+        user.setUserId(userId);
+        user.setEmail("asha@test.local");
+        user.setRole(role);
+        user.setPasswordHash("hash");
+        return user;
+    }
+}
@@ -0,0 +1,90 @@
+package com.messmanagement.auth.service;
+
+import com.messmanagement.auth.entity.RevokedToken;
+import com.messmanagement.auth.repository.RevokedTokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The in-memory denylist in front of revoked_tokens, on the embedded H2 database.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:revoked-tokens;DB_CLOSE_DELAY=-1")
+class RevokedTokenStoreTest {
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void clearTable() {
+        revokedTokenRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void secondRevocationOfTheSameTokenIsReuse() {
+        RevokedTokenStore store = newStore();
+        Instant expiry = Instant.now().plus(Duration.ofDays(1));
+
+        assertThat(store.revoke("jti-1", expiry)).isTrue();
+        assertThat(store.revoke("jti-1", expiry)).isFalse();
+        assertThat(store.isRevoked("jti-1")).isTrue();
+        assertThat(revokedTokenRepository.existsByJti("jti-1")).isTrue();
+    }
+
+    @Test
+    void reuseIsDetectedAcrossInstancesThroughTheUniqueIndex() {
+        RevokedTokenStore first = newStore();
+        RevokedTokenStore second = newStore();
+        Instant expiry = Instant.now().plus(Duration.ofDays(1));
+
+        assertThat(first.revoke("jti-2", expiry)).isTrue();
+        assertThat(second.isRevoked("jti-2")).as("not loaded yet").isFalse();
+        assertThat(second.revoke("jti-2", expiry)).isFalse();
+        assertThat(second.isRevoked("jti-2")).isTrue();
+    }
+
+    @Test
+    void loadSkipsExpiredRevocations() {
+        revokedTokenRepository.save(new RevokedToken("expired", Instant.now().minus(Duration.ofHours(1))));
+        revokedTokenRepository.save(new RevokedToken("current", Instant.now().plus(Duration.ofHours(1))));
+
+        RevokedTokenStore store = newStore();
+
+        assertThat(store.isRevoked("current")).isTrue();
+        assertThat(store.isRevoked("expired")).isFalse();
+    }
+
+    @Test
+    void purgeDeletesExpiredRowsInBatches() {
+        Instant past = Instant.now().minus(Duration.ofHours(1));
+        for (int i = 0; i < 5; i++) {
+            revokedTokenRepository.save(new RevokedToken("old-" + i, past));
+        }
+        revokedTokenRepository.save(new RevokedToken("current", Instant.now().plus(Duration.ofHours(1))));
+        RevokedTokenStore store = newStore();
+        ReflectionTestUtils.setField(store, "purgeBatchSize", 2);
+
+        store.purgeExpired();
+
+        assertThat(revokedTokenRepository.findAll()).extracting(RevokedToken::getJti).containsExactly("current");
+        assertThat(store.isRevoked("current")).isTrue();
+    }
+
+    private RevokedTokenStore newStore() {
+        RevokedTokenStore store = new RevokedTokenStore(revokedTokenRepository, transactionManager);
+        ReflectionTestUtils.setField(store, "purgeBatchSize", 500);
+        store.load();
+        return store;
+    }
+}
@@ -0,0 +1,70 @@
+package com.messmanagement.auth.util;
+
+import com.messmanagement.auth.security.AuthenticatedUser;
+import com.messmanagement.auth.util.JwtUtil.ParsedToken;
+import com.messmanagement.user.entity.Role;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Single-parse token handling with the shared key and parser.
+ */
+class JwtUtilTest {
+
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = jwtUtil(TimeUnit.HOURS.toMillis(1));
+    }
+
+    @Test
+    void accessTokenCarriesUserIdAndRole() {
+        String token = jwtUtil.generateAccessToken(new AuthenticatedUser(42L, "student@test.local", Role.STUDENT, null));
+
+        ParsedToken parsed = jwtUtil.parse(token);
+
+        assertThat(parsed.subject()).isEqualTo("student@test.local");
+        assertThat(parsed.userId()).isEqualTo(42L);
+        assertThat(parsed.role()).isEqualTo("STUDENT");
+        assertThat(parsed.jti()).isEqualTo(jwtUtil.extractJti(token));
+        assertThat(parsed.expiresAt()).isEqualTo(jwtUtil.extractExpiration(token).toInstant());
+    }
+
+    @Test
+    void refreshTokenHasNoPrincipalClaims() {
+        ParsedToken parsed = jwtUtil.parse(jwtUtil.generateRefreshToken(new AuthenticatedUser(42L, "student@test.local", Role.STUDENT, null)));
+
+        assertThat(parsed.userId()).isNull();
+        assertThat(parsed.role()).isNull();
+    }
+
+    @Test
+    void rejectsTamperedAndExpiredTokens() {
+        String token = jwtUtil.generateAccessToken(new AuthenticatedUser(42L, "student@test.local", Role.STUDENT, null));
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+        String expired = jwtUtil(-1_000).generateAccessToken(new AuthenticatedUser(42L, "student@test.local", Role.STUDENT, null));
+
+        assertThatThrownBy(() -> jwtUtil.parse(tampered)).isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> jwtUtil.parse(expired)).isInstanceOf(JwtException.class);
+        assertThat(jwtUtil.validateToken(tampered)).isFalse();
+        assertThat(jwtUtil.validateToken(expired)).isFalse();
+        assertThat(jwtUtil.validateToken(token)).isTrue();
+    }
+
+    private static JwtUtil jwtUtil(long accessTokenExpirationMs) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secretKeyString", "test-secret-that-is-at-least-32-bytes-long");
+        ReflectionTestUtils.setField(jwtUtil, "accessTokenExpirationMs", accessTokenExpirationMs);
+        ReflectionTestUtils.setField(jwtUtil, "refreshTokenExpirationMs", TimeUnit.DAYS.toMillis(7));
+        jwtUtil.init();
+        return jwtUtil;
+    }
+}
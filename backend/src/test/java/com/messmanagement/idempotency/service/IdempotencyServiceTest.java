@@ -0,0 +1,151 @@
+package com.messmanagement.idempotency.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.messmanagement.common.exception.IdempotencyConflictException;
+import com.messmanagement.idempotency.entity.IdempotencyRecord;
+import com.messmanagement.idempotency.entity.IdempotencyRecordStatus;
+import com.messmanagement.idempotency.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Idempotency-Key reservations and replays on the embedded H2 database. Two service objects over the
+ * same table stand in for two application instances.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:idempotency;DB_CLOSE_DELAY=-1")
+class IdempotencyServiceTest {
+
+    private static final Map<String, Object> BODY = Map.of("mealType", "LUNCH");
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @BeforeEach
+    void clearRecords() {
+        idempotencyRecordRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void retryReplaysTheStoredResponse() {
+        IdempotencyService service = newInstance();
+
+        ResponseEntity<String> first = service.execute("op", "caller", "key-1", BODY, String.class, this::created);
+        ResponseEntity<String> retry = service.execute("op", "caller", "key-1", BODY, String.class, this::created);
+        ResponseEntity<String> elsewhere = newInstance().execute("op", "caller", "key-1", BODY, String.class, this::created);
+
+        assertThat(runs).hasValue(1);
+        assertThat(first.getHeaders().containsKey(IdempotencyService.REPLAYED_HEADER)).isFalse();
+        assertThat(retry.getBody()).isEqualTo("created-1");
+        assertThat(retry.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(elsewhere.getStatusCode().value()).isEqualTo(201);
+        assertThat(elsewhere.getBody()).isEqualTo("created-1");
+    }
+
+    @Test
+    void concurrentRetryOnAnotherInstanceIsRejectedWhileTheFirstRuns() throws Exception {
+        IdempotencyService first = newInstance();
+        IdempotencyService second = newInstance();
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<ResponseEntity<String>> inFlight = CompletableFuture.supplyAsync(() ->
+                first.execute("op", "caller", "key-2", BODY, String.class, () -> {
+                    running.countDown();
+                    await(release);
+                    return created();
+                }));
+        assertThat(running.await(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> second.execute("op", "caller", "key-2", BODY, String.class, this::created))
+                .isInstanceOf(IdempotencyConflictException.class);
+        release.countDown();
+        assertThat(inFlight.get(10, TimeUnit.SECONDS).getBody()).isEqualTo("created-1");
+        assertThat(second.execute("op", "caller", "key-2", BODY, String.class, this::created).getBody()).isEqualTo("created-1");
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void failedAttemptGivesTheKeyBack() {
+        IdempotencyService service = newInstance();
+
+        assertThatThrownBy(() -> service.execute("op", "caller", "key-3", BODY, String.class, () -> {
+            throw new IllegalStateException("Stripe is down");
+        })).isInstanceOf(IllegalStateException.class);
+        ResponseEntity<String> badRequest = service.execute("op", "caller", "key-3", BODY, String.class,
+                () -> ResponseEntity.badRequest().body("nope"));
+        ResponseEntity<String> retry = service.execute("op", "caller", "key-3", BODY, String.class, this::created);
+
+        assertThat(badRequest.getStatusCode().value()).isEqualTo(400);
+        assertThat(retry.getBody()).isEqualTo("created-1");
+        assertThat(retry.getHeaders().containsKey(IdempotencyService.REPLAYED_HEADER)).isFalse();
+    }
+
+    @Test
+    void lapsedReservationIsTakenOver() {
+        IdempotencyService service = newInstance();
+        service.execute("op", "caller", "key-4", BODY, String.class, this::created);
+        IdempotencyRecord record = idempotencyRecordRepository.findAll().get(0);
+        // As left behind by an instance that crashed mid-action
+        record.setStatus(IdempotencyRecordStatus.IN_PROGRESS);
+        record.setResponseStatus(null);
+        record.setResponseBody(null);
+        record.setExpiresAt(Instant.now().minusSeconds(1));
+        idempotencyRecordRepository.save(record);
+
+        ResponseEntity<String> retry = newInstance().execute("op", "caller", "key-4", BODY, String.class, this::created);
+
+        assertThat(retry.getBody()).isEqualTo("created-2");
+        assertThat(idempotencyRecordRepository.findAll()).singleElement()
+                .extracting(IdempotencyRecord::getStatus).isEqualTo(IdempotencyRecordStatus.COMPLETED);
+    }
+
+    @Test
+    void keyCannotBeReusedForAnotherRequest() {
+        IdempotencyService service = newInstance();
+        service.execute("op", "caller", "key-5", BODY, String.class, this::created);
+
+        assertThatThrownBy(() -> newInstance().execute("op", "caller", "key-5", Map.of("mealType", "DINNER"), String.class, this::created))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(runs).hasValue(1);
+    }
+
+    private IdempotencyService newInstance() {
+        IdempotencyService service = new IdempotencyService(idempotencyRecordRepository, objectMapper, transactionManager, 86_400_000, 100);
+        ReflectionTestUtils.setField(service, "inProgressTimeoutMs", 60_000L);
+        ReflectionTestUtils.setField(service, "purgeBatchSize", 500);
+        return service;
+    }
+
+    private ResponseEntity<String> created() {
+        return ResponseEntity.status(201).body("created-" + runs.incrementAndGet());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
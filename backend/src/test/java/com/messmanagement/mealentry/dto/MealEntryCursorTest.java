@@ -0,0 +1,34 @@
+package com.messmanagement.mealentry.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Encoding and validation of the opaque keyset cursor.
+ */
+class MealEntryCursorTest {
+
+    @Test
+    void roundTripsThroughTheOpaqueString() {
+        MealEntryCursor cursor = new MealEntryCursor(LocalDate.of(2025, 2, 3), LocalTime.of(12, 30, 15, 123_000_000), 42L);
+
+        assertThat(MealEntryCursor.decode(cursor.encode())).isEqualTo(cursor);
+        assertThat(cursor.encode()).doesNotContain("=", "+", "/");
+    }
+
+    @Test
+    void rejectsForgedCursors() {
+        String wrongArity = Base64.getUrlEncoder().encodeToString("2025-02-03|12:00".getBytes());
+        String notADate = Base64.getUrlEncoder().encodeToString("yesterday|12:00|1".getBytes());
+
+        assertThatThrownBy(() -> MealEntryCursor.decode("%%%")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> MealEntryCursor.decode(wrongArity)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> MealEntryCursor.decode(notADate)).hasMessage("Invalid cursor.");
+    }
+}
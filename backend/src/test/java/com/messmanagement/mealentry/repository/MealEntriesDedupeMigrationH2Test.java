@@ -0,0 +1,23 @@
+package com.messmanagement.mealentry.repository;
+
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+
+/**
+ * The V2 duplicate clean-up on the embedded H2 database.
+ */
+class MealEntriesDedupeMigrationH2Test extends MealEntriesDedupeMigrationTest {
+
+    private final DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:meal-entries-dedupe;DB_CLOSE_DELAY=-1", "sa", "");
+
+    @Override
+    DataSource dataSource() {
+        return dataSource;
+    }
+
+    @Override
+    String location() {
+        return "classpath:db/migration/h2";
+    }
+}
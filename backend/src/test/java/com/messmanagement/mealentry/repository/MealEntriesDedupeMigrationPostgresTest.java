@@ -0,0 +1,28 @@
+package com.messmanagement.mealentry.repository;
+
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+
+/**
+ * The V2 duplicate clean-up on PostgreSQL. Skipped when Docker is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class MealEntriesDedupeMigrationPostgresTest extends MealEntriesDedupeMigrationTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Override
+    DataSource dataSource() {
+        return new DriverManagerDataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+    }
+
+    @Override
+    String location() {
+        return "classpath:db/migration/postgresql";
+    }
+}
@@ -0,0 +1,58 @@
+package com.messmanagement.mealentry.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The V2 migration on a schema that already holds duplicate check-ins (as ddl-auto=update could leave behind).
+ * Subclasses run it against a specific database.
+ */
+abstract class MealEntriesDedupeMigrationTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 2, 3);
+
+    abstract DataSource dataSource();
+
+    abstract String location();
+
+    @Test
+    void movesDuplicatesAsideAndRecountsRollups() {
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource());
+        Flyway.configure().dataSource(dataSource()).locations(location()).target("1").load().migrate();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbc.update("INSERT INTO users (name, mobile_no, email, address, password_hash, role, created_at, updated_at) "
+                + "VALUES ('Dup', '7000000001', 'dup@test.local', 'Block A', 'x', 'STUDENT', ?, ?)", now, now);
+        Long userId = jdbc.queryForObject("SELECT user_id FROM users", Long.class);
+        insertEntry(jdbc, 1, userId, "LUNCH");
+        insertEntry(jdbc, 2, userId, "LUNCH");
+        insertEntry(jdbc, 3, userId, "LUNCH");
+        insertEntry(jdbc, 4, userId, "DINNER");
+        // Counted with the duplicates
+        jdbc.update("INSERT INTO meal_count_rollups (rollup_date, meal_type, entry_count) VALUES (?, 'LUNCH', 3)", Date.valueOf(DAY));
+
+        Flyway.configure().dataSource(dataSource()).locations(location()).target("2").load().migrate();
+
+        assertThat(jdbc.queryForList("SELECT entry_id FROM meal_entries ORDER BY entry_id", Long.class)).containsExactly(1L, 4L);
+        assertThat(jdbc.queryForList("SELECT entry_id FROM meal_entries_duplicates ORDER BY entry_id", Long.class)).containsExactly(2L, 3L);
+        assertThat(jdbc.queryForList("SELECT meal_type, entry_count FROM meal_count_rollups WHERE rollup_date = ? ORDER BY meal_type",
+                Date.valueOf(DAY)))
+                .extracting(row -> row.get("meal_type") + "=" + row.get("entry_count"))
+                .containsExactly("DINNER=1", "LUNCH=1");
+    }
+
+    private static void insertEntry(JdbcTemplate jdbc, long entryId, Long userId, String mealType) {
+        jdbc.update("INSERT INTO meal_entries (entry_id, user_id, meal_type, entry_date, entry_time) VALUES (?, ?, ?, ?, ?)",
+                entryId, userId, mealType, Date.valueOf(DAY), Time.valueOf(LocalTime.NOON.plusMinutes(entryId)));
+    }
+}
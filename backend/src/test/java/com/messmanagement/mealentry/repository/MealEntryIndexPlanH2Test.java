@@ -0,0 +1,35 @@
+package com.messmanagement.mealentry.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Index plans on the embedded H2 database used in development (schema from db/migration/h2).
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:index-plans;DB_CLOSE_DELAY=-1")
+class MealEntryIndexPlanH2Test extends MealEntryIndexPlanTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    JdbcTemplate jdbcTemplate() {
+        return jdbcTemplate;
+    }
+
+    @Override
+    String explain(String sql) {
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+    }
+
+    @Override
+    String fullScanMarker() {
+        return "tableScan";
+    }
+
+    @Override
+    String analyzeSql() {
+        return "ANALYZE TABLE meal_entries";
+    }
+}
@@ -0,0 +1,111 @@
+package com.messmanagement.mealentry.repository;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the meal_entries queries issued by MealEntryRepository and the admin filter are
+ * planned on the indexes created by the V2 and V3 migrations. Subclasses run the same queries against
+ * a specific database and return its EXPLAIN output.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+abstract class MealEntryIndexPlanTest {
+
+    static final String UNIQUE_USER_DATE_MEAL = "ux_meal_entries_user_date_meal";
+    static final String DATE_MEAL = "ix_meal_entries_date_meal";
+    static final String MEAL_DATE = "ix_meal_entries_meal_date";
+    static final String DATE_TIME_ID = "ix_meal_entries_date_time_id";
+
+    private static final int STUDENTS = 50;
+    private static final int DAYS = 30;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2025, 1, 1);
+    private static final String[] MEAL_TYPES = {"BREAKFAST", "LUNCH", "DINNER"};
+
+    abstract JdbcTemplate jdbcTemplate();
+
+    /** Returns the database's plan for the given query. */
+    abstract String explain(String sql);
+
+    /** Text that marks a full table scan in this database's plans. */
+    abstract String fullScanMarker();
+
+    /** Statement that refreshes the planner statistics for meal_entries. */
+    abstract String analyzeSql();
+
+    @BeforeAll
+    void seedCheckIns() {
+        // A month of check-ins for a few dozen students, so the planner has statistics to choose between indexes
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> users = new ArrayList<>();
+        for (int i = 0; i < STUDENTS; i++) {
+            users.add(new Object[]{"Plan " + i, "8" + String.format("%09d", i), "plan-" + i + "@test.local", "Block A", "x", "STUDENT", now, now});
+        }
+        jdbcTemplate().batchUpdate("INSERT INTO users (name, mobile_no, email, address, password_hash, role, created_at, updated_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)", users);
+        List<Long> userIds = jdbcTemplate().queryForList("SELECT user_id FROM users WHERE email LIKE 'plan-%'", Long.class);
+
+        List<Object[]> entries = new ArrayList<>();
+        long entryId = 1_000_000;
+        for (int day = 0; day < DAYS; day++) {
+            for (Long userId : userIds) {
+                for (String mealType : MEAL_TYPES) {
+                    entries.add(new Object[]{entryId++, userId, mealType, Date.valueOf(FIRST_DAY.plusDays(day)), Time.valueOf(LocalTime.NOON)});
+                }
+            }
+        }
+        jdbcTemplate().batchUpdate("INSERT INTO meal_entries (entry_id, user_id, meal_type, entry_date, entry_time) VALUES (?, ?, ?, ?, ?)", entries);
+        jdbcTemplate().execute(analyzeSql());
+    }
+
+    @Test
+    void duplicateCheckUsesUniqueIndex() {
+        assertPlanUsesOneOf("SELECT entry_id FROM meal_entries WHERE user_id = " + someUserId()
+                + " AND entry_date = DATE '2025-01-06' AND meal_type = 'LUNCH'", UNIQUE_USER_DATE_MEAL);
+    }
+
+    @Test
+    void studentHistoryIsIndexedOnUser() {
+        // Served by the unique index's user_id prefix, or by an index the database keeps for the user_id foreign key
+        assertThat(explain("SELECT * FROM meal_entries WHERE user_id = " + someUserId() + " ORDER BY entry_date DESC, entry_time DESC"))
+                .doesNotContainIgnoringCase(fullScanMarker());
+    }
+
+    @Test
+    void dailyCountUsesDateIndex() {
+        // The V3 keyset index also leads with entry_date, so it serves this range equally well
+        assertPlanUsesOneOf("SELECT COUNT(*) FROM meal_entries WHERE entry_date = DATE '2025-01-06'", DATE_MEAL, DATE_TIME_ID);
+    }
+
+    @Test
+    void adminFilterByDateAndMealUsesSecondaryIndex() {
+        // Both secondary indexes cover (entry_date, meal_type) equality, so either one is a good plan
+        assertPlanUsesOneOf("SELECT * FROM meal_entries WHERE entry_date = DATE '2025-01-06' AND meal_type = 'DINNER'", DATE_MEAL, MEAL_DATE);
+    }
+
+    @Test
+    void adminFilterByMealTypeUsesMealIndex() {
+        assertPlanUsesOneOf("SELECT COUNT(*) FROM meal_entries WHERE meal_type = 'BREAKFAST'", MEAL_DATE);
+    }
+
+    private long someUserId() {
+        return jdbcTemplate().queryForObject("SELECT MIN(user_id) FROM users WHERE email LIKE 'plan-%'", Long.class);
+    }
+
+    private void assertPlanUsesOneOf(String sql, String... indexes) {
+        String plan = explain(sql).toLowerCase();
+        assertThat(indexes).as("plan for %s:%n%s", sql, plan).anyMatch(plan::contains);
+    }
+}
@@ -0,0 +1,92 @@
+package com.messmanagement.mealentry.service;
+
+import com.messmanagement.mealentry.dto.KioskCheckInRequestDTO;
+import com.messmanagement.mealentry.dto.KioskCheckInResponseDTO;
+import com.messmanagement.mealentry.dto.KioskScanResultDTO;
+import com.messmanagement.menu.entity.MealType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Kiosk batches on the embedded H2 database: every scan is judged on its own and the accepted ones are written together.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:kiosk-check-in;DB_CLOSE_DELAY=-1")
+class KioskCheckInTest {
+
+    @Autowired
+    private MealEntryService mealEntryService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void judgesEveryScanAndWritesTheAcceptedOnes() {
+        LocalDate today = LocalDate.now();
+        long subscribed = insertStudent("K-1", true);
+        insertStudent("K-2", false);
+        long alreadyIn = insertStudent("K-3", true);
+        // Written behind the entitlement index's back, e.g. by another instance; only the unique index knows
+        jdbcTemplate.update("INSERT INTO meal_entries (entry_id, user_id, meal_type, entry_date, entry_time) VALUES (700000, ?, 'LUNCH', ?, ?)",
+                alreadyIn, Date.valueOf(today), Time.valueOf(LocalTime.NOON));
+
+        KioskCheckInResponseDTO response = mealEntryService.markKioskCheckIns(request(MealType.LUNCH, "K-1", "K-2", "K-404", "K-1", "K-3"));
+
+        assertThat(response.getEntryDate()).isEqualTo(today);
+        assertThat(response.getAcceptedCount()).isEqualTo(1);
+        assertThat(response.getRejectedCount()).isEqualTo(4);
+        assertThat(response.getResults()).extracting(KioskScanResultDTO::getMessProvidedUserId)
+                .containsExactly("K-1", "K-2", "K-404", "K-1", "K-3");
+        assertThat(response.getResults()).extracting(result -> result.isAccepted() ? "accepted" : result.getRejectReason())
+                .containsExactly("accepted", "NO_SUBSCRIPTION", "UNKNOWN_USER", "DUPLICATE", "DUPLICATE");
+        assertThat(response.getResults().get(0).getEntryId()).isNotNull();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM meal_entries WHERE entry_date = ? AND meal_type = 'LUNCH'",
+                Long.class, Date.valueOf(today))).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM meal_entries WHERE user_id = ?", Long.class, subscribed)).isEqualTo(1);
+    }
+
+    @Test
+    void aStudentCanCheckInForEachMeal() {
+        insertStudent("K-10", true);
+
+        assertThat(mealEntryService.markKioskCheckIns(request(MealType.BREAKFAST, "K-10")).getAcceptedCount()).isEqualTo(1);
+        assertThat(mealEntryService.markKioskCheckIns(request(MealType.DINNER, "K-10")).getAcceptedCount()).isEqualTo(1);
+        assertThat(mealEntryService.markKioskCheckIns(request(MealType.DINNER, "K-10")).getResults().get(0).getRejectReason())
+                .isEqualTo("DUPLICATE");
+    }
+
+    private long insertStudent(String messId, boolean subscribed) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        String email = messId.toLowerCase() + "@test.local";
+        jdbcTemplate.update("INSERT INTO users (name, mobile_no, email, address, password_hash, role, mess_provided_user_id, created_at, updated_at) "
+                + "VALUES (?, ?, ?, 'Block A', 'x', 'STUDENT', ?, ?, ?)", "Student " + messId,
+                String.format("72%08d", Integer.parseInt(messId.substring(2))), email, messId, now, now);
+        long userId = jdbcTemplate.queryForObject("SELECT user_id FROM users WHERE email = ?", Long.class, email);
+        if (subscribed) {
+            LocalDate today = LocalDate.now();
+            jdbcTemplate.update("INSERT INTO subscriptions (user_id, start_date, end_date, status, amount_paid, created_at, updated_at) "
+                    + "VALUES (?, ?, ?, 'ACTIVE', ?, ?, ?)", userId, Date.valueOf(today.minusDays(1)), Date.valueOf(today.plusDays(29)),
+                    new BigDecimal("3500.00"), now, now);
+        }
+        return userId;
+    }
+
+    private static KioskCheckInRequestDTO request(MealType mealType, String... messIds) {
+        KioskCheckInRequestDTO request = new KioskCheckInRequestDTO();
+        request.setMealType(mealType);
+        request.setMessProvidedUserIds(List.of(messIds));
+        return request;
+    }
+}
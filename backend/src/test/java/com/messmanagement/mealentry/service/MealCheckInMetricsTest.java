@@ -0,0 +1,40 @@
+package com.messmanagement.mealentry.service;
+
+import com.messmanagement.mealentry.service.MealCheckInMetrics.RejectReason;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Check-in outcome counters and the queue-depth gauge.
+ */
+class MealCheckInMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final MealEntryBatchWriter batchWriter = mock(MealEntryBatchWriter.class);
+
+    @Test
+    void countsOutcomesByReason() {
+        MealCheckInMetrics metrics = new MealCheckInMetrics(registry, batchWriter);
+
+        metrics.accepted();
+        metrics.accepted();
+        metrics.rejected(RejectReason.DUPLICATE);
+
+        assertThat(registry.get("meal.checkins").tags("outcome", "accepted", "reason", "none").counter().count()).isEqualTo(2);
+        assertThat(registry.get("meal.checkins").tags("outcome", "rejected", "reason", "duplicate").counter().count()).isEqualTo(1);
+        assertThat(registry.get("meal.checkins").tags("outcome", "rejected", "reason", "busy").counter().count())
+                .as("every reason is registered up front").isZero();
+    }
+
+    @Test
+    void pendingGaugeReadsTheQueueDepth() {
+        new MealCheckInMetrics(registry, batchWriter);
+        when(batchWriter.pendingCount()).thenReturn(7);
+
+        assertThat(registry.get("meal.checkins.pending").gauge().value()).isEqualTo(7);
+    }
+}
@@ -0,0 +1,129 @@
+package com.messmanagement.mealentry.service;
+
+import com.messmanagement.mealentry.repository.MealEntryRepository;
+import com.messmanagement.menu.entity.MealType;
+import com.messmanagement.subscription.dto.SubscriptionWindowView;
+import com.messmanagement.subscription.entity.SubscriptionStatus;
+import com.messmanagement.subscription.repository.SubscriptionRepository;
+import com.messmanagement.user.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Subscription windows in the entitlement index: database fallback on a miss, revocation by
+ * subscription, and the periodic reload.
+ */
+class MealEntitlementIndexTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 3, 10);
+    private static final long USER_ID = 7;
+
+    private final SubscriptionRepository subscriptionRepository = mock(SubscriptionRepository.class);
+    private final MealEntryRepository mealEntryRepository = mock(MealEntryRepository.class);
+    private MealEntitlementIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new MealEntitlementIndex(mock(UserRepository.class), subscriptionRepository, mealEntryRepository);
+        ReflectionTestUtils.setField(index, "missTtlMs", 60_000L);
+    }
+
+    @Test
+    void missFallsBackToDatabaseAndCachesTheAnswer() {
+        when(subscriptionRepository.findWindowsByUserIdAndStatusEndingOnOrAfter(USER_ID, SubscriptionStatus.ACTIVE, TODAY))
+                .thenReturn(List.of(window(41, TODAY.minusDays(3), TODAY.plusDays(27))));
+
+        assertThat(index.hasActiveSubscription(USER_ID, TODAY)).isTrue();
+        assertThat(index.hasActiveSubscription(USER_ID, TODAY)).isTrue();
+
+        verify(subscriptionRepository, times(1)).findWindowsByUserIdAndStatusEndingOnOrAfter(anyLong(), any(), any());
+    }
+
+    @Test
+    void negativeAnswerIsReadAgainOnceItsTtlHasPassed() {
+        when(subscriptionRepository.findWindowsByUserIdAndStatusEndingOnOrAfter(USER_ID, SubscriptionStatus.ACTIVE, TODAY))
+                .thenReturn(List.of())
+                .thenReturn(List.of(window(41, TODAY, TODAY.plusDays(30)))); // Activated on another instance
+
+        assertThat(index.hasActiveSubscription(USER_ID, TODAY)).isFalse();
+        assertThat(index.hasActiveSubscription(USER_ID, TODAY)).isFalse(); // Within the TTL: answered from memory
+        verify(subscriptionRepository, times(1)).findWindowsByUserIdAndStatusEndingOnOrAfter(anyLong(), any(), any());
+
+        ReflectionTestUtils.setField(index, "missTtlMs", 0L);
+        assertThat(index.hasActiveSubscription(USER_ID, TODAY)).isTrue();
+    }
+
+    @Test
+    void revokingAnotherSubscriptionKeepsTheWindow() {
+        index.recordSubscriptionWindow(USER_ID, 41, TODAY, TODAY.plusDays(30));
+
+        index.revokeSubscriptionWindow(USER_ID, 40);
+
+        assertThat(index.hasActiveSubscription(USER_ID, TODAY)).isTrue();
+        verify(subscriptionRepository, never()).findWindowsByUserIdAndStatusEndingOnOrAfter(anyLong(), any(), any());
+    }
+
+    @Test
+    void revokingTheWindowsSubscriptionRemovesIt() {
+        index.recordSubscriptionWindow(USER_ID, 41, TODAY, TODAY.plusDays(30));
+        when(subscriptionRepository.findWindowsByUserIdAndStatusEndingOnOrAfter(USER_ID, SubscriptionStatus.ACTIVE, TODAY))
+                .thenReturn(List.of());
+
+        index.revokeSubscriptionWindow(USER_ID, 41);
+
+        assertThat(index.hasActiveSubscription(USER_ID, TODAY)).isFalse();
+    }
+
+    @Test
+    void reloadPicksUpActivationsAndDropsCancellations() {
+        index.recordSubscriptionWindow(USER_ID, 41, TODAY.minusDays(1), TODAY.plusDays(30));
+        when(subscriptionRepository.findWindowsByStatusEndingOnOrAfter(any(), any()))
+                .thenReturn(List.of(new SubscriptionWindowView(52L, 8L, TODAY.minusDays(1), TODAY.plusDays(30))));
+        when(subscriptionRepository.findWindowsByUserIdAndStatusEndingOnOrAfter(USER_ID, SubscriptionStatus.ACTIVE, TODAY))
+                .thenReturn(List.of());
+
+        sleepPastCurrentMillisecond();
+        index.reloadSubscriptionWindows();
+
+        assertThat(index.hasActiveSubscription(8L, TODAY)).isTrue();
+        assertThat(index.hasActiveSubscription(USER_ID, TODAY)).isFalse();
+    }
+
+    @Test
+    void reservationIsHeldUntilReleased() {
+        when(mealEntryRepository.findCheckInsByEntryDate(TODAY)).thenReturn(List.of());
+
+        assertThat(index.tryReserveCheckIn(USER_ID, MealType.LUNCH, TODAY)).isTrue();
+        assertThat(index.tryReserveCheckIn(USER_ID, MealType.LUNCH, TODAY)).isFalse();
+        assertThat(index.tryReserveCheckIn(USER_ID, MealType.DINNER, TODAY)).isTrue();
+
+        index.releaseCheckIn(USER_ID, MealType.LUNCH, TODAY);
+        assertThat(index.tryReserveCheckIn(USER_ID, MealType.LUNCH, TODAY)).isTrue();
+    }
+
+    private static SubscriptionWindowView window(long subscriptionId, LocalDate start, LocalDate end) {
+        return new SubscriptionWindowView(subscriptionId, USER_ID, start, end);
+    }
+
+    // Windows recorded in the same millisecond as a reload starts count as newer than the reload
+    private static void sleepPastCurrentMillisecond() {
+        try {
+            Thread.sleep(2);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.messmanagement.mealentry.service;
+
+import com.messmanagement.mealentry.entity.MealEntry;
+import com.messmanagement.mealentry.repository.MealEntryRepository;
+import com.messmanagement.menu.entity.MealType;
+import com.messmanagement.report.service.MealCountRollupService;
+import com.messmanagement.user.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Shutdown and failure behaviour of the write-behind writer: queued check-ins are written before it
+ * stops, and every check-in it accepts is confirmed or failed.
+ */
+class MealEntryBatchWriterTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 3, 10);
+
+    private final MealEntryRepository mealEntryRepository = mock(MealEntryRepository.class);
+    private final MealCountRollupService mealCountRollupService = mock(MealCountRollupService.class);
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final AtomicBoolean interruptedDuringWrite = new AtomicBoolean();
+    private MealEntryBatchWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        writer = new MealEntryBatchWriter(mealEntryRepository, mock(UserRepository.class),
+                mealCountRollupService, mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(writer, "queueCapacity", 100);
+        ReflectionTestUtils.setField(writer, "maxBatchSize", 10);
+        ReflectionTestUtils.setField(writer, "maxDelayMs", 20L);
+        ReflectionTestUtils.setField(writer, "shutdownTimeoutMs", 5_000L);
+    }
+
+    @Test
+    void stopDrainsQueuedCheckInsWithoutInterruptingTheWrite() throws Exception {
+        slowSaveAll(50);
+        writer.start();
+        List<CompletableFuture<Long>> confirmations = submit(25);
+
+        writer.stop();
+
+        assertThat(confirmations).allSatisfy(confirmation -> assertThat(confirmation).isCompleted().isNotCompletedExceptionally());
+        assertThat(confirmations.stream().map(CompletableFuture::join).distinct()).hasSize(25);
+        assertThat(interruptedDuringWrite).isFalse();
+    }
+
+    @Test
+    void stopFailsWhatItCannotDrainInTime() throws Exception {
+        ReflectionTestUtils.setField(writer, "shutdownTimeoutMs", 100L);
+        slowSaveAll(300);
+        writer.start();
+        List<CompletableFuture<Long>> confirmations = submit(25);
+
+        writer.stop();
+
+        // Check-ins still queued are failed at once; the batch the flusher holds finishes on its own
+        assertThat(confirmations).anySatisfy(confirmation -> assertThat(confirmation).isCompletedExceptionally());
+        assertThat(CompletableFuture.allOf(confirmations.toArray(CompletableFuture[]::new)))
+                .failsWithin(Duration.ofSeconds(10));
+    }
+
+    @Test
+    void submitIsRefusedAfterStop() throws Exception {
+        writer.start();
+        writer.stop();
+
+        assertThatIllegalStateException()
+                .isThrownBy(() -> writer.submit(1, MealType.LUNCH, TODAY, LocalTime.NOON));
+    }
+
+    @Test
+    void errorWhileWritingFailsTheBatchAndKeepsTheFlusherRunning() throws Exception {
+        slowSaveAll(0);
+        doThrow(new StackOverflowError()).doNothing().when(mealCountRollupService).increment(any());
+        writer.start();
+
+        CompletableFuture<Long> failed = writer.submit(1, MealType.LUNCH, TODAY, LocalTime.NOON);
+        assertThat(failed).failsWithin(Duration.ofSeconds(5));
+        CompletableFuture<Long> next = writer.submit(2, MealType.LUNCH, TODAY, LocalTime.NOON);
+
+        assertThat(next).succeedsWithin(Duration.ofSeconds(5));
+        writer.stop();
+    }
+
+    @Test
+    void checkInsSubmittedDuringStopAreEitherRefusedOrCompleted() throws Exception {
+        slowSaveAll(1);
+        writer.start();
+        ExecutorService kiosks = Executors.newFixedThreadPool(4);
+        List<Future<List<CompletableFuture<Long>>>> submitted = new ArrayList<>();
+        for (int kiosk = 0; kiosk < 4; kiosk++) {
+            submitted.add(kiosks.submit(() -> {
+                List<CompletableFuture<Long>> accepted = new ArrayList<>();
+                while (true) {
+                    try {
+                        accepted.add(writer.submit(1, MealType.LUNCH, TODAY, LocalTime.NOON));
+                    } catch (IllegalStateException refused) {
+                        if (!refused.getMessage().contains("busy")) {
+                            return accepted; // Shutting down
+                        }
+                    }
+                    Thread.sleep(0, 100_000);
+                }
+            }));
+        }
+        Thread.sleep(50);
+
+        writer.stop();
+
+        List<CompletableFuture<Long>> accepted = new ArrayList<>();
+        for (Future<List<CompletableFuture<Long>>> kiosk : submitted) {
+            accepted.addAll(kiosk.get(5, TimeUnit.SECONDS));
+        }
+        kiosks.shutdown();
+        assertThat(accepted).isNotEmpty().allSatisfy(confirmation -> assertThat(confirmation).isDone());
+    }
+
+    private List<CompletableFuture<Long>> submit(int count) {
+        List<CompletableFuture<Long>> confirmations = new ArrayList<>();
+        for (int userId = 1; userId <= count; userId++) {
+            confirmations.add(writer.submit(userId, MealType.LUNCH, TODAY, LocalTime.NOON));
+        }
+        return confirmations;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void slowSaveAll(long millisPerBatch) {
+        when(mealEntryRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            try {
+                Thread.sleep(millisPerBatch); // Stands in for the JDBC round trip
+            } catch (InterruptedException e) {
+                interruptedDuringWrite.set(true);
+                throw new IllegalStateException("JDBC batch interrupted", e);
+            }
+            List<MealEntry> entries = invocation.getArgument(0);
+            entries.forEach(entry -> entry.setEntryId(nextId.getAndIncrement()));
+            return entries;
+        });
+    }
+}
@@ -0,0 +1,121 @@
+package com.messmanagement.mealentry.service;
+
+import com.messmanagement.common.dto.CursorPageDTO;
+import com.messmanagement.mealentry.dto.MealEntryExportFormat;
+import com.messmanagement.mealentry.dto.MealEntryResponseDTO;
+import com.messmanagement.menu.entity.MealType;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Keyset pagination and the streaming export of meal entries, on the embedded H2 database.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:meal-entry-scroll;DB_CLOSE_DELAY=-1")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class MealEntryScrollTest {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2024, 3, 1);
+    private static final String EMAIL = "scroll@test.local";
+
+    @Autowired
+    private MealEntryService mealEntryService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long studentId;
+    private long otherStudentId;
+
+    @BeforeAll
+    void seed() {
+        studentId = insertStudent(EMAIL, "Scroll, Student", "7000000101");
+        otherStudentId = insertStudent("other@test.local", "Other", "7000000102");
+        long entryId = 900_000;
+        for (int day = 0; day < 4; day++) {
+            for (MealType mealType : MealType.values()) {
+                // Every entry of a day shares one time, so only entry_id orders them
+                insertEntry(++entryId, studentId, mealType, FIRST_DAY.plusDays(day), LocalTime.NOON);
+            }
+            insertEntry(++entryId, otherStudentId, MealType.LUNCH, FIRST_DAY.plusDays(day), LocalTime.NOON);
+        }
+    }
+
+    @Test
+    void slicesCoverTheHistoryNewestFirstWithoutOverlap() {
+        List<MealEntryResponseDTO> seen = new ArrayList<>();
+        String cursor = null;
+        int slices = 0;
+        do {
+            CursorPageDTO<MealEntryResponseDTO> slice = mealEntryService.scrollMyMealEntryHistory(EMAIL, cursor, 5);
+            seen.addAll(slice.getContent());
+            assertThat(slice.isHasNext()).isEqualTo(slice.getNextCursor() != null);
+            cursor = slice.getNextCursor();
+            slices++;
+        } while (cursor != null);
+
+        assertThat(slices).isEqualTo(3); // 12 entries in slices of 5
+        assertThat(seen).hasSize(12).allMatch(entry -> entry.getUserId() == studentId);
+        assertThat(seen).extracting(MealEntryResponseDTO::getEntryId).doesNotHaveDuplicates().isSortedAccordingTo((a, b) -> Long.compare(b, a));
+    }
+
+    @Test
+    void adminScrollAppliesFilters() {
+        CursorPageDTO<MealEntryResponseDTO> slice = mealEntryService.scrollMealEntriesForAdmin(null, 100, FIRST_DAY, null, MealType.LUNCH);
+
+        assertThat(slice.getContent()).extracting(MealEntryResponseDTO::getUserId).containsExactlyInAnyOrder(studentId, otherStudentId);
+        assertThat(slice.isHasNext()).isFalse();
+        assertThat(slice.getNextCursor()).isNull();
+    }
+
+    @Test
+    void sizeIsClampedAndBadCursorsAreRejected() {
+        assertThat(mealEntryService.scrollMealEntriesForAdmin(null, 0, null, null, null).getSize()).isEqualTo(1);
+        assertThat(mealEntryService.scrollMealEntriesForAdmin(null, 10_000, null, null, null).getSize()).isEqualTo(16);
+        assertThatThrownBy(() -> mealEntryService.scrollMealEntriesForAdmin("not-a-cursor", 10, null, null, null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void exportStreamsTheRangeOldestFirst() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        mealEntryService.exportMealEntries(FIRST_DAY.plusDays(1), FIRST_DAY.plusDays(2), MealEntryExportFormat.CSV, out);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(lines.get(0)).startsWith("entry_id,user_id,user_email,user_name,");
+        assertThat(lines).hasSize(1 + 2 * 4);
+        assertThat(lines.get(1)).startsWith("900005," + studentId + "," + EMAIL + ",\"Scroll, Student\",");
+        assertThat(lines.subList(1, lines.size())).extracting(line -> Long.parseLong(line.substring(0, line.indexOf(','))))
+                .isSorted();
+    }
+
+    private long insertStudent(String email, String name, String mobileNo) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("INSERT INTO users (name, mobile_no, email, address, password_hash, role, created_at, updated_at) "
+                + "VALUES (?, ?, ?, 'Block A', 'x', 'STUDENT', ?, ?)", name, mobileNo, email, now, now);
+        return jdbcTemplate.queryForObject("SELECT user_id FROM users WHERE email = ?", Long.class, email);
+    }
+
+    private void insertEntry(long entryId, long userId, MealType mealType, LocalDate date, LocalTime time) {
+        jdbcTemplate.update("INSERT INTO meal_entries (entry_id, user_id, meal_type, entry_date, entry_time) VALUES (?, ?, ?, ?, ?)",
+                entryId, userId, mealType.name(), Date.valueOf(date), Time.valueOf(time));
+    }
+}
@@ -0,0 +1,142 @@
+package com.messmanagement.menu.service;
+
+import com.messmanagement.menu.dto.MenuItemDTO;
+import com.messmanagement.menu.entity.MenuCategory;
+import com.messmanagement.menu.entity.MenuItem;
+import com.messmanagement.menu.repository.MenuItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The in-memory menu item catalogue.
+ */
+class MenuItemCatalogTest {
+
+    private final MenuItemRepository menuItemRepository = mock(MenuItemRepository.class);
+    private final WeeklyMenuCache weeklyMenuCache = mock(WeeklyMenuCache.class);
+    private MenuItemCatalog catalog;
+
+    @BeforeEach
+    void setUp() {
+        catalog = new MenuItemCatalog(menuItemRepository, weeklyMenuCache, mock(PlatformTransactionManager.class));
+    }
+
+    @Test
+    void scheduledReloadDropsCachedWeeksOfChangedItems() {
+        when(menuItemRepository.findAll()).thenReturn(List.of(item(1L, "Idli", "40.00"), item(2L, "Dosa", "50.00")));
+        catalog.reloadAll();
+        verify(weeklyMenuCache, never()).invalidateItems(any());
+
+        // Another instance repriced item 2, deleted nothing and added item 3
+        when(menuItemRepository.findAll()).thenReturn(List.of(item(1L, "Idli", "40.00"), item(2L, "Dosa", "55.00"), item(3L, "Vada", "30.00")));
+        catalog.reloadAll();
+
+        verify(weeklyMenuCache).invalidateItems(Set.of(2L, 3L));
+    }
+
+    @Test
+    void unchangedReloadLeavesCachedWeeksAlone() {
+        when(menuItemRepository.findAll()).thenAnswer(invocation -> List.of(item(1L, "Idli", "40.00")));
+        catalog.reloadAll();
+        catalog.reloadAll();
+
+        verify(weeklyMenuCache, never()).invalidateItems(any());
+    }
+
+    @Test
+    void filtersSortsAndPagesInMemory() {
+        when(menuItemRepository.findAll()).thenReturn(List.of(
+                item(1L, "Idli", "40.00"),
+                item(2L, "Thali", "90.00", MenuCategory.LUNCH, true),
+                item(3L, "Biryani", "90.00", MenuCategory.LUNCH, true),
+                item(4L, "Pulao", "70.00", MenuCategory.LUNCH, false)));
+
+        Page<MenuItemDTO> page = catalog.find(MenuCategory.LUNCH, true, PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "price")));
+        // Equal prices fall back to item ID order
+        assertThat(page.getContent()).extracting(MenuItemDTO::getItemId).containsExactly(2L);
+        assertThat(page.getTotalElements()).isEqualTo(2);
+        assertThat(catalog.find(null, false, Pageable.unpaged()).getContent()).extracting(MenuItemDTO::getName).containsExactly("Pulao");
+        assertThat(catalog.find(null, null, PageRequest.of(1, 3)).getContent()).extracting(MenuItemDTO::getItemId).containsExactly(4L);
+
+        assertThatThrownBy(() -> catalog.find(null, null, PageRequest.of(0, 10, Sort.by("calories"))))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(menuItemRepository).findAll(); // Loaded once, then served from memory
+    }
+
+    @Test
+    void returnedItemsAreCopies() {
+        when(menuItemRepository.findAll()).thenReturn(List.of(item(1L, "Idli", "40.00")));
+
+        catalog.findById(1L).setName("Changed");
+
+        assertThat(catalog.findById(1L).getName()).isEqualTo("Idli");
+        assertThat(catalog.findById(99L)).isNull();
+    }
+
+    @Test
+    void refreshesChangedItemsOnlyOnceTheWriteCommits() {
+        when(menuItemRepository.findAll()).thenReturn(List.of(item(1L, "Idli", "40.00"), item(2L, "Dosa", "50.00")));
+        long version = catalog.version();
+        when(menuItemRepository.findAllById(Set.of(1L))).thenReturn(List.of(item(1L, "Idli", "45.00")));
+
+        List<TransactionSynchronization> synchronizations = inTransaction(() -> catalog.refreshItems(List.of(1L)));
+        assertThat(catalog.findById(1L).getPrice()).isEqualByComparingTo("40.00");
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+
+        assertThat(catalog.findById(1L).getPrice()).isEqualByComparingTo("45.00");
+        assertThat(catalog.version()).isEqualTo(version + 1);
+
+        // A deleted item disappears; a rolled-back write (no afterCommit) changes nothing
+        when(menuItemRepository.findAllById(Set.of(2L))).thenReturn(List.of());
+        inTransaction(() -> catalog.refreshItems(List.of(2L)));
+        assertThat(catalog.findById(2L)).isNotNull();
+        catalog.refreshItems(List.of(2L)); // No transaction: applied at once
+        assertThat(catalog.findById(2L)).isNull();
+    }
+
+    private static List<TransactionSynchronization> inTransaction(Runnable write) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            write.run();
+            return TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    static MenuItem item(Long itemId, String name, String price) {
+        return item(itemId, name, price, MenuCategory.BREAKFAST, true);
+    }
+
+    static MenuItem item(Long itemId, String name, String price, MenuCategory category, boolean available) {
+        MenuItem item = new MenuItem();
+        item.setItemId(itemId);
+        item.setName(name);
+        item.setPrice(new BigDecimal(price));
+        item.setCategory(category);
+        item.setAvailable(available);
+        item.setCreatedAt(LocalDateTime.of(2025, 1, 1, 9, 0));
+        item.setUpdatedAt(LocalDateTime.of(2025, 1, 1, 9, 0));
+        return item;
+    }
+}
@@ -0,0 +1,74 @@
+package com.messmanagement.menu.service;
+
+import com.messmanagement.menu.entity.MenuCategory;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Parsing of menu item CSV imports.
+ */
+class MenuItemCsvReaderTest {
+
+    @Test
+    void readsColumnsInAnyOrderWithQuotesAndDefaults() {
+        MenuItemCsvReader reader = reader("""
+                \uFEFFcategory,price,name,description,is_available
+                lunch,90.50,"Thali, full","Rice, dal and ""two"" sabzis",no
+
+                BREAKFAST,40,Idli,,
+                """);
+
+        assertThat(reader.next()).isEqualTo(new MenuItemCsvReader.Row("Thali, full", "Rice, dal and \"two\" sabzis",
+                new BigDecimal("90.50"), MenuCategory.LUNCH, null, false));
+        assertThat(reader.next()).isEqualTo(new MenuItemCsvReader.Row("Idli", null, new BigDecimal("40"),
+                MenuCategory.BREAKFAST, null, true));
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    void rejectsBadHeaders() {
+        assertThatThrownBy(() -> reader("")).hasMessage("CSV file is empty.");
+        assertThatThrownBy(() -> reader("name,price\n")).hasMessage("Line 1: missing required column 'category'.");
+        assertThatThrownBy(() -> reader("name,price,category,calories\n")).hasMessage("Line 1: unknown column 'calories'.");
+        assertThatThrownBy(() -> reader("name,price,category,available,isAvailable\n"))
+                .hasMessage("Line 1: column 'isAvailable' appears twice.");
+    }
+
+    @Test
+    void reportsTheLineNumberOfAnInvalidRow() {
+        MenuItemCsvReader reader = reader("""
+                name,price,category
+                Idli,40,BREAKFAST
+                Dosa,-5,BREAKFAST
+                """);
+        reader.next();
+
+        assertThatThrownBy(reader::next).isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("Line 3: price must be between 0 and 99999999.99");
+    }
+
+    @Test
+    void rejectsInvalidFields() {
+        assertThatThrownBy(() -> row("Idli,4.005,BREAKFAST")).hasMessageContaining("at most two decimals");
+        assertThatThrownBy(() -> row("Idli,forty,BREAKFAST")).hasMessage("Line 2: price 'forty' is not a number.");
+        assertThatThrownBy(() -> row("Idli,40,BRUNCH")).hasMessage("Line 2: unknown category 'BRUNCH'.");
+        assertThatThrownBy(() -> row(",40,BREAKFAST")).hasMessage("Line 2: name is required.");
+        assertThatThrownBy(() -> row("Idli,40")).hasMessage("Line 2: expected 3 fields but found 2.");
+        assertThatThrownBy(() -> row("\"Idli,40,BREAKFAST")).hasMessage("Line 2: unterminated quoted field.");
+        assertThatThrownBy(() -> row("x".repeat(256) + ",40,BREAKFAST")).hasMessage("Line 2: name must be at most 255 characters.");
+    }
+
+    private static MenuItemCsvReader.Row row(String line) {
+        return reader("name,price,category\n" + line + "\n").next();
+    }
+
+    private static MenuItemCsvReader reader(String csv) {
+        return new MenuItemCsvReader(new BufferedReader(new StringReader(csv)));
+    }
+}
@@ -0,0 +1,140 @@
+package com.messmanagement.menu.service;
+
+import com.messmanagement.menu.dto.MenuItemDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Bulk delete, availability and CSV import of menu items on the embedded H2 database.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:menu-bulk;DB_CLOSE_DELAY=-1")
+class MenuServiceBulkTest {
+
+    @Autowired
+    private MenuService menuService;
+
+    @Autowired
+    private MenuItemCatalog menuItemCatalog;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private List<Long> itemIds;
+
+    @BeforeEach
+    void seed() {
+        ReflectionTestUtils.setField(menuService, "importBatchSize", 2);
+        ReflectionTestUtils.setField(menuService, "importMaxRows", 10);
+        ReflectionTestUtils.setField(menuService, "bulkMaxItems", 1000);
+        jdbcTemplate.update("DELETE FROM weekly_menu_config");
+        jdbcTemplate.update("DELETE FROM menu_items");
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (String name : List.of("Idli", "Dosa", "Vada")) {
+            jdbcTemplate.update("INSERT INTO menu_items (name, price, category, is_available, created_at, updated_at) "
+                    + "VALUES (?, ?, 'BREAKFAST', TRUE, ?, ?)", name, new BigDecimal("40.00"), now, now);
+        }
+        itemIds = jdbcTemplate.queryForList("SELECT item_id FROM menu_items ORDER BY item_id", Long.class);
+        for (Long itemId : itemIds) {
+            jdbcTemplate.update("INSERT INTO weekly_menu_config (day_of_week, meal_type, item_id, effective_date_start) "
+                    + "VALUES ('MONDAY', 'BREAKFAST', ?, ?)", itemId, Date.valueOf(LocalDate.of(2025, 1, 6)));
+        }
+        menuItemCatalog.reloadAll();
+    }
+
+    @Test
+    void deletesItemsWithTheirWeeklyConfigurations() {
+        assertThat(menuService.deleteMenuItems(List.of(itemIds.get(0), itemIds.get(1), itemIds.get(1)))).isEqualTo(2);
+
+        assertThat(jdbcTemplate.queryForList("SELECT item_id FROM weekly_menu_config", Long.class)).containsExactly(itemIds.get(2));
+        assertThat(catalogNames()).containsExactly("Vada");
+    }
+
+    @Test
+    void setsAvailabilityOfManyItems() {
+        assertThat(menuService.setMenuItemsAvailability(List.of(itemIds.get(0), itemIds.get(2)), false)).isEqualTo(2);
+
+        assertThat(menuItemCatalog.find(null, false, Pageable.unpaged()).getContent())
+                .extracting(MenuItemDTO::getName).containsExactly("Idli", "Vada");
+    }
+
+    @Test
+    void rejectsEmptyOversizedOrNullIdLists() {
+        ReflectionTestUtils.setField(menuService, "bulkMaxItems", 2);
+
+        assertThatThrownBy(() -> menuService.deleteMenuItems(List.of())).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> menuService.deleteMenuItems(itemIds)).isInstanceOf(IllegalArgumentException.class);
+        List<Long> withNull = new ArrayList<>(Collections.singletonList(null));
+        assertThatThrownBy(() -> menuService.setMenuItemsAvailability(withNull, true)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void importsItemsInBatches() {
+        int imported = menuService.importMenuItems(csv("""
+                name,description,price,category
+                Poha,"Flattened rice, peanuts",35.00,BREAKFAST
+                Thali,,90.00,LUNCH
+                Biryani,Long grain,120.00,LUNCH
+                Kheer,,45.50,SPECIAL
+                Roti,,8,DINNER
+                """));
+
+        assertThat(imported).isEqualTo(5);
+        assertThat(catalogNames()).containsExactly("Idli", "Dosa", "Vada", "Poha", "Thali", "Biryani", "Kheer", "Roti");
+        assertThat(jdbcTemplate.queryForObject("SELECT description FROM menu_items WHERE name = 'Poha'", String.class))
+                .isEqualTo("Flattened rice, peanuts");
+    }
+
+    @Test
+    void invalidLineRejectsTheWholeFile() {
+        // The first two rows are flushed as one batch before the bad line is read
+        assertThatThrownBy(() -> menuService.importMenuItems(csv("""
+                name,price,category
+                Poha,35,BREAKFAST
+                Thali,90,LUNCH
+                Kheer,lots,SPECIAL
+                """))).isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("Line 4:");
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM menu_items", Integer.class)).isEqualTo(3);
+        assertThat(catalogNames()).containsExactly("Idli", "Dosa", "Vada");
+    }
+
+    @Test
+    void rejectsImportsOverTheRowLimit() {
+        StringBuilder csv = new StringBuilder("name,price,category\n");
+        for (int i = 0; i < 11; i++) {
+            csv.append("Item ").append(i).append(",10,SPECIAL\n");
+        }
+
+        assertThatThrownBy(() -> menuService.importMenuItems(csv(csv.toString())))
+                .hasMessage("A CSV import can contain at most 10 menu items.");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM menu_items", Integer.class)).isEqualTo(3);
+    }
+
+    private List<String> catalogNames() {
+        return menuItemCatalog.find(null, null, Pageable.unpaged()).getContent().stream().map(MenuItemDTO::getName).toList();
+    }
+
+    private static InputStream csv(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,105 @@
+package com.messmanagement.menu.service;
+
+import com.messmanagement.menu.dto.MenuItemDTO;
+import com.messmanagement.menu.dto.WeeklyMenuDayMealDTO;
+import com.messmanagement.menu.dto.WeeklyMenuResponseDTO;
+import com.messmanagement.menu.entity.MealType;
+import com.messmanagement.menu.entity.MenuCategory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * ETags and expiry of cached weekly menus.
+ */
+class WeeklyMenuCacheTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2025, 3, 3);
+
+    private WeeklyMenuCache cache;
+    private final AtomicInteger builds = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        cache = new WeeklyMenuCache(Jackson2ObjectMapperBuilder.json().build());
+        ReflectionTestUtils.setField(cache, "maxWeeks", 52);
+        ReflectionTestUtils.setField(cache, "ttlMs", 60_000L);
+    }
+
+    @Test
+    void etagDependsOnlyOnContent() {
+        String fromEnumMaps = cache.etagFor(menu(() -> new EnumMap<>(DayOfWeek.class), () -> new EnumMap<>(MealType.class), "40.00"));
+        String fromHashMaps = cache.etagFor(menu(HashMap::new, HashMap::new, "40.00"));
+        String repriced = cache.etagFor(menu(HashMap::new, HashMap::new, "45.00"));
+
+        assertThat(fromEnumMaps).matches("W/\"[0-9a-f]{64}\"").isEqualTo(fromHashMaps);
+        assertThat(repriced).isNotEqualTo(fromEnumMaps);
+    }
+
+    @Test
+    void weekIsBuiltOnceWhileFresh() {
+        cache.getOrBuild(MONDAY, this::build);
+        cache.getOrBuild(MONDAY, this::build);
+
+        assertThat(builds).hasValue(1);
+    }
+
+    @Test
+    void expiredWeekIsRebuilt() {
+        ReflectionTestUtils.setField(cache, "ttlMs", 0L);
+
+        cache.getOrBuild(MONDAY, this::build);
+        cache.getOrBuild(MONDAY, this::build);
+
+        assertThat(builds).hasValue(2);
+    }
+
+    @Test
+    void invalidationDropsOnlyAffectedWeeks() {
+        cache.getOrBuild(MONDAY, this::build);
+        cache.getOrBuild(MONDAY.plusWeeks(1), this::build);
+
+        cache.invalidateRange(MONDAY.plusDays(8), MONDAY.plusDays(9));
+        cache.getOrBuild(MONDAY, this::build);
+        cache.getOrBuild(MONDAY.plusWeeks(1), this::build);
+        assertThat(builds).hasValue(3);
+
+        cache.invalidateItem(11L);
+        cache.getOrBuild(MONDAY, this::build);
+        assertThat(builds).hasValue(4);
+    }
+
+    private WeeklyMenuResponseDTO build(LocalDate monday) {
+        builds.incrementAndGet();
+        return menu(() -> new EnumMap<>(DayOfWeek.class), () -> new EnumMap<>(MealType.class), "40.00");
+    }
+
+    private static WeeklyMenuResponseDTO menu(Supplier<Map<DayOfWeek, Map<MealType, WeeklyMenuDayMealDTO>>> days,
+                                              Supplier<Map<MealType, WeeklyMenuDayMealDTO>> meals, String price) {
+        MenuItemDTO idli = new MenuItemDTO(11L, "Idli", "Steamed", new BigDecimal(price), MenuCategory.BREAKFAST, null, true,
+                LocalDateTime.of(2025, 1, 1, 9, 0), LocalDateTime.of(2025, 1, 1, 9, 0));
+        Map<DayOfWeek, Map<MealType, WeeklyMenuDayMealDTO>> dailyMenus = days.get();
+        for (DayOfWeek day : DayOfWeek.values()) {
+            Map<MealType, WeeklyMenuDayMealDTO> dayMeals = meals.get();
+            for (MealType mealType : MealType.values()) {
+                dayMeals.put(mealType, new WeeklyMenuDayMealDTO(mealType == MealType.BREAKFAST ? List.of(idli) : List.of()));
+            }
+            dailyMenus.put(day, dayMeals);
+        }
+        return new WeeklyMenuResponseDTO(dailyMenus, MONDAY, MONDAY.plusDays(6));
+    }
+}
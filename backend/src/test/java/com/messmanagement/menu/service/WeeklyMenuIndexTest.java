@@ -0,0 +1,138 @@
+package com.messmanagement.menu.service;
+
+import com.messmanagement.menu.dto.WeeklyMenuConfigView;
+import com.messmanagement.menu.entity.MealType;
+import com.messmanagement.menu.repository.WeeklyMenuRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * The in-memory interval index over weekly menu configurations.
+ */
+class WeeklyMenuIndexTest {
+
+    static final LocalDate MONDAY = LocalDate.of(2025, 3, 3);
+
+    private final WeeklyMenuRepository weeklyMenuRepository = mock(WeeklyMenuRepository.class);
+    private final WeeklyMenuCache weeklyMenuCache = mock(WeeklyMenuCache.class);
+    private WeeklyMenuIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new WeeklyMenuIndex(weeklyMenuRepository, weeklyMenuCache, mock(PlatformTransactionManager.class));
+    }
+
+    @Test
+    void answersFromTheTimelineOfEachSlot() {
+        when(weeklyMenuRepository.findAllViews()).thenReturn(List.of(
+                config(1L, DayOfWeek.MONDAY, MealType.LUNCH, 10L, MONDAY, MONDAY.plusDays(7)),
+                config(2L, DayOfWeek.MONDAY, MealType.LUNCH, 11L, MONDAY.plusDays(7), null),
+                config(3L, DayOfWeek.MONDAY, MealType.LUNCH, 12L, MONDAY.minusDays(7), MONDAY.minusDays(7)),
+                config(4L, DayOfWeek.MONDAY, MealType.LUNCH, 13L, MONDAY, MONDAY.minusDays(1)), // Ends before it starts
+                config(5L, DayOfWeek.MONDAY, MealType.DINNER, 14L, MONDAY, null)));
+
+        index.reloadAll();
+
+        assertThat(index.itemIdsOn(MONDAY.minusDays(14), MealType.LUNCH)).isEmpty();
+        assertThat(index.itemIdsOn(MONDAY.minusDays(7), MealType.LUNCH)).containsExactly(12L);
+        assertThat(index.itemIdsOn(MONDAY, MealType.LUNCH)).containsExactly(10L);
+        assertThat(index.itemIdsOn(MONDAY.plusDays(7), MealType.LUNCH)).containsExactly(10L, 11L);
+        assertThat(index.itemIdsOn(MONDAY.plusDays(70), MealType.LUNCH)).containsExactly(11L);
+        assertThat(index.itemIdsOn(MONDAY.plusDays(1), MealType.LUNCH)).isEmpty(); // A Tuesday
+        assertThat(index.itemIdsOn(MONDAY, MealType.DINNER)).containsExactly(14L);
+        assertThat(index.itemIdsOn(MONDAY, MealType.BREAKFAST)).isEmpty();
+    }
+
+    @Test
+    void isUnusableUntilTheFirstLoad() {
+        assertThat(index.isLoaded()).isFalse();
+        assertThatThrownBy(() -> index.itemIdsOn(MONDAY, MealType.LUNCH)).isInstanceOf(IllegalStateException.class);
+
+        // Writes before the first load are left to it
+        index.refreshSlots(Set.of(new WeeklyMenuIndex.Slot(DayOfWeek.MONDAY, MealType.LUNCH)));
+        verify(weeklyMenuRepository, never()).findViewsForSlots(any(), any());
+
+        when(weeklyMenuRepository.findAllViews()).thenReturn(List.of());
+        index.reloadAll();
+        assertThat(index.isLoaded()).isTrue();
+        assertThat(index.itemIdsOn(MONDAY, MealType.LUNCH)).isEmpty();
+    }
+
+    @Test
+    void refreshesOnlyTheGivenSlots() {
+        when(weeklyMenuRepository.findAllViews()).thenReturn(List.of(
+                config(1L, DayOfWeek.MONDAY, MealType.LUNCH, 10L, MONDAY, null),
+                config(2L, DayOfWeek.MONDAY, MealType.DINNER, 11L, MONDAY, null),
+                config(3L, DayOfWeek.TUESDAY, MealType.LUNCH, 12L, MONDAY, null)));
+        index.reloadAll();
+        // The query covers Monday and Tuesday lunches and dinners; only the two named slots are taken from it
+        when(weeklyMenuRepository.findViewsForSlots(any(), any())).thenReturn(List.of(
+                config(2L, DayOfWeek.MONDAY, MealType.DINNER, 11L, MONDAY, null),
+                config(3L, DayOfWeek.TUESDAY, MealType.LUNCH, 12L, MONDAY, null),
+                config(4L, DayOfWeek.TUESDAY, MealType.LUNCH, 13L, MONDAY, null)));
+
+        index.refreshSlots(Set.of(
+                new WeeklyMenuIndex.Slot(DayOfWeek.MONDAY, MealType.LUNCH),
+                new WeeklyMenuIndex.Slot(DayOfWeek.TUESDAY, MealType.LUNCH)));
+
+        assertThat(index.itemIdsOn(MONDAY, MealType.LUNCH)).isEmpty();
+        assertThat(index.itemIdsOn(MONDAY, MealType.DINNER)).containsExactly(11L);
+        assertThat(index.itemIdsOn(MONDAY.plusDays(1), MealType.LUNCH)).containsExactly(12L, 13L);
+        verify(weeklyMenuCache, never()).invalidateRange(any(), any());
+    }
+
+    @Test
+    void removesItemsWithoutReadingTheTable() {
+        when(weeklyMenuRepository.findAllViews()).thenReturn(List.of(
+                config(1L, DayOfWeek.MONDAY, MealType.LUNCH, 10L, MONDAY, null),
+                config(2L, DayOfWeek.MONDAY, MealType.LUNCH, 11L, MONDAY, null),
+                config(3L, DayOfWeek.MONDAY, MealType.DINNER, 10L, MONDAY, null)));
+        index.reloadAll();
+
+        index.removeItems(List.of(10L));
+
+        assertThat(index.itemIdsOn(MONDAY, MealType.LUNCH)).containsExactly(11L);
+        assertThat(index.itemIdsOn(MONDAY, MealType.DINNER)).isEmpty();
+        verify(weeklyMenuRepository).findAllViews();
+        verify(weeklyMenuRepository, never()).findViewsForSlots(any(), any());
+    }
+
+    @Test
+    void scheduledReloadDropsCachedWeeksOfChangedConfigurations() {
+        WeeklyMenuConfigView kept = config(1L, DayOfWeek.MONDAY, MealType.LUNCH, 10L, MONDAY, null);
+        WeeklyMenuConfigView ended = config(2L, DayOfWeek.TUESDAY, MealType.LUNCH, 11L, MONDAY, null);
+        when(weeklyMenuRepository.findAllViews()).thenReturn(List.of(kept, ended));
+        index.reloadAll();
+        verify(weeklyMenuCache, never()).invalidateRange(any(), any());
+
+        // Another instance end-dated configuration 2 and added configuration 3
+        WeeklyMenuConfigView endedNow = config(2L, DayOfWeek.TUESDAY, MealType.LUNCH, 11L, MONDAY, MONDAY.plusDays(13));
+        WeeklyMenuConfigView added = config(3L, DayOfWeek.TUESDAY, MealType.LUNCH, 12L, MONDAY.plusDays(15), null);
+        when(weeklyMenuRepository.findAllViews()).thenReturn(List.of(kept, endedNow, added));
+        index.reloadAll();
+
+        verify(weeklyMenuCache).invalidateRange(MONDAY, null);                 // Configuration 2 as it was
+        verify(weeklyMenuCache).invalidateRange(MONDAY, MONDAY.plusDays(13));  // ... and as it is now
+        verify(weeklyMenuCache).invalidateRange(MONDAY.plusDays(15), null);    // Configuration 3
+        verifyNoMoreInteractions(weeklyMenuCache);
+    }
+
+    static WeeklyMenuConfigView config(Long menuConfigId, DayOfWeek day, MealType mealType, Long itemId, LocalDate start, LocalDate end) {
+        return new WeeklyMenuConfigView(menuConfigId, day, mealType, itemId, start, end);
+    }
+}
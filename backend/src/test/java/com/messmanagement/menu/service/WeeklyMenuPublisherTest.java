@@ -0,0 +1,132 @@
+package com.messmanagement.menu.service;
+
+import com.messmanagement.common.exception.ResourceNotFoundException;
+import com.messmanagement.menu.dto.WeeklyMenuItemEntryDTO;
+import com.messmanagement.menu.entity.MealType;
+import com.messmanagement.menu.service.WeeklyMenuIndex.Slot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Publishing weekly menus as a diff against the stored configurations, on the embedded H2 database.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:weekly-menu-publisher;DB_CLOSE_DELAY=-1")
+class WeeklyMenuPublisherTest {
+
+    private static final LocalDate JAN_6 = LocalDate.of(2025, 1, 6);
+    private static final LocalDate FEB_3 = LocalDate.of(2025, 2, 3);
+    private static final LocalDate MAR_3 = LocalDate.of(2025, 3, 3);
+
+    @Autowired
+    private WeeklyMenuPublisher publisher;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private List<Long> items;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("DELETE FROM weekly_menu_config");
+        jdbcTemplate.update("DELETE FROM menu_items");
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (String name : List.of("Idli", "Dosa", "Poha")) {
+            jdbcTemplate.update("INSERT INTO menu_items (name, price, category, is_available, created_at, updated_at) "
+                    + "VALUES (?, ?, 'BREAKFAST', TRUE, ?, ?)", name, new BigDecimal("40.00"), now, now);
+        }
+        items = jdbcTemplate.queryForList("SELECT item_id FROM menu_items ORDER BY item_id", Long.class);
+    }
+
+    @Test
+    void republishingTheSameMenuChangesNothing() {
+        List<WeeklyMenuItemEntryDTO> menu = List.of(entry(items.get(0), JAN_6, null), entry(items.get(1), JAN_6, null));
+
+        assertThat(publish(menu)).isEqualTo(new WeeklyMenuPublisher.Result(2, 0, 0, JAN_6,
+                Set.of(new Slot(DayOfWeek.MONDAY, MealType.BREAKFAST))));
+        WeeklyMenuPublisher.Result again = publish(menu);
+
+        assertThat(List.of(again.inserted(), again.updated(), again.deleted())).containsExactly(0, 0, 0);
+        assertThat(configs()).containsExactly(items.get(0) + " 2025-01-06..", items.get(1) + " 2025-01-06..");
+    }
+
+    @Test
+    void laterPublicationEndsRunningItemsAndReplacesTheSameStart() {
+        publish(List.of(entry(items.get(0), JAN_6, null), entry(items.get(1), JAN_6, null)));
+
+        // From February only Poha; then the February list is corrected to Dosa and Poha
+        publish(List.of(entry(items.get(2), FEB_3, null)));
+        WeeklyMenuPublisher.Result corrected = publish(List.of(entry(items.get(1), FEB_3, null), entry(items.get(2), FEB_3, null)));
+
+        assertThat(List.of(corrected.inserted(), corrected.updated(), corrected.deleted())).containsExactly(1, 0, 0);
+        assertThat(configs()).containsExactly(
+                items.get(0) + " 2025-01-06..2025-02-02",
+                items.get(1) + " 2025-01-06..2025-02-02",
+                items.get(1) + " 2025-02-03..",
+                items.get(2) + " 2025-02-03..");
+
+        WeeklyMenuPublisher.Result dropped = publish(List.of(entry(items.get(2), FEB_3, null)));
+        assertThat(dropped.deleted()).isEqualTo(1);
+    }
+
+    @Test
+    void backdatedPublicationStopsBeforeTheNextOne() {
+        publish(List.of(entry(items.get(0), MAR_3, null)));
+
+        publish(List.of(entry(items.get(1), FEB_3, null)));
+
+        assertThat(configs()).containsExactly(items.get(1) + " 2025-02-03..2025-03-02", items.get(0) + " 2025-03-03..");
+    }
+
+    @Test
+    void rejectsInvalidRequestsWithoutWritingAnything() {
+        publish(List.of(entry(items.get(0), JAN_6, null)));
+
+        assertThatThrownBy(() -> publish(List.of())).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> publish(List.of(entry(items.get(1), FEB_3, JAN_6)))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> publish(List.of(entry(items.get(1), FEB_3, null), entry(items.get(1), FEB_3, null))))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> publish(List.of(entry(items.get(1), FEB_3, null), entry(-1L, FEB_3, null))))
+                .isInstanceOf(ResourceNotFoundException.class);
+
+        assertThat(configs()).containsExactly(items.get(0) + " 2025-01-06..");
+    }
+
+    private WeeklyMenuPublisher.Result publish(List<WeeklyMenuItemEntryDTO> entries) {
+        return transactionTemplate.execute(status -> publisher.publish(entries));
+    }
+
+    private List<String> configs() {
+        return jdbcTemplate.query("SELECT item_id, effective_date_start, effective_date_end FROM weekly_menu_config "
+                        + "ORDER BY effective_date_start, item_id",
+                (row, i) -> row.getLong("item_id") + " " + row.getDate("effective_date_start") + ".."
+                        + (row.getDate("effective_date_end") != null ? row.getDate("effective_date_end") : ""));
+    }
+
+    private static WeeklyMenuItemEntryDTO entry(Long itemId, LocalDate start, LocalDate end) {
+        WeeklyMenuItemEntryDTO entry = new WeeklyMenuItemEntryDTO();
+        entry.setItemId(itemId);
+        entry.setDayOfWeek(DayOfWeek.MONDAY);
+        entry.setMealType(MealType.BREAKFAST);
+        entry.setEffectiveDateStart(start);
+        entry.setEffectiveDateEnd(end);
+        return entry;
+    }
+}
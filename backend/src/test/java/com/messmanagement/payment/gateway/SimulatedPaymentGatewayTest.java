@@ -0,0 +1,120 @@
+package com.messmanagement.payment.gateway;
+
+import com.messmanagement.payment.gateway.PaymentGateway.CheckoutMode;
+import com.messmanagement.payment.gateway.PaymentGateway.CheckoutSessionRequest;
+import com.messmanagement.payment.gateway.PaymentGateway.CustomerPage;
+import com.messmanagement.payment.gateway.PaymentGateway.GatewayCustomer;
+import com.stripe.exception.ApiConnectionException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The in-process Stripe simulator, including its signed webhooks through the real controller and inbox.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:payment-simulator;DB_CLOSE_DELAY=-1",
+        "mess.payment.gateway=simulator",
+        "mess.payment.simulator.latency-ms=0",
+        "mess.payment.simulator.latency-jitter-ms=0",
+        "mess.payment.simulator.webhook-delay-ms=0"})
+class SimulatedPaymentGatewayTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SimulatedPaymentGateway gateway;
+
+    private long userId;
+
+    @BeforeEach
+    void seed() {
+        ReflectionTestUtils.setField(gateway, "failureRate", 0.0);
+        ReflectionTestUtils.setField(gateway, "duplicateRate", 0.0);
+        jdbcTemplate.update("DELETE FROM stripe_webhook_events");
+        jdbcTemplate.update("DELETE FROM revenue_ledger_entries");
+        jdbcTemplate.update("DELETE FROM revenue_daily_rollups");
+        jdbcTemplate.update("DELETE FROM subscriptions");
+        jdbcTemplate.update("DELETE FROM users WHERE email = 'simulator@test.local'");
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("INSERT INTO users (name, mobile_no, email, address, password_hash, role, created_at, updated_at) "
+                + "VALUES ('Simulator', '7600000001', 'simulator@test.local', 'Block A', 'x', 'STUDENT', ?, ?)", now, now);
+        userId = jdbcTemplate.queryForObject("SELECT user_id FROM users WHERE email = 'simulator@test.local'", Long.class);
+    }
+
+    @Test
+    void createsEachCustomerOncePerIdempotencyKeyAndListsNewestFirst() throws Exception {
+        String first = gateway.createCustomer("A", "a@test.local", Map.of("app_user_id", "1"), "customer-a");
+        assertThat(gateway.createCustomer("A", "a@test.local", Map.of("app_user_id", "1"), "customer-a")).isEqualTo(first);
+        String second = gateway.createCustomer("B", "b@test.local", Map.of("app_user_id", "2"), "customer-b");
+        String third = gateway.createCustomer("C", "c@test.local", Map.of(), "customer-c");
+
+        // Other tests in this class may have created customers earlier, so only the newest are checked
+        CustomerPage page = gateway.listCustomers(null, 2);
+        assertThat(page.customers()).containsExactly(new GatewayCustomer(third, null), new GatewayCustomer(second, "2"));
+        assertThat(page.hasMore()).isTrue();
+        assertThat(gateway.listCustomers(second, 1).customers()).containsExactly(new GatewayCustomer(first, "1"));
+    }
+
+    @Test
+    void failsCallsAtTheConfiguredRate() {
+        ReflectionTestUtils.setField(gateway, "failureRate", 1.0);
+
+        assertThatThrownBy(() -> gateway.createCustomer("A", "a@test.local", Map.of(), "customer-failing"))
+                .isInstanceOf(ApiConnectionException.class);
+    }
+
+    @Test
+    void completedSubscriptionCheckoutActivatesThePendingSubscription() throws Exception {
+        ReflectionTestUtils.setField(gateway, "duplicateRate", 1.0);
+        long subscriptionId = insertPendingSubscription();
+
+        gateway.createCheckoutSession(new CheckoutSessionRequest(CheckoutMode.SUBSCRIPTION, "cus_sim_test", "price_test", null, 0, 1,
+                "inr", Map.of("app_user_id", Long.toString(userId), "app_subscription_id", Long.toString(subscriptionId)),
+                "http://localhost/success", "http://localhost/cancel"));
+
+        awaitTrue(() -> "ACTIVE".equals(jdbcTemplate.queryForObject(
+                "SELECT status FROM subscriptions WHERE subscription_id = ?", String.class, subscriptionId)));
+        assertThat(jdbcTemplate.queryForObject("SELECT amount_paid FROM subscriptions WHERE subscription_id = ?", BigDecimal.class, subscriptionId))
+                .isEqualByComparingTo("3500.00");
+        // Every event was delivered twice but stored once
+        assertThat(jdbcTemplate.queryForList("SELECT event_type FROM stripe_webhook_events ORDER BY event_type", String.class))
+                .containsExactly("checkout.session.completed", "invoice.paid");
+    }
+
+    private long insertPendingSubscription() {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("INSERT INTO subscriptions (user_id, start_date, end_date, status, amount_paid, created_at, updated_at) "
+                + "VALUES (?, ?, ?, 'PENDING', ?, ?, ?)", userId, Date.valueOf(LocalDate.now()),
+                Date.valueOf(LocalDate.now().plusMonths(1)), BigDecimal.ZERO, now, now);
+        return jdbcTemplate.queryForObject("SELECT subscription_id FROM subscriptions WHERE user_id = ?", Long.class, userId);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met within 10s").isLessThan(deadline);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.messmanagement.payment.service;
+
+import com.stripe.exception.ApiConnectionException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Timing of outbound Stripe calls by operation and outcome.
+ */
+class StripeApiMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final StripeApiMetrics metrics = new StripeApiMetrics(registry);
+
+    @Test
+    void timesSuccessfulCalls() throws Exception {
+        assertThat(metrics.time("customers.create", () -> "cus_1")).isEqualTo("cus_1");
+
+        assertThat(registry.get("stripe.api.calls").tags("operation", "customers.create", "outcome", "success").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void tagsFailuresWithTheExceptionType() {
+        assertThatThrownBy(() -> metrics.time("customers.create", () -> {
+            throw new ApiConnectionException("timed out");
+        })).isInstanceOf(ApiConnectionException.class);
+
+        assertThat(registry.get("stripe.api.calls").tags("operation", "customers.create", "outcome", "ApiConnectionException").timer().count())
+                .isEqualTo(1);
+    }
+}
@@ -0,0 +1,173 @@
+package com.messmanagement.payment.service;
+
+import com.messmanagement.common.exception.PaymentGatewayUnavailableException;
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.ApiException;
+import com.stripe.exception.InvalidRequestException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Deadlines, pool limits and the circuit breaker around Stripe calls.
+ */
+class StripeCallGuardTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final StripeCallGuard guard = guard(2, 2);
+
+    @AfterEach
+    void shutdown() {
+        guard.shutdown();
+    }
+
+    @Test
+    void returnsResultsAndRethrowsClientErrors() throws Exception {
+        assertThat(guard.call("customers.create", () -> "cus_1")).isEqualTo("cus_1");
+
+        InvalidRequestException invalidPrice = new InvalidRequestException("No such price", "price", null, null, 400, null);
+        assertThatThrownBy(() -> guard.call("checkout.session.create", () -> {
+            throw invalidPrice;
+        })).isSameAs(invalidPrice);
+        assertThat(guard.isOpen()).isFalse();
+    }
+
+    @Test
+    void opensAfterConsecutiveOutagesAndStopsCallingStripe() {
+        AtomicInteger attempts = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> guard.call("customers.create", () -> {
+                attempts.incrementAndGet();
+                throw new ApiException("Service unavailable", null, null, 503, null);
+            })).isInstanceOf(ApiException.class);
+        }
+        assertThat(guard.isOpen()).isTrue();
+        assertThat(registry.get("stripe.api.circuit.open").gauge().value()).isEqualTo(1);
+
+        assertThatThrownBy(() -> guard.call("customers.create", () -> {
+            attempts.incrementAndGet();
+            return "cus_1";
+        })).isInstanceOf(PaymentGatewayUnavailableException.class);
+        assertThat(attempts).hasValue(3);
+        assertThat(rejected("customers.create", "circuit_open")).isEqualTo(1);
+    }
+
+    @Test
+    void clientErrorsResetTheFailureCount() {
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> guard.call("customers.create", () -> {
+                throw new ApiConnectionException("Connection refused");
+            })).isInstanceOf(ApiConnectionException.class);
+            assertThatThrownBy(() -> guard.call("customers.create", () -> {
+                throw new InvalidRequestException("Missing email", "email", null, null, 400, null);
+            })).isInstanceOf(InvalidRequestException.class);
+        }
+        assertThat(guard.isOpen()).isFalse();
+    }
+
+    @Test
+    void trialCallAfterOpenPeriodClosesOrReopensTheCircuit() throws Exception {
+        ReflectionTestUtils.setField(guard, "openMs", 50L);
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> guard.call("customers.create", () -> {
+                throw new ApiConnectionException("Connection refused");
+            })).isInstanceOf(ApiConnectionException.class);
+        }
+
+        Thread.sleep(100);
+        assertThatThrownBy(() -> guard.call("customers.create", () -> {
+            throw new ApiConnectionException("Connection refused");
+        })).isInstanceOf(ApiConnectionException.class);
+        assertThat(guard.isOpen()).isTrue(); // One failed trial re-opens it
+
+        Thread.sleep(100);
+        assertThat(guard.call("customers.create", () -> "cus_1")).isEqualTo("cus_1");
+        assertThat(guard.isOpen()).isFalse();
+    }
+
+    @Test
+    void abandonsCallsThatOutliveTheTimeout() {
+        ReflectionTestUtils.setField(guard, "callTimeoutMs", 50L);
+
+        assertThatThrownBy(() -> guard.call("customers.search", () -> {
+            LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(5)); // Cut short when the guard interrupts it
+            return "cus_1";
+        })).isInstanceOf(PaymentGatewayUnavailableException.class);
+        assertThat(rejected("customers.search", "timeout")).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsCallsWhenPoolAndQueueAreFull() throws Exception {
+        StripeCallGuard small = guard(1, 1);
+        CompletableFuture<Void> release = new CompletableFuture<>();
+        // Own threads for the two callers; the common pool may not start both while the machine is busy
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            StripeApiMetrics.StripeCall<String> blocked = () -> {
+                release.join();
+                return "ok";
+            };
+            Future<String> running = callers.submit(() -> callUnchecked(small, blocked));
+            awaitQueueLength(small, 0); // The first call holds the only thread
+            Future<String> queued = callers.submit(() -> callUnchecked(small, blocked));
+            awaitQueueLength(small, 1);
+
+            assertThatThrownBy(() -> small.call("customers.create", () -> "cus_1"))
+                    .isInstanceOf(PaymentGatewayUnavailableException.class);
+            assertThat(rejected("customers.create", "busy")).isEqualTo(1);
+
+            release.complete(null);
+            assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("ok");
+            assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("ok");
+            assertThat(small.isOpen()).isFalse(); // A full pool is not an outage
+        } finally {
+            release.complete(null);
+            small.shutdown();
+            callers.shutdownNow();
+        }
+    }
+
+    private static void awaitQueueLength(StripeCallGuard small, int length) throws InterruptedException {
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(small, "executor");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (executor.getActiveCount() < 1 || executor.getQueue().size() < length) {
+            assertThat(System.nanoTime()).as("blocked calls not in the pool within 5s").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private StripeCallGuard guard(int maxConcurrentCalls, int queueCapacity) {
+        StripeCallGuard guard = new StripeCallGuard(new StripeApiMetrics(registry), registry, maxConcurrentCalls, queueCapacity);
+        ReflectionTestUtils.setField(guard, "callTimeoutMs", 5_000L);
+        ReflectionTestUtils.setField(guard, "failureThreshold", 3);
+        ReflectionTestUtils.setField(guard, "openMs", 60_000L);
+        return guard;
+    }
+
+    private static String callUnchecked(StripeCallGuard guard, StripeApiMetrics.StripeCall<String> call) {
+        try {
+            return guard.call("customers.list", call);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private double rejected(String operation, String reason) {
+        Counter counter = registry.find("stripe.api.rejected").tags("operation", operation, "reason", reason).counter();
+        return counter != null ? counter.count() : 0;
+    }
+}
@@ -0,0 +1,112 @@
+package com.messmanagement.payment.service;
+
+import com.messmanagement.payment.gateway.PaymentGateway;
+import com.messmanagement.payment.gateway.PaymentGateway.CustomerPage;
+import com.messmanagement.payment.gateway.PaymentGateway.GatewayCustomer;
+import com.messmanagement.payment.repository.StripeCustomerBackfillRepository;
+import com.messmanagement.user.repository.UserRepository;
+import com.stripe.exception.ApiConnectionException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Resuming and finishing the Stripe customer backfill on the embedded H2 database.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:stripe-customer-backfill;DB_CLOSE_DELAY=-1")
+class StripeCustomerBackfillJobTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private StripeCallGuard stripeCallGuard;
+
+    @Autowired
+    private StripeCustomerStore stripeCustomerStore;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private StripeCustomerBackfillRepository backfillRepository;
+
+    private final PaymentGateway paymentGateway = mock(PaymentGateway.class);
+    private StripeCustomerBackfillJob job;
+    private List<Long> userIds;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("DELETE FROM users WHERE email LIKE 'backfill-%'");
+        jdbcTemplate.update("UPDATE stripe_customer_backfill SET starting_after = NULL, completed_at = NULL");
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (int i = 0; i < 3; i++) {
+            jdbcTemplate.update("INSERT INTO users (name, mobile_no, email, address, password_hash, role, created_at, updated_at) "
+                    + "VALUES (?, ?, ?, 'Block A', 'x', 'STUDENT', ?, ?)", "Backfill " + i, "75000000" + i + "0", "backfill-" + i + "@test.local", now, now);
+        }
+        userIds = jdbcTemplate.queryForList("SELECT user_id FROM users WHERE email LIKE 'backfill-%' ORDER BY user_id", Long.class);
+
+        job = new StripeCustomerBackfillJob(paymentGateway, stripeCallGuard, stripeCustomerStore, userRepository, backfillRepository);
+        ReflectionTestUtils.setField(job, "enabled", true);
+        ReflectionTestUtils.setField(job, "pageSize", 2L);
+    }
+
+    @Test
+    void resumesAfterTheLastStoredPageAndStopsAfterOneFullPass() throws Exception {
+        when(paymentGateway.listCustomers(isNull(), anyLong())).thenReturn(new CustomerPage(List.of(
+                new GatewayCustomer("cus_backfill_0", userIds.get(0).toString()),
+                new GatewayCustomer("cus_backfill_other", null)), true));
+        when(paymentGateway.listCustomers(eq("cus_backfill_other"), anyLong()))
+                .thenThrow(new ApiConnectionException("Connection reset"))
+                .thenReturn(new CustomerPage(List.of(new GatewayCustomer("cus_backfill_1", userIds.get(1).toString())), false));
+
+        assertThat(job.backfillCustomerIds()).isEqualTo(1);
+        assertThat(progress()).isEqualTo("cus_backfill_other/running");
+
+        assertThat(job.backfillCustomerIds()).isEqualTo(1);
+        verify(paymentGateway).listCustomers(isNull(), anyLong()); // Only by the first run
+        assertThat(progress()).isEqualTo("cus_backfill_1/complete");
+        assertThat(customerIds()).containsExactly("cus_backfill_0", "cus_backfill_1", null);
+
+        // The third student never had a customer; that alone must not start another pass
+        assertThat(job.backfillCustomerIds()).isZero();
+        verify(paymentGateway, never()).listCustomers(eq("cus_backfill_1"), anyLong());
+    }
+
+    @Test
+    void finishesOnAnEmptyAccount() throws Exception {
+        when(paymentGateway.listCustomers(any(), anyLong())).thenReturn(new CustomerPage(List.of(), false));
+
+        assertThat(job.backfillCustomerIds()).isZero();
+        assertThat(job.backfillCustomerIds()).isZero();
+
+        verify(paymentGateway).listCustomers(any(), anyLong());
+        assertThat(progress()).isEqualTo("null/complete");
+    }
+
+    private String progress() {
+        return jdbcTemplate.queryForObject("SELECT starting_after, completed_at FROM stripe_customer_backfill WHERE backfill_id = 1",
+                (row, i) -> row.getString("starting_after") + "/" + (row.getTimestamp("completed_at") != null ? "complete" : "running"));
+    }
+
+    private List<String> customerIds() {
+        return jdbcTemplate.queryForList("SELECT stripe_customer_id FROM users WHERE email LIKE 'backfill-%' ORDER BY user_id", String.class);
+    }
+}
@@ -0,0 +1,131 @@
+package com.messmanagement.payment.service;
+
+import com.stripe.Stripe;
+import com.stripe.model.Event;
+import com.stripe.net.ApiResource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Webhook events applied through the inbox on the embedded H2 database.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:stripe-webhook-inbox;DB_CLOSE_DELAY=-1",
+        "mess.stripe.webhook.poll.initial-delay-ms=3600000"})
+class StripeWebhookInboxTest {
+
+    private static final String STRIPE_SUBSCRIPTION_ID = "sub_inbox_1";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private StripeWebhookInbox inbox;
+
+    private long subscriptionId;
+
+    @BeforeEach
+    void seed() {
+        ReflectionTestUtils.setField(inbox, "retryInitialDelayMs", 0L);
+        jdbcTemplate.update("DELETE FROM stripe_webhook_events");
+        jdbcTemplate.update("DELETE FROM revenue_ledger_entries");
+        jdbcTemplate.update("DELETE FROM revenue_daily_rollups");
+        jdbcTemplate.update("DELETE FROM subscriptions");
+        jdbcTemplate.update("DELETE FROM users WHERE email = 'inbox@test.local'");
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("INSERT INTO users (name, mobile_no, email, address, password_hash, role, created_at, updated_at) "
+                + "VALUES ('Inbox', '7400000001', 'inbox@test.local', 'Block A', 'x', 'STUDENT', ?, ?)", now, now);
+        long userId = jdbcTemplate.queryForObject("SELECT user_id FROM users WHERE email = 'inbox@test.local'", Long.class);
+        jdbcTemplate.update("INSERT INTO subscriptions (user_id, start_date, end_date, status, amount_paid, created_at, updated_at) "
+                + "VALUES (?, ?, ?, 'PENDING', ?, ?, ?)", userId, Date.valueOf(LocalDate.now()),
+                Date.valueOf(LocalDate.now().plusMonths(1)), new BigDecimal("3500.00"), now, now);
+        subscriptionId = jdbcTemplate.queryForObject("SELECT subscription_id FROM subscriptions WHERE user_id = ?", Long.class, userId);
+    }
+
+    @Test
+    void invoicePaidBeforeCheckoutCompletedActivatesOnceLinked() {
+        long created = Instant.now().getEpochSecond();
+        receive(invoicePaid("evt_inbox_invoice", created));
+        awaitTrue(() -> attempts("evt_inbox_invoice") == 1);
+        assertThat(status("evt_inbox_invoice")).isEqualTo("PENDING");
+
+        // Sent a second later, so the failed invoice is still ahead of it for the same subscription
+        receive(checkoutCompleted("evt_inbox_checkout", created + 1));
+        awaitTrue(() -> "PROCESSED".equals(status("evt_inbox_checkout")));
+
+        inbox.pollDueEvents();
+        awaitTrue(() -> "PROCESSED".equals(status("evt_inbox_invoice")));
+        assertThat(jdbcTemplate.queryForObject("SELECT status FROM subscriptions WHERE subscription_id = ?", String.class, subscriptionId))
+                .isEqualTo("ACTIVE");
+        assertThat(jdbcTemplate.queryForObject("SELECT stripe_subscription_id FROM subscriptions WHERE subscription_id = ?",
+                String.class, subscriptionId)).isEqualTo(STRIPE_SUBSCRIPTION_ID);
+    }
+
+    private void receive(String payload) {
+        Event event = ApiResource.GSON.fromJson(payload, Event.class);
+        String orderingKey = StripeWebhookEventHandler.orderingKey(event, StripeWebhookEventHandler.dataObject(event).orElseThrow());
+        assertThat(inbox.receive(event, payload, orderingKey)).isTrue();
+    }
+
+    private String status(String eventId) {
+        return jdbcTemplate.queryForObject("SELECT status FROM stripe_webhook_events WHERE event_id = ?", String.class, eventId);
+    }
+
+    private int attempts(String eventId) {
+        return jdbcTemplate.queryForObject("SELECT attempts FROM stripe_webhook_events WHERE event_id = ?", Integer.class, eventId);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met within 10s").isLessThan(deadline);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+
+    private String checkoutCompleted(String eventId, long created) {
+        return event(eventId, created, "checkout.session.completed", """
+                {"id": "cs_inbox_1", "object": "checkout.session", "mode": "subscription",
+                 "subscription": "%s", "metadata": {"app_subscription_id": "%d"}}
+                """.formatted(STRIPE_SUBSCRIPTION_ID, subscriptionId));
+    }
+
+    private static String invoicePaid(String eventId, long created) {
+        LocalDate today = LocalDate.now();
+        return event(eventId, created, "invoice.paid", """
+                {"id": "in_%s", "object": "invoice", "subscription": "%s", "customer": "cus_inbox_1",
+                 "payment_intent": "pi_%s", "amount_paid": 350000, "period_start": %d, "period_end": %d}
+                """.formatted(eventId, STRIPE_SUBSCRIPTION_ID, eventId, epochSecond(today), epochSecond(today.plusMonths(1))));
+    }
+
+    private static String event(String eventId, long created, String type, String dataObject) {
+        return """
+                {"id": "%s", "object": "event", "api_version": "%s", "created": %d, "type": "%s",
+                 "data": {"object": %s}}
+                """.formatted(eventId, Stripe.API_VERSION, created, type, dataObject);
+    }
+
+    private static long epochSecond(LocalDate date) {
+        return date.atStartOfDay(ZoneId.systemDefault()).toEpochSecond();
+    }
+}
@@ -0,0 +1,80 @@
+package com.messmanagement.report.service;
+
+import com.messmanagement.menu.entity.MealType;
+import com.messmanagement.report.dto.DailyMealCountDTO;
+import com.messmanagement.report.dto.MealCountBreakdownDTO;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Seeding and counting of the in-memory headcount, in particular at the start of a day.
+ */
+class LiveHeadcountServiceTest {
+
+    private final MealCountRollupService rollupService = mock(MealCountRollupService.class);
+    private final LiveHeadcountService service = new LiveHeadcountService(rollupService);
+    private final LocalDate today = LocalDate.now();
+
+    @Test
+    void firstCheckInOfTheDayIsCountedThroughTheSeed() {
+        when(rollupService.getBreakdown(today, today)).thenReturn(stored(today, MealType.LUNCH, 1));
+
+        service.recordCheckIn(MealType.LUNCH, today);
+        service.recordCheckIn(MealType.LUNCH, today);
+
+        assertThat(service.currentHeadcount().getCounts()).containsEntry(MealType.LUNCH, 2L);
+        assertThat(service.currentHeadcount().getTotal()).isEqualTo(2);
+        verify(rollupService, times(1)).getBreakdown(any(), any());
+    }
+
+    @Test
+    void checkInRecordedWhileTheSeedIsReadIsNotLost() throws Exception {
+        Thread[] checkIn = new Thread[1];
+        when(rollupService.getBreakdown(today, today)).thenAnswer(invocation -> {
+            // Commits after the seed was read, and is recorded before it has been applied
+            checkIn[0] = new Thread(() -> service.recordCheckIn(MealType.DINNER, today));
+            checkIn[0].start();
+            while (checkIn[0].getState() != Thread.State.BLOCKED) {
+                Thread.onSpinWait();
+            }
+            return stored(today, MealType.DINNER, 3);
+        });
+
+        service.currentHeadcount();
+        checkIn[0].join(5_000);
+
+        assertThat(service.currentHeadcount().getCounts()).containsEntry(MealType.DINNER, 4L);
+    }
+
+    @Test
+    void failedSeedIsRetriedAndLateCheckInsFromYesterdayAreIgnored() {
+        when(rollupService.getBreakdown(today, today))
+                .thenThrow(new IllegalStateException("database unavailable"))
+                .thenReturn(stored(today, MealType.BREAKFAST, 5));
+
+        assertThatThrownBy(service::currentHeadcount).isInstanceOf(IllegalStateException.class);
+        service.recordCheckIn(MealType.BREAKFAST, today.minusDays(1));
+
+        assertThat(service.currentHeadcount().getCounts()).containsEntry(MealType.BREAKFAST, 5L);
+    }
+
+    private static MealCountBreakdownDTO stored(LocalDate date, MealType mealType, long count) {
+        Map<MealType, Long> counts = new EnumMap<>(MealType.class);
+        for (MealType type : MealType.values()) {
+            counts.put(type, type == mealType ? count : 0L);
+        }
+        return new MealCountBreakdownDTO(date, date, counts, count, List.of(new DailyMealCountDTO(date, counts, count)));
+    }
+}
@@ -0,0 +1,49 @@
+package com.messmanagement.report.service;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Meal-count rollups on the embedded H2 database, including the seeding done by the V11 migration.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:meal-count-rollups;DB_CLOSE_DELAY=-1")
+class MealCountRollupServiceH2Test extends MealCountRollupServiceTest {
+
+    @Test
+    void migrationSeedsCountersFromExistingEntries() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:meal-count-seed;DB_CLOSE_DELAY=-1", "sa", "");
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration/h2").target("10").load().migrate();
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (int i = 0; i < 3; i++) {
+            jdbc.update("INSERT INTO users (name, mobile_no, email, address, password_hash, role, created_at, updated_at) "
+                    + "VALUES (?, ?, ?, 'Block A', 'x', 'STUDENT', ?, ?)", "Seed " + i, "7" + String.format("%09d", i), "seed-" + i + "@test.local", now, now);
+        }
+        long entryId = 1;
+        for (Long userId : jdbc.queryForList("SELECT user_id FROM users", Long.class)) {
+            for (String mealType : List.of("BREAKFAST", "LUNCH")) {
+                jdbc.update("INSERT INTO meal_entries (entry_id, user_id, meal_type, entry_date, entry_time) VALUES (?, ?, ?, ?, ?)",
+                        entryId++, userId, mealType, Date.valueOf(DAY), Time.valueOf(LocalTime.NOON));
+            }
+        }
+
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration/h2").target("11").load().migrate();
+
+        assertThat(jdbc.queryForList("SELECT meal_type, entry_count FROM meal_count_rollups WHERE rollup_date = ? ORDER BY meal_type",
+                Date.valueOf(DAY)))
+                .extracting(row -> row.get("MEAL_TYPE") + "=" + row.get("ENTRY_COUNT"))
+                .containsExactly("BREAKFAST=3", "LUNCH=3");
+    }
+}
@@ -0,0 +1,19 @@
+package com.messmanagement.report.service;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Meal-count rollups on PostgreSQL, where counters are upserted with ON CONFLICT. Skipped when Docker is not available.
+ */
+@SpringBootTest(properties = "spring.jpa.database-platform=org.hibernate.dialect.PostgreSQLDialect")
+@Testcontainers(disabledWithoutDocker = true)
+class MealCountRollupServicePostgresTest extends MealCountRollupServiceTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+}
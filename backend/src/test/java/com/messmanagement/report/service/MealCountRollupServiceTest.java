@@ -0,0 +1,80 @@
+package com.messmanagement.report.service;
+
+import com.messmanagement.menu.entity.MealType;
+import com.messmanagement.report.service.MealCountRollupService.RollupKey;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The upsert that check-in writers use on the meal-count rollups. Subclasses run it against a specific database.
+ */
+abstract class MealCountRollupServiceTest {
+
+    static final LocalDate DAY = LocalDate.of(2025, 2, 3);
+
+    @Autowired
+    private MealCountRollupService rollupService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void clearRollups() {
+        jdbcTemplate.update("DELETE FROM meal_count_rollups");
+    }
+
+    @Test
+    void incrementCreatesMissingCountersAndAddsToExistingOnes() {
+        increment(Map.of(new RollupKey(DAY, MealType.LUNCH), 3L));
+        increment(Map.of(new RollupKey(DAY, MealType.LUNCH), 2L, new RollupKey(DAY, MealType.DINNER), 1L));
+
+        assertThat(rollupService.getCountForDate(DAY)).isEqualTo(6);
+        assertThat(rollupService.getBreakdown(DAY, DAY).getTotalsByMealType())
+                .containsEntry(MealType.LUNCH, 5L)
+                .containsEntry(MealType.DINNER, 1L)
+                .containsEntry(MealType.BREAKFAST, 0L);
+    }
+
+    @Test
+    void concurrentWritersOfANewCounterAreBothCounted() throws Exception {
+        ExecutorService writers = Executors.newFixedThreadPool(4);
+        try {
+            List<Callable<Void>> batches = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                LocalDate day = DAY.plusDays(i % 5);
+                batches.add(() -> {
+                    increment(Map.of(new RollupKey(day, MealType.BREAKFAST), 1L));
+                    return null;
+                });
+            }
+            for (Future<Void> batch : writers.invokeAll(batches)) {
+                batch.get();
+            }
+        } finally {
+            writers.shutdown();
+        }
+
+        assertThat(rollupService.getBreakdown(DAY, DAY.plusDays(4)).getTotal()).isEqualTo(20);
+    }
+
+    private void increment(Map<RollupKey, Long> deltas) {
+        transactionTemplate.executeWithoutResult(status -> rollupService.increment(deltas));
+    }
+}
@@ -0,0 +1,137 @@
+package com.messmanagement.report.service;
+
+import com.messmanagement.report.dto.RevenueGranularity;
+import com.messmanagement.report.dto.RevenuePointDTO;
+import com.messmanagement.report.dto.RevenueTimeseriesDTO;
+import com.messmanagement.report.entity.RevenueSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Recording payments in the revenue ledger and reporting totals from its daily rollups, on the embedded H2 database.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:revenue-ledger;DB_CLOSE_DELAY=-1")
+class RevenueLedgerServiceTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2025, 3, 3);
+
+    @Autowired
+    private RevenueLedgerService ledgerService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void clearLedger() {
+        jdbcTemplate.update("DELETE FROM revenue_ledger_entries");
+        jdbcTemplate.update("DELETE FROM revenue_daily_rollups");
+    }
+
+    @Test
+    void datesPaymentsByWhenTheyWerePaidAndCountsReplaysOnce() {
+        Instant lateOnMonday = MONDAY.atTime(23, 50).atZone(ZoneId.systemDefault()).toInstant();
+        assertThat(record(RevenueSource.SUBSCRIPTION, 1L, "pi_1", "3500.00", lateOnMonday)).isTrue();
+        assertThat(record(RevenueSource.SUBSCRIPTION, 1L, "pi_1", "3500.00", lateOnMonday.plusSeconds(3600))).isFalse();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT occurred_on FROM revenue_ledger_entries", LocalDate.class)).isEqualTo(MONDAY);
+        assertThat(ledgerService.getTotalRevenue(MONDAY, MONDAY)).isEqualByComparingTo("3500.00");
+        assertThat(ledgerService.getTotalRevenue(MONDAY.plusDays(1), MONDAY.plusDays(1))).isEqualByComparingTo("0");
+    }
+
+    @Test
+    void totalsSourcesPerWeekAndOverTheRange() {
+        record(RevenueSource.SUBSCRIPTION, 1L, "pi_1", "3500.00", paidOn(MONDAY));
+        record(RevenueSource.DISH_PURCHASE, 2L, "pi_2", "40.50", paidOn(MONDAY.plusDays(6)));
+        record(RevenueSource.DISH_PURCHASE, 3L, "pi_3", "20.25", paidOn(MONDAY.plusDays(7)));
+        record(RevenueSource.DISH_PURCHASE, 4L, "pi_4", "99.00", paidOn(MONDAY.plusDays(30))); // Outside the range
+
+        RevenueTimeseriesDTO series = ledgerService.getTimeseries(MONDAY.plusDays(2), MONDAY.plusDays(9), RevenueGranularity.WEEK);
+
+        assertThat(series.getTotalRevenue()).isEqualByComparingTo("60.75");
+        assertThat(series.getPaymentCount()).isEqualTo(2);
+        assertThat(series.getRevenueBySource().get(RevenueSource.SUBSCRIPTION)).isEqualByComparingTo("0");
+        assertThat(series.getPoints()).extracting(RevenuePointDTO::getPeriodStart, RevenuePointDTO::getPeriodEnd)
+                .containsExactly(
+                        tuple(MONDAY.plusDays(2), MONDAY.plusDays(6)),
+                        tuple(MONDAY.plusDays(7), MONDAY.plusDays(9)));
+        assertThat(series.getPoints()).extracting(RevenuePointDTO::getTotalRevenue)
+                .usingComparatorForType(BigDecimal::compareTo, BigDecimal.class)
+                .containsExactly(new BigDecimal("40.50"), new BigDecimal("20.25"));
+    }
+
+    @Test
+    void concurrentFirstPaymentsOfADayAreAllCounted() throws Exception {
+        int lanes = 8;
+        int days = 10;
+        ExecutorService executor = Executors.newFixedThreadPool(lanes);
+        try {
+            for (int d = 0; d < days; d++) {
+                // Every lane confirms a payment on a day without a rollup row yet, all released at once
+                LocalDate day = MONDAY.plusDays(d);
+                CyclicBarrier start = new CyclicBarrier(lanes);
+                List<Callable<Boolean>> confirmations = new ArrayList<>();
+                for (int lane = 0; lane < lanes; lane++) {
+                    long purchaseId = d * lanes + lane;
+                    confirmations.add(() -> {
+                        start.await();
+                        return record(RevenueSource.DISH_PURCHASE, purchaseId, "pi_" + purchaseId, "10.00", paidOn(day));
+                    });
+                }
+                for (Future<Boolean> confirmation : executor.invokeAll(confirmations)) {
+                    assertThat(confirmation.get()).isTrue();
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        RevenueTimeseriesDTO series = ledgerService.getTimeseries(MONDAY, MONDAY.plusDays(days - 1), RevenueGranularity.DAY);
+        assertThat(series.getTotalRevenue()).isEqualByComparingTo(BigDecimal.valueOf(10L * lanes * days));
+        assertThat(series.getPaymentCount()).isEqualTo(lanes * days);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM revenue_daily_rollups", Integer.class)).isEqualTo(days);
+    }
+
+    @Test
+    void limitsTheRangeEachGranularityMayCover() {
+        LocalDate yearLater = MONDAY.plusYears(1);
+
+        assertThat(ledgerService.getTimeseries(MONDAY, yearLater.minusDays(1), RevenueGranularity.DAY).getPoints()).hasSize(365);
+        assertThatThrownBy(() -> ledgerService.getTimeseries(MONDAY, yearLater, RevenueGranularity.DAY))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(ledgerService.getTimeseries(MONDAY, yearLater, RevenueGranularity.MONTH).getPoints()).hasSize(13);
+        assertThatThrownBy(() -> ledgerService.getTimeseries(MONDAY, MONDAY.plusYears(20), RevenueGranularity.MONTH))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private boolean record(RevenueSource source, Long sourceId, String reference, String amount, Instant paidAt) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status ->
+                ledgerService.recordPayment(source, sourceId, reference, new BigDecimal(amount), paidAt)));
+    }
+
+    private static Instant paidOn(LocalDate date) {
+        return date.atTime(12, 0).atZone(ZoneId.systemDefault()).toInstant();
+    }
+}
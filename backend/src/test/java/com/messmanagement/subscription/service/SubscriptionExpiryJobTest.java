@@ -0,0 +1,102 @@
+package com.messmanagement.subscription.service;
+
+import com.messmanagement.subscription.repository.SubscriptionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The chunked expiry sweep on the embedded H2 database.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:subscription-expiry;DB_CLOSE_DELAY=-1",
+        "mess.subscription.expiry.initial-delay-ms=3600000"})
+class SubscriptionExpiryJobTest {
+
+    private static final int OVERDUE = 5;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private SubscriptionRepository subscriptionRepository;
+
+    @Autowired
+    private SubscriptionExpiryJob expiryJob;
+
+    private long userId;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("DELETE FROM subscriptions");
+        jdbcTemplate.update("DELETE FROM users WHERE email = 'expiry@test.local'");
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("INSERT INTO users (name, mobile_no, email, address, password_hash, role, created_at, updated_at) "
+                + "VALUES ('Expiry', '7300000001', 'expiry@test.local', 'Block A', 'x', 'STUDENT', ?, ?)", now, now);
+        userId = jdbcTemplate.queryForObject("SELECT user_id FROM users WHERE email = 'expiry@test.local'", Long.class);
+        LocalDate today = LocalDate.now();
+        for (int i = 1; i <= OVERDUE; i++) {
+            insertSubscription("ACTIVE", today.minusDays(i));
+        }
+        insertSubscription("ACTIVE", today);          // Still valid for today
+        insertSubscription("CANCELLED", today.minusDays(3));
+    }
+
+    @Test
+    void expiresOverdueActiveSubscriptionsInChunks() {
+        ReflectionTestUtils.setField(expiryJob, "chunkSize", 2);
+        double counted = meterRegistry.counter("subscriptions.expired").count();
+
+        assertThat(expiryJob.expireOverdueSubscriptions()).isEqualTo(OVERDUE);
+        assertThat(expiryJob.expireOverdueSubscriptions()).isZero();
+
+        assertThat(statusCounts()).containsExactly("ACTIVE=1", "CANCELLED=1", "EXPIRED=" + OVERDUE);
+        assertThat(meterRegistry.counter("subscriptions.expired").count() - counted).isEqualTo(OVERDUE);
+    }
+
+    @Test
+    void concurrentSweepsExpireEachRowOnce() {
+        SubscriptionExpiryJob other = new SubscriptionExpiryJob(subscriptionRepository, transactionManager, meterRegistry);
+        ReflectionTestUtils.setField(other, "chunkSize", 1);
+        ReflectionTestUtils.setField(expiryJob, "chunkSize", 1);
+
+        CompletableFuture<Integer> first = CompletableFuture.supplyAsync(expiryJob::expireOverdueSubscriptions);
+        CompletableFuture<Integer> second = CompletableFuture.supplyAsync(other::expireOverdueSubscriptions);
+
+        assertThat(first.join() + second.join()).isEqualTo(OVERDUE);
+        assertThat(statusCounts()).contains("EXPIRED=" + OVERDUE);
+    }
+
+    private void insertSubscription(String status, LocalDate endDate) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("INSERT INTO subscriptions (user_id, start_date, end_date, status, amount_paid, created_at, updated_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?)", userId, Date.valueOf(endDate.minusMonths(1)), Date.valueOf(endDate), status,
+                new BigDecimal("3500.00"), now, now);
+    }
+
+    private List<String> statusCounts() {
+        return jdbcTemplate.queryForList("SELECT status, COUNT(*) AS n FROM subscriptions GROUP BY status ORDER BY status")
+                .stream().map(row -> row.get("status") + "=" + row.get("n")).toList();
+    }
+}